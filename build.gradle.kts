@@ -4,6 +4,7 @@ plugins {
     id("checkstyle")
     id("jacoco")
     id("info.solidsoft.pitest") version "1.5.1"
+    id("me.champeau.gradle.jmh") version "0.5.2"
 }
 
 group = "nl.ricoapon"
@@ -21,8 +22,6 @@ repositories {
 }
 
 dependencies {
-    implementation("org.jgrapht:jgrapht-core:1.5.0")
-
     implementation("com.github.spotbugs:spotbugs-annotations:4.1.1")
 
     testImplementation("org.junit.jupiter:junit-jupiter-api:5.6.2")
@@ -111,3 +110,13 @@ pitest {
 tasks.check {
     finalizedBy(tasks.pitest)
 }
+
+// ================
+// JMH
+// ================
+jmh {
+    jmhVersion = "1.26"
+    // Results are written as JSON, so that the results of different releases can be compared.
+    resultFormat = "JSON"
+    resultsFile = project.file("build/reports/jmh/results.json")
+}
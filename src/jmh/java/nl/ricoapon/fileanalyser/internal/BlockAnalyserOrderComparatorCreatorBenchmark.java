@@ -0,0 +1,88 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyserOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the startup cost of ordering block analysers, i.e. creating the comparator and sorting with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockAnalyserOrderComparatorCreatorBenchmark {
+    @Param({"10", "100", "1000"})
+    public int nrOfBlockAnalysers;
+
+    private final BlockAnalyserOrderComparatorCreator<String> blockAnalyserOrderComparatorCreator = new BlockAnalyserOrderComparatorCreator<>();
+    private List<BlockAnalyser<String, ?>> blockAnalysers;
+
+    public static class Independent implements BlockAnalyser<String, Object> {
+        @Override
+        public void processBlock(String block, Object storage) {
+        }
+
+        @Override
+        public Class<Object> getStorageClass() {
+            return Object.class;
+        }
+    }
+
+    public static class Layer1 extends Independent {
+    }
+
+    @BlockAnalyserOrder(after = Layer1.class)
+    public static class Layer2 extends Independent {
+    }
+
+    @BlockAnalyserOrder(after = Layer2.class)
+    public static class Layer3 extends Independent {
+    }
+
+    @BlockAnalyserOrder(after = {Layer1.class, Layer3.class})
+    public static class Layer4 extends Independent {
+    }
+
+    /**
+     * Creates a configuration where one in ten block analysers takes part in a layered order relation and the others are
+     * independent, which resembles a configuration with many plugins. The ordered analysers are added in reverse order.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        blockAnalysers = new ArrayList<>(nrOfBlockAnalysers);
+        for (int i = 0; i < nrOfBlockAnalysers; i++) {
+            switch (i % 40) {
+                case 0 -> blockAnalysers.add(new Layer4());
+                case 10 -> blockAnalysers.add(new Layer3());
+                case 20 -> blockAnalysers.add(new Layer2());
+                case 30 -> blockAnalysers.add(new Layer1());
+                default -> blockAnalysers.add(new Independent());
+            }
+        }
+    }
+
+    @Benchmark
+    public List<BlockAnalyser<String, ?>> createAndSort() {
+        List<BlockAnalyser<String, ?>> blockAnalyserList = new ArrayList<>(blockAnalysers);
+        blockAnalyserList.sort(blockAnalyserOrderComparatorCreator.create(blockAnalyserList));
+        return blockAnalyserList;
+    }
+}
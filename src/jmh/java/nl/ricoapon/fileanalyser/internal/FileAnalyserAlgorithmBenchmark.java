@@ -0,0 +1,94 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FileAnalyserAlgorithm#execute} for different numbers of block analysers and blocks, and for different
+ * fractions of blocks that are accepted by {@link BlockAnalyser#shouldProcessBlock(Object, Object)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileAnalyserAlgorithmBenchmark {
+    @Param({"1", "10", "50"})
+    public int nrOfBlockAnalysers;
+
+    @Param({"10000", "1000000"})
+    public int nrOfBlocks;
+
+    /** Percentage of the blocks that is accepted by each block analyser. */
+    @Param({"2", "50", "100"})
+    public int selectivity;
+
+    private final FileAnalyserAlgorithm<Integer> fileAnalyserAlgorithm = new FileAnalyserAlgorithm<>(new BlockAnalyserOrderComparatorCreator<>());
+    private final List<BlockAnalyser<Integer, ?>> blockAnalysers = new ArrayList<>();
+    private List<Integer> blocks;
+
+    public static class Counter {
+        public long count;
+    }
+
+    /** Counts the blocks whose value modulo 100 is smaller than the selectivity. */
+    public static class CountSelectedBlocks implements BlockAnalyser<Integer, Counter> {
+        private final int selectivity;
+
+        public CountSelectedBlocks(int selectivity) {
+            this.selectivity = selectivity;
+        }
+
+        @Override
+        public boolean shouldProcessBlock(Integer block, Counter storage) {
+            return block < selectivity;
+        }
+
+        @Override
+        public void processBlock(Integer block, Counter storage) {
+            storage.count++;
+        }
+
+        @Override
+        public Class<Counter> getStorageClass() {
+            return Counter.class;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        for (int i = 0; i < nrOfBlockAnalysers; i++) {
+            blockAnalysers.add(new CountSelectedBlocks(selectivity));
+        }
+        Random random = new Random(42);
+        blocks = new ArrayList<>(nrOfBlocks);
+        for (int i = 0; i < nrOfBlocks; i++) {
+            blocks.add(random.nextInt(100));
+        }
+    }
+
+    @Benchmark
+    public Map<Class<?>, Object> execute() {
+        StorageInstanceContainer storageInstanceContainer = new StorageInstanceContainer(Collections.singletonList(new Counter()));
+        return fileAnalyserAlgorithm.execute(blocks.iterator(), blockAnalysers, storageInstanceContainer);
+    }
+}
@@ -0,0 +1,93 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Measures the lookup of storage instances for block analysers in {@link StorageInstanceContainer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageInstanceContainerBenchmark {
+    /** Classes of the JDK are used as storage classes, since every storage instance must have a different class. */
+    private static final List<Supplier<Object>> STORAGE_FACTORIES = List.of(ArrayList::new, HashMap::new, HashSet::new,
+            LinkedList::new, TreeMap::new, TreeSet::new, ArrayDeque::new, BitSet::new);
+
+    @Param({"1", "8"})
+    public int nrOfStorages;
+
+    private final List<BlockAnalyser<String, ?>> blockAnalysers = new ArrayList<>();
+    private StorageInstanceContainer storageInstanceContainer;
+
+    /** Block analyser that only defines its storage class. */
+    public static class StorageClassBlockAnalyser implements BlockAnalyser<String, Object> {
+        private final Class<Object> storageClass;
+
+        @SuppressWarnings("unchecked")
+        public StorageClassBlockAnalyser(Class<?> storageClass) {
+            this.storageClass = (Class<Object>) storageClass;
+        }
+
+        @Override
+        public void processBlock(String block, Object storage) {
+        }
+
+        @Override
+        public Class<Object> getStorageClass() {
+            return storageClass;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Object> storageInstances = new ArrayList<>();
+        for (int i = 0; i < nrOfStorages; i++) {
+            Object storageInstance = STORAGE_FACTORIES.get(i).get();
+            storageInstances.add(storageInstance);
+            blockAnalysers.add(new StorageClassBlockAnalyser(storageInstance.getClass()));
+        }
+        storageInstanceContainer = new StorageInstanceContainer(storageInstances);
+    }
+
+    /** Looks up the storage instance of every block analyser once. */
+    @Benchmark
+    public void getStorageForBlockAnalyser(Blackhole blackhole) {
+        for (BlockAnalyser<String, ?> blockAnalyser : blockAnalysers) {
+            blackhole.consume(storageInstanceContainer.getStorageForBlockAnalyser(blockAnalyser));
+        }
+    }
+
+    /** Binds all block analysers to their storage instance once, which is what {@link FileAnalyserPlan} does. */
+    @Benchmark
+    public FileAnalyserPlan<String> createPlan() {
+        return new FileAnalyserPlan<>(blockAnalysers, storageInstanceContainer);
+    }
+}
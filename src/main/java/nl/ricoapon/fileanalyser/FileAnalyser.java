@@ -1,17 +1,49 @@
 package nl.ricoapon.fileanalyser;
 
 import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockClassifier;
+import nl.ricoapon.fileanalyser.analyser.KeyedBlockAnalyser;
+import nl.ricoapon.fileanalyser.cache.ResultCache;
+import nl.ricoapon.fileanalyser.checkpoint.Checkpoint;
+import nl.ricoapon.fileanalyser.checkpoint.CheckpointDirectory;
+import nl.ricoapon.fileanalyser.checkpoint.CheckpointPolicy;
+import nl.ricoapon.fileanalyser.checkpoint.CheckpointingExecutionStrategy;
+import nl.ricoapon.fileanalyser.execution.ExecutionStrategy;
+import nl.ricoapon.fileanalyser.execution.PlanSubscriber;
+import nl.ricoapon.fileanalyser.execution.SequentialExecutionStrategy;
 import nl.ricoapon.fileanalyser.internal.BlockAnalyserOrderComparatorCreator;
 import nl.ricoapon.fileanalyser.internal.FileAnalyserAlgorithm;
 import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
 import nl.ricoapon.fileanalyser.internal.ReflectionUtil;
 import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.memory.MemoryBudget;
+import nl.ricoapon.fileanalyser.metrics.FileAnalyserMetrics;
+import nl.ricoapon.fileanalyser.metrics.FileAnalyserMetricsListener;
+import nl.ricoapon.fileanalyser.metrics.JfrMetricsRecorder;
+import nl.ricoapon.fileanalyser.metrics.MetricsRecorder;
+import nl.ricoapon.fileanalyser.storage.JavaSerializationStorageCodec;
+import nl.ricoapon.fileanalyser.storage.StorageCodec;
+import nl.ricoapon.fileanalyser.supplier.BlockSampler;
+import nl.ricoapon.fileanalyser.supplier.PositionedBlockSupplier;
+import nl.ricoapon.fileanalyser.supplier.RecyclingBlockSupplier;
+import nl.ricoapon.fileanalyser.supplier.SampledBlockSupplier;
+import nl.ricoapon.fileanalyser.supplier.SplittableFileSource;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -19,17 +51,47 @@ import java.util.stream.Collectors;
  * @param <B> The type of the block.
  */
 public class FileAnalyser<B> {
+    /** Default number of calls of a block analyser of which one is timed when metrics are enabled. */
+    public static final int DEFAULT_TIMING_SAMPLE_INTERVAL = 64;
+    /** Default maximum number of blocks that are requested at once from a {@link Flow.Publisher}. */
+    public static final int DEFAULT_DEMAND_BATCH_SIZE = 256;
+
     private final FileAnalyserAlgorithm<B> fileAnalyserAlgorithm;
     private final Iterator<B> blockSupplier;
     private final Collection<BlockAnalyser<B, ?>> blockAnalysers = new ArrayList<>();
     private final Collection<Object> storageInstances = new ArrayList<>();
+    private final List<FileAnalyserMetricsListener> metricsListeners = new ArrayList<>();
+    /** Number of calls of which one is timed, or 0 if metrics are disabled. */
+    private int timingSampleInterval;
+    private Duration slowProcessBlockThreshold = JfrMetricsRecorder.DEFAULT_SLOW_PROCESS_BLOCK_THRESHOLD;
+    private BlockClassifier<B, ?> blockClassifier;
+    /** Function that copies a recycled block, or null if the blocks are not recycled. */
+    private UnaryOperator<B> blockDetacher;
+    private CheckpointDirectory checkpointDirectory;
+    private CheckpointPolicy checkpointPolicy;
+    /** The number of blocks processed before the first block of the supplier, when resumed from a checkpoint. */
+    private long resumedBlockCount;
+    /** The checkpoint of which the processed blocks must be skipped at the start of the next run, or null. */
+    private Checkpoint checkpointToSkip;
+    private ResultCache resultCache;
+    private Path resultCacheInputFile;
+    private String resultCacheVersion;
+    private MemoryBudget memoryBudget;
+    private BlockSampler<B> blockSampler;
+    /** The block supplier of the most recent run if it only supplied a sample of the blocks, or null. */
+    private volatile SampledBlockSupplier<B> lastSampledBlockSupplier;
 
     FileAnalyser(Iterator<B> blockSupplier, FileAnalyserAlgorithm<B> fileAnalyserAlgorithm) {
         this.blockSupplier = blockSupplier;
         this.fileAnalyserAlgorithm = fileAnalyserAlgorithm;
+        if (blockSupplier instanceof RecyclingBlockSupplier) {
+            this.blockDetacher = ((RecyclingBlockSupplier<B>) blockSupplier)::detach;
+        }
     }
 
     /**
+     * If the block supplier is a {@link RecyclingBlockSupplier}, its blocks are detached by the execution strategies that
+     * keep blocks. A supplier that wraps a recycling supplier must be configured with {@link #setRecycledBlocks(UnaryOperator)}.
      * @param blockSupplier The block supplier.
      * @param <B>           The type of the block.
      * @return {@link FileAnalyser} class which can be used to supply the needed classes and run the algorithm.
@@ -38,6 +100,15 @@ public class FileAnalyser<B> {
         return new FileAnalyser<>(blockSupplier, new FileAnalyserAlgorithm<>(new BlockAnalyserOrderComparatorCreator<>()));
     }
 
+    /**
+     * @param <B> The type of the block.
+     * @return {@link FileAnalyser} class without a block supplier, of which the blocks are supplied by a
+     * {@link Flow.Publisher} using {@link #subscribe(Flow.Publisher)}.
+     */
+    public static <B> FileAnalyser<B> forPublisher() {
+        return of(Collections.emptyIterator());
+    }
+
     /**
      * See {@link #addBlockAnalysers(Collection)}.
      */
@@ -111,9 +182,417 @@ public class FileAnalyser<B> {
     }
 
     /**
-     * See {@link FileAnalyserAlgorithm#execute(Iterator, Collection, StorageInstanceContainer)}.
+     * Sets the classifier that determines the key of each block. Blocks are then only offered to the
+     * {@link KeyedBlockAnalyser}s that accept the key of the block, and to all other block analysers. Keyed block analysers
+     * can only be used with a classifier.
+     * @param blockClassifier The classifier.
+     * @return This object.
+     */
+    public FileAnalyser<B> setBlockClassifier(BlockClassifier<B, ?> blockClassifier) {
+        this.blockClassifier = blockClassifier;
+        return this;
+    }
+
+    /**
+     * Sets whether the block supplier recycles blocks, see {@link RecyclingBlockSupplier}. Recycled blocks are not offered
+     * in batches, and are detached by the execution strategies that keep blocks after the next block has been read.
+     * @param blockDetacher Function that copies a recycled block into a block that is never recycled, or null if the
+     *                      blocks are not recycled.
+     * @return This object.
+     */
+    public FileAnalyser<B> setRecycledBlocks(UnaryOperator<B> blockDetacher) {
+        this.blockDetacher = blockDetacher;
+        return this;
+    }
+
+    /**
+     * Enables writing checkpoints during {@link #execute()}, from which the analysis can be resumed with
+     * {@link #resumeFrom(Checkpoint)}. The storage instances must be supported by the codec of the directory.
+     * @param checkpointDirectory The directory to write the checkpoints to.
+     * @param checkpointPolicy    The policy that determines when a checkpoint is written.
+     * @return This object.
+     * @throws FileAnalyserConfigurationException If a {@link BlockSampler} is set.
+     */
+    public FileAnalyser<B> enableCheckpoints(CheckpointDirectory checkpointDirectory, CheckpointPolicy checkpointPolicy) {
+        this.checkpointDirectory = checkpointDirectory;
+        this.checkpointPolicy = checkpointPolicy;
+        checkBlockSamplerIsNotCheckpointed();
+        return this;
+    }
+
+    /**
+     * Continues the analysis from the given checkpoint. All storage instances that were added are replaced by the storage
+     * instances of the checkpoint, so this must be called after adding the storage instances. If the block supplier is a
+     * {@link PositionedBlockSupplier} and the checkpoint has a position, the supplier continues from that position.
+     * Otherwise the number of blocks in the checkpoint is skipped. The supplier is only moved when the next run starts.
+     * <p>
+     * This can also be used to continue the analysis of an append-only file where the previous run stopped.
+     * @param checkpoint The checkpoint.
+     * @return This object.
+     * @throws FileAnalyserConfigurationException If the checkpoint does not contain one of the storage instances, or if
+     *                                            a {@link BlockSampler} is set.
+     */
+    public FileAnalyser<B> resumeFrom(Checkpoint checkpoint) {
+        List<Object> restoredStorageInstances = storageInstances.stream()
+                .map(storageInstance -> checkpoint.readStorage(storageInstance.getClass()))
+                .collect(Collectors.toList());
+        storageInstances.clear();
+        storageInstances.addAll(restoredStorageInstances);
+
+        checkpointToSkip = checkpoint;
+        resumedBlockCount = checkpoint.getBlockCount();
+        checkBlockSamplerIsNotCheckpointed();
+        return this;
+    }
+
+    /**
+     * Enables reusing the result of an earlier run of {@link #execute()} or {@link #execute(ExecutionStrategy)} for the
+     * same content of the input file, block analyser classes, storage classes, block classifier class and version. If
+     * the result is found, no blocks are read and the storage instances in the result are copies read from the cache
+     * instead of the instances that were added. Metrics are not recorded in that case. Runs that sample the blocks are
+     * never cached, because their result is not the result for the content of the file.
+     * @param resultCache The cache.
+     * @param inputFile   The file from which the block supplier reads the blocks.
+     * @param version     The version of the analysis, which must be changed whenever the block analysers or storage
+     *                    instances are configured or implemented differently.
+     * @return This object.
+     */
+    public FileAnalyser<B> enableResultCache(ResultCache resultCache, Path inputFile, String version) {
+        this.resultCache = resultCache;
+        this.resultCacheInputFile = inputFile;
+        this.resultCacheVersion = version;
+        return this;
+    }
+
+    /**
+     * Offers only a sample of the blocks of the block supplier to the block analysers during every run, for fast
+     * approximate answers. The effective sampling rate is reported by {@link #getSamplingRate()}. To sample a file
+     * without reading it completely, use a block supplier created by {@link SplittableFileSource#sample(double, long, long)}
+     * instead.
+     * <p>
+     * A sampler can not be combined with checkpoints, because the state of the sampler is not part of a checkpoint.
+     * @param blockSampler The sampler, for example {@link BlockSampler#bernoulli(double, long)}, or null to offer all blocks.
+     * @return This object.
+     * @throws FileAnalyserConfigurationException If checkpoints are enabled or the analysis is resumed from a checkpoint.
+     */
+    public FileAnalyser<B> setBlockSampler(BlockSampler<B> blockSampler) {
+        this.blockSampler = blockSampler;
+        checkBlockSamplerIsNotCheckpointed();
+        return this;
+    }
+
+    /**
+     * @throws FileAnalyserConfigurationException If a {@link BlockSampler} is combined with checkpoints.
+     */
+    private void checkBlockSamplerIsNotCheckpointed() {
+        if (blockSampler != null && (checkpointDirectory != null || checkpointToSkip != null || resumedBlockCount != 0)) {
+            throw new FileAnalyserConfigurationException("A block sampler can not be combined with checkpoints, because the " +
+                    "blocks that the sampler skipped and the state of the sampler are not part of a checkpoint.");
+        }
+    }
+
+    /**
+     * @return The effective sampling rate of the most recent run, as reported by {@link SampledBlockSupplier#getSamplingRate()},
+     * or 1 if all blocks were analysed. This is available for every way of executing the algorithm. While the run is in
+     * progress on another thread, the rate so far may not be visible yet.
+     */
+    public double getSamplingRate() {
+        SampledBlockSupplier<B> sampledBlockSupplier = lastSampledBlockSupplier;
+        return sampledBlockSupplier == null ? 1 : sampledBlockSupplier.getSamplingRate();
+    }
+
+    /**
+     * Limits the estimated memory usage of the storage instances during every run, see {@link MemoryBudget}. The budget
+     * is checked on the thread that processes the blocks, so execution strategies that process blocks on worker threads
+     * can not be used with a budget.
+     * @param memoryBudget The budget, or null to remove it.
+     * @return This object.
+     */
+    public FileAnalyser<B> setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+        return this;
+    }
+
+    /**
+     * Enables recording metrics for each block analyser during every run, see {@link MetricsRecorder}. The metrics are
+     * passed to the listeners added with {@link #addMetricsListener(FileAnalyserMetricsListener)}.
+     * @param timingSampleInterval Time one in this many calls of each block analyser. Use 1 to time every call.
+     * @return This object.
+     * @throws FileAnalyserConfigurationException If the interval is not positive.
+     */
+    public FileAnalyser<B> enableMetrics(int timingSampleInterval) {
+        if (timingSampleInterval <= 0) {
+            throw new FileAnalyserConfigurationException("The timing sample interval must be positive, but was " + timingSampleInterval + ".");
+        }
+        this.timingSampleInterval = timingSampleInterval;
+        return this;
+    }
+
+    /**
+     * Adds a listener that is notified after each run if metrics are enabled with {@link #enableMetrics(int)}, and after
+     * each call of {@link #executeWithMetrics()}. Runs that only record metrics to emit JFR events do not notify listeners.
+     * @param metricsListener The listener.
+     * @return This object.
+     */
+    public FileAnalyser<B> addMetricsListener(FileAnalyserMetricsListener metricsListener) {
+        metricsListeners.add(metricsListener);
+        return this;
+    }
+
+    /**
+     * Sets the minimum processing time of a call for which a JFR event is emitted, if a JFR recording is running with
+     * the event {@code nl.ricoapon.fileanalyser.SlowProcessBlock} enabled.
+     * @param slowProcessBlockThreshold The threshold.
+     * @return This object.
+     */
+    public FileAnalyser<B> setSlowProcessBlockThreshold(Duration slowProcessBlockThreshold) {
+        this.slowProcessBlockThreshold = slowProcessBlockThreshold;
+        return this;
+    }
+
+    /**
+     * See {@link FileAnalyserAlgorithm#execute(Iterator, Collection, StorageInstanceContainer)}. If checkpoints are
+     * enabled, the blocks are processed by {@link CheckpointingExecutionStrategy}.
      */
     public Map<Class<?>, Object> execute() {
-        return fileAnalyserAlgorithm.execute(blockSupplier, blockAnalysers, new StorageInstanceContainer(storageInstances));
+        return executeUsingResultCache(this::executeWithoutResultCache);
+    }
+
+    private Map<Class<?>, Object> executeWithoutResultCache() {
+        if (checkpointDirectory != null) {
+            return executeWithoutResultCache(new CheckpointingExecutionStrategy<>(checkpointDirectory, checkpointPolicy, resumedBlockCount));
+        }
+        if (isRecordingMetrics() || isUsingKeys() || memoryBudget != null || blockDetacher != null) {
+            return executeWithoutResultCache(new SequentialExecutionStrategy<>());
+        }
+        return fileAnalyserAlgorithm.execute(createRunBlockSupplier(), blockAnalysers, new StorageInstanceContainer(storageInstances));
+    }
+
+    /**
+     * Executes the algorithm using the given strategy, for example to process the blocks in parallel.
+     * @param executionStrategy The execution strategy.
+     * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value.
+     */
+    public Map<Class<?>, Object> execute(ExecutionStrategy<B> executionStrategy) {
+        return executeUsingResultCache(() -> executeWithoutResultCache(executionStrategy));
+    }
+
+    private Map<Class<?>, Object> executeWithoutResultCache(ExecutionStrategy<B> executionStrategy) {
+        if (isRecordingMetrics()) {
+            return executeWithMetrics(executionStrategy, createRunPlan(), metricsTimingSampleInterval(), isMetricsEnabled()).getStorages();
+        }
+        return executionStrategy.execute(createRunBlockSupplier(), createRunPlan());
+    }
+
+    private Map<Class<?>, Object> executeUsingResultCache(Supplier<Map<Class<?>, Object>> execution) {
+        if (resultCache == null || blockSampler != null || blockSupplier instanceof SampledBlockSupplier) {
+            return execution.get();
+        }
+
+        List<Class<?>> storageClasses = storageInstances.stream().map(Object::getClass).collect(Collectors.toList());
+        List<Class<?>> classes = new ArrayList<>();
+        blockAnalysers.forEach(blockAnalyser -> classes.add(blockAnalyser.getClass()));
+        classes.addAll(storageClasses);
+        if (blockClassifier != null) {
+            classes.add(blockClassifier.getClass());
+        }
+        String key = ResultCache.createKey(resultCacheInputFile, classes, resultCacheVersion);
+
+        Optional<Map<Class<?>, Object>> cachedStorages = resultCache.get(key, storageClasses);
+        if (cachedStorages.isPresent()) {
+            lastSampledBlockSupplier = null;
+            return cachedStorages.get();
+        }
+        Map<Class<?>, Object> storages = execution.get();
+        resultCache.put(key, storages);
+        return storages;
+    }
+
+    /**
+     * Executes the algorithm as {@link #execute()} does, using the given executor.
+     * @param executor The executor that runs the algorithm.
+     * @return Future that is completed with the storage instances, or exceptionally if the algorithm fails.
+     */
+    public CompletableFuture<Map<Class<?>, Object>> executeAsync(Executor executor) {
+        return CompletableFuture.supplyAsync(this::execute, executor);
+    }
+
+    /**
+     * Executes the algorithm using the given strategy as {@link #execute(ExecutionStrategy)} does, using the given executor.
+     * @param executionStrategy The execution strategy.
+     * @param executor          The executor that runs the algorithm.
+     * @return Future that is completed with the storage instances, or exceptionally if the algorithm fails.
+     */
+    public CompletableFuture<Map<Class<?>, Object>> executeAsync(ExecutionStrategy<B> executionStrategy, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> execute(executionStrategy), executor);
+    }
+
+    /**
+     * See {@link #subscribe(Flow.Publisher, int)}. Uses {@link #DEFAULT_DEMAND_BATCH_SIZE}.
+     */
+    public CompletableFuture<Map<Class<?>, Object>> subscribe(Flow.Publisher<B> publisher) {
+        return subscribe(publisher, DEFAULT_DEMAND_BATCH_SIZE);
+    }
+
+    /**
+     * Processes the blocks of the publisher instead of the block supplier, see {@link PlanSubscriber}. The blocks are
+     * processed on the threads of the publisher, so no thread is blocked while waiting for blocks. Checkpoints are not
+     * written for the blocks of a publisher, and the blocks are not sampled.
+     * @param publisher       The publisher of the blocks.
+     * @param demandBatchSize The maximum number of blocks that are requested at once.
+     * @return Future that is completed with the storage instances once the publisher completes, or exceptionally if the
+     * publisher or the algorithm fails. Cancelling the future cancels the subscription.
+     * @throws FileAnalyserConfigurationException If the demand batch size is not positive.
+     */
+    public CompletableFuture<Map<Class<?>, Object>> subscribe(Flow.Publisher<B> publisher, int demandBatchSize) {
+        FileAnalyserPlan<B> plan = createRunPlan();
+        // The blocks of a publisher are never sampled.
+        lastSampledBlockSupplier = null;
+        PlanSubscriber<B> planSubscriber;
+        if (isRecordingMetrics()) {
+            MetricsRecorder metricsRecorder = createMetricsRecorder(plan, metricsTimingSampleInterval());
+            planSubscriber = new PlanSubscriber<>(plan.withMetricsRecorder(metricsRecorder), demandBatchSize);
+            metricsRecorder.startRun();
+            planSubscriber.getResult().whenComplete((storages, throwable) -> {
+                FileAnalyserMetrics metrics = metricsRecorder.completeRun();
+                if (throwable == null && isMetricsEnabled()) {
+                    metricsListeners.forEach(metricsListener -> metricsListener.onRunCompleted(metrics));
+                }
+            });
+        } else {
+            planSubscriber = new PlanSubscriber<>(plan, demandBatchSize);
+        }
+        publisher.subscribe(planSubscriber);
+        return planSubscriber.getResult();
+    }
+
+    /**
+     * Executes the algorithm sequentially while recording metrics, even if metrics are not enabled with
+     * {@link #enableMetrics(int)}. In that case {@link #DEFAULT_TIMING_SAMPLE_INTERVAL} is used.
+     * @return The storage instances, the metrics and the sampling rate of the run.
+     */
+    public FileAnalyserResult executeWithMetrics() {
+        return executeWithMetrics(new SequentialExecutionStrategy<>(), createRunPlan(), metricsTimingSampleInterval(), true);
+    }
+
+    private int metricsTimingSampleInterval() {
+        return timingSampleInterval > 0 ? timingSampleInterval : DEFAULT_TIMING_SAMPLE_INTERVAL;
+    }
+
+    private boolean isUsingKeys() {
+        return blockClassifier != null || blockAnalysers.stream().anyMatch(blockAnalyser -> blockAnalyser instanceof KeyedBlockAnalyser);
+    }
+
+    private boolean isMetricsEnabled() {
+        return timingSampleInterval > 0;
+    }
+
+    /**
+     * @return Whether metrics must be recorded, either because they are enabled or because a JFR recording is running. In
+     * the latter case the metrics are only used for the JFR events, see {@link #isMetricsEnabled()}.
+     */
+    private boolean isRecordingMetrics() {
+        return isMetricsEnabled() || JfrMetricsRecorder.isAnyEventEnabled();
+    }
+
+    /**
+     * Metrics are only recorded for the blocks that the strategy offers to the given plan itself. Strategies that
+     * process blocks on other threads use plans without a recorder, so those blocks are only counted in
+     * {@link FileAnalyserMetrics#getElapsedNanos()}.
+     * @param notifyListeners Whether the metrics listeners are notified after the run.
+     */
+    private FileAnalyserResult executeWithMetrics(ExecutionStrategy<B> executionStrategy, FileAnalyserPlan<B> plan, int interval,
+                                                  boolean notifyListeners) {
+        MetricsRecorder metricsRecorder = createMetricsRecorder(plan, interval);
+        metricsRecorder.startRun();
+        Iterator<B> runBlockSupplier = createRunBlockSupplier();
+        Map<Class<?>, Object> storages;
+        FileAnalyserMetrics metrics;
+        try {
+            storages = executionStrategy.execute(runBlockSupplier, plan.withMetricsRecorder(metricsRecorder));
+        } finally {
+            metrics = metricsRecorder.completeRun();
+        }
+
+        if (notifyListeners) {
+            metricsListeners.forEach(metricsListener -> metricsListener.onRunCompleted(metrics));
+        }
+        return new FileAnalyserResult(storages, metrics, getSamplingRate());
+    }
+
+    private MetricsRecorder createMetricsRecorder(FileAnalyserPlan<B> plan, int interval) {
+        return JfrMetricsRecorder.isAnyEventEnabled()
+                ? new JfrMetricsRecorder(plan.getBlockAnalysers(), interval, slowProcessBlockThreshold)
+                : new MetricsRecorder(plan.getBlockAnalysers(), interval);
+    }
+
+    /**
+     * See {@link #startLiveAnalysis(StorageCodec)}. Snapshots are copied using {@link JavaSerializationStorageCodec}.
+     */
+    public LiveAnalysis<B> startLiveAnalysis() {
+        return startLiveAnalysis(new JavaSerializationStorageCodec());
+    }
+
+    /**
+     * Starts processing the blocks on a background thread, for a block supplier that does not end. The results so far
+     * can be retrieved using {@link LiveAnalysis#snapshot()} while the analysis continues.
+     * @param storageCodec The codec used to copy the storage instances for snapshots.
+     * @return The running {@link LiveAnalysis}, which must be closed to stop it.
+     * @throws FileAnalyserConfigurationException If no storage instance is supplied for one of the block analysers.
+     */
+    public LiveAnalysis<B> startLiveAnalysis(StorageCodec storageCodec) {
+        LiveAnalysis<B> liveAnalysis = new LiveAnalysis<>(createRunBlockSupplier(), createRunPlan(), storageCodec);
+        liveAnalysis.start();
+        return liveAnalysis;
+    }
+
+    /**
+     * Creates a {@link FileAnalyserPlan} of the current configuration. The block analysers are sorted and bound to their
+     * storage instances only once, after which the plan can be executed for any number of block suppliers.
+     * @return {@link FileAnalyserPlan}.
+     * @throws FileAnalyserConfigurationException If no storage instance is supplied for one of the block analysers.
+     */
+    public FileAnalyserPlan<B> createPlan() {
+        return fileAnalyserAlgorithm.createPlan(blockAnalysers, new StorageInstanceContainer(storageInstances))
+                .withBlockClassifier(blockClassifier)
+                .withRecycledBlocks(blockDetacher);
+    }
+
+    /**
+     * @return The plan of {@link #createPlan()} for a single run, with a new {@link MemoryBudget} tracker if there is a budget.
+     */
+    private FileAnalyserPlan<B> createRunPlan() {
+        FileAnalyserPlan<B> plan = createPlan();
+        if (memoryBudget == null) {
+            return plan;
+        }
+        return plan.withMemoryBudgetTracker(memoryBudget.createTracker(plan.getStorageInstanceContainer()));
+    }
+
+    /**
+     * @return The block supplier for a single run, which continues after the blocks of the checkpoint it is resumed
+     * from and selects a sample of the blocks if there is a sampler.
+     */
+    private Iterator<B> createRunBlockSupplier() {
+        if (checkpointToSkip != null) {
+            skipProcessedBlocks(checkpointToSkip);
+            checkpointToSkip = null;
+        }
+        Iterator<B> runBlockSupplier = blockSampler == null ? blockSupplier : blockSampler.sample(blockSupplier);
+        lastSampledBlockSupplier = runBlockSupplier instanceof SampledBlockSupplier ? (SampledBlockSupplier<B>) runBlockSupplier : null;
+        return runBlockSupplier;
+    }
+
+    /**
+     * Moves the block supplier past the blocks that were processed before the checkpoint was written.
+     */
+    private void skipProcessedBlocks(Checkpoint checkpoint) {
+        if (blockSupplier instanceof PositionedBlockSupplier && checkpoint.getPosition() != Checkpoint.NO_POSITION) {
+            ((PositionedBlockSupplier<?>) blockSupplier).seek(checkpoint.getPosition());
+        } else {
+            for (long i = 0; i < checkpoint.getBlockCount() && blockSupplier.hasNext(); i++) {
+                blockSupplier.next();
+            }
+        }
     }
 }
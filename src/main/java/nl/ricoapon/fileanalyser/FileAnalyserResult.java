@@ -0,0 +1,58 @@
+package nl.ricoapon.fileanalyser;
+
+import nl.ricoapon.fileanalyser.metrics.FileAnalyserMetrics;
+import nl.ricoapon.fileanalyser.supplier.SampledBlockSupplier;
+
+import java.util.Map;
+
+/**
+ * Result of a run: the storage instances and the metrics that were recorded during the run. If only a sample of the
+ * blocks was analysed, the result also contains the effective sampling rate, so that counts can be scaled.
+ */
+public class FileAnalyserResult {
+    private final Map<Class<?>, Object> storages;
+    private final FileAnalyserMetrics metrics;
+    private final double samplingRate;
+
+    FileAnalyserResult(Map<Class<?>, Object> storages, FileAnalyserMetrics metrics, double samplingRate) {
+        this.storages = storages;
+        this.metrics = metrics;
+        this.samplingRate = samplingRate;
+    }
+
+    /**
+     * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value.
+     */
+    public Map<Class<?>, Object> getStorages() {
+        return storages;
+    }
+
+    /**
+     * @param storageClass The class of the storage instance.
+     * @param <S>          The type of the storage instance.
+     * @return The storage instance of the given class, or null if there is none.
+     */
+    public <S> S getStorage(Class<S> storageClass) {
+        return storageClass.cast(storages.get(storageClass));
+    }
+
+    public FileAnalyserMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return The fraction of the blocks that was analysed, as reported by {@link SampledBlockSupplier#getSamplingRate()},
+     * or 1 if all blocks were analysed.
+     */
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    /**
+     * @param sampledCount A count of the analysed blocks, for example the number of lines containing an error.
+     * @return The estimated count for all blocks.
+     */
+    public long scaleToAllBlocks(long sampledCount) {
+        return Math.round(sampledCount / samplingRate);
+    }
+}
@@ -0,0 +1,138 @@
+package nl.ricoapon.fileanalyser;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserExecutionException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.PlanRun;
+import nl.ricoapon.fileanalyser.storage.StorageCodec;
+import nl.ricoapon.fileanalyser.supplier.SampledBlockSupplier;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analysis that runs in the background for a block supplier that does not end, like
+ * {@link nl.ricoapon.fileanalyser.supplier.TailingLineSupplier}. Blocks are processed one by one as soon as they are
+ * supplied, and {@link #snapshot()} returns a consistent copy of the storage instances while the analysis continues.
+ * <p>
+ * Each block is processed while holding a lock that is also held while taking a snapshot, so a snapshot never contains
+ * a partially processed block.
+ * @param <B> The type of the block.
+ */
+public class LiveAnalysis<B> implements Closeable {
+    private final Iterator<B> blockSupplier;
+    /** The block supplier if it only supplies a sample of the blocks, or null. */
+    private final SampledBlockSupplier<B> sampledBlockSupplier;
+    private final FileAnalyserPlan<B> plan;
+    private final StorageCodec storageCodec;
+    private final Object lock = new Object();
+    private final Thread thread;
+    private volatile RuntimeException failure;
+    private long blockCount;
+    private double samplingRate;
+
+    LiveAnalysis(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan, StorageCodec storageCodec) {
+        this.blockSupplier = blockSupplier;
+        this.sampledBlockSupplier = blockSupplier instanceof SampledBlockSupplier ? (SampledBlockSupplier<B>) blockSupplier : null;
+        this.samplingRate = sampledBlockSupplier == null ? 1 : sampledBlockSupplier.getSamplingRate();
+        this.plan = plan;
+        this.storageCodec = storageCodec;
+        this.thread = new Thread(this::run, "file-analyser-live");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            PlanRun<B> run = plan.startRun();
+            while (!run.isComplete() && blockSupplier.hasNext()) {
+                B block = blockSupplier.next();
+                synchronized (lock) {
+                    run.processBlock(block);
+                    blockCount++;
+                    if (sampledBlockSupplier != null) {
+                        samplingRate = sampledBlockSupplier.getSamplingRate();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * @return Copies of the storage instances, reflecting exactly the blocks counted by {@link #getBlockCount()} at the
+     * same moment. The copies are made with the {@link StorageCodec} of this analysis.
+     * @throws FileAnalyserExecutionException If the analysis failed.
+     */
+    public Map<Class<?>, Object> snapshot() {
+        throwIfFailed();
+        synchronized (lock) {
+            Map<Class<?>, Object> snapshot = new HashMap<>();
+            plan.getStorageInstanceContainer().toMap().forEach((storageClass, storage) -> snapshot.put(storageClass, storageCodec.copy(storage)));
+            return snapshot;
+        }
+    }
+
+    /**
+     * @return The number of blocks processed so far.
+     */
+    public long getBlockCount() {
+        synchronized (lock) {
+            return blockCount;
+        }
+    }
+
+    /**
+     * @return The effective sampling rate of the blocks counted by {@link #getBlockCount()}, as reported by
+     * {@link SampledBlockSupplier#getSamplingRate()}, or 1 if all blocks are analysed.
+     */
+    public double getSamplingRate() {
+        synchronized (lock) {
+            return samplingRate;
+        }
+    }
+
+    /**
+     * @return Whether the analysis is still running. It stops if the supplier ends, all block analysers are complete, the
+     * analysis fails or it is closed.
+     */
+    public boolean isRunning() {
+        return thread.isAlive();
+    }
+
+    private void throwIfFailed() {
+        if (failure != null) {
+            throw new FileAnalyserExecutionException("The live analysis failed.", failure);
+        }
+    }
+
+    /**
+     * Stops the analysis. The block supplier is closed if it is {@link Closeable} and the thread of the analysis is
+     * interrupted, after which this method waits for the thread to stop.
+     */
+    @Override
+    public void close() {
+        try {
+            if (blockSupplier instanceof Closeable) {
+                ((Closeable) blockSupplier).close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("The block supplier could not be closed.", e);
+        } finally {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package nl.ricoapon.fileanalyser.analyser;
+
+import nl.ricoapon.fileanalyser.execution.AsyncExecutionStrategy;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Block analyser that needs slow lookups for a block, for example in a GeoIP file or a key-value cache. The lookup is
+ * started by {@link #processBlockAsync(Object, Executor)} without access to the storage, and results in an update that
+ * is applied to the storage afterwards. Using {@link AsyncExecutionStrategy}, the lookups of multiple blocks are in
+ * flight at the same time, while the updates are still applied in the order of the blocks and in the order of the
+ * plan. Block analysers that must be called after this block analyser (see {@link BlockAnalyserOrder}) therefore
+ * always see the update of the same block.
+ * <p>
+ * {@link #shouldProcessBlock(Object, Object)} is called just before the update would be applied, so it sees the same
+ * storage as with any other execution strategy. The lookup of the block is already started at that point, and its result
+ * is discarded if the block is not accepted. Expensive lookups that are often discarded should therefore be avoided.
+ * <p>
+ * With any other execution strategy, each lookup is awaited by {@link #processBlock(Object, Object)} on the calling
+ * thread, so the result is the same but the latencies add up.
+ * @param <B> The type of the block.
+ * @param <S> The type of the storage.
+ */
+public interface AsyncBlockAnalyser<B, S> extends BlockAnalyser<B, S> {
+    /**
+     * Starts the lookup for the {@code block}. This method is called on the thread that reads the blocks, in the order
+     * of the blocks, so it should only start the work and return. The block stays valid until the update is applied.
+     * @param block    The block to process.
+     * @param executor Executor that can run blocking lookups. It is bounded by the execution strategy, so it should be
+     *                 used instead of an unbounded executor such as the common pool.
+     * @return Stage that is completed with the update of the storage, or with null if the storage does not have to be
+     * updated. The update is called on the thread that reads the blocks.
+     */
+    CompletionStage<Consumer<S>> processBlockAsync(B block, Executor executor);
+
+    /**
+     * Runs the lookup on the calling thread and applies the update to the storage.
+     */
+    @Override
+    default void processBlock(B block, S storage) {
+        Consumer<S> update;
+        try {
+            update = processBlockAsync(block, Runnable::run).toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+        if (update != null) {
+            update.accept(storage);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package nl.ricoapon.fileanalyser.analyser;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Block analyser that can process multiple consecutive blocks in a single call, which avoids a call for every block.
+ * <p>
+ * Blocks are only offered in batches if this block analyser can not interact with other block analysers: no other block
+ * analyser uses the same storage class and no relation is defined with {@link BlockAnalyserOrder}. Otherwise the
+ * blocks are offered one by one using {@link #processBlock(Object, Object)}, to preserve the order between block analysers.
+ * @param <B> The type of the block.
+ * @param <S> The type of the storage.
+ */
+public interface BatchBlockAnalyser<B, S> extends BlockAnalyser<B, S> {
+    /**
+     * Extracts the needed information from the {@code blocks} and stores relevant details into the {@code storage}.
+     * {@link #shouldProcessBlock(Object, Object)} is not called for blocks in a batch, so all blocks must be checked by
+     * this method. The list is reused for the next batch, so it must not be modified or kept. Blocks are never recycled
+     * while they are part of a batch, but the same rules as for {@link #processBlock(Object, Object)} apply afterwards.
+     * @param blocks  The consecutive blocks to process, in the order in which they were supplied.
+     * @param storage The object containing data that will be the result of the algorithm.
+     */
+    void processBatch(List<B> blocks, S storage);
+
+    /**
+     * Processes a single block as a batch of one block.
+     */
+    @Override
+    default void processBlock(B block, S storage) {
+        processBatch(Collections.singletonList(block), storage);
+    }
+}
@@ -1,5 +1,7 @@
 package nl.ricoapon.fileanalyser.analyser;
 
+import nl.ricoapon.fileanalyser.supplier.RecyclingBlockSupplier;
+
 /**
  * Interface for classes that will analyse blocks of data.
  * @param <B> The type of the block.
@@ -8,6 +10,10 @@ package nl.ricoapon.fileanalyser.analyser;
 public interface BlockAnalyser<B, S> {
     /**
      * Extracts the needed information from the {@code block} and stores relevant details into the {@code storage}.
+     * <p>
+     * The block is only valid during this call. Suppliers of blocks may reuse block instances for the next block (see
+     * {@link RecyclingBlockSupplier}), so implementations must not keep a reference to the block, or to mutable objects
+     * it exposes, after this method returns. Copy the needed data into the storage instead.
      * @param block   The block to process.
      * @param storage The object containing data that will be the result of the algorithm.
      */
@@ -0,0 +1,17 @@
+package nl.ricoapon.fileanalyser.analyser;
+
+/**
+ * Determines the key of a block, which is used to offer the block only to the {@link KeyedBlockAnalyser}s that accept
+ * the key. The classifier is called once for each block, so it should be cheap, like reading a discriminator field.
+ * @param <B> The type of the block.
+ * @param <K> The type of the key. Enums are dispatched fastest.
+ */
+@FunctionalInterface
+public interface BlockClassifier<B, K> {
+    /**
+     * @param block The block.
+     * @return The key of the block, or null if the block has no key. Blocks without a key are only offered to block
+     * analysers that are not a {@link KeyedBlockAnalyser}.
+     */
+    K classify(B block);
+}
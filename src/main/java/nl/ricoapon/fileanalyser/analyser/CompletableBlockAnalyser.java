@@ -0,0 +1,21 @@
+package nl.ricoapon.fileanalyser.analyser;
+
+/**
+ * Block analyser that only needs part of the blocks, for example the first N blocks or the blocks up to a marker. Once
+ * {@link #isComplete(Object)} returns true, no more blocks are offered to this block analyser. If all block analysers
+ * are complete, no more blocks are read at all.
+ * <p>
+ * Completion is determined from the storage instead of the block analyser, because the same block analyser instance
+ * can be used for multiple storage instances at the same time, for example by parallel execution strategies.
+ * @param <B> The type of the block.
+ * @param <S> The type of the storage.
+ */
+public interface CompletableBlockAnalyser<B, S> extends BlockAnalyser<B, S> {
+    /**
+     * Called before the first block and after each call of {@link #processBlock(Object, Object)}. Once this method
+     * returns true for a storage instance, it must keep returning true for that instance.
+     * @param storage The storage.
+     * @return Whether the block analyser needs no more blocks for the given storage.
+     */
+    boolean isComplete(S storage);
+}
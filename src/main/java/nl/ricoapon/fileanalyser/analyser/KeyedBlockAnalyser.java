@@ -0,0 +1,21 @@
+package nl.ricoapon.fileanalyser.analyser;
+
+import java.util.Set;
+
+/**
+ * Block analyser that is only interested in blocks with specific keys, as determined by a {@link BlockClassifier}. Blocks
+ * with other keys are never offered to this block analyser, so {@link #shouldProcessBlock(Object, Object)} does not have
+ * to check the key. This saves a call for each block that is not accepted.
+ * <p>
+ * Block analysers of this type can only be used if a {@link BlockClassifier} is configured. The order between block
+ * analysers is the same as without a classifier.
+ * @param <B> The type of the block.
+ * @param <S> The type of the storage.
+ * @param <K> The type of the key.
+ */
+public interface KeyedBlockAnalyser<B, S, K> extends BlockAnalyser<B, S> {
+    /**
+     * @return The keys of the blocks that should be offered to this block analyser. Called once when the plan is created.
+     */
+    Set<K> getAcceptedKeys();
+}
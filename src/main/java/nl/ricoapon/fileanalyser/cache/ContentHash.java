@@ -0,0 +1,112 @@
+package nl.ricoapon.fileanalyser.cache;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Computes the 64-bit xxHash (XXH64) of the content of a file. The file is memory-mapped in large regions, so hashing
+ * is mostly limited by the speed of the disk. This hash is not cryptographic: it detects changed files, but it must
+ * not be used to protect against files that are crafted to collide.
+ */
+final class ContentHash {
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+    private static final int STRIPE_LENGTH = 32;
+    /** Size of each mapped region, which must be a multiple of {@link #STRIPE_LENGTH}. */
+    private static final long REGION_SIZE = 64L * 1024 * 1024;
+
+    private ContentHash() {
+    }
+
+    /**
+     * @param file The file.
+     * @return The XXH64 hash of the content of the file, using seed 0.
+     * @throws IOException If the file could not be read.
+     */
+    static long hash(Path file) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            long v1 = PRIME_1 + PRIME_2;
+            long v2 = PRIME_2;
+            long v3 = 0;
+            long v4 = -PRIME_1;
+
+            long position = 0;
+            while (size - position >= STRIPE_LENGTH) {
+                long length = Math.min(REGION_SIZE, (size - position) & -STRIPE_LENGTH);
+                ByteBuffer region = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < length; i += STRIPE_LENGTH) {
+                    v1 = round(v1, region.getLong(i));
+                    v2 = round(v2, region.getLong(i + 8));
+                    v3 = round(v3, region.getLong(i + 16));
+                    v4 = round(v4, region.getLong(i + 24));
+                }
+                position += length;
+            }
+
+            long hash;
+            if (size >= STRIPE_LENGTH) {
+                hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                hash = merge(hash, v1);
+                hash = merge(hash, v2);
+                hash = merge(hash, v3);
+                hash = merge(hash, v4);
+            } else {
+                hash = PRIME_5;
+            }
+            hash += size;
+
+            ByteBuffer remainder = ByteBuffer.allocate((int) (size - position)).order(ByteOrder.LITTLE_ENDIAN);
+            while (remainder.hasRemaining()) {
+                if (fileChannel.read(remainder, position + remainder.position()) < 0) {
+                    throw new EOFException("The file " + file + " was truncated while it was hashed.");
+                }
+            }
+            return avalanche(hashRemainder(hash, remainder));
+        }
+    }
+
+    private static long hashRemainder(long hash, ByteBuffer remainder) {
+        int length = remainder.position();
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            hash ^= round(0, remainder.getLong(i));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+        }
+        if (i + 4 <= length) {
+            hash ^= (remainder.getInt(i) & 0xFFFFFFFFL) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            i += 4;
+        }
+        for (; i < length; i++) {
+            hash ^= (remainder.get(i) & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+        }
+        return hash;
+    }
+
+    private static long round(long accumulator, long input) {
+        return Long.rotateLeft(accumulator + input * PRIME_2, 31) * PRIME_1;
+    }
+
+    private static long merge(long hash, long accumulator) {
+        return (hash ^ round(0, accumulator)) * PRIME_1 + PRIME_4;
+    }
+
+    private static long avalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+}
@@ -0,0 +1,232 @@
+package nl.ricoapon.fileanalyser.cache;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.storage.JavaSerializationStorageCodec;
+import nl.ricoapon.fileanalyser.storage.StorageCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local directory containing the results of earlier analyses, so that analysing the same file again with the same
+ * block analysers does not read any blocks. Each entry is a single file with all the storage instances, which is written
+ * under a temporary name and renamed when it is complete.
+ * <p>
+ * The entries are keyed by {@link #createKey(Path, List, String)}. The total size of the entries is limited: after
+ * adding an entry, the least recently used entries are removed until the total size fits. The last modified time of an
+ * entry is used to determine when it was used last.
+ */
+public class ResultCache {
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final String TEMPORARY_PREFIX = ".tmp-";
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final StorageCodec storageCodec;
+
+    /**
+     * Uses {@link JavaSerializationStorageCodec} to write the storage instances.
+     * @param directory      The directory, which is created if it does not exist.
+     * @param maxSizeInBytes The maximum total size of the entries.
+     * @throws FileAnalyserConfigurationException If the maximum size is not positive.
+     */
+    public ResultCache(Path directory, long maxSizeInBytes) {
+        this(directory, maxSizeInBytes, new JavaSerializationStorageCodec());
+    }
+
+    /**
+     * @param directory      The directory, which is created if it does not exist.
+     * @param maxSizeInBytes The maximum total size of the entries.
+     * @param storageCodec   The codec used to write and read the storage instances.
+     * @throws FileAnalyserConfigurationException If the maximum size is not positive.
+     */
+    public ResultCache(Path directory, long maxSizeInBytes, StorageCodec storageCodec) {
+        if (maxSizeInBytes <= 0) {
+            throw new FileAnalyserConfigurationException("The maximum size must be positive, but was " + maxSizeInBytes + ".");
+        }
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.storageCodec = storageCodec;
+    }
+
+    /**
+     * Creates the key of the result of analysing the input file. The key consists of the size and the hash of the content
+     * of the file, and a fingerprint of the classes and the version. The classes cannot capture how the instances are
+     * configured, so the version must be changed whenever the configuration or the implementation of one of the classes
+     * changes.
+     * @param inputFile The file that is analysed.
+     * @param classes   The classes that determine the result, like the block analysers and the storage classes.
+     * @param version   The version of the analysis.
+     * @return The key.
+     * @throws UncheckedIOException If the input file could not be read.
+     */
+    public static String createKey(Path inputFile, List<Class<?>> classes, String version) {
+        try {
+            return String.format("%016x-%016x-%016x", Files.size(inputFile), ContentHash.hash(inputFile), fingerprint(classes, version));
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + inputFile + " could not be hashed.", e);
+        }
+    }
+
+    private static long fingerprint(List<Class<?>> classes, String version) {
+        StringBuilder stringBuilder = new StringBuilder();
+        classes.forEach(clazz -> stringBuilder.append(clazz.getName()).append('\n'));
+        stringBuilder.append(version);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(stringBuilder.toString().getBytes(StandardCharsets.UTF_8));
+            long fingerprint = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                fingerprint = (fingerprint << 8) | (digest[i] & 0xFF);
+            }
+            return fingerprint;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every Java platform must support SHA-256.", e);
+        }
+    }
+
+    /**
+     * Reads the entry with the given key and marks it as used. An entry that cannot be read, for example because it is
+     * corrupt or contains storage instances of other classes, is removed and treated as missing.
+     * @param key            The key.
+     * @param storageClasses The classes of the storage instances in the entry.
+     * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value,
+     * or empty if there is no entry.
+     */
+    public Optional<Map<Class<?>, Object>> get(String key, Collection<Class<?>> storageClasses) {
+        Path path = entryPath(key);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+
+        Map<String, Class<?>> storageClassesByName = storageClasses.stream()
+                .collect(Collectors.toMap(Class::getName, storageClass -> storageClass, (a, b) -> a));
+        Map<Class<?>, Object> storages = new HashMap<>();
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            int nrOfStorages = inputStream.readInt();
+            for (int i = 0; i < nrOfStorages; i++) {
+                Class<?> storageClass = storageClassesByName.get(inputStream.readUTF());
+                byte[] bytes = new byte[inputStream.readInt()];
+                inputStream.readFully(bytes);
+                if (storageClass != null) {
+                    storages.put(storageClass, storageCodec.decode(storageClass, new ByteArrayInputStream(bytes)));
+                }
+            }
+            if (storages.size() != storageClassesByName.size()) {
+                throw new IOException("The entry does not contain exactly the storage classes " + storageClassesByName.keySet() + ".");
+            }
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } catch (NoSuchFileException e) {
+            // Removed by another process after the check.
+            return Optional.empty();
+        } catch (IOException e) {
+            deleteIfExists(path);
+            return Optional.empty();
+        }
+        return Optional.of(storages);
+    }
+
+    /**
+     * Adds or replaces the entry with the given key and removes the least recently used entries if the total size is
+     * too large.
+     * @param key      The key.
+     * @param storages The storage instances by class.
+     * @throws UncheckedIOException If the entry could not be written.
+     */
+    public void put(String key, Map<Class<?>, Object> storages) {
+        try {
+            Files.createDirectories(directory);
+            Path temporaryPath = directory.resolve(TEMPORARY_PREFIX + key + "-" + UUID.randomUUID());
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+                outputStream.writeInt(storages.size());
+                for (Map.Entry<Class<?>, Object> entry : storages.entrySet()) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    storageCodec.encode(entry.getValue(), bytes);
+                    outputStream.writeUTF(entry.getKey().getName());
+                    outputStream.writeInt(bytes.size());
+                    bytes.writeTo(outputStream);
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temporaryPath);
+                throw e;
+            }
+            Files.move(temporaryPath, entryPath(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            removeLeastRecentlyUsedEntries();
+        } catch (IOException e) {
+            throw new UncheckedIOException("The entry could not be written to " + directory + ".", e);
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + ENTRY_SUFFIX);
+    }
+
+    private void removeLeastRecentlyUsedEntries() throws IOException {
+        List<Path> listedEntries;
+        try (Stream<Path> paths = Files.list(directory)) {
+            listedEntries = paths.filter(path -> path.getFileName().toString().endsWith(ENTRY_SUFFIX)).collect(Collectors.toList());
+        }
+
+        List<Path> entries = new ArrayList<>();
+        List<BasicFileAttributes> attributes = new ArrayList<>();
+        for (Path entry : listedEntries) {
+            try {
+                attributes.add(Files.readAttributes(entry, BasicFileAttributes.class));
+                entries.add(entry);
+            } catch (NoSuchFileException e) {
+                // The entry was removed by another process after it was listed.
+            }
+        }
+        List<Integer> mostRecentlyUsedFirst = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            mostRecentlyUsedFirst.add(i);
+        }
+        mostRecentlyUsedFirst.sort(Comparator.comparing((Integer i) -> attributes.get(i).lastModifiedTime()).reversed());
+
+        long totalSize = 0;
+        for (int i : mostRecentlyUsedFirst) {
+            totalSize += attributes.get(i).size();
+            if (totalSize > maxSizeInBytes) {
+                deleteIfExists(entries.get(i));
+            }
+        }
+    }
+
+    private static void deleteIfExists(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Another process may be using the entry. It is removed when the cache is full again.
+        }
+    }
+
+    @Override
+    public String toString() {
+        return directory.toString();
+    }
+}
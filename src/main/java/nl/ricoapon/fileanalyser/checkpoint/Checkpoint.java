@@ -0,0 +1,81 @@
+package nl.ricoapon.fileanalyser.checkpoint;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.storage.StorageCodec;
+import nl.ricoapon.fileanalyser.supplier.PositionedBlockSupplier;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Checkpoint in a {@link CheckpointDirectory}: the storage instances after a number of blocks were processed, together
+ * with the position of the block supplier at that moment.
+ */
+public class Checkpoint {
+    /** Value of {@link #getPosition()} if the block supplier is not a {@link PositionedBlockSupplier}. */
+    public static final long NO_POSITION = -1;
+
+    private final Path path;
+    private final long blockCount;
+    private final long position;
+    private final List<String> storageClassNames;
+    private final StorageCodec storageCodec;
+
+    Checkpoint(Path path, long blockCount, long position, List<String> storageClassNames, StorageCodec storageCodec) {
+        this.path = path;
+        this.blockCount = blockCount;
+        this.position = position;
+        this.storageClassNames = List.copyOf(storageClassNames);
+        this.storageCodec = storageCodec;
+    }
+
+    /**
+     * @return The directory containing the files of this checkpoint.
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return The number of blocks that were processed, counted from the start of the block supplier.
+     */
+    public long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return The position of the {@link PositionedBlockSupplier}, or {@link #NO_POSITION} if the supplier had no position.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * @param storageClass The class of the storage instance.
+     * @param <S>          The type of the storage instance.
+     * @return The storage instance of the given class as it was when the checkpoint was written.
+     * @throws FileAnalyserConfigurationException If the checkpoint does not contain a storage instance of the class.
+     * @throws UncheckedIOException               If the storage instance could not be read.
+     */
+    public <S> S readStorage(Class<S> storageClass) {
+        int index = storageClassNames.indexOf(storageClass.getName());
+        if (index < 0) {
+            throw new FileAnalyserConfigurationException("The checkpoint " + path + " does not contain a storage instance of class " +
+                    storageClass.getName() + ".");
+        }
+        try (InputStream inputStream = Files.newInputStream(path.resolve(CheckpointDirectory.storageFileName(index)))) {
+            return storageCodec.decode(storageClass, inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The storage instance of class " + storageClass.getName() + " could not be read from " + path + ".", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return path + " (blockCount=" + blockCount + ", position=" + position + ")";
+    }
+}
@@ -0,0 +1,199 @@
+package nl.ricoapon.fileanalyser.checkpoint;
+
+import nl.ricoapon.fileanalyser.storage.JavaSerializationStorageCodec;
+import nl.ricoapon.fileanalyser.storage.StorageCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Local directory containing checkpoints. Each checkpoint is a subdirectory that is written under a temporary name and
+ * renamed when it is complete, so a crash while writing never leaves an incomplete checkpoint behind. Temporary
+ * subdirectories left behind by such a crash are removed before the next checkpoint is written. Only the most recent
+ * checkpoints are kept.
+ */
+public class CheckpointDirectory {
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    /** Names of checkpoints, see {@link #checkpointName(long)}. Other files in the directory are ignored. */
+    private static final Pattern CHECKPOINT_NAME = Pattern.compile(Pattern.quote(CHECKPOINT_PREFIX) + "(\\d{19})");
+    private static final String TEMPORARY_PREFIX = ".tmp-";
+    private static final String PROPERTIES_FILE = "checkpoint.properties";
+    private static final int NR_OF_CHECKPOINTS_TO_KEEP = 2;
+
+    private final Path directory;
+    private final StorageCodec storageCodec;
+
+    /**
+     * Uses {@link JavaSerializationStorageCodec} to write the storage instances.
+     * @param directory The directory, which is created if it does not exist.
+     */
+    public CheckpointDirectory(Path directory) {
+        this(directory, new JavaSerializationStorageCodec());
+    }
+
+    /**
+     * @param directory    The directory, which is created if it does not exist.
+     * @param storageCodec The codec used to write and read the storage instances.
+     */
+    public CheckpointDirectory(Path directory, StorageCodec storageCodec) {
+        this.directory = directory;
+        this.storageCodec = storageCodec;
+    }
+
+    private static String checkpointName(long sequenceNumber) {
+        // Padding makes the names sort in the order in which they were written.
+        return String.format("%s%019d", CHECKPOINT_PREFIX, sequenceNumber);
+    }
+
+    /**
+     * @param name The name of a file in the directory.
+     * @return The sequence number if the name is the name of a checkpoint.
+     */
+    private static Optional<Long> sequenceNumberOf(String name) {
+        Matcher matcher = CHECKPOINT_NAME.matcher(name);
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(matcher.group(1)));
+        } catch (NumberFormatException e) {
+            // 19 digits can be larger than the largest long, so such a name was not written by this class.
+            return Optional.empty();
+        }
+    }
+
+    static String storageFileName(int index) {
+        return "storage-" + index + ".bin";
+    }
+
+    /**
+     * Writes a new checkpoint and removes the old ones.
+     * @param blockCount The number of blocks that were processed.
+     * @param position   The position of the block supplier, or {@link Checkpoint#NO_POSITION}.
+     * @param storages   The storage instances by class.
+     * @return The new {@link Checkpoint}.
+     * @throws UncheckedIOException If the checkpoint could not be written.
+     */
+    public Checkpoint write(long blockCount, long position, Map<Class<?>, Object> storages) {
+        try {
+            Files.createDirectories(directory);
+            removeTemporaryDirectories();
+            long sequenceNumber = listCheckpointSequenceNumbers().stream().mapToLong(Long::longValue).max().orElse(0) + 1;
+            String name = checkpointName(sequenceNumber);
+            Path temporaryPath = directory.resolve(TEMPORARY_PREFIX + name);
+            Files.createDirectories(temporaryPath);
+
+            List<String> storageClassNames = new ArrayList<>();
+            Properties properties = new Properties();
+            properties.setProperty("blockCount", Long.toString(blockCount));
+            properties.setProperty("position", Long.toString(position));
+            for (Map.Entry<Class<?>, Object> entry : storages.entrySet()) {
+                int index = storageClassNames.size();
+                storageClassNames.add(entry.getKey().getName());
+                properties.setProperty("storage." + index, entry.getKey().getName());
+                try (OutputStream outputStream = Files.newOutputStream(temporaryPath.resolve(storageFileName(index)))) {
+                    storageCodec.encode(entry.getValue(), outputStream);
+                }
+            }
+            try (OutputStream outputStream = Files.newOutputStream(temporaryPath.resolve(PROPERTIES_FILE))) {
+                properties.store(outputStream, null);
+            }
+
+            Path path = Files.move(temporaryPath, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+            removeOldCheckpoints();
+            return new Checkpoint(path, blockCount, position, storageClassNames, storageCodec);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The checkpoint could not be written to " + directory + ".", e);
+        }
+    }
+
+    /**
+     * @return The most recently written checkpoint, or empty if there is none.
+     * @throws UncheckedIOException If the checkpoint could not be read.
+     */
+    public Optional<Checkpoint> latest() {
+        try {
+            Optional<Long> sequenceNumber = listCheckpointSequenceNumbers().stream().max(Comparator.naturalOrder());
+            if (sequenceNumber.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(read(directory.resolve(checkpointName(sequenceNumber.get()))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("The checkpoints in " + directory + " could not be read.", e);
+        }
+    }
+
+    private Checkpoint read(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(path.resolve(PROPERTIES_FILE))) {
+            properties.load(inputStream);
+        }
+        List<String> storageClassNames = new ArrayList<>();
+        for (int index = 0; properties.containsKey("storage." + index); index++) {
+            storageClassNames.add(properties.getProperty("storage." + index));
+        }
+        return new Checkpoint(path, Long.parseLong(properties.getProperty("blockCount")),
+                Long.parseLong(properties.getProperty("position")), storageClassNames, storageCodec);
+    }
+
+    private List<Long> listCheckpointSequenceNumbers() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.map(path -> path.getFileName().toString())
+                    .flatMap(name -> sequenceNumberOf(name).stream())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Removes the temporary subdirectories of checkpoints that were not completely written, for example because the
+     * process crashed.
+     */
+    private void removeTemporaryDirectories() throws IOException {
+        List<Path> temporaryPaths;
+        try (Stream<Path> paths = Files.list(directory)) {
+            temporaryPaths = paths.filter(path -> path.getFileName().toString().startsWith(TEMPORARY_PREFIX)).collect(Collectors.toList());
+        }
+        for (Path temporaryPath : temporaryPaths) {
+            deleteRecursively(temporaryPath);
+        }
+    }
+
+    private void removeOldCheckpoints() throws IOException {
+        List<Long> sequenceNumbers = listCheckpointSequenceNumbers();
+        sequenceNumbers.sort(Comparator.reverseOrder());
+        for (Long sequenceNumber : sequenceNumbers.subList(Math.min(NR_OF_CHECKPOINTS_TO_KEEP, sequenceNumbers.size()), sequenceNumbers.size())) {
+            deleteRecursively(directory.resolve(checkpointName(sequenceNumber)));
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path file : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return directory.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package nl.ricoapon.fileanalyser.checkpoint;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.time.Duration;
+
+/**
+ * Determines when a checkpoint is written: after a number of blocks, after an amount of time, or whichever comes first.
+ */
+public class CheckpointPolicy {
+    private final long blockInterval;
+    private final long timeIntervalNanos;
+
+    private CheckpointPolicy(long blockInterval, long timeIntervalNanos) {
+        if (blockInterval <= 0 || timeIntervalNanos <= 0) {
+            throw new FileAnalyserConfigurationException("The intervals of a checkpoint policy must be positive.");
+        }
+        this.blockInterval = blockInterval;
+        this.timeIntervalNanos = timeIntervalNanos;
+    }
+
+    /**
+     * @param blockInterval The number of blocks between checkpoints.
+     * @return {@link CheckpointPolicy}.
+     * @throws FileAnalyserConfigurationException If the interval is not positive.
+     */
+    public static CheckpointPolicy everyBlocks(long blockInterval) {
+        return new CheckpointPolicy(blockInterval, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param timeInterval The time between checkpoints.
+     * @return {@link CheckpointPolicy}.
+     * @throws FileAnalyserConfigurationException If the interval is not positive.
+     */
+    public static CheckpointPolicy every(Duration timeInterval) {
+        return new CheckpointPolicy(Long.MAX_VALUE, timeInterval.toNanos());
+    }
+
+    /**
+     * @param blockInterval The maximum number of blocks between checkpoints.
+     * @param timeInterval  The maximum time between checkpoints.
+     * @return {@link CheckpointPolicy} that writes a checkpoint when either of the intervals has passed.
+     * @throws FileAnalyserConfigurationException If one of the intervals is not positive.
+     */
+    public static CheckpointPolicy everyBlocksOr(long blockInterval, Duration timeInterval) {
+        return new CheckpointPolicy(blockInterval, timeInterval.toNanos());
+    }
+
+    /**
+     * @param blocksSinceCheckpoint The number of blocks processed since the last checkpoint.
+     * @param nanosSinceCheckpoint  The time since the last checkpoint.
+     * @return Whether a checkpoint must be written.
+     */
+    public boolean isDue(long blocksSinceCheckpoint, long nanosSinceCheckpoint) {
+        return blocksSinceCheckpoint >= blockInterval || nanosSinceCheckpoint >= timeIntervalNanos;
+    }
+
+    /**
+     * @return Whether the time interval must be checked at all.
+     */
+    boolean hasTimeInterval() {
+        return timeIntervalNanos != Long.MAX_VALUE;
+    }
+}
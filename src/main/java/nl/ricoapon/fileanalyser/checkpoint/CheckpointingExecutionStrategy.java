@@ -0,0 +1,90 @@
+package nl.ricoapon.fileanalyser.checkpoint;
+
+import nl.ricoapon.fileanalyser.execution.ExecutionStrategy;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.PlanRun;
+import nl.ricoapon.fileanalyser.supplier.PositionedBlockSupplier;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes the plan on the calling thread and writes a checkpoint to a {@link CheckpointDirectory} according to a
+ * {@link CheckpointPolicy}, and once more after the last block. Checkpoints are only written between batches, so that
+ * all storage instances reflect exactly the same blocks.
+ * <p>
+ * The position in the checkpoint is only available if the block supplier is a {@link PositionedBlockSupplier}.
+ * Otherwise a resumed analysis skips the number of blocks in the checkpoint.
+ * @param <B> The type of the block.
+ */
+public class CheckpointingExecutionStrategy<B> implements ExecutionStrategy<B> {
+    /** Number of blocks between checks of the time interval of the policy, because reading the clock is not free. */
+    private static final int TIME_CHECK_INTERVAL = 256;
+
+    private final CheckpointDirectory checkpointDirectory;
+    private final CheckpointPolicy checkpointPolicy;
+    private final long initialBlockCount;
+
+    /**
+     * @param checkpointDirectory The directory to write the checkpoints to.
+     * @param checkpointPolicy    The policy that determines when a checkpoint is written.
+     * @param initialBlockCount   The number of blocks that were already processed before the first block of the supplier,
+     *                            which is {@link Checkpoint#getBlockCount()} when the analysis is resumed.
+     */
+    public CheckpointingExecutionStrategy(CheckpointDirectory checkpointDirectory, CheckpointPolicy checkpointPolicy, long initialBlockCount) {
+        this.checkpointDirectory = checkpointDirectory;
+        this.checkpointPolicy = checkpointPolicy;
+        this.initialBlockCount = initialBlockCount;
+    }
+
+    @Override
+    public Map<Class<?>, Object> execute(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan) {
+        PlanRun<B> run = plan.startRun();
+        // Without batches, completion is checked after each block.
+        int batchSize = run.isOfferingBatches() ? plan.getBatchSize() : 1;
+        List<B> batch = new ArrayList<>(batchSize);
+        long blockCount = initialBlockCount;
+        long blocksSinceCheckpoint = 0;
+        long lastCheckpointNanos = System.nanoTime();
+        boolean isCheckpointDue = false;
+
+        while (!run.isComplete() && blockSupplier.hasNext()) {
+            batch.add(blockSupplier.next());
+            blockCount++;
+            blocksSinceCheckpoint++;
+            if (!isCheckpointDue) {
+                long nanosSinceCheckpoint = checkpointPolicy.hasTimeInterval() && blocksSinceCheckpoint % TIME_CHECK_INTERVAL == 0
+                        ? System.nanoTime() - lastCheckpointNanos : 0;
+                isCheckpointDue = checkpointPolicy.isDue(blocksSinceCheckpoint, nanosSinceCheckpoint);
+            }
+
+            if (batch.size() == batchSize || isCheckpointDue) {
+                processBatch(run, batch);
+                batchSize = run.isOfferingBatches() ? plan.getBatchSize() : 1;
+            }
+            if (isCheckpointDue) {
+                writeCheckpoint(blockSupplier, plan, blockCount);
+                blocksSinceCheckpoint = 0;
+                lastCheckpointNanos = System.nanoTime();
+                isCheckpointDue = false;
+            }
+        }
+        processBatch(run, batch);
+        writeCheckpoint(blockSupplier, plan, blockCount);
+
+        return plan.getStorageInstanceContainer().toMap();
+    }
+
+    private static <B> void processBatch(PlanRun<B> run, List<B> batch) {
+        run.processBatch(batch);
+        batch.clear();
+    }
+
+    private void writeCheckpoint(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan, long blockCount) {
+        long position = blockSupplier instanceof PositionedBlockSupplier
+                ? ((PositionedBlockSupplier<?>) blockSupplier).getPosition() : Checkpoint.NO_POSITION;
+        checkpointDirectory.write(blockCount, position, plan.getStorageInstanceContainer().toMap());
+    }
+}
@@ -0,0 +1,64 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.analyser.AsyncBlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.Workers;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executes the plan on the calling thread, while the lookups of the {@link AsyncBlockAnalyser}s for a bounded number of
+ * blocks are in flight at the same time, see {@link FileAnalyserPlan#executeWithBlocksInFlight(Iterator, int, Executor)}.
+ * This lets the latencies of slow lookups overlap instead of adding up for each block, while the storage instances are
+ * updated in the order of the blocks.
+ * <p>
+ * The lookups run on a fixed pool with a thread for each block in flight, which is created for each run. Alternatively,
+ * an executor can be supplied that is used for all runs, for example one that starts a virtual thread for each task.
+ * @param <B> The type of the block.
+ */
+public class AsyncExecutionStrategy<B> implements ExecutionStrategy<B> {
+    private final int maxBlocksInFlight;
+    /** The executor of the lookups, or null if a pool is created for each run. */
+    private final Executor executor;
+
+    /**
+     * @param maxBlocksInFlight The maximum number of blocks of which lookups are started but which are not yet processed.
+     * @throws FileAnalyserConfigurationException If the maximum number of blocks in flight is not positive.
+     */
+    public AsyncExecutionStrategy(int maxBlocksInFlight) {
+        this(maxBlocksInFlight, null);
+    }
+
+    /**
+     * @param maxBlocksInFlight The maximum number of blocks of which lookups are started but which are not yet processed.
+     * @param executor          The executor of the lookups, or null to create a pool for each run.
+     * @throws FileAnalyserConfigurationException If the maximum number of blocks in flight is not positive.
+     */
+    public AsyncExecutionStrategy(int maxBlocksInFlight, Executor executor) {
+        if (maxBlocksInFlight <= 0) {
+            throw new FileAnalyserConfigurationException("The maximum number of blocks in flight must be positive, but was " +
+                    maxBlocksInFlight + ".");
+        }
+        this.maxBlocksInFlight = maxBlocksInFlight;
+        this.executor = executor;
+    }
+
+    @Override
+    public Map<Class<?>, Object> execute(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan) {
+        if (executor != null) {
+            return plan.executeWithBlocksInFlight(blockSupplier, maxBlocksInFlight, executor);
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(maxBlocksInFlight, Workers.createThreadFactory("file-analyser-lookup-"));
+        try {
+            return plan.executeWithBlocksInFlight(blockSupplier, maxBlocksInFlight, executorService);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.PlanRun;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.internal.Workers;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Splits the blocks into chunks of consecutive blocks and processes the chunks in parallel on a {@link ForkJoinPool}.
+ * Each chunk is processed with its own empty storage instances. The results of the chunks are merged into the storage
+ * instances of the plan in the order of the chunks, using {@link MergeableStorage#merge(Object)}.
+ * <p>
+ * This is only correct if the result of an analysis can be computed per chunk. That is why all the storage instances must
+ * implement {@link MergeableStorage}. If this is not the case, the plan is executed sequentially instead.
+ * <p>
+ * Reading stops once the merged storage instances show that all block analysers are complete.
+ * @param <B> The type of the block.
+ */
+public class ChunkedParallelExecutionStrategy<B> implements ExecutionStrategy<B> {
+    private final ForkJoinPool forkJoinPool;
+    private final int chunkSize;
+    /** Maximum number of chunks that are read but not yet merged, which limits the number of blocks kept in memory. */
+    private final int maxChunksInFlight;
+
+    /**
+     * @param forkJoinPool The pool to process the chunks on.
+     * @param chunkSize    The number of blocks in each chunk.
+     * @throws FileAnalyserConfigurationException If the chunk size is not positive.
+     */
+    public ChunkedParallelExecutionStrategy(ForkJoinPool forkJoinPool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new FileAnalyserConfigurationException("The chunk size must be positive, but was " + chunkSize + ".");
+        }
+        this.forkJoinPool = forkJoinPool;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = 2 * forkJoinPool.getParallelism();
+    }
+
+    @Override
+    public Map<Class<?>, Object> execute(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan) {
+        StorageInstanceContainer storageInstanceContainer = plan.getStorageInstanceContainer();
+        if (!storageInstanceContainer.areAllStoragesMergeable()) {
+            return plan.execute(blockSupplier);
+        }
+        Workers.checkNoMemoryBudget(plan, getClass());
+
+        // Chunks are read on the calling thread and merged in the order in which they were read. Blocks are kept until
+        // their chunk is processed, so recycled blocks must be copied.
+        Iterator<B> detachedBlockSupplier = plan.detaching(blockSupplier);
+        Deque<ForkJoinTask<StorageInstanceContainer>> chunksInFlight = new ArrayDeque<>();
+        try {
+            PlanRun<B> run = plan.startRun();
+            while (!run.isComplete() && detachedBlockSupplier.hasNext()) {
+                chunksInFlight.add(forkJoinPool.submit(createChunkTask(readChunk(detachedBlockSupplier), plan)));
+
+                if (chunksInFlight.size() >= maxChunksInFlight) {
+                    mergeNextChunk(chunksInFlight, run);
+                }
+            }
+
+            // Once all block analysers are complete, the later chunks are not needed.
+            while (!run.isComplete() && !chunksInFlight.isEmpty()) {
+                mergeNextChunk(chunksInFlight, run);
+            }
+        } finally {
+            // Only non-empty if something failed or all block analysers are complete. The results of these chunks are never used.
+            chunksInFlight.forEach(chunk -> chunk.cancel(true));
+        }
+
+        return storageInstanceContainer.toMap();
+    }
+
+    private static <B> void mergeNextChunk(Deque<ForkJoinTask<StorageInstanceContainer>> chunksInFlight, PlanRun<B> run) {
+        run.getPlan().getStorageInstanceContainer().merge(chunksInFlight.poll().join());
+        run.refreshCompleted();
+    }
+
+    private List<B> readChunk(Iterator<B> blockSupplier) {
+        List<B> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && blockSupplier.hasNext()) {
+            chunk.add(blockSupplier.next());
+        }
+        return chunk;
+    }
+
+    private ForkJoinTask<StorageInstanceContainer> createChunkTask(List<B> chunk, FileAnalyserPlan<B> plan) {
+        // The blocks of a chunk are detached, so they can be offered in batches.
+        FileAnalyserPlan<B> chunkPlan = plan.withStorageInstanceContainer(plan.getStorageInstanceContainer().createEmptyCopy())
+                .withRecycledBlocks(null);
+        return ForkJoinTask.adapt(() -> {
+            chunkPlan.execute(chunk.iterator());
+            return chunkPlan.getStorageInstanceContainer();
+        });
+    }
+}
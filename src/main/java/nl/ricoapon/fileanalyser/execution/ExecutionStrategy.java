@@ -0,0 +1,21 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Interface for the different ways a {@link FileAnalyserPlan} can be executed for a supplier of blocks.
+ * @param <B> The type of the block.
+ */
+public interface ExecutionStrategy<B> {
+    /**
+     * Offers all the blocks of the supplier to the block analysers of the plan. Regardless of the strategy, the storage
+     * instances the plan is bound to contain the result afterwards.
+     * @param blockSupplier The supplier of blocks.
+     * @param plan          The plan.
+     * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value.
+     */
+    Map<Class<?>, Object> execute(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan);
+}
@@ -0,0 +1,142 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.analyser.BlockClassifier;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.PlanRun;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.internal.Workers;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Distributes the blocks over a number of partitions based on a key, like a session ID, and processes each partition on
+ * its own worker thread with its own storage instances. All blocks with the same key end up in the same partition in the
+ * order in which they were supplied, so block analysers that keep state per key, like pairing start and end blocks of a
+ * session, give the same result as when the blocks are processed sequentially.
+ * <p>
+ * The calling thread reads the blocks and publishes them in batches to a bounded queue for each partition. Afterwards,
+ * the storage instances of the partitions are merged into the storage instances of the plan in the order of the
+ * partitions, using {@link MergeableStorage#merge(Object)}. Unlike with {@link ChunkedParallelExecutionStrategy}, the
+ * blocks of a partition are not all after the blocks of the previous partitions, so this is only correct if the result
+ * for different keys can be computed independently. If not all storage instances implement {@link MergeableStorage},
+ * the plan is executed sequentially instead.
+ * <p>
+ * Completion of block analysers is determined per partition.
+ * @param <B> The type of the block.
+ */
+public class KeyPartitionedExecutionStrategy<B> implements ExecutionStrategy<B> {
+    /** Marker that is published after the last batch. Compared by reference, so it must not be replaced by List.of(). */
+    private final List<B> endOfBlocks = new ArrayList<>(0);
+    private final BlockClassifier<B, ?> partitionKeyExtractor;
+    private final int nrOfPartitions;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    /**
+     * @param partitionKeyExtractor Determines the key of each block. Blocks with a null key are all put in the first partition.
+     * @param nrOfPartitions        The number of partitions, which is also the number of worker threads.
+     * @param queueCapacity         The maximum number of batches that can be waiting for each partition.
+     * @param batchSize             The number of blocks in each batch.
+     * @throws FileAnalyserConfigurationException If the number of partitions, queue capacity or batch size is not positive.
+     */
+    public KeyPartitionedExecutionStrategy(BlockClassifier<B, ?> partitionKeyExtractor, int nrOfPartitions, int queueCapacity, int batchSize) {
+        if (nrOfPartitions <= 0 || queueCapacity <= 0 || batchSize <= 0) {
+            throw new FileAnalyserConfigurationException("The number of partitions, queue capacity and batch size must be positive, but were " +
+                    nrOfPartitions + ", " + queueCapacity + " and " + batchSize + ".");
+        }
+        this.partitionKeyExtractor = partitionKeyExtractor;
+        this.nrOfPartitions = nrOfPartitions;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Map<Class<?>, Object> execute(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan) {
+        StorageInstanceContainer storageInstanceContainer = plan.getStorageInstanceContainer();
+        if (nrOfPartitions == 1 || !storageInstanceContainer.areAllStoragesMergeable()) {
+            return plan.execute(blockSupplier);
+        }
+        Workers.checkNoMemoryBudget(plan, getClass());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(nrOfPartitions, Workers.createThreadFactory("file-analyser-partition-"));
+        try {
+            List<FileAnalyserPlan<B>> partitionPlans = new ArrayList<>();
+            List<BlockingQueue<List<B>>> queues = new ArrayList<>();
+            List<Future<Void>> workers = new ArrayList<>();
+            for (int i = 0; i < nrOfPartitions; i++) {
+                FileAnalyserPlan<B> partitionPlan = plan.withStorageInstanceContainer(storageInstanceContainer.createEmptyCopy());
+                BlockingQueue<List<B>> queue = new ArrayBlockingQueue<>(queueCapacity);
+                partitionPlans.add(partitionPlan);
+                queues.add(queue);
+                workers.add(executorService.submit(() -> processQueue(queue, partitionPlan)));
+            }
+
+            // Blocks are kept until their batch is processed, so recycled blocks must be copied.
+            Iterator<B> detachedBlockSupplier = plan.detaching(blockSupplier);
+            List<List<B>> batches = new ArrayList<>();
+            for (int i = 0; i < nrOfPartitions; i++) {
+                batches.add(new ArrayList<>(batchSize));
+            }
+            while (!Workers.areAllDone(workers) && detachedBlockSupplier.hasNext()) {
+                B block = detachedBlockSupplier.next();
+                int partition = partitionOf(partitionKeyExtractor.classify(block));
+                List<B> batch = batches.get(partition);
+                batch.add(block);
+                if (batch.size() == batchSize) {
+                    Workers.publish(queues.get(partition), batch, workers.get(partition), workers);
+                    batches.set(partition, new ArrayList<>(batchSize));
+                }
+            }
+            for (int i = 0; i < nrOfPartitions; i++) {
+                if (!batches.get(i).isEmpty()) {
+                    Workers.publish(queues.get(i), batches.get(i), workers.get(i), workers);
+                }
+                Workers.publish(queues.get(i), endOfBlocks, workers.get(i), workers);
+            }
+
+            for (Future<Void> worker : workers) {
+                Workers.waitFor(worker);
+            }
+            for (FileAnalyserPlan<B> partitionPlan : partitionPlans) {
+                storageInstanceContainer.merge(partitionPlan.getStorageInstanceContainer());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        return storageInstanceContainer.toMap();
+    }
+
+    private int partitionOf(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        // Spreads the higher bits, because the hash codes of many keys only differ in those.
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, nrOfPartitions);
+    }
+
+    private Void processQueue(BlockingQueue<List<B>> queue, FileAnalyserPlan<B> partitionPlan) throws InterruptedException {
+        PlanRun<B> run = partitionPlan.startRun();
+        List<B> batch = queue.take();
+        while (batch != endOfBlocks) {
+            run.processBatch(batch);
+            if (run.isComplete()) {
+                return null;
+            }
+            batch = queue.take();
+        }
+        return null;
+    }
+}
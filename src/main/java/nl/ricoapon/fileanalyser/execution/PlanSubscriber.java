@@ -0,0 +1,103 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.PlanRun;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * Subscriber that offers each block it receives from a {@link Flow.Publisher} to a plan. The blocks are processed on
+ * the thread that calls {@link #onNext(Object)}, so no thread is blocked while waiting for blocks.
+ * <p>
+ * Backpressure is applied through the demand of the subscription: initially {@code demandBatchSize} blocks are requested,
+ * and more blocks are requested once half of them is processed. The publisher never has more outstanding blocks than that.
+ * <p>
+ * The subscription is cancelled if a block analyser throws an exception, if all block analysers are complete or if the
+ * result is cancelled.
+ * @param <B> The type of the block.
+ */
+public class PlanSubscriber<B> implements Flow.Subscriber<B> {
+    private final FileAnalyserPlan<B> plan;
+    private final PlanRun<B> run;
+    private final long demandBatchSize;
+    private final CompletableFuture<Map<Class<?>, Object>> result = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    /** The number of blocks that are requested, but not yet received. */
+    private long outstanding;
+
+    /**
+     * @param plan            The plan.
+     * @param demandBatchSize The maximum number of blocks that are requested at once.
+     * @throws FileAnalyserConfigurationException If the demand batch size is not positive.
+     */
+    public PlanSubscriber(FileAnalyserPlan<B> plan, long demandBatchSize) {
+        if (demandBatchSize <= 0) {
+            throw new FileAnalyserConfigurationException("The demand batch size must be positive, but was " + demandBatchSize + ".");
+        }
+        this.plan = plan;
+        this.run = plan.startRun();
+        this.demandBatchSize = demandBatchSize;
+    }
+
+    /**
+     * @return Future that is completed with the storage instances once the publisher completes, or exceptionally if the
+     * publisher or a block analyser fails. Cancelling the future cancels the subscription.
+     */
+    public CompletableFuture<Map<Class<?>, Object>> getResult() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null || result.isDone()) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        result.whenComplete((storages, throwable) -> subscription.cancel());
+
+        run.refreshCompleted();
+        if (run.isComplete()) {
+            result.complete(plan.getStorageInstanceContainer().toMap());
+            return;
+        }
+        outstanding = demandBatchSize;
+        subscription.request(demandBatchSize);
+    }
+
+    @Override
+    public void onNext(B block) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            run.processBlock(block);
+        } catch (RuntimeException | Error e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        if (run.isComplete()) {
+            result.complete(plan.getStorageInstanceContainer().toMap());
+            return;
+        }
+
+        outstanding--;
+        if (outstanding <= demandBatchSize / 2) {
+            subscription.request(demandBatchSize - outstanding);
+            outstanding = demandBatchSize;
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        result.complete(plan.getStorageInstanceContainer().toMap());
+    }
+}
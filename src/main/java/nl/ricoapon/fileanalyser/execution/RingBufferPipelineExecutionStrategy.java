@@ -0,0 +1,174 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserExecutionException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the blocks on a dedicated producer thread and processes them on the calling thread. Everything the block
+ * supplier does in {@link Iterator#hasNext()} and {@link Iterator#next()}, like reading the file and parsing the blocks,
+ * therefore overlaps with the block analysers.
+ * <p>
+ * The producer publishes the blocks into a preallocated single-producer/single-consumer ring buffer, which is drained by
+ * the calling thread. The capacity of the ring buffer is the number of blocks that can be read ahead. The
+ * {@link WaitStrategy} determines what both threads do when the ring buffer is full or empty.
+ * <p>
+ * Blocks are kept in the ring buffer after the next block has been read, so recycled blocks are copied. Block suppliers
+ * that supply null blocks are not supported.
+ * <p>
+ * Once the plan is complete or fails, the producer is stopped and interrupted, so a block supplier that blocks while
+ * waiting for the next block, like {@link nl.ricoapon.fileanalyser.supplier.TailingLineSupplier}, does not keep the
+ * execution from returning.
+ * @param <B> The type of the block.
+ */
+public class RingBufferPipelineExecutionStrategy<B> implements ExecutionStrategy<B> {
+    /** The maximum time to wait for a producer that is stopped, after which it is left behind as a daemon thread. */
+    private static final long PRODUCER_STOP_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private final int capacity;
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * @param capacity     The minimum number of blocks that can be read ahead, which is rounded up to a power of two.
+     * @param waitStrategy What the threads do while waiting for each other.
+     * @throws FileAnalyserConfigurationException If the capacity is not positive.
+     */
+    public RingBufferPipelineExecutionStrategy(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0) {
+            throw new FileAnalyserConfigurationException("The capacity must be positive, but was " + capacity + ".");
+        }
+        this.capacity = capacity;
+        this.waitStrategy = waitStrategy;
+    }
+
+    @Override
+    public Map<Class<?>, Object> execute(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan) {
+        Producer<B> producer = new Producer<>(plan.detaching(blockSupplier), new SpscRingBuffer<>(capacity), waitStrategy);
+        Thread thread = new Thread(producer, "file-analyser-producer");
+        thread.setDaemon(true);
+        thread.start();
+        Map<Class<?>, Object> storages;
+        try {
+            // The producer detaches the blocks, so the consumer can offer them in batches.
+            storages = plan.withRecycledBlocks(null).execute(new ConsumingIterator<>(producer, waitStrategy));
+        } catch (RuntimeException | Error e) {
+            // The producer may be blocked in the block supplier, so it is not awaited to rethrow the failure.
+            stop(producer, thread);
+            throw e;
+        }
+
+        // The producer is still running if the plan is complete.
+        stop(producer, thread);
+        try {
+            thread.join(PRODUCER_STOP_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileAnalyserExecutionException("Interrupted while waiting for the producer.", e);
+        }
+        return storages;
+    }
+
+    /**
+     * Stops the producer, which is interrupted in case it is blocked in {@link Iterator#hasNext()} of the block supplier.
+     */
+    private static void stop(Producer<?> producer, Thread thread) {
+        producer.stopped = true;
+        thread.interrupt();
+    }
+
+    private static class Producer<B> implements Runnable {
+        private final Iterator<B> blockSupplier;
+        private final SpscRingBuffer<B> ringBuffer;
+        private final WaitStrategy waitStrategy;
+        private volatile boolean stopped;
+        private volatile boolean done;
+        private volatile Throwable failure;
+
+        Producer(Iterator<B> blockSupplier, SpscRingBuffer<B> ringBuffer, WaitStrategy waitStrategy) {
+            this.blockSupplier = blockSupplier;
+            this.ringBuffer = ringBuffer;
+            this.waitStrategy = waitStrategy;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped && blockSupplier.hasNext()) {
+                    B block = blockSupplier.next();
+                    if (block == null) {
+                        throw new FileAnalyserExecutionException("The block supplier supplied a null block, which is not supported.");
+                    }
+                    while (!ringBuffer.offer(block)) {
+                        if (stopped) {
+                            return;
+                        }
+                        waitStrategy.idle();
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            } finally {
+                done = true;
+            }
+        }
+    }
+
+    /**
+     * Iterator over the blocks in the ring buffer, which waits until the producer has published the next block or is done.
+     */
+    private static class ConsumingIterator<B> implements Iterator<B> {
+        private final Producer<B> producer;
+        private final WaitStrategy waitStrategy;
+        private B nextBlock;
+
+        ConsumingIterator(Producer<B> producer, WaitStrategy waitStrategy) {
+            this.producer = producer;
+            this.waitStrategy = waitStrategy;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (nextBlock == null) {
+                nextBlock = producer.ringBuffer.poll();
+                if (nextBlock == null) {
+                    if (producer.done) {
+                        // The producer may have published blocks between the poll and reading the done flag.
+                        nextBlock = producer.ringBuffer.poll();
+                        if (nextBlock == null) {
+                            rethrowFailure();
+                            return false;
+                        }
+                    } else {
+                        waitStrategy.idle();
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public B next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            B block = nextBlock;
+            nextBlock = null;
+            return block;
+        }
+
+        private void rethrowFailure() {
+            Throwable failure = producer.failure;
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+        }
+    }
+}
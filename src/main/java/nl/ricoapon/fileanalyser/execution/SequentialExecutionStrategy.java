@@ -0,0 +1,17 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Executes the plan on the calling thread, offering each block to all the block analysers before reading the next block.
+ * @param <B> The type of the block.
+ */
+public class SequentialExecutionStrategy<B> implements ExecutionStrategy<B> {
+    @Override
+    public Map<Class<?>, Object> execute(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan) {
+        return plan.execute(blockSupplier);
+    }
+}
@@ -0,0 +1,80 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread. The elements are stored in an array
+ * that is allocated once. The producer only writes the tail and the consumer only writes the head, so no compare-and-set
+ * is needed: publishing an element is a plain array store followed by a release store of the tail.
+ * <p>
+ * Each side caches the index of the other side and only reads it again when the buffer seems full or empty, which
+ * avoids reading the cache line that is written by the other thread for most elements.
+ * @param <E> The type of the elements. Null elements are not supported, because null means that the buffer is empty.
+ */
+final class SpscRingBuffer<E> {
+    private final Object[] elements;
+    private final int mask;
+    /** Index of the next element to poll. Only written by the consumer. */
+    private final AtomicLong head = new AtomicLong();
+    /** Index of the next element to offer. Only written by the producer. */
+    private final AtomicLong tail = new AtomicLong();
+    /** Value of {@link #head} last read by the producer. */
+    private long cachedHead;
+    /** Value of {@link #tail} last read by the consumer. */
+    private long cachedTail;
+
+    /**
+     * @param capacity The minimum number of elements the buffer can hold, which is rounded up to a power of two.
+     */
+    SpscRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.elements = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Must only be called by the producer thread.
+     * @param element The element, which must not be null.
+     * @return Whether the element was added, which is not the case if the buffer is full.
+     */
+    boolean offer(E element) {
+        long currentTail = tail.getPlain();
+        if (currentTail - cachedHead >= elements.length) {
+            cachedHead = head.getAcquire();
+            if (currentTail - cachedHead >= elements.length) {
+                return false;
+            }
+        }
+        elements[(int) currentTail & mask] = element;
+        tail.setRelease(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Must only be called by the consumer thread.
+     * @return The oldest element, or null if the buffer is empty.
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long currentHead = head.getPlain();
+        if (currentHead >= cachedTail) {
+            cachedTail = tail.getAcquire();
+            if (currentHead >= cachedTail) {
+                return null;
+            }
+        }
+        int index = (int) currentHead & mask;
+        E element = (E) elements[index];
+        // Allows the element to be garbage collected before the slot is reused.
+        elements[index] = null;
+        head.setRelease(currentHead + 1);
+        return element;
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+}
@@ -0,0 +1,190 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyserOrder;
+import nl.ricoapon.fileanalyser.internal.BlockAnalyserOrderGraph;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.PlanRun;
+import nl.ricoapon.fileanalyser.internal.Workers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the block analysers into groups that never interact and processes each group on its own worker thread. Two
+ * block analysers are in the same group if they use the same storage class or if there is a relation defined by
+ * {@link BlockAnalyserOrder} between them (also transitively). This means that each storage instance is only touched by
+ * a single thread and the order of the block analysers within a group is the same as in the plan.
+ * <p>
+ * The calling thread reads the blocks and publishes them in batches to a bounded queue for each group. Storages do not
+ * need to be mergeable for this strategy. If there is only a single group, the plan is executed sequentially.
+ * <p>
+ * A worker stops once all block analysers of its group are complete. Reading stops once all workers have stopped.
+ * @param <B> The type of the block.
+ */
+public class StorageGroupPipelineExecutionStrategy<B> implements ExecutionStrategy<B> {
+    /** Marker that is published after the last batch. Compared by reference, so it must not be replaced by List.of(). */
+    private final List<B> endOfBlocks = new ArrayList<>(0);
+    private final int queueCapacity;
+    private final int batchSize;
+
+    /**
+     * @param queueCapacity The maximum number of batches that can be waiting for each group.
+     * @param batchSize     The number of blocks in each batch that is published to the queues. Batch block analysers
+     *                      are offered batches of at most the batch size of the plan.
+     * @throws FileAnalyserConfigurationException If the queue capacity or batch size is not positive.
+     */
+    public StorageGroupPipelineExecutionStrategy(int queueCapacity, int batchSize) {
+        if (queueCapacity <= 0 || batchSize <= 0) {
+            throw new FileAnalyserConfigurationException("The queue capacity and batch size must be positive, but were " +
+                    queueCapacity + " and " + batchSize + ".");
+        }
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Map<Class<?>, Object> execute(Iterator<B> blockSupplier, FileAnalyserPlan<B> plan) {
+        List<FileAnalyserPlan<B>> groupPlans = createGroupPlans(plan);
+        if (groupPlans.size() <= 1) {
+            return plan.execute(blockSupplier);
+        }
+        Workers.checkNoMemoryBudget(plan, getClass());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(groupPlans.size(), Workers.createThreadFactory("file-analyser-group-"));
+        try {
+            List<BlockingQueue<List<B>>> queues = new ArrayList<>();
+            List<Future<Void>> workers = new ArrayList<>();
+            for (FileAnalyserPlan<B> groupPlan : groupPlans) {
+                BlockingQueue<List<B>> queue = new ArrayBlockingQueue<>(queueCapacity);
+                queues.add(queue);
+                workers.add(executorService.submit(() -> processQueue(queue, groupPlan)));
+            }
+
+            // Blocks are kept until all groups have processed them, so recycled blocks must be copied.
+            Iterator<B> detachedBlockSupplier = plan.detaching(blockSupplier);
+            while (!Workers.areAllDone(workers) && detachedBlockSupplier.hasNext()) {
+                List<B> batch = readBatch(detachedBlockSupplier);
+                for (int i = 0; i < queues.size(); i++) {
+                    Workers.publish(queues.get(i), batch, workers.get(i), workers);
+                }
+            }
+            for (int i = 0; i < queues.size(); i++) {
+                Workers.publish(queues.get(i), endOfBlocks, workers.get(i), workers);
+            }
+
+            for (Future<Void> worker : workers) {
+                Workers.waitFor(worker);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        return plan.getStorageInstanceContainer().toMap();
+    }
+
+    /**
+     * @param plan The plan.
+     * @return A plan for each group of block analysers, bound to the same storage instances and with the same settings as
+     * the given plan.
+     */
+    private List<FileAnalyserPlan<B>> createGroupPlans(FileAnalyserPlan<B> plan) {
+        List<BlockAnalyser<B, ?>> blockAnalysers = plan.getBlockAnalysers();
+        int[] groupOf = determineGroups(blockAnalysers);
+
+        // Iterating over the block analysers of the plan makes sure that the order within each group stays the same.
+        Map<Integer, List<BlockAnalyser<B, ?>>> blockAnalysersByGroup = new LinkedHashMap<>();
+        for (int i = 0; i < blockAnalysers.size(); i++) {
+            blockAnalysersByGroup.computeIfAbsent(groupOf[i], g -> new ArrayList<>()).add(blockAnalysers.get(i));
+        }
+
+        List<FileAnalyserPlan<B>> groupPlans = new ArrayList<>();
+        for (List<BlockAnalyser<B, ?>> groupBlockAnalysers : blockAnalysersByGroup.values()) {
+            groupPlans.add(plan.withBlockAnalysers(groupBlockAnalysers));
+        }
+        return groupPlans;
+    }
+
+    /**
+     * Determines the groups using a union-find structure.
+     * @param blockAnalysers The block analysers.
+     * @return For each block analyser an identifier of its group.
+     */
+    private static int[] determineGroups(List<? extends BlockAnalyser<?, ?>> blockAnalysers) {
+        int[] parent = new int[blockAnalysers.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+
+        Map<Class<?>, Integer> firstIndexByStorageClass = new HashMap<>();
+        BlockAnalyserOrderGraph graph = new BlockAnalyserOrderGraph(blockAnalysers);
+        for (int i = 0; i < parent.length; i++) {
+            Integer firstIndexWithSameStorageClass = firstIndexByStorageClass.putIfAbsent(blockAnalysers.get(i).getStorageClass(), i);
+            if (firstIndexWithSameStorageClass != null) {
+                union(parent, i, firstIndexWithSameStorageClass);
+            }
+            for (int predecessor : graph.getPredecessors(i)) {
+                union(parent, i, predecessor);
+            }
+        }
+
+        int[] groupOf = new int[parent.length];
+        for (int i = 0; i < parent.length; i++) {
+            groupOf[i] = find(parent, i);
+        }
+        return groupOf;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+
+    private static int find(int[] parent, int a) {
+        int root = a;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        // Path compression to keep the trees flat.
+        while (parent[a] != root) {
+            int next = parent[a];
+            parent[a] = root;
+            a = next;
+        }
+        return root;
+    }
+
+    private List<B> readBatch(Iterator<B> blockSupplier) {
+        List<B> batch = new ArrayList<>(batchSize);
+        while (batch.size() < batchSize && blockSupplier.hasNext()) {
+            batch.add(blockSupplier.next());
+        }
+        return batch;
+    }
+
+    private Void processQueue(BlockingQueue<List<B>> queue, FileAnalyserPlan<B> groupPlan) throws InterruptedException {
+        PlanRun<B> run = groupPlan.startRun();
+        int planBatchSize = groupPlan.getBatchSize();
+        List<B> batch = queue.take();
+        while (batch != endOfBlocks) {
+            // The batches of the queue are split, so that batch block analysers get the batch size of the plan.
+            for (int from = 0; from < batch.size(); from += planBatchSize) {
+                run.processBatch(batch.subList(from, Math.min(batch.size(), from + planBatchSize)));
+                if (run.isComplete()) {
+                    return null;
+                }
+            }
+            batch = queue.take();
+        }
+        return null;
+    }
+}
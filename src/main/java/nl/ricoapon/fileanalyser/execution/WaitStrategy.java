@@ -0,0 +1,42 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Determines what a thread does while it waits for the other side of a {@link RingBufferPipelineExecutionStrategy}, that
+ * is while the ring buffer is full for the producer or empty for the consumer.
+ */
+public enum WaitStrategy {
+    /**
+     * Spins on the CPU, which gives the lowest latency but fully occupies a core for each waiting thread. Only use this if
+     * there are at least as many cores available as threads that can wait.
+     */
+    BUSY_SPIN {
+        @Override
+        void idle() {
+            Thread.onSpinWait();
+        }
+    },
+    /** Gives up the CPU to other threads, but keeps the thread runnable. */
+    YIELD {
+        @Override
+        void idle() {
+            Thread.yield();
+        }
+    },
+    /** Parks the thread for a short time, which uses the least CPU but adds up to the park time of latency. */
+    PARK {
+        @Override
+        void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * Called each time the thread finds that it cannot make progress.
+     */
+    abstract void idle();
+}
@@ -0,0 +1,162 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyserOrder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Directed graph of block analysers, where the edges are determined by {@link BlockAnalyserOrder}. The block analysers
+ * are identified by their index in the list that was used to create the graph.
+ */
+public class BlockAnalyserOrderGraph {
+    private static final int[] NO_EDGES = new int[0];
+
+    private final List<? extends BlockAnalyser<?, ?>> blockAnalysers;
+    /** For each block analyser, the indices of the block analysers that must be processed before it. */
+    private final int[][] predecessors;
+    /** For each block analyser, the indices of the block analysers that must be processed after it. */
+    private final int[][] successors;
+
+    /**
+     * Creates the graph. The annotation {@link BlockAnalyserOrder} is read only once for each class and the edges are
+     * found using a lookup by class, so creating the graph takes time linear in the number of block analysers and edges.
+     * @param blockAnalysers The block analysers.
+     */
+    public BlockAnalyserOrderGraph(List<? extends BlockAnalyser<?, ?>> blockAnalysers) {
+        this.blockAnalysers = blockAnalysers;
+        int n = blockAnalysers.size();
+
+        // Group the indices by the exact class of the block analyser, since @BlockAnalyserOrder refers to classes.
+        Map<Class<?>, List<Integer>> indicesByClass = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            indicesByClass.computeIfAbsent(blockAnalysers.get(i).getClass(), c -> new ArrayList<>()).add(i);
+        }
+
+        Map<Class<?>, Class<?>[]> afterByClass = new HashMap<>();
+        List<List<Integer>> successorLists = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            successorLists.add(new ArrayList<>());
+        }
+
+        predecessors = new int[n][];
+        for (int i = 0; i < n; i++) {
+            Class<?>[] afterClasses = afterByClass.computeIfAbsent(blockAnalysers.get(i).getClass(), BlockAnalyserOrderGraph::readAfterClasses);
+            List<Integer> predecessorList = new ArrayList<>();
+            for (Class<?> afterClass : afterClasses) {
+                for (int predecessor : indicesByClass.getOrDefault(afterClass, List.of())) {
+                    predecessorList.add(predecessor);
+                    successorLists.get(predecessor).add(i);
+                }
+            }
+            predecessors[i] = toArray(predecessorList);
+        }
+
+        successors = new int[n][];
+        for (int i = 0; i < n; i++) {
+            successors[i] = toArray(successorLists.get(i));
+        }
+    }
+
+    /**
+     * @param blockAnalyserClass The class of the block analyser.
+     * @return The value of {@link BlockAnalyserOrder#after()}, or an empty array if the annotation is not present.
+     */
+    private static Class<?>[] readAfterClasses(Class<?> blockAnalyserClass) {
+        BlockAnalyserOrder annotation = blockAnalyserClass.getAnnotation(BlockAnalyserOrder.class);
+        if (annotation == null) {
+            return new Class<?>[0];
+        }
+        return annotation.after();
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        if (list.isEmpty()) {
+            return NO_EDGES;
+        }
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return The number of block analysers in the graph.
+     */
+    public int size() {
+        return predecessors.length;
+    }
+
+    /**
+     * @param index The index of the block analyser.
+     * @return The indices of the block analysers that must be processed directly before the given block analyser.
+     */
+    public int[] getPredecessors(int index) {
+        return predecessors[index].clone();
+    }
+
+    /**
+     * @param index The index of the block analyser.
+     * @return The indices of the block analysers that must be processed directly after the given block analyser.
+     */
+    public int[] getSuccessors(int index) {
+        return successors[index].clone();
+    }
+
+    /**
+     * Sorts the graph topologically using Kahn's algorithm, where the available block analyser with the lowest index is
+     * always taken first. This takes O((n + e) log n) time for n block analysers and e edges. The result is stable: a
+     * block analyser is only moved ahead of a block analyser that was given before it if a relation requires so, so block
+     * analysers without any relation are never reordered.
+     * @return The indices of the block analysers in the order in which they must be processed.
+     * @throws FileAnalyserConfigurationException If a cyclic relation occurs in the graph.
+     */
+    public int[] topologicalOrder() {
+        int n = size();
+        int[] remainingPredecessors = new int[n];
+        // The block analysers that have no remaining predecessors, ordered by their index.
+        PriorityQueue<Integer> available = new PriorityQueue<>();
+        for (int i = 0; i < n; i++) {
+            remainingPredecessors[i] = predecessors[i].length;
+            if (remainingPredecessors[i] == 0) {
+                available.add(i);
+            }
+        }
+
+        int[] order = new int[n];
+        int tail = 0;
+        while (!available.isEmpty()) {
+            int next = available.poll();
+            order[tail++] = next;
+            for (int successor : successors[next]) {
+                remainingPredecessors[successor]--;
+                if (remainingPredecessors[successor] == 0) {
+                    available.add(successor);
+                }
+            }
+        }
+
+        if (tail < n) {
+            throw new FileAnalyserConfigurationException("A cyclic dependency was found. The block analysers " +
+                    cyclicClassNames(remainingPredecessors) + " could not be ordered. Please fix this issue by correcting the value @BlockAnalyserOrder#after().");
+        }
+
+        return order;
+    }
+
+    /**
+     * @param remainingPredecessors The remaining number of predecessors after sorting as far as possible.
+     * @return Description of the classes of the block analysers that could not be sorted.
+     */
+    private String cyclicClassNames(int[] remainingPredecessors) {
+        List<String> classNames = new ArrayList<>();
+        for (int i = 0; i < remainingPredecessors.length; i++) {
+            if (remainingPredecessors[i] > 0) {
+                classNames.add(blockAnalysers.get(i).getClass().getName());
+            }
+        }
+        return classNames.stream().distinct().collect(Collectors.joining(", ", "[", "]"));
+    }
+}
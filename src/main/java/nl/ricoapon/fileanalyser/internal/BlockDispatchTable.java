@@ -0,0 +1,107 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.KeyedBlockAnalyser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table with, for each key of a block, the indices of the block analysers the block must be offered to. Each entry
+ * contains the block analysers that are not a {@link KeyedBlockAnalyser} and the keyed block analysers that accept the
+ * key, in the order of the plan. If all accepted keys are constants of the same enum, the entries are found by ordinal
+ * instead of by hashing.
+ */
+class BlockDispatchTable {
+    /** The indices for keys that are not accepted by any keyed block analyser. */
+    private final int[] unkeyedIndices;
+    /** The enum of all the accepted keys, or null if the keys are not constants of a single enum. */
+    private final Class<?> enumClass;
+    private final int[][] indicesByOrdinal;
+    private final Map<Object, int[]> indicesByKey;
+
+    /**
+     * @param blockAnalysers   The block analysers of the plan.
+     * @param candidateIndices The indices of the block analysers that can be dispatched to, in the order of the plan.
+     */
+    BlockDispatchTable(BlockAnalyser<?, ?>[] blockAnalysers, int[] candidateIndices) {
+        List<Set<?>> acceptedKeysOfCandidates = new ArrayList<>(candidateIndices.length);
+        Set<Object> allKeys = new LinkedHashSet<>();
+        for (int i : candidateIndices) {
+            Set<?> acceptedKeys = blockAnalysers[i] instanceof KeyedBlockAnalyser
+                    ? ((KeyedBlockAnalyser<?, ?, ?>) blockAnalysers[i]).getAcceptedKeys() : null;
+            acceptedKeysOfCandidates.add(acceptedKeys);
+            if (acceptedKeys != null) {
+                allKeys.addAll(acceptedKeys);
+            }
+        }
+
+        this.unkeyedIndices = indicesAccepting(null, candidateIndices, acceptedKeysOfCandidates);
+        this.enumClass = determineEnumClass(allKeys);
+        if (enumClass != null) {
+            this.indicesByOrdinal = new int[enumClass.getEnumConstants().length][];
+            Arrays.fill(indicesByOrdinal, unkeyedIndices);
+            for (Object key : allKeys) {
+                indicesByOrdinal[((Enum<?>) key).ordinal()] = indicesAccepting(key, candidateIndices, acceptedKeysOfCandidates);
+            }
+            this.indicesByKey = null;
+        } else {
+            this.indicesByOrdinal = null;
+            this.indicesByKey = new HashMap<>();
+            for (Object key : allKeys) {
+                indicesByKey.put(key, indicesAccepting(key, candidateIndices, acceptedKeysOfCandidates));
+            }
+        }
+    }
+
+    /**
+     * @return The indices of the candidates that are not keyed, or that accept the key if it is not null.
+     */
+    private static int[] indicesAccepting(Object key, int[] candidateIndices, List<Set<?>> acceptedKeysOfCandidates) {
+        List<Integer> indices = new ArrayList<>();
+        for (int j = 0; j < candidateIndices.length; j++) {
+            Set<?> acceptedKeys = acceptedKeysOfCandidates.get(j);
+            if (acceptedKeys == null || (key != null && acceptedKeys.contains(key))) {
+                indices.add(candidateIndices[j]);
+            }
+        }
+        return indices.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Class<?> determineEnumClass(Set<Object> keys) {
+        Class<?> enumClass = null;
+        for (Object key : keys) {
+            if (!(key instanceof Enum)) {
+                return null;
+            }
+            Class<?> declaringClass = ((Enum<?>) key).getDeclaringClass();
+            if (enumClass != null && enumClass != declaringClass) {
+                return null;
+            }
+            enumClass = declaringClass;
+        }
+        return enumClass;
+    }
+
+    /**
+     * @param key The key of the block, possibly null.
+     * @return The indices of the block analysers the block must be offered to, in the order of the plan.
+     */
+    int[] indicesFor(Object key) {
+        if (indicesByOrdinal != null) {
+            if (key instanceof Enum && ((Enum<?>) key).getDeclaringClass() == enumClass) {
+                return indicesByOrdinal[((Enum<?>) key).ordinal()];
+            }
+            return unkeyedIndices;
+        }
+        if (key == null) {
+            return unkeyedIndices;
+        }
+        return indicesByKey.getOrDefault(key, unkeyedIndices);
+    }
+}
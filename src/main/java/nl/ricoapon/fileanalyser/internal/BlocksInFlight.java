@@ -0,0 +1,142 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.AsyncBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Loop of {@link FileAnalyserPlan#executeWithBlocksInFlight(Iterator, int, Executor)}, which starts the lookups of the
+ * {@link AsyncBlockAnalyser}s for up to a maximum number of blocks before the oldest of these blocks is offered to the
+ * block analysers. The blocks are offered using a {@link CheckedPlanRun}, so the metrics, completion and memory budget
+ * are handled in the same way as by the other loops.
+ * @param <B> The type of the block.
+ */
+class BlocksInFlight<B> {
+    private final CheckedPlanRun<B> run;
+    private final BlockAnalyser<B, ?>[] blockAnalysers;
+    private final Object[] storages;
+    private final int maxBlocksInFlight;
+    private final Executor executor;
+
+    BlocksInFlight(CheckedPlanRun<B> run, int maxBlocksInFlight, Executor executor) {
+        this.run = run;
+        this.blockAnalysers = run.getPlan().blockAnalysers();
+        this.storages = run.getPlan().storages();
+        this.maxBlocksInFlight = maxBlocksInFlight;
+        this.executor = executor;
+    }
+
+    Map<Class<?>, Object> execute(Iterator<B> blockSupplier) {
+        run.refreshCompleted();
+
+        Iterator<B> detachedBlockSupplier = run.getPlan().detaching(blockSupplier);
+        Deque<BlockInFlight<B>> blocksInFlight = new ArrayDeque<>(maxBlocksInFlight);
+        while (!run.isComplete() && detachedBlockSupplier.hasNext()) {
+            blocksInFlight.addLast(startLookups(detachedBlockSupplier.next()));
+            if (blocksInFlight.size() == maxBlocksInFlight) {
+                processBlockInFlight(blocksInFlight.removeFirst());
+            }
+        }
+        while (!blocksInFlight.isEmpty()) {
+            processBlockInFlight(blocksInFlight.removeFirst());
+        }
+
+        return run.getPlan().getStorageInstanceContainer().toMap();
+    }
+
+    /**
+     * Starts the lookups of the block. {@link BlockAnalyser#shouldProcessBlock(Object, Object)} is not called yet, because
+     * the storage does not contain the updates of the earlier blocks that are still in flight.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private BlockInFlight<B> startLookups(B block) {
+        int[] indices = run.indicesFor(block);
+        CompletionStage<?>[] lookups = new CompletionStage<?>[blockAnalysers.length];
+        for (int i : indices) {
+            BlockAnalyser blockAnalyser = blockAnalysers[i];
+            if (blockAnalyser instanceof AsyncBlockAnalyser && !run.isCompleted(i)) {
+                lookups[i] = ((AsyncBlockAnalyser) blockAnalyser).processBlockAsync(block, executor);
+            }
+        }
+        return new BlockInFlight<>(block, indices, lookups);
+    }
+
+    /**
+     * Same as {@link CheckedPlanRun#processBlock(Object)}, but applies the updates of the lookups of the block instead of
+     * calling the {@link AsyncBlockAnalyser}s. The time that a block analyser waits for its lookup is included in the
+     * processing time of the metrics.
+     */
+    private void processBlockInFlight(BlockInFlight<B> blockInFlight) {
+        run.startBlock();
+        for (int i : blockInFlight.indices) {
+            if (blockAnalysers[i] instanceof AsyncBlockAnalyser) {
+                applyLookup(i, blockInFlight.block, blockInFlight.lookups[i]);
+            } else {
+                run.offerBlock(i, blockInFlight.block);
+            }
+        }
+        run.endBlock();
+    }
+
+    /**
+     * Applies the update of the lookup if {@link BlockAnalyser#shouldProcessBlock(Object, Object)} accepts the block now
+     * that the storage contains the updates of all earlier blocks. Otherwise the result of the lookup is discarded.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void applyLookup(int i, B block, CompletionStage<?> lookup) {
+        // No lookup is started for a block analyser that was already complete.
+        if (lookup == null || run.isCompleted(i)) {
+            return;
+        }
+        BlockAnalyser blockAnalyser = blockAnalysers[i];
+        boolean accepted = blockAnalyser.shouldProcessBlock(block, storages[i]);
+        run.recordOffer(i, accepted);
+        if (accepted) {
+            run.process(i, () -> applyUpdate(i, lookup));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void applyUpdate(int i, CompletionStage<?> lookup) {
+        Consumer<Object> update;
+        try {
+            update = (Consumer<Object>) lookup.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new FileAnalyserExecutionException("The lookup of " + blockAnalysers[i].getClass().getName() + " failed.", e.getCause());
+        }
+        if (update != null) {
+            update.accept(storages[i]);
+        }
+    }
+
+    /**
+     * A block together with the started lookups of the {@link AsyncBlockAnalyser}s.
+     */
+    private static class BlockInFlight<B> {
+        private final B block;
+        /** The indices of the block analysers that must be offered the block. */
+        private final int[] indices;
+        /** For each block analyser the lookup of the block, or null if no lookup is started. */
+        private final CompletionStage<?>[] lookups;
+
+        BlockInFlight(B block, int[] indices, CompletionStage<?>[] lookups) {
+            this.block = block;
+            this.indices = indices;
+            this.lookups = lookups;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BatchBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.CompletableBlockAnalyser;
+import nl.ricoapon.fileanalyser.memory.MemoryBudgetTracker;
+import nl.ricoapon.fileanalyser.metrics.MetricsRecorder;
+
+import java.util.List;
+
+/**
+ * Run with instrumented copies of the loops of {@link PlanRun}, which record the metrics, skip the block analysers that
+ * are complete and check the memory budget after each block. The plan only starts a run of this type if it needs any of
+ * these checks, so runs without them do not pay for them.
+ * @param <B> The type of the block.
+ */
+class CheckedPlanRun<B> extends PlanRun<B> {
+    private final BlockAnalyser<B, ?>[] blockAnalysers;
+    private final Object[] storages;
+    private final int[] batchIndices;
+    /** Recorder of metrics, or null if metrics are disabled. */
+    private final MetricsRecorder metricsRecorder;
+    /** Tracker of the memory budget, or null if there is no budget. */
+    private final MemoryBudgetTracker memoryBudgetTracker;
+    /** For each block analyser whether it is complete, or null if there is no {@link CompletableBlockAnalyser}. */
+    private final boolean[] completed;
+    private int nrOfIncompleteBlockAnalysers;
+
+    CheckedPlanRun(FileAnalyserPlan<B> plan) {
+        super(plan);
+        this.blockAnalysers = plan.blockAnalysers();
+        this.storages = plan.storages();
+        this.batchIndices = plan.batchIndices();
+        this.metricsRecorder = plan.getMetricsRecorder();
+        this.memoryBudgetTracker = plan.getMemoryBudgetTracker();
+        this.completed = plan.hasCompletableBlockAnalyser() ? new boolean[blockAnalysers.length] : null;
+        refreshCompleted();
+    }
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void refreshCompleted() {
+        if (completed == null) {
+            return;
+        }
+        nrOfIncompleteBlockAnalysers = 0;
+        for (int i = 0; i < blockAnalysers.length; i++) {
+            completed[i] = blockAnalysers[i] instanceof CompletableBlockAnalyser
+                    && ((CompletableBlockAnalyser) blockAnalysers[i]).isComplete(storages[i]);
+            if (!completed[i]) {
+                nrOfIncompleteBlockAnalysers++;
+            }
+        }
+    }
+
+    @Override
+    public boolean isOfferingBatches() {
+        if (!super.isOfferingBatches()) {
+            return false;
+        }
+        for (int i : batchIndices) {
+            if (!isCompleted(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return completed != null && nrOfIncompleteBlockAnalysers == 0;
+    }
+
+    @Override
+    public void processBlock(B block) {
+        startBlock();
+        for (int i : indicesFor(block)) {
+            offerBlock(i, block);
+        }
+        endBlock();
+    }
+
+    /**
+     * A call of {@link BatchBlockAnalyser#processBatch(List, Object)} counts as a single timed call in which all blocks
+     * are accepted. The memory budget is checked after each block.
+     */
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void processBatch(List<B> blocks) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        for (int i : batchIndices) {
+            if (isCompleted(i)) {
+                continue;
+            }
+            BatchBlockAnalyser blockAnalyser = (BatchBlockAnalyser) blockAnalysers[i];
+            if (metricsRecorder == null) {
+                blockAnalyser.processBatch(blocks, storages[i]);
+            } else {
+                metricsRecorder.recordOffers(i, blocks.size(), blocks.size());
+                if (metricsRecorder.shouldTime(i)) {
+                    long start = System.nanoTime();
+                    blockAnalyser.processBatch(blocks, storages[i]);
+                    metricsRecorder.recordProcessingTime(i, System.nanoTime() - start);
+                } else {
+                    blockAnalyser.processBatch(blocks, storages[i]);
+                }
+            }
+            updateCompleted(i);
+        }
+
+        for (B block : blocks) {
+            startBlock();
+            for (int i : perBlockIndicesFor(block)) {
+                offerBlock(i, block);
+            }
+            endBlock();
+        }
+    }
+
+    /**
+     * Must be called before a block is offered to the block analysers.
+     */
+    void startBlock() {
+        if (metricsRecorder != null) {
+            metricsRecorder.recordBlock();
+        }
+    }
+
+    /**
+     * Must be called after a block is offered to the block analysers.
+     */
+    void endBlock() {
+        if (memoryBudgetTracker != null) {
+            memoryBudgetTracker.recordBlock();
+        }
+    }
+
+    /**
+     * Offers the block to a single block analyser, unless it is complete.
+     * @param i     The index of the block analyser.
+     * @param block The block.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    void offerBlock(int i, B block) {
+        if (isCompleted(i)) {
+            return;
+        }
+        BlockAnalyser blockAnalyser = blockAnalysers[i];
+        Object storage = storages[i];
+        boolean accepted = blockAnalyser.shouldProcessBlock(block, storage);
+        if (metricsRecorder != null) {
+            metricsRecorder.recordOffers(i, 1, accepted ? 1 : 0);
+        }
+        if (!accepted) {
+            return;
+        }
+
+        if (metricsRecorder != null && metricsRecorder.shouldTime(i)) {
+            long start = System.nanoTime();
+            blockAnalyser.processBlock(block, storage);
+            metricsRecorder.recordProcessingTime(i, System.nanoTime() - start);
+        } else {
+            blockAnalyser.processBlock(block, storage);
+        }
+        updateCompleted(i);
+    }
+
+    /**
+     * @param i The index of the block analyser.
+     * @return Whether the block analyser is complete, in which case it must not be offered any more blocks.
+     */
+    boolean isCompleted(int i) {
+        return completed != null && completed[i];
+    }
+
+    /**
+     * Records that a block is offered to a block analyser, if metrics are enabled.
+     * @param i        The index of the block analyser.
+     * @param accepted Whether the block analyser accepted the block.
+     */
+    void recordOffer(int i, boolean accepted) {
+        if (metricsRecorder != null) {
+            metricsRecorder.recordOffers(i, 1, accepted ? 1 : 0);
+        }
+    }
+
+    /**
+     * Runs the processing of a block by a block analyser, timing it if metrics require so, and determines afterwards
+     * whether the block analyser is complete.
+     * @param i          The index of the block analyser.
+     * @param processing The processing.
+     */
+    void process(int i, Runnable processing) {
+        if (metricsRecorder != null && metricsRecorder.shouldTime(i)) {
+            long start = System.nanoTime();
+            processing.run();
+            metricsRecorder.recordProcessingTime(i, System.nanoTime() - start);
+        } else {
+            processing.run();
+        }
+        updateCompleted(i);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void updateCompleted(int i) {
+        if (completed != null && blockAnalysers[i] instanceof CompletableBlockAnalyser
+                && ((CompletableBlockAnalyser) blockAnalysers[i]).isComplete(storages[i])) {
+            completed[i] = true;
+            nrOfIncompleteBlockAnalysers--;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package nl.ricoapon.fileanalyser.internal;
 
 import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.metrics.PlanCreatedEvent;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -8,7 +9,6 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 /**
  * Class containing the algorithm to analyse a file. See {@link #execute(Iterator, Collection, StorageInstanceContainer)} for more details.
@@ -29,28 +29,37 @@ public class FileAnalyserAlgorithm<B> {
      * @param blockAnalysers           The objects that analyse the blocks.
      * @param storageInstanceContainer Container with all the storage instances.
      * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value.
+     * @throws FileAnalyserConfigurationException If no storage instance is supplied for one of the block analysers.
      */
-    @SuppressWarnings({"rawtypes", "unchecked"})
     public Map<Class<?>, Object> execute(Iterator<B> blockSupplier, Collection<BlockAnalyser<B, ?>> blockAnalysers, StorageInstanceContainer storageInstanceContainer) {
-        List<BlockAnalyser<B, ?>> blockAnalyserList = new ArrayList<>(blockAnalysers);
-        blockAnalyserList.sort(blockAnalyserComparatorCreator.create(blockAnalysers));
-
-        blockSupplier.forEachRemaining(block -> {
-            for (BlockAnalyser blockAnalyser : blockAnalyserList) {
-                Optional<Object> storage = storageInstanceContainer.getStorageForBlockAnalyser(blockAnalyser);
+        return createPlan(blockAnalysers, storageInstanceContainer).execute(blockSupplier);
+    }
 
-                if (storage.isEmpty()) {
-                    throw new FileAnalyserConfigurationException("No storage instance of class " + blockAnalyser.getStorageClass() +
-                            " could be found for " + blockAnalyser.getClass().getName() + ". " +
-                            "Supply exactly storage instance to fix this issue.");
-                }
+    /**
+     * Sorts the block analysers using the given {@link #blockAnalyserComparatorCreator} and binds each of them to its
+     * storage instance. The resulting plan can be executed for any number of block suppliers. Emits a
+     * {@link PlanCreatedEvent} if a JFR recording is running.
+     * @param blockAnalysers           The objects that analyse the blocks.
+     * @param storageInstanceContainer Container with all the storage instances.
+     * @return {@link FileAnalyserPlan}.
+     * @throws FileAnalyserConfigurationException If no storage instance is supplied for one of the block analysers.
+     */
+    public FileAnalyserPlan<B> createPlan(Collection<BlockAnalyser<B, ?>> blockAnalysers, StorageInstanceContainer storageInstanceContainer) {
+        PlanCreatedEvent event = new PlanCreatedEvent();
+        event.begin();
 
-                if (blockAnalyser.shouldProcessBlock(block, storage.get())) {
-                    blockAnalyser.processBlock(block, storage.get());
-                }
-            }
-        });
+        List<BlockAnalyser<B, ?>> blockAnalyserList = new ArrayList<>(blockAnalysers);
+        long sortStart = System.nanoTime();
+        blockAnalyserList.sort(blockAnalyserComparatorCreator.create(blockAnalysers));
+        long sortDuration = System.nanoTime() - sortStart;
+        FileAnalyserPlan<B> plan = new FileAnalyserPlan<>(blockAnalyserList, storageInstanceContainer);
 
-        return storageInstanceContainer.toMap();
+        event.end();
+        if (event.shouldCommit()) {
+            event.blockAnalyserCount = blockAnalyserList.size();
+            event.sortDuration = sortDuration;
+            event.commit();
+        }
+        return plan;
     }
 }
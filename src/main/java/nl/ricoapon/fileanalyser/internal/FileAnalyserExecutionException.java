@@ -0,0 +1,15 @@
+package nl.ricoapon.fileanalyser.internal;
+
+/**
+ * Exception that will be thrown when the algorithm could not be completed for reasons other than its input, for example
+ * because a worker thread was interrupted.
+ */
+public class FileAnalyserExecutionException extends RuntimeException {
+    public FileAnalyserExecutionException(String message) {
+        super(message);
+    }
+
+    public FileAnalyserExecutionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
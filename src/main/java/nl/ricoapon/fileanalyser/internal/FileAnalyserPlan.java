@@ -0,0 +1,459 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.AsyncBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BatchBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockClassifier;
+import nl.ricoapon.fileanalyser.analyser.CompletableBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.KeyedBlockAnalyser;
+import nl.ricoapon.fileanalyser.memory.MemoryBudgetTracker;
+import nl.ricoapon.fileanalyser.metrics.MetricsRecorder;
+import nl.ricoapon.fileanalyser.supplier.RecyclingBlockSupplier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.UnaryOperator;
+
+/**
+ * Compiled form of a configuration of block analysers and storage instances. All block analysers are sorted and bound
+ * to their storage instance when the plan is created, so that processing a block only consists of iterating over two
+ * flat arrays. A plan can be executed any number of times, for example once for each file that must be analysed.
+ * <p>
+ * Instances of {@link BatchBlockAnalyser} that can not interact with other block analysers are offered the blocks in
+ * batches of {@link #getBatchSize()} blocks, unless the blocks are recycled. All other block analysers are offered the
+ * blocks one by one.
+ * <p>
+ * Whether blocks are recycled (see {@link RecyclingBlockSupplier}) is set explicitly with
+ * {@link #withRecycledBlocks(UnaryOperator)}, because a supplier that wraps a recycling supplier can not be recognized
+ * as such. Execution strategies that keep blocks after the next block has been read use {@link #detaching(Iterator)}.
+ * <p>
+ * If a {@link BlockClassifier} is set with {@link #withBlockClassifier(BlockClassifier)}, each block is only offered to
+ * the {@link KeyedBlockAnalyser}s that accept its key, using a {@link BlockDispatchTable}. A plan with keyed block
+ * analysers can only be run with a classifier.
+ * <p>
+ * Blocks are no longer offered to a {@link CompletableBlockAnalyser} once it is complete, and {@link #execute(Iterator)}
+ * stops reading blocks once all block analysers are complete. This is tracked by a {@link PlanRun} for each run, so the
+ * plan itself is never modified while blocks are offered. The same plan can be executed by multiple threads at the same
+ * time if it has no {@link MetricsRecorder} or {@link MemoryBudgetTracker}, which can only be used by a single thread,
+ * and if the storage instances can be used by multiple threads.
+ * <p>
+ * While a {@link BatchBlockAnalyser} that is offered batches is not complete, blocks are read a batch at a time and
+ * completion is only checked after each batch. In that case up to {@link #getBatchSize()} - 1 blocks are read after the
+ * block that completed the last block analyser. Once all such block analysers are complete, the other block analysers
+ * are offered the blocks one by one, and reading stops right after the block that completes them.
+ * <p>
+ * If a {@link MetricsRecorder} is attached with {@link #withMetricsRecorder(MetricsRecorder)}, the blocks are processed
+ * by the instrumented loops of {@link CheckedPlanRun}, which also handle completion. Without a recorder or completable
+ * block analysers, the loops of {@link PlanRun} are used, which have no checks at all.
+ * <p>
+ * If a {@link MemoryBudgetTracker} is attached with {@link #withMemoryBudgetTracker(MemoryBudgetTracker)}, it is notified
+ * after each block by the same instrumented loops, so it can check the memory budget between two blocks.
+ * <p>
+ * Using {@link #executeWithBlocksInFlight(Iterator, int, Executor)}, the lookups of {@link AsyncBlockAnalyser}s for
+ * multiple blocks overlap, while all block analysers are still called in the order of the blocks and of the plan. This
+ * loop is implemented by {@link BlocksInFlight}.
+ * @param <B> The type of the block.
+ */
+public class FileAnalyserPlan<B> {
+    /** Default number of blocks in a batch for {@link BatchBlockAnalyser}s. */
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+
+    /** The block analysers in the order in which they must be called. */
+    private final BlockAnalyser<B, ?>[] blockAnalysers;
+    /** The storage instance for the block analyser on the same index in {@link #blockAnalysers}. */
+    private final Object[] storages;
+    /** The indices in {@link #blockAnalysers} of all the block analysers. */
+    private final int[] allIndices;
+    /** The indices in {@link #blockAnalysers} of the block analysers that are offered batches of blocks. */
+    private final int[] batchIndices;
+    /** The indices in {@link #blockAnalysers} of the block analysers that are offered blocks one by one. */
+    private final int[] perBlockIndices;
+    private final int batchSize;
+    private final StorageInstanceContainer storageInstanceContainer;
+    /** Recorder of metrics, or null if metrics are disabled. */
+    private final MetricsRecorder metricsRecorder;
+    /** Tracker of the memory budget, or null if there is no budget. */
+    private final MemoryBudgetTracker memoryBudgetTracker;
+    /** Classifier of the blocks, or null if blocks are offered to all block analysers. */
+    private final BlockClassifier<B, ?> blockClassifier;
+    /** Dispatch table over {@link #allIndices}, or null if there is no {@link #blockClassifier}. */
+    private final BlockDispatchTable blockDispatchTable;
+    /** Dispatch table over {@link #perBlockIndices}, or null if there is no {@link #blockClassifier}. */
+    private final BlockDispatchTable perBlockDispatchTable;
+    /** Whether any of the block analysers is a {@link CompletableBlockAnalyser}. */
+    private final boolean hasCompletableBlockAnalyser;
+    /** Whether any of the block analysers is a {@link KeyedBlockAnalyser}. */
+    private final boolean hasKeyedBlockAnalyser;
+    /** Function that copies a recycled block, or null if blocks are not recycled. */
+    private final UnaryOperator<B> blockDetacher;
+
+    /**
+     * @param sortedBlockAnalysers     The block analysers, already sorted in the order in which they must be called.
+     * @param storageInstanceContainer Container with all the storage instances.
+     * @throws FileAnalyserConfigurationException If no storage instance is supplied for one of the block analysers.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public FileAnalyserPlan(List<BlockAnalyser<B, ?>> sortedBlockAnalysers, StorageInstanceContainer storageInstanceContainer) {
+        this.blockAnalysers = sortedBlockAnalysers.toArray(new BlockAnalyser[0]);
+        this.storageInstanceContainer = storageInstanceContainer;
+        this.storages = bindStorages(blockAnalysers, storageInstanceContainer);
+        this.allIndices = complement(new int[0], blockAnalysers.length);
+        this.batchIndices = findBatchIndices(sortedBlockAnalysers, false);
+        this.perBlockIndices = complement(batchIndices, blockAnalysers.length);
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.metricsRecorder = null;
+        this.memoryBudgetTracker = null;
+        this.blockClassifier = null;
+        this.blockDispatchTable = null;
+        this.perBlockDispatchTable = null;
+        this.hasCompletableBlockAnalyser = Arrays.stream(blockAnalysers).anyMatch(blockAnalyser -> blockAnalyser instanceof CompletableBlockAnalyser);
+        this.hasKeyedBlockAnalyser = Arrays.stream(blockAnalysers).anyMatch(blockAnalyser -> blockAnalyser instanceof KeyedBlockAnalyser);
+        this.blockDetacher = null;
+    }
+
+    /**
+     * Copies the plan, replacing the given settings. The block analysers and their order are always the same.
+     */
+    private FileAnalyserPlan(FileAnalyserPlan<B> plan, StorageInstanceContainer storageInstanceContainer, int batchSize,
+                             MetricsRecorder metricsRecorder, MemoryBudgetTracker memoryBudgetTracker, BlockClassifier<B, ?> blockClassifier,
+                             UnaryOperator<B> blockDetacher) {
+        this.blockAnalysers = plan.blockAnalysers;
+        this.storageInstanceContainer = storageInstanceContainer;
+        this.storages = storageInstanceContainer == plan.storageInstanceContainer ? plan.storages
+                : bindStorages(blockAnalysers, storageInstanceContainer);
+        this.allIndices = plan.allIndices;
+        this.batchSize = batchSize;
+        this.metricsRecorder = metricsRecorder;
+        this.memoryBudgetTracker = memoryBudgetTracker;
+        this.blockClassifier = blockClassifier;
+        if (blockClassifier == plan.blockClassifier) {
+            this.batchIndices = plan.batchIndices;
+            this.perBlockIndices = plan.perBlockIndices;
+            this.blockDispatchTable = plan.blockDispatchTable;
+            this.perBlockDispatchTable = plan.perBlockDispatchTable;
+        } else {
+            // Keyed block analysers are offered blocks one by one, so they can be skipped for blocks with other keys.
+            this.batchIndices = findBatchIndices(Arrays.asList(blockAnalysers), blockClassifier != null);
+            this.perBlockIndices = complement(batchIndices, blockAnalysers.length);
+            this.blockDispatchTable = blockClassifier == null ? null : new BlockDispatchTable(blockAnalysers, allIndices);
+            this.perBlockDispatchTable = blockClassifier == null ? null : new BlockDispatchTable(blockAnalysers, perBlockIndices);
+        }
+        this.hasCompletableBlockAnalyser = plan.hasCompletableBlockAnalyser;
+        this.hasKeyedBlockAnalyser = plan.hasKeyedBlockAnalyser;
+        this.blockDetacher = blockDetacher;
+    }
+
+    /**
+     * @param blockAnalysers           The block analysers.
+     * @param storageInstanceContainer Container with all the storage instances.
+     * @return Array containing the storage instance for the block analyser on the same index.
+     * @throws FileAnalyserConfigurationException If no storage instance is supplied for one of the block analysers.
+     */
+    private static Object[] bindStorages(BlockAnalyser<?, ?>[] blockAnalysers, StorageInstanceContainer storageInstanceContainer) {
+        Object[] storages = new Object[blockAnalysers.length];
+        for (int i = 0; i < blockAnalysers.length; i++) {
+            Optional<Object> storage = storageInstanceContainer.getStorageForBlockAnalyser(blockAnalysers[i]);
+
+            if (storage.isEmpty()) {
+                throw new FileAnalyserConfigurationException("No storage instance of class " + blockAnalysers[i].getStorageClass() +
+                        " could be found for " + blockAnalysers[i].getClass().getName() + ". " +
+                        "Supply exactly storage instance to fix this issue.");
+            }
+
+            storages[i] = storage.get();
+        }
+        return storages;
+    }
+
+    /**
+     * @param blockAnalysers             The sorted block analysers.
+     * @param excludeKeyedBlockAnalysers Whether {@link KeyedBlockAnalyser}s must be offered blocks one by one.
+     * @return The indices of the {@link BatchBlockAnalyser}s that do not share their storage class with another block
+     * analyser and have no order relation with another block analyser.
+     */
+    private static int[] findBatchIndices(List<? extends BlockAnalyser<?, ?>> blockAnalysers, boolean excludeKeyedBlockAnalysers) {
+        Map<Class<?>, Integer> nrOfBlockAnalysersByStorageClass = new HashMap<>();
+        blockAnalysers.forEach(blockAnalyser -> nrOfBlockAnalysersByStorageClass.merge(blockAnalyser.getStorageClass(), 1, Integer::sum));
+        BlockAnalyserOrderGraph graph = new BlockAnalyserOrderGraph(blockAnalysers);
+
+        List<Integer> batchIndices = new ArrayList<>();
+        for (int i = 0; i < blockAnalysers.size(); i++) {
+            if (blockAnalysers.get(i) instanceof BatchBlockAnalyser
+                    && !(excludeKeyedBlockAnalysers && blockAnalysers.get(i) instanceof KeyedBlockAnalyser)
+                    && nrOfBlockAnalysersByStorageClass.get(blockAnalysers.get(i).getStorageClass()) == 1
+                    && graph.getPredecessors(i).length == 0 && graph.getSuccessors(i).length == 0) {
+                batchIndices.add(i);
+            }
+        }
+        return batchIndices.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int[] complement(int[] sortedIndices, int n) {
+        int[] complement = new int[n - sortedIndices.length];
+        int j = 0;
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            if (j < sortedIndices.length && sortedIndices[j] == i) {
+                j++;
+            } else {
+                complement[k++] = i;
+            }
+        }
+        return complement;
+    }
+
+    /**
+     * Creates a plan with the same block analysers in the same order, bound to other storage instances. This does not
+     * sort the block analysers again, which makes it cheap to create a new plan for each file that must be analysed.
+     * <p>
+     * The new plan has no {@link MetricsRecorder}, because a recorder can only be used by a single thread and plans bound
+     * to other storage instances are typically executed by other threads. It has no {@link MemoryBudgetTracker} either,
+     * because a tracker is bound to the storage instances of this plan.
+     * @param storageInstanceContainer Container with all the storage instances.
+     * @return New {@link FileAnalyserPlan}.
+     * @throws FileAnalyserConfigurationException If no storage instance is supplied for one of the block analysers.
+     */
+    public FileAnalyserPlan<B> withStorageInstanceContainer(StorageInstanceContainer storageInstanceContainer) {
+        return new FileAnalyserPlan<>(this, storageInstanceContainer, batchSize, null, null, blockClassifier, blockDetacher);
+    }
+
+    /**
+     * Creates a plan with a part of the block analysers, bound to the same storage instances and with the same batch size,
+     * block classifier and recycled blocks setting. Like {@link #withStorageInstanceContainer(StorageInstanceContainer)},
+     * the new plan has no {@link MetricsRecorder} or {@link MemoryBudgetTracker}, because these are created for all block
+     * analysers and storage instances of this plan.
+     * @param sortedBlockAnalysers Block analysers of this plan, in the order of this plan.
+     * @return New {@link FileAnalyserPlan}.
+     */
+    public FileAnalyserPlan<B> withBlockAnalysers(List<BlockAnalyser<B, ?>> sortedBlockAnalysers) {
+        return new FileAnalyserPlan<>(sortedBlockAnalysers, storageInstanceContainer)
+                .withBatchSize(batchSize)
+                .withBlockClassifier(blockClassifier)
+                .withRecycledBlocks(blockDetacher);
+    }
+
+    /**
+     * @param batchSize The number of blocks in a batch for {@link BatchBlockAnalyser}s.
+     * @return New {@link FileAnalyserPlan} with the same block analysers and storage instances.
+     * @throws FileAnalyserConfigurationException If the batch size is not positive.
+     */
+    public FileAnalyserPlan<B> withBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new FileAnalyserConfigurationException("The batch size must be positive, but was " + batchSize + ".");
+        }
+        return new FileAnalyserPlan<>(this, storageInstanceContainer, batchSize, metricsRecorder, memoryBudgetTracker, blockClassifier, blockDetacher);
+    }
+
+    /**
+     * @param metricsRecorder The recorder of the metrics, created for the block analysers of this plan, or null to disable
+     *                        metrics. The recorder is not thread-safe, so the new plan must be executed by a single thread.
+     * @return New {@link FileAnalyserPlan} with the same block analysers and storage instances.
+     */
+    public FileAnalyserPlan<B> withMetricsRecorder(MetricsRecorder metricsRecorder) {
+        return new FileAnalyserPlan<>(this, storageInstanceContainer, batchSize, metricsRecorder, memoryBudgetTracker, blockClassifier, blockDetacher);
+    }
+
+    /**
+     * @param memoryBudgetTracker The tracker of the memory budget, created for the storage instances of this plan, or null
+     *                            to disable the budget. The tracker is not thread-safe, so the new plan must be executed by
+     *                            a single thread.
+     * @return New {@link FileAnalyserPlan} with the same block analysers and storage instances.
+     */
+    public FileAnalyserPlan<B> withMemoryBudgetTracker(MemoryBudgetTracker memoryBudgetTracker) {
+        return new FileAnalyserPlan<>(this, storageInstanceContainer, batchSize, metricsRecorder, memoryBudgetTracker, blockClassifier, blockDetacher);
+    }
+
+    /**
+     * @param blockClassifier The classifier of the blocks, or null to offer blocks to all block analysers. Without a
+     *                        classifier, a plan with {@link KeyedBlockAnalyser}s can not be run.
+     * @return New {@link FileAnalyserPlan} with the same block analysers and storage instances.
+     */
+    public FileAnalyserPlan<B> withBlockClassifier(BlockClassifier<B, ?> blockClassifier) {
+        return new FileAnalyserPlan<>(this, storageInstanceContainer, batchSize, metricsRecorder, memoryBudgetTracker, blockClassifier, blockDetacher);
+    }
+
+    /**
+     * @param blockDetacher Function that copies a recycled block into a block that is never recycled, or null if the
+     *                      blocks that are executed with this plan are not recycled.
+     * @return New {@link FileAnalyserPlan} with the same block analysers and storage instances.
+     */
+    public FileAnalyserPlan<B> withRecycledBlocks(UnaryOperator<B> blockDetacher) {
+        return new FileAnalyserPlan<>(this, storageInstanceContainer, batchSize, metricsRecorder, memoryBudgetTracker, blockClassifier, blockDetacher);
+    }
+
+    /**
+     * Starts a new run of this plan, which holds the state that changes while blocks are offered. Each thread that offers
+     * blocks to this plan must use its own run.
+     * @return New {@link PlanRun}.
+     * @throws FileAnalyserConfigurationException If the plan has a {@link KeyedBlockAnalyser} but no {@link BlockClassifier}.
+     */
+    public PlanRun<B> startRun() {
+        checkBlockClassifierOfKeyedBlockAnalysers();
+        if (metricsRecorder != null || memoryBudgetTracker != null || hasCompletableBlockAnalyser) {
+            return new CheckedPlanRun<>(this);
+        }
+        return new PlanRun<>(this);
+    }
+
+    /**
+     * A {@link KeyedBlockAnalyser} does not check the key of the blocks itself, so it would process all blocks without a
+     * classifier.
+     * @throws FileAnalyserConfigurationException If the plan has a {@link KeyedBlockAnalyser} but no {@link BlockClassifier}.
+     */
+    private void checkBlockClassifierOfKeyedBlockAnalysers() {
+        if (hasKeyedBlockAnalyser && blockClassifier == null) {
+            throw new FileAnalyserConfigurationException("A KeyedBlockAnalyser can only be used if a BlockClassifier is set.");
+        }
+    }
+
+    /**
+     * Calls {@link BlockAnalyser#processBlock(Object, Object)} for each of the blocks supplied, in the order of this plan,
+     * using a new run.
+     * @param blockSupplier The supplier of blocks.
+     * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value.
+     */
+    public Map<Class<?>, Object> execute(Iterator<B> blockSupplier) {
+        return startRun().execute(blockSupplier);
+    }
+
+    /**
+     * Same as {@link #execute(Iterator)}, but starts the lookups of the {@link AsyncBlockAnalyser}s for up to
+     * {@code maxBlocksInFlight} blocks before the first of these blocks is processed. Each block is then offered to the
+     * block analysers in the order of this plan, where an {@link AsyncBlockAnalyser} waits for its own lookup of the
+     * block and applies the update. The storage instances are therefore updated in the same order as by
+     * {@link #execute(Iterator)}.
+     * <p>
+     * Lookups are started for all blocks, because {@link AsyncBlockAnalyser#shouldProcessBlock(Object, Object)} is called
+     * when the update would be applied, with the storage that contains the updates of all earlier blocks. If it returns
+     * false, the result of the lookup is discarded. All blocks are offered one by one, also to
+     * {@link BatchBlockAnalyser}s, and recycled blocks are copied, because they are kept
+     * while they are in flight. Without {@link AsyncBlockAnalyser}s, this is the same as {@link #execute(Iterator)}.
+     * @param blockSupplier     The supplier of blocks.
+     * @param maxBlocksInFlight The maximum number of blocks of which lookups are started but which are not yet processed.
+     * @param executor          The executor that is passed to {@link AsyncBlockAnalyser#processBlockAsync(Object, Executor)}.
+     * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value.
+     * @throws FileAnalyserConfigurationException If the maximum number of blocks in flight is not positive, or if the plan
+     *                                            has a {@link KeyedBlockAnalyser} but no {@link BlockClassifier}.
+     */
+    public Map<Class<?>, Object> executeWithBlocksInFlight(Iterator<B> blockSupplier, int maxBlocksInFlight, Executor executor) {
+        if (maxBlocksInFlight <= 0) {
+            throw new FileAnalyserConfigurationException("The maximum number of blocks in flight must be positive, but was " +
+                    maxBlocksInFlight + ".");
+        }
+        if (Arrays.stream(blockAnalysers).noneMatch(blockAnalyser -> blockAnalyser instanceof AsyncBlockAnalyser)) {
+            return execute(blockSupplier);
+        }
+        checkBlockClassifierOfKeyedBlockAnalysers();
+        return new BlocksInFlight<>(new CheckedPlanRun<>(this), maxBlocksInFlight, executor).execute(blockSupplier);
+    }
+
+    /**
+     * @return The block analysers in the order in which they are called.
+     */
+    public List<BlockAnalyser<B, ?>> getBlockAnalysers() {
+        return Collections.unmodifiableList(Arrays.asList(blockAnalysers));
+    }
+
+    /**
+     * @return Container with all the storage instances this plan is bound to.
+     */
+    public StorageInstanceContainer getStorageInstanceContainer() {
+        return storageInstanceContainer;
+    }
+
+    /**
+     * @return The number of blocks in a batch for {@link BatchBlockAnalyser}s.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return The classifier of the blocks, or null if blocks are offered to all block analysers.
+     */
+    public BlockClassifier<B, ?> getBlockClassifier() {
+        return blockClassifier;
+    }
+
+    /**
+     * @return The recorder of the metrics, or null if metrics are disabled.
+     */
+    public MetricsRecorder getMetricsRecorder() {
+        return metricsRecorder;
+    }
+
+    /**
+     * @return The tracker of the memory budget, or null if there is no budget.
+     */
+    public MemoryBudgetTracker getMemoryBudgetTracker() {
+        return memoryBudgetTracker;
+    }
+
+    /**
+     * @return Whether the blocks are recycled, see {@link #withRecycledBlocks(UnaryOperator)}.
+     */
+    public boolean isRecyclingBlocks() {
+        return blockDetacher != null;
+    }
+
+    /**
+     * @param blockSupplier The supplier of blocks.
+     * @return Supplier of blocks that are never recycled. This is the given supplier itself if blocks are not recycled.
+     */
+    public Iterator<B> detaching(Iterator<B> blockSupplier) {
+        if (blockDetacher == null) {
+            return blockSupplier;
+        }
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return blockSupplier.hasNext();
+            }
+
+            @Override
+            public B next() {
+                return blockDetacher.apply(blockSupplier.next());
+            }
+        };
+    }
+
+    BlockAnalyser<B, ?>[] blockAnalysers() {
+        return blockAnalysers;
+    }
+
+    Object[] storages() {
+        return storages;
+    }
+
+    int[] allIndices() {
+        return allIndices;
+    }
+
+    int[] batchIndices() {
+        return batchIndices;
+    }
+
+    int[] perBlockIndices() {
+        return perBlockIndices;
+    }
+
+    BlockDispatchTable blockDispatchTable() {
+        return blockDispatchTable;
+    }
+
+    BlockDispatchTable perBlockDispatchTable() {
+        return perBlockDispatchTable;
+    }
+
+    boolean hasCompletableBlockAnalyser() {
+        return hasCompletableBlockAnalyser;
+    }
+}
@@ -0,0 +1,161 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BatchBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockClassifier;
+import nl.ricoapon.fileanalyser.analyser.CompletableBlockAnalyser;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single run of a {@link FileAnalyserPlan}, created by {@link FileAnalyserPlan#startRun()}. The run holds the state
+ * that changes while blocks are offered, so the plan itself is never modified and can be executed by multiple threads at
+ * the same time, each with its own run. A run must only be used by a single thread at a time.
+ * <p>
+ * This class contains the loops without any checks. If the plan has {@link CompletableBlockAnalyser}s, metrics or a
+ * memory budget, the run is a {@link CheckedPlanRun} instead.
+ * @param <B> The type of the block.
+ */
+public class PlanRun<B> {
+    private final FileAnalyserPlan<B> plan;
+    private final BlockAnalyser<B, ?>[] blockAnalysers;
+    private final Object[] storages;
+    private final int[] allIndices;
+    private final int[] batchIndices;
+    private final int[] perBlockIndices;
+    private final BlockClassifier<B, ?> blockClassifier;
+    private final BlockDispatchTable blockDispatchTable;
+    private final BlockDispatchTable perBlockDispatchTable;
+
+    PlanRun(FileAnalyserPlan<B> plan) {
+        this.plan = plan;
+        this.blockAnalysers = plan.blockAnalysers();
+        this.storages = plan.storages();
+        this.allIndices = plan.allIndices();
+        this.batchIndices = plan.batchIndices();
+        this.perBlockIndices = plan.perBlockIndices();
+        this.blockClassifier = plan.getBlockClassifier();
+        this.blockDispatchTable = plan.blockDispatchTable();
+        this.perBlockDispatchTable = plan.perBlockDispatchTable();
+    }
+
+    /**
+     * @return The plan of this run.
+     */
+    public FileAnalyserPlan<B> getPlan() {
+        return plan;
+    }
+
+    /**
+     * Calls {@link BlockAnalyser#processBlock(Object, Object)} for each of the blocks supplied, in the order of the plan.
+     * @param blockSupplier The supplier of blocks.
+     * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value.
+     */
+    public Map<Class<?>, Object> execute(Iterator<B> blockSupplier) {
+        refreshCompleted();
+
+        if (isOfferingBatches()) {
+            int batchSize = plan.getBatchSize();
+            List<B> batch = new ArrayList<>(batchSize);
+            while (!isComplete() && blockSupplier.hasNext()) {
+                batch.add(blockSupplier.next());
+                if (batch.size() == batchSize) {
+                    processBatch(batch);
+                    batch.clear();
+                    if (!isOfferingBatches()) {
+                        break;
+                    }
+                }
+            }
+            processBatch(batch);
+        }
+        // Once no block analyser is offered batches, completion is checked after each block.
+        while (!isComplete() && blockSupplier.hasNext()) {
+            processBlock(blockSupplier.next());
+        }
+
+        return plan.getStorageInstanceContainer().toMap();
+    }
+
+    /**
+     * Determines again which {@link CompletableBlockAnalyser}s are complete, based on their storage instances. This is
+     * needed when the storage instances were modified outside of this run.
+     */
+    public void refreshCompleted() {
+        // Only a CheckedPlanRun tracks completion.
+    }
+
+    /**
+     * @return Whether blocks must be collected into batches, because there are {@link BatchBlockAnalyser}s that are
+     * offered batches and that are not complete. Recycled blocks may be overwritten before the batch is complete, so they
+     * are always offered one by one.
+     */
+    public boolean isOfferingBatches() {
+        return batchIndices.length > 0 && !plan.isRecyclingBlocks();
+    }
+
+    /**
+     * @return Whether all block analysers are {@link CompletableBlockAnalyser}s that are complete, in which case offering
+     * more blocks has no effect.
+     */
+    public boolean isComplete() {
+        return false;
+    }
+
+    /**
+     * Offers a single block to all the block analysers of the plan.
+     * @param block The block.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void processBlock(B block) {
+        for (int i : indicesFor(block)) {
+            BlockAnalyser blockAnalyser = blockAnalysers[i];
+            Object storage = storages[i];
+            if (blockAnalyser.shouldProcessBlock(block, storage)) {
+                blockAnalyser.processBlock(block, storage);
+            }
+        }
+    }
+
+    /**
+     * Offers consecutive blocks to all the block analysers of the plan. The result is the same as calling
+     * {@link #processBlock(Object)} for each block.
+     * @param blocks The blocks, which are not modified or kept.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void processBatch(List<B> blocks) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        for (int i : batchIndices) {
+            ((BatchBlockAnalyser) blockAnalysers[i]).processBatch(blocks, storages[i]);
+        }
+
+        for (B block : blocks) {
+            for (int i : perBlockIndicesFor(block)) {
+                BlockAnalyser blockAnalyser = blockAnalysers[i];
+                Object storage = storages[i];
+                if (blockAnalyser.shouldProcessBlock(block, storage)) {
+                    blockAnalyser.processBlock(block, storage);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The indices of the block analysers that must be offered the given block.
+     */
+    int[] indicesFor(B block) {
+        return blockDispatchTable == null ? allIndices : blockDispatchTable.indicesFor(blockClassifier.classify(block));
+    }
+
+    /**
+     * @return The indices of the block analysers that are offered blocks one by one and must be offered the given block.
+     */
+    int[] perBlockIndicesFor(B block) {
+        return perBlockDispatchTable == null ? perBlockIndices : perBlockDispatchTable.indicesFor(blockClassifier.classify(block));
+    }
+}
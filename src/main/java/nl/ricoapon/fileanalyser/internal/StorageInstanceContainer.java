@@ -1,7 +1,9 @@
 package nl.ricoapon.fileanalyser.internal;
 
 import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -48,4 +50,45 @@ public class StorageInstanceContainer {
     public Map<Class<?>, Object> toMap() {
         return new HashMap<>(storageInstances);
     }
+
+    /**
+     * @return Whether all the storage instances implement {@link MergeableStorage}.
+     */
+    public boolean areAllStoragesMergeable() {
+        return storageInstances.values().stream().allMatch(storageInstance -> storageInstance instanceof MergeableStorage);
+    }
+
+    /**
+     * @return New container with an empty storage instance for each class, created using {@link MergeableStorage#createEmpty()}.
+     * @throws FileAnalyserConfigurationException If not all storage instances implement {@link MergeableStorage}.
+     */
+    public StorageInstanceContainer createEmptyCopy() {
+        Collection<Object> emptyStorageInstances = new ArrayList<>();
+        for (Object storageInstance : storageInstances.values()) {
+            emptyStorageInstances.add(asMergeableStorage(storageInstance).createEmpty());
+        }
+        return new StorageInstanceContainer(emptyStorageInstances);
+    }
+
+    /**
+     * Merges each storage instance of {@code other} into the storage instance of the same class in this container, using
+     * {@link MergeableStorage#merge(Object)}.
+     * @param other The container with storage instances that contain the result of blocks after the blocks of this container.
+     * @throws FileAnalyserConfigurationException If not all storage instances implement {@link MergeableStorage}.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void merge(StorageInstanceContainer other) {
+        for (Map.Entry<Class<?>, Object> entry : storageInstances.entrySet()) {
+            MergeableStorage mergeableStorage = asMergeableStorage(entry.getValue());
+            mergeableStorage.merge(other.storageInstances.get(entry.getKey()));
+        }
+    }
+
+    private static MergeableStorage<?> asMergeableStorage(Object storageInstance) {
+        if (!(storageInstance instanceof MergeableStorage)) {
+            throw new FileAnalyserConfigurationException("The storage class " + storageInstance.getClass().getName() +
+                    " does not implement MergeableStorage. Implement this interface or use a sequential execution strategy.");
+        }
+        return (MergeableStorage<?>) storageInstance;
+    }
 }
@@ -0,0 +1,90 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.memory.MemoryBudgetTracker;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper methods for execution strategies in which blocks are processed by worker threads, most of which publish batches
+ * of blocks from the calling thread to a queue for each worker thread. They are also used by the threads that coordinate
+ * worker JVMs.
+ */
+public final class Workers {
+    private Workers() {
+    }
+
+    /**
+     * Puts the batch on the queue, unless the worker of the queue has stopped because its block analysers are complete.
+     * While the queue is full, the workers are checked so that a failing worker does not block the calling thread forever.
+     */
+    public static <T> void publish(BlockingQueue<T> queue, T batch, Future<Void> queueWorker, List<Future<Void>> workers) {
+        try {
+            while (!queueWorker.isDone() && !queue.offer(batch, 10, TimeUnit.MILLISECONDS)) {
+                for (Future<Void> worker : workers) {
+                    // Rethrows the exception if the worker stopped because it failed.
+                    if (worker.isDone()) {
+                        waitFor(worker);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileAnalyserExecutionException("Interrupted while publishing blocks to the workers.", e);
+        }
+    }
+
+    /**
+     * Checks that the plan has no {@link MemoryBudgetTracker}, because it only tracks the storage instances of the plan on
+     * the thread that processes its blocks. Must be called before any block is read.
+     * @throws FileAnalyserConfigurationException If the plan has a {@link MemoryBudgetTracker}.
+     */
+    public static void checkNoMemoryBudget(FileAnalyserPlan<?> plan, Class<?> executionStrategyClass) {
+        if (plan.getMemoryBudgetTracker() != null) {
+            throw new FileAnalyserConfigurationException("A memory budget can not be used with " + executionStrategyClass.getSimpleName() +
+                    ", because the blocks are processed by worker threads of which the storage instances are not tracked.");
+        }
+    }
+
+    public static boolean areAllDone(List<Future<Void>> workers) {
+        return workers.stream().allMatch(Future::isDone);
+    }
+
+    /**
+     * Waits for the worker to finish and rethrows the exception of the worker if it failed.
+     */
+    public static void waitFor(Future<Void> worker) {
+        try {
+            worker.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileAnalyserExecutionException("Interrupted while waiting for the workers.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new FileAnalyserExecutionException("A worker failed.", e.getCause());
+        }
+    }
+
+    /**
+     * @param threadNamePrefix The prefix of the names of the threads, which is followed by a sequence number.
+     * @return Factory that creates daemon threads, so that workers never prevent the JVM from exiting.
+     */
+    public static ThreadFactory createThreadFactory(String threadNamePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package nl.ricoapon.fileanalyser.memory;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.storage.SizedStorage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Limit on the estimated memory usage of the storage instances during a run. Every {@code checkInterval} blocks, the
+ * sizes of the storage instances are estimated and the {@link MemoryBudgetListener} is called if their sum exceeds the
+ * budget. The listener decides whether to continue, for example after flushing a storage instance, or to abort.
+ * <p>
+ * The size of a storage instance is estimated using {@link SizedStorage#estimateSizeInBytes()}, or using an estimator
+ * added with {@link #addSizeEstimator(Class, ToLongFunction)} for storage classes that cannot implement it. Other
+ * storage instances do not count towards the budget, but are listed in the {@link MemoryReport}.
+ * <p>
+ * The budget is only checked for the blocks that an execution strategy offers to the plan itself, on the thread that
+ * processes them. Strategies that process blocks on worker threads, such as the chunked parallel, key partitioned and
+ * storage group pipeline strategies, throw a {@link FileAnalyserConfigurationException} if there is a budget.
+ */
+public class MemoryBudget {
+    /** Default number of blocks between two checks. */
+    public static final int DEFAULT_CHECK_INTERVAL = 4096;
+
+    private final long budgetInBytes;
+    private final int checkInterval;
+    private final MemoryBudgetListener memoryBudgetListener;
+    private final Map<Class<?>, ToLongFunction<Object>> sizeEstimators = new HashMap<>();
+
+    /**
+     * See {@link #MemoryBudget(long, int, MemoryBudgetListener)}. Uses {@link #DEFAULT_CHECK_INTERVAL}.
+     */
+    public MemoryBudget(long budgetInBytes, MemoryBudgetListener memoryBudgetListener) {
+        this(budgetInBytes, DEFAULT_CHECK_INTERVAL, memoryBudgetListener);
+    }
+
+    /**
+     * @param budgetInBytes        The maximum sum of the estimated sizes of the storage instances.
+     * @param checkInterval        The number of blocks between two checks.
+     * @param memoryBudgetListener The listener that is called when a check shows that the budget is exceeded.
+     * @throws FileAnalyserConfigurationException If the budget or the interval is not positive.
+     */
+    public MemoryBudget(long budgetInBytes, int checkInterval, MemoryBudgetListener memoryBudgetListener) {
+        if (budgetInBytes <= 0 || checkInterval <= 0) {
+            throw new FileAnalyserConfigurationException("The budget and the check interval must be positive, but were " +
+                    budgetInBytes + " and " + checkInterval + ".");
+        }
+        this.budgetInBytes = budgetInBytes;
+        this.checkInterval = checkInterval;
+        this.memoryBudgetListener = memoryBudgetListener;
+    }
+
+    /**
+     * @param budgetInBytes The maximum sum of the estimated sizes of the storage instances.
+     * @return Budget that aborts the algorithm with a {@link MemoryBudgetExceededException} as soon as it is exceeded.
+     * @throws FileAnalyserConfigurationException If the budget is not positive.
+     */
+    public static MemoryBudget abortWhenExceeded(long budgetInBytes) {
+        return new MemoryBudget(budgetInBytes, memoryReport -> MemoryBudgetAction.ABORT);
+    }
+
+    /**
+     * Adds an estimator for the size of the storage instances of the given class, which is used instead of
+     * {@link SizedStorage}. Like {@link SizedStorage#estimateSizeInBytes()}, it is called often and must be cheap.
+     * @param storageClass  The class of the storage instance.
+     * @param sizeEstimator Function that returns the estimated number of bytes used by the storage instance.
+     * @param <S>           The type of the storage.
+     * @return This object.
+     */
+    @SuppressWarnings("unchecked")
+    public <S> MemoryBudget addSizeEstimator(Class<S> storageClass, ToLongFunction<? super S> sizeEstimator) {
+        sizeEstimators.put(storageClass, (ToLongFunction<Object>) sizeEstimator);
+        return this;
+    }
+
+    /**
+     * @param storageInstanceContainer Container with the storage instances of the run.
+     * @return New {@link MemoryBudgetTracker} for a single run, which remembers the current sizes of the storage instances.
+     */
+    public MemoryBudgetTracker createTracker(StorageInstanceContainer storageInstanceContainer) {
+        return new MemoryBudgetTracker(this, storageInstanceContainer.toMap());
+    }
+
+    /**
+     * @param storage The storage instance.
+     * @return The estimated number of bytes used by the storage instance, or -1 if it cannot be estimated.
+     */
+    long estimateSizeInBytes(Object storage) {
+        ToLongFunction<Object> sizeEstimator = sizeEstimators.get(storage.getClass());
+        if (sizeEstimator != null) {
+            return sizeEstimator.applyAsLong(storage);
+        }
+        if (storage instanceof SizedStorage) {
+            return ((SizedStorage) storage).estimateSizeInBytes();
+        }
+        return -1;
+    }
+
+    public long getBudgetInBytes() {
+        return budgetInBytes;
+    }
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    MemoryBudgetListener getMemoryBudgetListener() {
+        return memoryBudgetListener;
+    }
+}
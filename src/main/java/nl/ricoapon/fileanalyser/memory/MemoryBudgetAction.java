@@ -0,0 +1,17 @@
+package nl.ricoapon.fileanalyser.memory;
+
+/**
+ * What a {@link MemoryBudgetListener} decides when the memory budget is exceeded.
+ */
+public enum MemoryBudgetAction {
+    /**
+     * Continue processing blocks. The listener may have reduced the memory usage, for example by flushing or spilling a
+     * storage instance to disk, or by switching it to an approximate mode. The budget is checked again after the next
+     * interval.
+     */
+    CONTINUE,
+    /**
+     * Stop processing blocks by throwing a {@link MemoryBudgetExceededException} with the report.
+     */
+    ABORT
+}
@@ -0,0 +1,20 @@
+package nl.ricoapon.fileanalyser.memory;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserExecutionException;
+
+/**
+ * Exception that will be thrown when a {@link MemoryBudgetListener} aborts the algorithm because the memory budget is
+ * exceeded. The message contains the report, so it shows which storage instances grew.
+ */
+public class MemoryBudgetExceededException extends FileAnalyserExecutionException {
+    private final transient MemoryReport memoryReport;
+
+    public MemoryBudgetExceededException(MemoryReport memoryReport) {
+        super("The memory budget is exceeded: " + memoryReport);
+        this.memoryReport = memoryReport;
+    }
+
+    public MemoryReport getMemoryReport() {
+        return memoryReport;
+    }
+}
@@ -0,0 +1,14 @@
+package nl.ricoapon.fileanalyser.memory;
+
+/**
+ * Listener that is called when the estimated memory usage of the storage instances exceeds a {@link MemoryBudget}. It is
+ * called on the thread that processes the blocks, between two blocks, so it can safely modify the storage instances.
+ */
+@FunctionalInterface
+public interface MemoryBudgetListener {
+    /**
+     * @param memoryReport The memory usage of the storage instances.
+     * @return Whether processing must continue or be aborted.
+     */
+    MemoryBudgetAction onBudgetExceeded(MemoryReport memoryReport);
+}
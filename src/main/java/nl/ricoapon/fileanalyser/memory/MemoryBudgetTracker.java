@@ -0,0 +1,84 @@
+package nl.ricoapon.fileanalyser.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks a {@link MemoryBudget} during a single run. The plan calls {@link #recordBlock()} after each block, and every
+ * {@link MemoryBudget#getCheckInterval()} blocks the sizes of the storage instances are estimated. Between two checks
+ * recording a block only increments a counter.
+ * <p>
+ * This class is not thread-safe. It must be used by the thread that modifies the storage instances.
+ */
+public class MemoryBudgetTracker {
+    private final MemoryBudget memoryBudget;
+    private final Map<Class<?>, Object> storages;
+    /** The estimated sizes of the previous check, used to report the growth of each storage instance. */
+    private final Map<Class<?>, Long> previousSizes = new HashMap<>();
+    private long blockCount;
+    private long blocksUntilCheck;
+    private MemoryReport lastMemoryReport;
+
+    MemoryBudgetTracker(MemoryBudget memoryBudget, Map<Class<?>, Object> storages) {
+        this.memoryBudget = memoryBudget;
+        this.storages = storages;
+        this.blocksUntilCheck = memoryBudget.getCheckInterval();
+        storages.forEach((storageClass, storage) -> previousSizes.put(storageClass, memoryBudget.estimateSizeInBytes(storage)));
+    }
+
+    /**
+     * Records that a block is processed, and checks the budget if the interval has passed.
+     * @throws MemoryBudgetExceededException If the budget is exceeded and the listener aborts.
+     */
+    public void recordBlock() {
+        blockCount++;
+        if (--blocksUntilCheck == 0) {
+            blocksUntilCheck = memoryBudget.getCheckInterval();
+            check();
+        }
+    }
+
+    /**
+     * Estimates the sizes of the storage instances and calls the listener if the budget is exceeded.
+     * @return The report of the check.
+     * @throws MemoryBudgetExceededException If the budget is exceeded and the listener aborts.
+     */
+    public MemoryReport check() {
+        List<StorageMemoryUsage> storageMemoryUsages = new ArrayList<>();
+        List<Class<?>> unsizedStorageClasses = new ArrayList<>();
+        for (Map.Entry<Class<?>, Object> entry : storages.entrySet()) {
+            long sizeInBytes = memoryBudget.estimateSizeInBytes(entry.getValue());
+            if (sizeInBytes < 0) {
+                unsizedStorageClasses.add(entry.getKey());
+                continue;
+            }
+            Long previousSize = previousSizes.put(entry.getKey(), sizeInBytes);
+            storageMemoryUsages.add(new StorageMemoryUsage(entry.getKey(), sizeInBytes, sizeInBytes - (previousSize == null ? 0 : previousSize)));
+        }
+        Runtime runtime = Runtime.getRuntime();
+        lastMemoryReport = new MemoryReport(memoryBudget.getBudgetInBytes(), blockCount, storageMemoryUsages,
+                unsizedStorageClasses, runtime.totalMemory() - runtime.freeMemory());
+
+        if (lastMemoryReport.isBudgetExceeded()
+                && memoryBudget.getMemoryBudgetListener().onBudgetExceeded(lastMemoryReport) == MemoryBudgetAction.ABORT) {
+            throw new MemoryBudgetExceededException(lastMemoryReport);
+        }
+        return lastMemoryReport;
+    }
+
+    /**
+     * @return The number of blocks that were recorded.
+     */
+    public long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return The report of the last check, or null if the budget was not checked yet.
+     */
+    public MemoryReport getLastMemoryReport() {
+        return lastMemoryReport;
+    }
+}
@@ -0,0 +1,87 @@
+package nl.ricoapon.fileanalyser.memory;
+
+import nl.ricoapon.fileanalyser.storage.SizedStorage;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Estimated memory usage of the storage instances at a check of a {@link MemoryBudgetTracker}. Only the sizes of storage
+ * instances that implement {@link SizedStorage} or have a size estimator count towards the budget. The heap usage of the
+ * whole JVM is sampled at the same moment, which also shows the memory of the other storage instances.
+ */
+public class MemoryReport {
+    private final long budgetInBytes;
+    private final long blockCount;
+    private final List<StorageMemoryUsage> storageMemoryUsages;
+    private final List<Class<?>> unsizedStorageClasses;
+    private final long heapUsedInBytes;
+
+    MemoryReport(long budgetInBytes, long blockCount, List<StorageMemoryUsage> storageMemoryUsages,
+                 List<Class<?>> unsizedStorageClasses, long heapUsedInBytes) {
+        this.budgetInBytes = budgetInBytes;
+        this.blockCount = blockCount;
+        this.storageMemoryUsages = List.copyOf(storageMemoryUsages);
+        this.unsizedStorageClasses = List.copyOf(unsizedStorageClasses);
+        this.heapUsedInBytes = heapUsedInBytes;
+    }
+
+    public long getBudgetInBytes() {
+        return budgetInBytes;
+    }
+
+    /**
+     * @return The number of blocks that were processed before the check.
+     */
+    public long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return The sum of the estimated sizes of the storage instances.
+     */
+    public long getTotalSizeInBytes() {
+        return storageMemoryUsages.stream().mapToLong(StorageMemoryUsage::getSizeInBytes).sum();
+    }
+
+    public boolean isBudgetExceeded() {
+        return getTotalSizeInBytes() > budgetInBytes;
+    }
+
+    public List<StorageMemoryUsage> getStorageMemoryUsages() {
+        return storageMemoryUsages;
+    }
+
+    /**
+     * @return The memory usage of the storage instances, starting with the one that grew the most since the previous check.
+     */
+    public List<StorageMemoryUsage> getFastestGrowingStorages() {
+        return storageMemoryUsages.stream()
+                .sorted(Comparator.comparingLong(StorageMemoryUsage::getGrowthInBytes).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return The classes of the storage instances of which the size could not be estimated.
+     */
+    public List<Class<?>> getUnsizedStorageClasses() {
+        return unsizedStorageClasses;
+    }
+
+    /**
+     * @return The number of bytes used on the heap by the whole JVM, including garbage that is not yet collected.
+     */
+    public long getHeapUsedInBytes() {
+        return heapUsedInBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "budget=" + budgetInBytes + " bytes, total=" + getTotalSizeInBytes() + " bytes, blockCount=" + blockCount +
+                ", heapUsed=" + heapUsedInBytes + " bytes" + getFastestGrowingStorages().stream()
+                .map(StorageMemoryUsage::toString).collect(Collectors.joining("\n  ", "\n  ", "")) +
+                (unsizedStorageClasses.isEmpty() ? "" : unsizedStorageClasses.stream()
+                        .map(Class::getName).collect(Collectors.joining(", ", "\n  Not estimated: ", "")));
+    }
+}
@@ -0,0 +1,40 @@
+package nl.ricoapon.fileanalyser.memory;
+
+/**
+ * Estimated memory usage of a single storage instance at a check of a {@link MemoryBudgetTracker}.
+ */
+public class StorageMemoryUsage {
+    private final Class<?> storageClass;
+    private final long sizeInBytes;
+    private final long growthInBytes;
+
+    StorageMemoryUsage(Class<?> storageClass, long sizeInBytes, long growthInBytes) {
+        this.storageClass = storageClass;
+        this.sizeInBytes = sizeInBytes;
+        this.growthInBytes = growthInBytes;
+    }
+
+    public Class<?> getStorageClass() {
+        return storageClass;
+    }
+
+    /**
+     * @return The estimated number of bytes used by the storage instance.
+     */
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * @return The difference with the estimate of the previous check, or with the estimate before the first block if
+     * this is the first check. Negative if the storage instance shrunk, for example because it was flushed.
+     */
+    public long getGrowthInBytes() {
+        return growthInBytes;
+    }
+
+    @Override
+    public String toString() {
+        return storageClass.getName() + ": " + sizeInBytes + " bytes (" + (growthInBytes >= 0 ? "+" : "") + growthInBytes + " bytes)";
+    }
+}
@@ -0,0 +1,107 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+
+/**
+ * Metrics of a single block analyser during a run.
+ */
+public class BlockAnalyserMetrics {
+    private final Class<?> blockAnalyserClass;
+    private final Class<?> storageClass;
+    private final long invocations;
+    private final long acceptedBlocks;
+    private final long sampledCalls;
+    private final long estimatedProcessingNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+
+    BlockAnalyserMetrics(Class<?> blockAnalyserClass, Class<?> storageClass, long invocations, long acceptedBlocks,
+                         long sampledCalls, long estimatedProcessingNanos, long p50Nanos, long p90Nanos, long p99Nanos, long maxNanos) {
+        this.blockAnalyserClass = blockAnalyserClass;
+        this.storageClass = storageClass;
+        this.invocations = invocations;
+        this.acceptedBlocks = acceptedBlocks;
+        this.sampledCalls = sampledCalls;
+        this.estimatedProcessingNanos = estimatedProcessingNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public Class<?> getBlockAnalyserClass() {
+        return blockAnalyserClass;
+    }
+
+    public Class<?> getStorageClass() {
+        return storageClass;
+    }
+
+    /**
+     * @return The number of blocks that were offered to the block analyser.
+     */
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * @return The number of blocks for which {@link BlockAnalyser#shouldProcessBlock(Object, Object)} returned true.
+     */
+    public long getAcceptedBlocks() {
+        return acceptedBlocks;
+    }
+
+    /**
+     * @return The number of blocks for which {@link BlockAnalyser#shouldProcessBlock(Object, Object)} returned false.
+     */
+    public long getRejectedBlocks() {
+        return invocations - acceptedBlocks;
+    }
+
+    /**
+     * @return The fraction of the offered blocks that was accepted, or 0 if no blocks were offered.
+     */
+    public double getAcceptRatio() {
+        return invocations == 0 ? 0 : (double) acceptedBlocks / invocations;
+    }
+
+    /**
+     * @return The number of calls of {@link BlockAnalyser#processBlock(Object, Object)} that were timed.
+     */
+    public long getSampledCalls() {
+        return sampledCalls;
+    }
+
+    /**
+     * @return The cumulative time spent in {@link BlockAnalyser#processBlock(Object, Object)}, extrapolated from the
+     * sampled calls. This is exact if all calls were sampled.
+     */
+    public long getEstimatedProcessingNanos() {
+        return estimatedProcessingNanos;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP90Nanos() {
+        return p90Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return blockAnalyserClass.getName() + ": invocations=" + invocations + ", accepted=" + acceptedBlocks +
+                ", estimatedProcessingNanos=" + estimatedProcessingNanos + ", p50=" + p50Nanos + "ns, p90=" + p90Nanos +
+                "ns, p99=" + p99Nanos + "ns, max=" + maxNanos + "ns";
+    }
+}
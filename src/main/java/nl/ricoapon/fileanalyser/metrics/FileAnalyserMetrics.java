@@ -0,0 +1,53 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Summary of the metrics of a run. The metrics of the block analysers are in the order in which they were called.
+ */
+public class FileAnalyserMetrics {
+    private final long blockCount;
+    private final long elapsedNanos;
+    private final List<BlockAnalyserMetrics> blockAnalyserMetrics;
+
+    FileAnalyserMetrics(long blockCount, long elapsedNanos, List<BlockAnalyserMetrics> blockAnalyserMetrics) {
+        this.blockCount = blockCount;
+        this.elapsedNanos = elapsedNanos;
+        this.blockAnalyserMetrics = List.copyOf(blockAnalyserMetrics);
+    }
+
+    /**
+     * @return The number of blocks that were read.
+     */
+    public long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return The duration of the run, including reading the blocks.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public List<BlockAnalyserMetrics> getBlockAnalyserMetrics() {
+        return blockAnalyserMetrics;
+    }
+
+    /**
+     * @return The metrics of the block analysers, starting with the one that spent the most time processing blocks.
+     */
+    public List<BlockAnalyserMetrics> getSlowestBlockAnalysers() {
+        return blockAnalyserMetrics.stream()
+                .sorted(Comparator.comparingLong(BlockAnalyserMetrics::getEstimatedProcessingNanos).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        return "blockCount=" + blockCount + ", elapsedNanos=" + elapsedNanos + blockAnalyserMetrics.stream()
+                .map(BlockAnalyserMetrics::toString).collect(Collectors.joining("\n  ", "\n  ", ""));
+    }
+}
@@ -0,0 +1,12 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+/**
+ * Listener that is notified with the metrics of each run for which metrics are enabled.
+ */
+@FunctionalInterface
+public interface FileAnalyserMetricsListener {
+    /**
+     * @param metrics The metrics of the run that just completed.
+     */
+    void onRunCompleted(FileAnalyserMetrics metrics);
+}
@@ -0,0 +1,139 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import jdk.jfr.FlightRecorder;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link MetricsRecorder} that also emits the JFR events {@link RunEvent}, {@link ThroughputEvent} and
+ * {@link SlowProcessBlockEvent}. It should only be used if {@link #isAnyEventEnabled()} returns true, so that runs
+ * without a JFR recording do not pay for it.
+ * <p>
+ * If {@link SlowProcessBlockEvent} is enabled, every call is timed instead of a sample.
+ */
+public class JfrMetricsRecorder extends MetricsRecorder {
+    /** Default minimum processing time of a call for which a {@link SlowProcessBlockEvent} is emitted. */
+    public static final Duration DEFAULT_SLOW_PROCESS_BLOCK_THRESHOLD = Duration.ofMillis(10);
+    /** Number of blocks after which the block count is published to the thread emitting {@link ThroughputEvent}s. */
+    private static final int PUBLISH_INTERVAL = 1024;
+    private static final AtomicLong RUN_ID_SEQUENCE = new AtomicLong();
+
+    private final List<? extends BlockAnalyser<?, ?>> blockAnalysers;
+    private final long slowProcessBlockThresholdNanos;
+    private final boolean isSlowProcessBlockEventEnabled;
+    private final long runId = RUN_ID_SEQUENCE.incrementAndGet();
+    private final AtomicLong publishedBlockCount = new AtomicLong();
+    private int blocksUntilPublish = PUBLISH_INTERVAL;
+    private RunEvent runEvent;
+    /** Only accessed by the thread emitting {@link ThroughputEvent}s. */
+    private long lastSampleBlockCount;
+    /** Only accessed by the thread emitting {@link ThroughputEvent}s. */
+    private long lastSampleNanos;
+
+    /**
+     * @param blockAnalysers            The block analysers, in the order of the plan.
+     * @param timingSampleInterval      Time one in this many calls, unless {@link SlowProcessBlockEvent} is enabled.
+     * @param slowProcessBlockThreshold The minimum processing time of a call for which a {@link SlowProcessBlockEvent} is emitted.
+     */
+    public JfrMetricsRecorder(List<? extends BlockAnalyser<?, ?>> blockAnalysers, int timingSampleInterval, Duration slowProcessBlockThreshold) {
+        super(blockAnalysers, timingSampleInterval);
+        this.blockAnalysers = blockAnalysers;
+        this.slowProcessBlockThresholdNanos = slowProcessBlockThreshold.toNanos();
+        this.isSlowProcessBlockEventEnabled = new SlowProcessBlockEvent().isEnabled();
+    }
+
+    /**
+     * @return Whether a JFR recording is running in which one of the events of a run is enabled.
+     */
+    public static boolean isAnyEventEnabled() {
+        return new RunEvent().isEnabled() || new ThroughputEvent().isEnabled() || new SlowProcessBlockEvent().isEnabled();
+    }
+
+    @Override
+    public void startRun() {
+        super.startRun();
+        runEvent = new RunEvent();
+        runEvent.begin();
+        lastSampleNanos = System.nanoTime();
+        ThroughputSampler.register(this);
+    }
+
+    @Override
+    public FileAnalyserMetrics completeRun() {
+        ThroughputSampler.unregister(this);
+        FileAnalyserMetrics metrics = super.completeRun();
+        runEvent.end();
+        if (runEvent.shouldCommit()) {
+            runEvent.runId = runId;
+            runEvent.blockAnalyserCount = blockAnalysers.size();
+            runEvent.blockCount = metrics.getBlockCount();
+            runEvent.commit();
+        }
+        return metrics;
+    }
+
+    @Override
+    public void recordBlock() {
+        super.recordBlock();
+        if (--blocksUntilPublish == 0) {
+            blocksUntilPublish = PUBLISH_INTERVAL;
+            publishedBlockCount.lazySet(getBlockCount());
+        }
+    }
+
+    @Override
+    public boolean shouldTime(int index) {
+        boolean isSampled = super.shouldTime(index);
+        return isSampled || isSlowProcessBlockEventEnabled;
+    }
+
+    @Override
+    public void recordProcessingTime(int index, long nanos) {
+        super.recordProcessingTime(index, nanos);
+        if (isSlowProcessBlockEventEnabled && nanos >= slowProcessBlockThresholdNanos) {
+            SlowProcessBlockEvent event = new SlowProcessBlockEvent();
+            event.runId = runId;
+            event.blockAnalyserClass = blockAnalysers.get(index).getClass();
+            event.storageClass = blockAnalysers.get(index).getStorageClass();
+            event.processingTime = nanos;
+            event.commit();
+        }
+    }
+
+    private void emitThroughput() {
+        long blockCount = publishedBlockCount.get();
+        long now = System.nanoTime();
+        ThroughputEvent event = new ThroughputEvent();
+        event.runId = runId;
+        event.blockCount = blockCount;
+        event.blocksPerSecond = now == lastSampleNanos ? 0 : (blockCount - lastSampleBlockCount) * 1e9 / (now - lastSampleNanos);
+        event.commit();
+        lastSampleBlockCount = blockCount;
+        lastSampleNanos = now;
+    }
+
+    /**
+     * Emits a {@link ThroughputEvent} for each run in progress. The periodic hook is only registered with JFR when the
+     * first run is recorded.
+     */
+    private static class ThroughputSampler {
+        private static final Set<JfrMetricsRecorder> RUNS_IN_PROGRESS = ConcurrentHashMap.newKeySet();
+
+        static {
+            FlightRecorder.addPeriodicEvent(ThroughputEvent.class, () -> RUNS_IN_PROGRESS.forEach(JfrMetricsRecorder::emitThroughput));
+        }
+
+        static void register(JfrMetricsRecorder recorder) {
+            RUNS_IN_PROGRESS.add(recorder);
+        }
+
+        static void unregister(JfrMetricsRecorder recorder) {
+            RUNS_IN_PROGRESS.remove(recorder);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the metrics of the block analysers of a single run. Timing is sampled: only one in every
+ * {@code timingSampleInterval} calls of {@link BlockAnalyser#processBlock(Object, Object)} is timed for each block
+ * analyser, which keeps the overhead low enough to leave metrics enabled in production.
+ * <p>
+ * This class is not thread-safe. Block analysers are identified by their index in the list used to create the recorder.
+ */
+public class MetricsRecorder {
+    private final List<? extends BlockAnalyser<?, ?>> blockAnalysers;
+    private final int timingSampleInterval;
+    private final long[] invocations;
+    private final long[] acceptedBlocks;
+    /** For each block analyser, the number of calls of which one in {@link #timingSampleInterval} was timed. */
+    private final long[] calls;
+    private final long[] sampledCalls;
+    private final long[] sampledNanos;
+    /** For each block analyser, the number of calls until the next call is timed. */
+    private final int[] callsUntilTiming;
+    private final TimingHistogram[] histograms;
+    private long blockCount;
+    private long runStartNanos;
+
+    /**
+     * @param blockAnalysers       The block analysers, in the order of the plan.
+     * @param timingSampleInterval Time one in this many calls. Use 1 to time every call.
+     * @throws FileAnalyserConfigurationException If the interval is not positive.
+     */
+    public MetricsRecorder(List<? extends BlockAnalyser<?, ?>> blockAnalysers, int timingSampleInterval) {
+        if (timingSampleInterval <= 0) {
+            throw new FileAnalyserConfigurationException("The timing sample interval must be positive, but was " + timingSampleInterval + ".");
+        }
+        int n = blockAnalysers.size();
+        this.blockAnalysers = blockAnalysers;
+        this.timingSampleInterval = timingSampleInterval;
+        this.invocations = new long[n];
+        this.acceptedBlocks = new long[n];
+        this.calls = new long[n];
+        this.sampledCalls = new long[n];
+        this.sampledNanos = new long[n];
+        this.callsUntilTiming = new int[n];
+        this.histograms = new TimingHistogram[n];
+        for (int i = 0; i < n; i++) {
+            histograms[i] = new TimingHistogram();
+        }
+    }
+
+    /**
+     * Registers the start of the run, which is used to compute the duration in {@link #completeRun()}.
+     */
+    public void startRun() {
+        runStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Registers the end of the run.
+     * @return Summary of the recorded metrics.
+     */
+    public FileAnalyserMetrics completeRun() {
+        return toMetrics(System.nanoTime() - runStartNanos);
+    }
+
+    /**
+     * Registers that a block was read.
+     */
+    public void recordBlock() {
+        blockCount++;
+    }
+
+    /**
+     * @param index    The index of the block analyser.
+     * @param offered  The number of blocks offered to the block analyser.
+     * @param accepted The number of blocks the block analyser accepted.
+     */
+    public void recordOffers(int index, long offered, long accepted) {
+        invocations[index] += offered;
+        acceptedBlocks[index] += accepted;
+    }
+
+    /**
+     * Must be called once before each call of the block analyser that processes blocks.
+     * @param index The index of the block analyser.
+     * @return Whether the next call of the block analyser should be timed.
+     */
+    public boolean shouldTime(int index) {
+        calls[index]++;
+        if (callsUntilTiming[index] == 0) {
+            callsUntilTiming[index] = timingSampleInterval - 1;
+            return true;
+        }
+        callsUntilTiming[index]--;
+        return false;
+    }
+
+    /**
+     * @param index The index of the block analyser.
+     * @param nanos The duration of a timed call.
+     */
+    public void recordProcessingTime(int index, long nanos) {
+        sampledCalls[index]++;
+        sampledNanos[index] += nanos;
+        histograms[index].record(nanos);
+    }
+
+    /**
+     * @return The number of blocks that were read so far.
+     */
+    public long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @param elapsedNanos The duration of the run.
+     * @return Summary of the recorded metrics.
+     */
+    public FileAnalyserMetrics toMetrics(long elapsedNanos) {
+        List<BlockAnalyserMetrics> blockAnalyserMetrics = new ArrayList<>(blockAnalysers.size());
+        for (int i = 0; i < blockAnalysers.size(); i++) {
+            TimingHistogram histogram = histograms[i];
+            long sampledCalls = this.sampledCalls[i];
+            long estimatedProcessingNanos = sampledCalls == 0 ? 0 : Math.round((double) sampledNanos[i] * calls[i] / sampledCalls);
+            blockAnalyserMetrics.add(new BlockAnalyserMetrics(blockAnalysers.get(i).getClass(), blockAnalysers.get(i).getStorageClass(),
+                    invocations[i], acceptedBlocks[i], sampledCalls, estimatedProcessingNanos,
+                    histogram.percentile(50), histogram.percentile(90), histogram.percentile(99), histogram.getMax()));
+        }
+        return new FileAnalyserMetrics(blockCount, elapsedNanos, blockAnalyserMetrics);
+    }
+}
@@ -0,0 +1,24 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for the creation of a plan. The duration of the event is the total time spent creating the plan.
+ */
+@Name("nl.ricoapon.fileanalyser.PlanCreated")
+@Label("Plan Created")
+@Category("File Analyser")
+@Description("Sorting the block analysers and binding them to their storage instances")
+public class PlanCreatedEvent extends jdk.jfr.Event {
+    @Label("Block Analysers")
+    public int blockAnalyserCount;
+
+    @Label("Sort Duration")
+    @Description("Time spent in creating the comparator and sorting the block analysers")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sortDuration;
+}
@@ -0,0 +1,25 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for a run. The start and end of the event are the start and end of the run.
+ */
+@Name("nl.ricoapon.fileanalyser.Run")
+@Label("Analysis Run")
+@Category("File Analyser")
+@Description("Execution of a plan for all blocks of a block supplier")
+public class RunEvent extends jdk.jfr.Event {
+    @Label("Run Id")
+    public long runId;
+
+    @Label("Block Analysers")
+    public int blockAnalyserCount;
+
+    @Label("Block Count")
+    @Description("The number of blocks offered to the plan on the thread that started the run")
+    public long blockCount;
+}
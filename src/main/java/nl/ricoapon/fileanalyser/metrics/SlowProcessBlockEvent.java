@@ -0,0 +1,30 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for a call of {@code processBlock} or {@code processBatch} that took longer than the configured threshold.
+ * The event is committed directly after the call.
+ */
+@Name("nl.ricoapon.fileanalyser.SlowProcessBlock")
+@Label("Slow Process Block")
+@Category("File Analyser")
+@Description("A block analyser took longer than the threshold to process a block")
+public class SlowProcessBlockEvent extends jdk.jfr.Event {
+    @Label("Run Id")
+    public long runId;
+
+    @Label("Block Analyser Class")
+    public Class<?> blockAnalyserClass;
+
+    @Label("Storage Class")
+    public Class<?> storageClass;
+
+    @Label("Processing Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long processingTime;
+}
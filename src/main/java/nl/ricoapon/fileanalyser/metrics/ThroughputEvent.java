@@ -0,0 +1,27 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+/**
+ * Periodic JFR event with the throughput of each run in progress.
+ */
+@Name("nl.ricoapon.fileanalyser.Throughput")
+@Label("Analysis Throughput")
+@Category("File Analyser")
+@Description("Blocks processed since the previous sample of the same run")
+@Period("1 s")
+public class ThroughputEvent extends jdk.jfr.Event {
+    @Label("Run Id")
+    public long runId;
+
+    @Label("Block Count")
+    @Description("The number of blocks processed since the start of the run")
+    public long blockCount;
+
+    @Label("Blocks Per Second")
+    public double blocksPerSecond;
+}
@@ -0,0 +1,28 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import nl.ricoapon.fileanalyser.storage.LogHistogram;
+
+/**
+ * Histogram of durations in nanoseconds, backed by a {@link LogHistogram}. Each power of two is divided into
+ * {@code 2^}{@value #SUB_BUCKET_BITS} buckets, so percentiles are accurate within 1/8 of the value.
+ */
+class TimingHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private final LogHistogram histogram = new LogHistogram(SUB_BUCKET_BITS);
+
+    void record(long nanos) {
+        histogram.record(Math.max(0, nanos));
+    }
+
+    /**
+     * @see LogHistogram#getValueAtPercentile(double)
+     */
+    long percentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+
+    long getMax() {
+        return histogram.getMax();
+    }
+}
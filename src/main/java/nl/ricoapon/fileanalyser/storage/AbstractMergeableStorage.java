@@ -0,0 +1,21 @@
+package nl.ricoapon.fileanalyser.storage;
+
+/**
+ * Base class of mergeable storages of which {@link #createEmpty()} starts from a shallow copy. The copy has the same class
+ * and configuration, so subclasses that are only used to register multiple instances (see {@link MergeableStorage}) do
+ * not have to override {@link #createEmpty()}.
+ * @param <S> The type of the storage.
+ */
+public abstract class AbstractMergeableStorage<S extends AbstractMergeableStorage<S>> implements MergeableStorage<S>, Cloneable {
+    /**
+     * @return A shallow copy of this storage. The fields that hold the content must be replaced before the copy is used.
+     */
+    @SuppressWarnings("unchecked")
+    protected S shallowCopy() {
+        try {
+            return (S) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Cloneable is implemented.", e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage that estimates how often each item occurs using a count-min sketch, and keeps track of the items that occur
+ * most often (the heavy hitters). It uses {@code width * depth} counters regardless of the number of distinct items.
+ * <p>
+ * The estimate of an item is never too low. It is too high by at most {@code e / width} times the total count with a
+ * probability of {@code 1 - e^-depth}. The default width of {@value #DEFAULT_WIDTH} and depth of {@value #DEFAULT_DEPTH}
+ * give at most 0.14% of the total count with a probability of 99.3%.
+ */
+public class CountMinSketch extends AbstractMergeableStorage<CountMinSketch> implements SizedStorage, Serializable {
+    public static final int DEFAULT_WIDTH = 2048;
+    public static final int DEFAULT_DEPTH = 5;
+    public static final int DEFAULT_NR_OF_HEAVY_HITTERS = 20;
+    private static final long serialVersionUID = 1L;
+    /** The hash map node, the string and the count of a heavy hitter, without the characters of the string. */
+    private static final int ESTIMATED_BYTES_PER_HEAVY_HITTER = 96;
+
+    private final int width;
+    private final int depth;
+    private final int nrOfHeavyHitters;
+    /** The counters of all rows, row after row. */
+    private long[] counts;
+    private long totalCount;
+    private HashMap<String, Long> heavyHitters;
+    /** Lower bound of the smallest estimate in {@link #heavyHitters}, so that most items do not need to scan them. */
+    private long minHeavyHitterCount;
+
+    public CountMinSketch() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH, DEFAULT_NR_OF_HEAVY_HITTERS);
+    }
+
+    /**
+     * @param width            The number of counters in each row.
+     * @param depth            The number of rows, each with its own hash function.
+     * @param nrOfHeavyHitters The number of items with the highest estimates that are kept.
+     * @throws FileAnalyserConfigurationException If one of the values is not positive.
+     */
+    public CountMinSketch(int width, int depth, int nrOfHeavyHitters) {
+        if (width <= 0 || depth <= 0 || nrOfHeavyHitters <= 0) {
+            throw new FileAnalyserConfigurationException("The width, depth and number of heavy hitters must be positive, but were " +
+                    width + ", " + depth + " and " + nrOfHeavyHitters + ".");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.nrOfHeavyHitters = nrOfHeavyHitters;
+        this.counts = new long[width * depth];
+        this.heavyHitters = new HashMap<>();
+    }
+
+    public void add(String item) {
+        add(item, 1);
+    }
+
+    /**
+     * @param item  The item.
+     * @param count The number of occurrences to add, which must not be negative.
+     */
+    public void add(String item, long count) {
+        long hash = Hashing.hash(item);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = indexOf(hash, row);
+            counts[index] += count;
+            estimate = Math.min(estimate, counts[index]);
+        }
+        totalCount += count;
+        updateHeavyHitter(item, estimate);
+    }
+
+    /**
+     * Derives the hash function of each row from two halves of a single hash, which is as good as independent hash
+     * functions for this purpose (Kirsch and Mitzenmacher).
+     */
+    private int indexOf(long hash, int row) {
+        int combinedHash = (int) hash + row * (int) (hash >>> 32);
+        return row * width + Math.floorMod(combinedHash, width);
+    }
+
+    private void updateHeavyHitter(String item, long estimate) {
+        if (heavyHitters.containsKey(item) || heavyHitters.size() < nrOfHeavyHitters) {
+            heavyHitters.put(item, estimate);
+            minHeavyHitterCount = Math.min(minHeavyHitterCount, estimate);
+            return;
+        }
+        if (estimate <= minHeavyHitterCount) {
+            return;
+        }
+
+        String minItem = null;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> heavyHitter : heavyHitters.entrySet()) {
+            if (heavyHitter.getValue() < minCount) {
+                minItem = heavyHitter.getKey();
+                minCount = heavyHitter.getValue();
+            }
+        }
+        minHeavyHitterCount = minCount;
+        if (estimate > minCount) {
+            heavyHitters.remove(minItem);
+            heavyHitters.put(item, estimate);
+        }
+    }
+
+    /**
+     * @param item The item.
+     * @return The estimated number of occurrences of the item, which is never lower than the actual number.
+     */
+    public long estimateCount(String item) {
+        long hash = Hashing.hash(item);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[indexOf(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * @return The sum of all counts that were added.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * The heavy hitters are counted with their characters and an estimate of the objects of each entry.
+     */
+    @Override
+    public long estimateSizeInBytes() {
+        long size = (long) counts.length * Long.BYTES;
+        for (String heavyHitter : heavyHitters.keySet()) {
+            size += ESTIMATED_BYTES_PER_HEAVY_HITTER + 2L * heavyHitter.length();
+        }
+        return size;
+    }
+
+    /**
+     * @return The items with the highest estimated counts, highest first. Items that occurred before the sketch was full
+     * of heavy hitters are estimated as they were at the moment they were last added.
+     */
+    public List<Map.Entry<String, Long>> getHeavyHitters() {
+        List<Map.Entry<String, Long>> result = new ArrayList<>();
+        heavyHitters.forEach((item, count) -> result.add(new AbstractMap.SimpleImmutableEntry<>(item, count)));
+        result.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()));
+        return result;
+    }
+
+    /**
+     * The counters are the same as if all items were added to this storage. The heavy hitters are chosen from the heavy
+     * hitters of both storages, using the merged counters.
+     * @throws FileAnalyserConfigurationException If the width or depth of the other storage is different.
+     */
+    @Override
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new FileAnalyserConfigurationException("Only count-min sketches with the same width and depth can be merged.");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+
+        Set<String> candidates = new HashSet<>(heavyHitters.keySet());
+        candidates.addAll(other.heavyHitters.keySet());
+        heavyHitters = new HashMap<>();
+        minHeavyHitterCount = 0;
+        candidates.stream()
+                .map(item -> new AbstractMap.SimpleImmutableEntry<>(item, estimateCount(item)))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .limit(nrOfHeavyHitters)
+                .forEach(entry -> heavyHitters.put(entry.getKey(), entry.getValue()));
+    }
+
+    @Override
+    public CountMinSketch createEmpty() {
+        CountMinSketch empty = shallowCopy();
+        empty.counts = new long[counts.length];
+        empty.totalCount = 0;
+        empty.heavyHitters = new HashMap<>();
+        empty.minHeavyHitterCount = 0;
+        return empty;
+    }
+}
@@ -0,0 +1,53 @@
+package nl.ricoapon.fileanalyser.storage;
+
+/**
+ * 64-bit hash functions for the sketch storages. These are fast and well distributed, but not cryptographic.
+ */
+final class Hashing {
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * @param value The value.
+     * @return The finalizer of MurmurHash3, which spreads every bit of the value over all the bits of the hash.
+     */
+    static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * @param value The value.
+     * @return The FNV-1a hash of the characters, mixed using {@link #mix(long)}. No string is allocated, so this also
+     * works for lines that are not copied.
+     */
+    static long hash(CharSequence value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash ^ value.length());
+    }
+
+    /**
+     * @param bytes  The array containing the bytes.
+     * @param offset The index of the first byte.
+     * @param length The number of bytes.
+     * @return The FNV-1a hash of the bytes, mixed using {@link #mix(long)}.
+     */
+    static long hash(byte[] bytes, int offset, int length) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = offset; i < offset + length; i++) {
+            hash = (hash ^ (bytes[i] & 0xFF)) * FNV_PRIME;
+        }
+        return mix(hash ^ length);
+    }
+}
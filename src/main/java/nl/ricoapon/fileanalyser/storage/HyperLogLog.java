@@ -0,0 +1,131 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.io.Serializable;
+
+/**
+ * Storage that estimates the number of distinct values using the HyperLogLog algorithm. It uses {@code 2^precision}
+ * bytes regardless of the number of values, and the relative standard error of the estimate is
+ * {@code 1.04 / sqrt(2^precision)}: about 0.8% for the default precision of {@value #DEFAULT_PRECISION}.
+ */
+public class HyperLogLog extends AbstractMergeableStorage<HyperLogLog> implements SizedStorage, Serializable {
+    public static final int DEFAULT_PRECISION = 14;
+    private static final int MIN_PRECISION = 4;
+    private static final int MAX_PRECISION = 18;
+    private static final long serialVersionUID = 1L;
+
+    private final int precision;
+    private byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision The number of bits of the hash used to select a register, between 4 and 18.
+     * @throws FileAnalyserConfigurationException If the precision is out of range.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new FileAnalyserConfigurationException("The precision must be between " + MIN_PRECISION + " and " +
+                    MAX_PRECISION + ", but was " + precision + ".");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(CharSequence value) {
+        addHash(Hashing.hash(value));
+    }
+
+    public void add(long value) {
+        addHash(Hashing.mix(value));
+    }
+
+    /**
+     * @param hash A well distributed 64-bit hash of the value.
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        // The sentinel bit limits the rank if all the remaining bits are zero.
+        long remainingBits = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remainingBits) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * @return The estimated number of distinct values.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int nrOfZeroRegisters = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                nrOfZeroRegisters++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+
+        // Linear counting is more accurate for small cardinalities.
+        if (estimate <= 2.5 * m && nrOfZeroRegisters > 0) {
+            estimate = m * Math.log((double) m / nrOfZeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    @Override
+    public long estimateSizeInBytes() {
+        return registers.length;
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    /**
+     * @return The relative standard error of {@link #estimate()}.
+     */
+    public double getRelativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * The result is the same as if all values were added to this storage, regardless of the order.
+     * @throws FileAnalyserConfigurationException If the precision of the other storage is different.
+     */
+    @Override
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new FileAnalyserConfigurationException("Only HyperLogLogs with the same precision can be merged, but the precisions were " +
+                    precision + " and " + other.precision + ".");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+    }
+
+    @Override
+    public HyperLogLog createEmpty() {
+        HyperLogLog empty = shallowCopy();
+        empty.registers = new byte[registers.length];
+        return empty;
+    }
+}
@@ -0,0 +1,45 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+
+/**
+ * {@link StorageCodec} using Java serialization, so storage classes must implement {@link Serializable}. Decoding
+ * instantiates the classes found in the stream, so only decode streams that were written by a trusted source.
+ */
+public class JavaSerializationStorageCodec implements StorageCodec {
+    /**
+     * @throws FileAnalyserConfigurationException If the storage instance is not {@link Serializable}.
+     */
+    @Override
+    public void encode(Object storage, OutputStream outputStream) throws IOException {
+        if (!(storage instanceof Serializable)) {
+            throw new FileAnalyserConfigurationException("The storage class " + storage.getClass().getName() +
+                    " must implement Serializable to be encoded using Java serialization.");
+        }
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeObject(storage);
+        objectOutputStream.flush();
+    }
+
+    @Override
+    public <S> S decode(Class<S> storageClass, InputStream inputStream) throws IOException {
+        Object storage;
+        try {
+            storage = new ObjectInputStream(inputStream).readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("The stream contains an unknown class.", e);
+        }
+        if (!storageClass.isInstance(storage)) {
+            throw new IOException("Expected a storage instance of class " + storageClass.getName() + ", but found " +
+                    (storage == null ? "null" : storage.getClass().getName()) + ".");
+        }
+        return storageClass.cast(storage);
+    }
+}
@@ -0,0 +1,171 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.io.Serializable;
+
+/**
+ * Storage that counts non-negative values, like latencies, in logarithmic buckets in the style of HdrHistogram. Each
+ * power of two is divided into {@code 2^subBucketBits} buckets, so percentiles are accurate within
+ * {@code 1 / 2^subBucketBits} of the value: within 1% for the default of {@value #DEFAULT_SUB_BUCKET_BITS} bits. The
+ * number of buckets only depends on this precision, not on the number or range of the values.
+ */
+public class LogHistogram extends AbstractMergeableStorage<LogHistogram> implements SizedStorage, Serializable {
+    public static final int DEFAULT_SUB_BUCKET_BITS = 7;
+    private static final int MAX_SUB_BUCKET_BITS = 16;
+    private static final long serialVersionUID = 1L;
+
+    private final int subBucketBits;
+    private long[] counts;
+    private long totalCount;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    /** Sum of the values as a double, because the sum of many large values would overflow a long. */
+    private double sum;
+
+    public LogHistogram() {
+        this(DEFAULT_SUB_BUCKET_BITS);
+    }
+
+    /**
+     * @param subBucketBits The number of bits used to divide each power of two, between 0 and 16.
+     * @throws FileAnalyserConfigurationException If the number of bits is out of range.
+     */
+    public LogHistogram(int subBucketBits) {
+        if (subBucketBits < 0 || subBucketBits > MAX_SUB_BUCKET_BITS) {
+            throw new FileAnalyserConfigurationException("The number of sub-bucket bits must be between 0 and " +
+                    MAX_SUB_BUCKET_BITS + ", but was " + subBucketBits + ".");
+        }
+        this.subBucketBits = subBucketBits;
+        this.counts = new long[(Long.SIZE - subBucketBits + 1) << subBucketBits];
+    }
+
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * @param value The value.
+     * @param count The number of times the value occurred.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public void record(long value, long count) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Only non-negative values can be recorded, but the value was " + value + ".");
+        }
+        counts[bucketOf(value)] += count;
+        totalCount += count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sum += (double) value * count;
+    }
+
+    /**
+     * @param value A non-negative value.
+     * @return The index of the bucket. Values below {@code 2^subBucketBits} have their own bucket.
+     */
+    private int bucketOf(long value) {
+        int subBuckets = 1 << subBucketBits;
+        if (value < subBuckets) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - subBucketBits)) & (subBuckets - 1);
+        return (exponent - subBucketBits + 1) * subBuckets + subBucket;
+    }
+
+    /**
+     * @param bucket The index of the bucket.
+     * @return The largest value that is counted in the bucket.
+     */
+    private long upperBoundOf(int bucket) {
+        int subBuckets = 1 << subBucketBits;
+        if (bucket < subBuckets) {
+            return bucket;
+        }
+        int exponent = bucket / subBuckets + subBucketBits - 1;
+        long subBucket = bucket % subBuckets;
+        long lowerBound = (1L << exponent) + (subBucket << (exponent - subBucketBits));
+        return lowerBound + (1L << (exponent - subBucketBits)) - 1;
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100.
+     * @return The smallest recorded value (rounded up to its bucket) such that the given percentage of values is not
+     * larger, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, upperBoundOf(bucket)));
+            }
+        }
+        return max;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public long estimateSizeInBytes() {
+        return (long) counts.length * Long.BYTES;
+    }
+
+    /**
+     * @return The smallest recorded value, or 0 if nothing was recorded.
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * @return The largest recorded value, or 0 if nothing was recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return The exact mean of the recorded values, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * The result is the same as if all values were recorded in this storage, regardless of the order.
+     * @throws FileAnalyserConfigurationException If the number of sub-bucket bits of the other storage is different.
+     */
+    @Override
+    public void merge(LogHistogram other) {
+        if (other.subBucketBits != subBucketBits) {
+            throw new FileAnalyserConfigurationException("Only histograms with the same number of sub-bucket bits can be merged, but these were " +
+                    subBucketBits + " and " + other.subBucketBits + ".");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sum += other.sum;
+    }
+
+    @Override
+    public LogHistogram createEmpty() {
+        LogHistogram empty = shallowCopy();
+        empty.counts = new long[counts.length];
+        empty.totalCount = 0;
+        empty.min = Long.MAX_VALUE;
+        empty.max = 0;
+        empty.sum = 0;
+        return empty;
+    }
+}
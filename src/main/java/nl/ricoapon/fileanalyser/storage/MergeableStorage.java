@@ -0,0 +1,33 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.ReflectionUtil;
+
+/**
+ * Interface that can be implemented by storage classes whose content can be combined. Execution strategies that process
+ * parts of the blocks in parallel use this to give each part its own private storage instance and combine the results
+ * afterwards. Storage classes that do not implement this interface are always processed sequentially.
+ * <p>
+ * Storage instances are registered by class, so an analysis that needs multiple storages of the same kind uses a subclass
+ * for each, for example {@code class DistinctUsers extends HyperLogLog}. The storages of this package extend
+ * {@link AbstractMergeableStorage}, so {@link #createEmpty()} keeps their configuration and works for such subclasses.
+ * @param <S> The type of the storage.
+ */
+public interface MergeableStorage<S> {
+    /**
+     * Adds the content of {@code other} to this storage. The content of {@code other} is the result of processing blocks
+     * that come after all the blocks that were processed by this storage. {@code other} is not used anymore afterwards.
+     * @param other The storage to merge into this storage.
+     */
+    void merge(S other);
+
+    /**
+     * @return A new storage without any content, but with the same configuration as this storage. By default, the
+     * no-arg constructor is used.
+     * @throws FileAnalyserConfigurationException If the instance could not be created.
+     */
+    @SuppressWarnings("unchecked")
+    default S createEmpty() {
+        return (S) ReflectionUtil.instantiate(getClass());
+    }
+}
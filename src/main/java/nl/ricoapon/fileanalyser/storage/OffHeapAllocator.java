@@ -0,0 +1,143 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Allocates the memory of off-heap storages, like {@link OffHeapLongLongMap}. The memory is either allocated as direct
+ * {@link ByteBuffer}s, or mapped from a file so that the operating system can page it out and the storage can be larger
+ * than the physical memory.
+ * <p>
+ * Java does not support releasing direct or mapped memory explicitly: it is released when the buffers are garbage
+ * collected. Closing a file based allocator closes the file and deletes it if it was created by {@link #createSibling()}
+ * or by deserialization. A file never shrinks: memory that is replaced when a storage grows stays in the file until it
+ * is closed.
+ * <p>
+ * Direct memory is limited by {@code -XX:MaxDirectMemorySize}, which defaults to the maximum heap size ({@code -Xmx}).
+ * Storages that are larger than that must use a file based allocator, or the JVM must be started with a larger limit.
+ * <p>
+ * Serializing an allocator only stores its kind, so that off-heap storages can be serialized. A deserialized file based
+ * allocator uses a new temporary file in the same directory, like {@link #createSibling()}.
+ */
+public class OffHeapAllocator implements Closeable, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Path file;
+    private final transient FileChannel fileChannel;
+    private final boolean deleteOnClose;
+    private long fileSize;
+
+    private OffHeapAllocator(Path file, FileChannel fileChannel, boolean deleteOnClose) {
+        this.file = file;
+        this.fileChannel = fileChannel;
+        this.deleteOnClose = deleteOnClose;
+    }
+
+    /**
+     * @return Allocator of direct {@link ByteBuffer}s.
+     */
+    public static OffHeapAllocator direct() {
+        return new OffHeapAllocator(null, null, false);
+    }
+
+    /**
+     * @param file The file to map the memory from. It is created, or truncated if it exists.
+     * @return Allocator of regions of the file.
+     * @throws UncheckedIOException If the file could not be opened.
+     */
+    public static OffHeapAllocator mappedFile(Path file) {
+        return mappedFile(file, false);
+    }
+
+    private static OffHeapAllocator mappedFile(Path file, boolean deleteOnClose) {
+        try {
+            FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new OffHeapAllocator(file, fileChannel, deleteOnClose);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + file + " could not be opened.", e);
+        }
+    }
+
+    /**
+     * @param size The number of bytes.
+     * @return Buffer filled with zeros, using the native byte order.
+     * @throws UncheckedIOException If the file could not be extended.
+     */
+    ByteBuffer allocate(int size) {
+        if (fileChannel == null) {
+            return ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        }
+        try {
+            // Mapping beyond the end of the file extends the file with zeros.
+            ByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, fileSize, size).order(ByteOrder.nativeOrder());
+            fileSize += size;
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + file + " could not be extended.", e);
+        }
+    }
+
+    /**
+     * @return New allocator of the same kind. For a file based allocator, this uses a new temporary file in the same
+     * directory, which is deleted when the new allocator is closed.
+     * @throws UncheckedIOException If the temporary file could not be created.
+     */
+    public OffHeapAllocator createSibling() {
+        if (fileChannel == null) {
+            return direct();
+        }
+        return temporaryFile(file.toAbsolutePath().getParent(), file.getFileName().toString());
+    }
+
+    private static OffHeapAllocator temporaryFile(Path directory, String prefix) {
+        try {
+            return mappedFile(Files.createTempFile(directory, prefix + "-", ".tmp"), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("A temporary file could not be created in " + directory + ".", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileChannel != null) {
+            fileChannel.close();
+            if (deleteOnClose) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Object writeReplace() {
+        return fileChannel == null ? new SerializedAllocator(null, null)
+                : new SerializedAllocator(file.toAbsolutePath().getParent().toString(), file.getFileName().toString());
+    }
+
+    /**
+     * The kind of an allocator, which is serialized instead of the allocator itself.
+     */
+    private static class SerializedAllocator implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /** The directory of the file, or null for direct memory. */
+        private final String directory;
+        private final String prefix;
+
+        SerializedAllocator(String directory, String prefix) {
+            this.directory = directory;
+            this.prefix = prefix;
+        }
+
+        private Object readResolve() {
+            return directory == null ? direct() : temporaryFile(Path.of(directory), prefix);
+        }
+    }
+}
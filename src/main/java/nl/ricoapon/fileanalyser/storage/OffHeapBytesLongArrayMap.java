@@ -0,0 +1,410 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Storage mapping byte sequences, like URLs, to a fixed number of longs, like statistics per URL, of which the entries
+ * are stored off-heap. There are no objects per entry.
+ * <p>
+ * The entries are appended to chunks of memory: the length of the key, the key and the values. The chunks start small
+ * and double in size up to 1 GB. A table with open addressing and linear probing refers to the entries and also contains
+ * the hash of the key, so keys are only compared if their hashes are equal and growing the table does not read the keys.
+ * <p>
+ * The entries can be read after the analysis using {@link #get(byte[], int)} and {@link #forEach(EntryConsumer)}
+ * without copying all of them to the heap. Entries cannot be removed, because storages only aggregate.
+ * <p>
+ * {@link #createEmpty()} uses a sibling of the allocator. Merging closes the other map.
+ * <p>
+ * The map can be serialized if the merge function is serializable, which is the case for {@link #OffHeapBytesLongArrayMap(int)}.
+ * The entries are written one by one and inserted into memory of a deserialized allocator, see {@link OffHeapAllocator}.
+ * <p>
+ * {@link #OffHeapBytesLongArrayMap(int)} uses direct memory, which is limited by {@code -XX:MaxDirectMemorySize}. This
+ * limit defaults to the maximum heap size, so large maps should use {@link OffHeapAllocator#mappedFile(java.nio.file.Path)}
+ * instead.
+ */
+public class OffHeapBytesLongArrayMap extends AbstractMergeableStorage<OffHeapBytesLongArrayMap> implements SizedStorage, Closeable, Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+    private static final int SEGMENT_SLOT_BITS = 26;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_CHUNK_SIZE = 1 << 30;
+    /** Reference that marks an empty slot. References to entries are never 0, because the chunk index is stored plus 1. */
+    private static final long EMPTY_REFERENCE = 0;
+
+    /**
+     * Consumer of an entry of the map.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * @param key    Copy of the key.
+         * @param values The values, in an array that is reused for the next entry.
+         */
+        void accept(byte[] key, long[] values);
+    }
+
+    private final int nrOfValues;
+    private final long initialCapacity;
+    private final LongBinaryOperator mergeFunction;
+    private OffHeapAllocator allocator;
+    private transient ByteBuffer[] segments;
+    private transient long mask;
+    private transient long size;
+    private transient List<ByteBuffer> chunks;
+
+    /**
+     * Uses direct memory and sums the values of the same key when merging.
+     * @param nrOfValues The number of longs per key.
+     * @throws FileAnalyserConfigurationException If the number of values is not positive.
+     */
+    public OffHeapBytesLongArrayMap(int nrOfValues) {
+        this(nrOfValues, OffHeapAllocator.direct(), OffHeapLongLongMap.DEFAULT_INITIAL_CAPACITY, OffHeapLongLongMap.SUM);
+    }
+
+    /**
+     * @param nrOfValues      The number of longs per key.
+     * @param allocator       The allocator of the memory. It is closed when this map is closed.
+     * @param initialCapacity The number of slots of the table, which is rounded up to a power of two. The table is
+     *                        doubled when it is {@value #MAX_LOAD_FACTOR} full.
+     * @param mergeFunction   Combines the values with the same key and index when merging.
+     * @throws FileAnalyserConfigurationException If the number of values or initial capacity is not positive.
+     */
+    public OffHeapBytesLongArrayMap(int nrOfValues, OffHeapAllocator allocator, long initialCapacity, LongBinaryOperator mergeFunction) {
+        if (nrOfValues <= 0 || initialCapacity <= 0) {
+            throw new FileAnalyserConfigurationException("The number of values and the initial capacity must be positive, but were " +
+                    nrOfValues + " and " + initialCapacity + ".");
+        }
+        this.nrOfValues = nrOfValues;
+        this.allocator = allocator;
+        this.initialCapacity = initialCapacity;
+        this.mergeFunction = mergeFunction;
+        this.chunks = new ArrayList<>();
+        allocateTable(OffHeapLongLongMap.tableCapacityFor(initialCapacity));
+    }
+
+    private void allocateTable(long capacity) {
+        int segmentSlots = (int) Math.min(capacity, 1L << SEGMENT_SLOT_BITS);
+        segments = new ByteBuffer[(int) (capacity / segmentSlots)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = allocator.allocate(segmentSlots * SLOT_SIZE);
+        }
+        mask = capacity - 1;
+    }
+
+    private ByteBuffer segmentOf(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SLOT_BITS)];
+    }
+
+    private static int offsetOf(long slot) {
+        return (int) (slot & ((1L << SEGMENT_SLOT_BITS) - 1)) * SLOT_SIZE;
+    }
+
+    private ByteBuffer chunkOf(long reference) {
+        return chunks.get((int) (reference >>> 32) - 1);
+    }
+
+    private static int entryOffsetOf(long reference) {
+        return (int) reference;
+    }
+
+    /**
+     * @return The slot referring to the entry of the key, or the empty slot where the key would be inserted.
+     */
+    private long slotOf(long hash, byte[] key, int keyOffset, int keyLength) {
+        long slot = hash & mask;
+        while (true) {
+            ByteBuffer segment = segmentOf(slot);
+            long reference = segment.getLong(offsetOf(slot) + Long.BYTES);
+            if (reference == EMPTY_REFERENCE || (segment.getLong(offsetOf(slot)) == hash && keyEquals(reference, key, keyOffset, keyLength))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(long reference, byte[] key, int keyOffset, int keyLength) {
+        ByteBuffer chunk = chunkOf(reference);
+        int entryOffset = entryOffsetOf(reference);
+        if (chunk.getInt(entryOffset) != keyLength) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            if (chunk.get(entryOffset + Integer.BYTES + i) != key[keyOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long referenceOf(long slot) {
+        return segmentOf(slot).getLong(offsetOf(slot) + Long.BYTES);
+    }
+
+    /**
+     * @return The reference to the entry of the key, or {@link #EMPTY_REFERENCE} if the key is not present.
+     */
+    private long find(byte[] key, int keyOffset, int keyLength) {
+        return referenceOf(slotOf(Hashing.hash(key, keyOffset, keyLength), key, keyOffset, keyLength));
+    }
+
+    /**
+     * @return The reference to the entry of the key, which is created with all values 0 if the key is not present.
+     */
+    private long findOrInsert(byte[] key, int keyOffset, int keyLength) {
+        long hash = Hashing.hash(key, keyOffset, keyLength);
+        long slot = slotOf(hash, key, keyOffset, keyLength);
+        long reference = referenceOf(slot);
+        if (reference != EMPTY_REFERENCE) {
+            return reference;
+        }
+
+        if (size + 1 > (mask + 1) * MAX_LOAD_FACTOR) {
+            grow();
+            slot = slotOf(hash, key, keyOffset, keyLength);
+        }
+        reference = appendEntry(key, keyOffset, keyLength);
+        segmentOf(slot).putLong(offsetOf(slot), hash);
+        segmentOf(slot).putLong(offsetOf(slot) + Long.BYTES, reference);
+        size++;
+        return reference;
+    }
+
+    private long appendEntry(byte[] key, int keyOffset, int keyLength) {
+        int entrySize = Integer.BYTES + keyLength + nrOfValues * Long.BYTES;
+        if (entrySize > MAX_CHUNK_SIZE) {
+            throw new FileAnalyserConfigurationException("The key of " + keyLength + " bytes is too long.");
+        }
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < entrySize) {
+            int chunkSize = chunk == null ? MIN_CHUNK_SIZE : (int) Math.min(MAX_CHUNK_SIZE, 2L * chunk.capacity());
+            chunk = allocator.allocate(Math.max(chunkSize, entrySize));
+            chunks.add(chunk);
+        }
+        int entryOffset = chunk.position();
+        chunk.putInt(keyLength);
+        chunk.put(key, keyOffset, keyLength);
+        // The values are already 0, because allocated memory is filled with zeros.
+        chunk.position(entryOffset + entrySize);
+        return ((long) chunks.size() << 32) | entryOffset;
+    }
+
+    private void grow() {
+        ByteBuffer[] oldSegments = segments;
+        long oldCapacity = mask + 1;
+        allocateTable(2 * oldCapacity);
+        int oldSegmentSlots = (int) Math.min(oldCapacity, 1L << SEGMENT_SLOT_BITS);
+        for (ByteBuffer oldSegment : oldSegments) {
+            for (int i = 0; i < oldSegmentSlots; i++) {
+                long reference = oldSegment.getLong(i * SLOT_SIZE + Long.BYTES);
+                if (reference != EMPTY_REFERENCE) {
+                    long hash = oldSegment.getLong(i * SLOT_SIZE);
+                    // Keys are unique, so the first empty slot is the new slot.
+                    long slot = hash & mask;
+                    while (referenceOf(slot) != EMPTY_REFERENCE) {
+                        slot = (slot + 1) & mask;
+                    }
+                    segmentOf(slot).putLong(offsetOf(slot), hash);
+                    segmentOf(slot).putLong(offsetOf(slot) + Long.BYTES, reference);
+                }
+            }
+        }
+    }
+
+    private int valueOffset(long reference, int index) {
+        if (index < 0 || index >= nrOfValues) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for " + nrOfValues + " values.");
+        }
+        int entryOffset = entryOffsetOf(reference);
+        return entryOffset + Integer.BYTES + chunkOf(reference).getInt(entryOffset) + index * Long.BYTES;
+    }
+
+    /**
+     * @param key   The key.
+     * @param index The index of the value.
+     * @return The value, or 0 if the key is not present.
+     */
+    public long get(byte[] key, int index) {
+        return get(key, 0, key.length, index);
+    }
+
+    /**
+     * See {@link #get(byte[], int)}. Uses part of the array as key, so that no array has to be created for each key.
+     */
+    public long get(byte[] key, int keyOffset, int keyLength, int index) {
+        long reference = find(key, keyOffset, keyLength);
+        return reference == EMPTY_REFERENCE ? 0 : chunkOf(reference).getLong(valueOffset(reference, index));
+    }
+
+    public boolean containsKey(byte[] key) {
+        return find(key, 0, key.length) != EMPTY_REFERENCE;
+    }
+
+    /**
+     * @param key   The key, which is added with all values 0 if it is not present.
+     * @param index The index of the value.
+     * @param value The new value.
+     */
+    public void set(byte[] key, int index, long value) {
+        long reference = findOrInsert(key, 0, key.length);
+        chunkOf(reference).putLong(valueOffset(reference, index), value);
+    }
+
+    /**
+     * @param key   The key, which is added with all values 0 if it is not present.
+     * @param index The index of the value.
+     * @param delta The value to add.
+     * @return The new value.
+     */
+    public long addTo(byte[] key, int index, long delta) {
+        return addTo(key, 0, key.length, index, delta);
+    }
+
+    /**
+     * See {@link #addTo(byte[], int, long)}. Uses part of the array as key, so that no array has to be created for each key.
+     */
+    public long addTo(byte[] key, int keyOffset, int keyLength, int index, long delta) {
+        long reference = findOrInsert(key, keyOffset, keyLength);
+        ByteBuffer chunk = chunkOf(reference);
+        int valueOffset = valueOffset(reference, index);
+        long value = chunk.getLong(valueOffset) + delta;
+        chunk.putLong(valueOffset, value);
+        return value;
+    }
+
+    /**
+     * @return The number of keys.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return The size of the table and the chunks, which are allocated off-heap.
+     */
+    @Override
+    public long estimateSizeInBytes() {
+        long size = (mask + 1) * SLOT_SIZE;
+        for (ByteBuffer chunk : chunks) {
+            size += chunk.capacity();
+        }
+        return size;
+    }
+
+    public int getNrOfValues() {
+        return nrOfValues;
+    }
+
+    /**
+     * Calls the consumer for each entry, in the order in which the keys were added.
+     * @param entryConsumer The consumer.
+     */
+    public void forEach(EntryConsumer entryConsumer) {
+        long[] values = new long[nrOfValues];
+        for (ByteBuffer chunk : chunks) {
+            int entryOffset = 0;
+            while (entryOffset < chunk.position()) {
+                byte[] key = new byte[chunk.getInt(entryOffset)];
+                chunk.get(entryOffset + Integer.BYTES, key);
+                int valuesOffset = entryOffset + Integer.BYTES + key.length;
+                for (int i = 0; i < nrOfValues; i++) {
+                    values[i] = chunk.getLong(valuesOffset + i * Long.BYTES);
+                }
+                entryConsumer.accept(key, values);
+                entryOffset = valuesOffset + nrOfValues * Long.BYTES;
+            }
+        }
+    }
+
+    /**
+     * Combines the values of keys that are in both maps using the merge function, and closes the other map.
+     * @throws FileAnalyserConfigurationException If the number of values of the other map is different.
+     * @throws UncheckedIOException               If the other map could not be closed.
+     */
+    @Override
+    public void merge(OffHeapBytesLongArrayMap other) {
+        if (other.nrOfValues != nrOfValues) {
+            throw new FileAnalyserConfigurationException("Only maps with the same number of values can be merged, but these were " +
+                    nrOfValues + " and " + other.nrOfValues + ".");
+        }
+        other.forEach((key, values) -> {
+            boolean isNew = !containsKey(key);
+            long reference = findOrInsert(key, 0, key.length);
+            ByteBuffer chunk = chunkOf(reference);
+            for (int i = 0; i < nrOfValues; i++) {
+                int valueOffset = valueOffset(reference, i);
+                chunk.putLong(valueOffset, isNew ? values[i] : mergeFunction.applyAsLong(chunk.getLong(valueOffset), values[i]));
+            }
+        });
+        try {
+            other.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("The merged map could not be closed.", e);
+        }
+    }
+
+    @Override
+    public OffHeapBytesLongArrayMap createEmpty() {
+        OffHeapBytesLongArrayMap empty = shallowCopy();
+        empty.allocator = allocator.createSibling();
+        empty.allocateTable(OffHeapLongLongMap.tableCapacityFor(initialCapacity));
+        empty.size = 0;
+        empty.chunks = new ArrayList<>();
+        return empty;
+    }
+
+    private void writeObject(ObjectOutputStream outputStream) throws IOException {
+        outputStream.defaultWriteObject();
+        outputStream.writeLong(mask + 1);
+        outputStream.writeLong(size);
+        for (ByteBuffer chunk : chunks) {
+            int entryOffset = 0;
+            while (entryOffset < chunk.position()) {
+                byte[] key = new byte[chunk.getInt(entryOffset)];
+                chunk.get(entryOffset + Integer.BYTES, key);
+                outputStream.writeInt(key.length);
+                outputStream.write(key);
+                int valuesOffset = entryOffset + Integer.BYTES + key.length;
+                for (int i = 0; i < nrOfValues; i++) {
+                    outputStream.writeLong(chunk.getLong(valuesOffset + i * Long.BYTES));
+                }
+                entryOffset = valuesOffset + nrOfValues * Long.BYTES;
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream inputStream) throws IOException, ClassNotFoundException {
+        inputStream.defaultReadObject();
+        chunks = new ArrayList<>();
+        allocateTable(inputStream.readLong());
+        long nrOfEntries = inputStream.readLong();
+        for (long i = 0; i < nrOfEntries; i++) {
+            byte[] key = new byte[inputStream.readInt()];
+            inputStream.readFully(key);
+            long reference = findOrInsert(key, 0, key.length);
+            ByteBuffer chunk = chunkOf(reference);
+            for (int j = 0; j < nrOfValues; j++) {
+                chunk.putLong(valueOffset(reference, j), inputStream.readLong());
+            }
+        }
+    }
+
+    /**
+     * Closes the allocator. The map must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        allocator.close();
+    }
+}
@@ -0,0 +1,287 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Storage mapping longs to longs, like counters per user ID, of which the entries are stored off-heap. There are no
+ * objects per entry: the keys and values are stored next to each other in a table that uses open addressing with linear
+ * probing. The table is split into buffers of at most 1 GB, so it can hold more entries than a single buffer.
+ * <p>
+ * The entries can be read after the analysis using {@link #get(long, long)} and {@link #forEach(EntryConsumer)} without
+ * copying them to the heap. Entries cannot be removed, because storages only aggregate.
+ * <p>
+ * {@link #createEmpty()} uses a sibling of the allocator. Merging closes the other map.
+ * <p>
+ * The map can be serialized if the merge function is serializable, which is the case for the no-arg constructor. The
+ * entries are written one by one and inserted into memory of a deserialized allocator, see {@link OffHeapAllocator}.
+ * <p>
+ * The no-arg constructor uses direct memory, which is limited by {@code -XX:MaxDirectMemorySize}. This limit defaults to
+ * the maximum heap size, so large maps should use {@link OffHeapAllocator#mappedFile(java.nio.file.Path)} instead.
+ */
+public class OffHeapLongLongMap extends AbstractMergeableStorage<OffHeapLongLongMap> implements SizedStorage, Closeable, Serializable {
+    public static final long DEFAULT_INITIAL_CAPACITY = 1 << 16;
+    static final LongBinaryOperator SUM = (LongBinaryOperator & Serializable) Long::sum;
+    private static final long serialVersionUID = 1L;
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+    private static final int SEGMENT_SLOT_BITS = 26;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+    /** Key that marks an empty slot, so this key is stored outside the table. */
+    private static final long EMPTY_KEY = 0;
+
+    private final long initialCapacity;
+    private final LongBinaryOperator mergeFunction;
+    private OffHeapAllocator allocator;
+    private transient ByteBuffer[] segments;
+    private transient long mask;
+    private long size;
+    private boolean hasEmptyKey;
+    private long emptyKeyValue;
+
+    /**
+     * Consumer of an entry of the map.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    /**
+     * Uses direct memory and sums the values of the same key when merging.
+     */
+    public OffHeapLongLongMap() {
+        this(OffHeapAllocator.direct(), DEFAULT_INITIAL_CAPACITY, SUM);
+    }
+
+    /**
+     * @param allocator       The allocator of the memory. It is closed when this map is closed.
+     * @param initialCapacity The number of slots of the table, which is rounded up to a power of two. The table is
+     *                        doubled when it is {@value #MAX_LOAD_FACTOR} full.
+     * @param mergeFunction   Combines the values of the same key when merging and in {@link #merge(long, long)}.
+     * @throws FileAnalyserConfigurationException If the initial capacity is not positive.
+     */
+    public OffHeapLongLongMap(OffHeapAllocator allocator, long initialCapacity, LongBinaryOperator mergeFunction) {
+        if (initialCapacity <= 0) {
+            throw new FileAnalyserConfigurationException("The initial capacity must be positive, but was " + initialCapacity + ".");
+        }
+        this.allocator = allocator;
+        this.initialCapacity = initialCapacity;
+        this.mergeFunction = mergeFunction;
+        allocateTable(tableCapacityFor(initialCapacity));
+    }
+
+    static long tableCapacityFor(long initialCapacity) {
+        return Math.max(16, Long.highestOneBit(initialCapacity - 1) << 1);
+    }
+
+    private void allocateTable(long capacity) {
+        int segmentSlots = (int) Math.min(capacity, 1L << SEGMENT_SLOT_BITS);
+        segments = new ByteBuffer[(int) (capacity / segmentSlots)];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = allocator.allocate(segmentSlots * SLOT_SIZE);
+        }
+        mask = capacity - 1;
+    }
+
+    private long keyAt(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SLOT_BITS)].getLong(offsetOf(slot));
+    }
+
+    private long valueAt(long slot) {
+        return segments[(int) (slot >>> SEGMENT_SLOT_BITS)].getLong(offsetOf(slot) + Long.BYTES);
+    }
+
+    private void setSlot(long slot, long key, long value) {
+        ByteBuffer segment = segments[(int) (slot >>> SEGMENT_SLOT_BITS)];
+        segment.putLong(offsetOf(slot), key);
+        segment.putLong(offsetOf(slot) + Long.BYTES, value);
+    }
+
+    private static int offsetOf(long slot) {
+        return (int) (slot & ((1L << SEGMENT_SLOT_BITS) - 1)) * SLOT_SIZE;
+    }
+
+    /**
+     * @return The slot containing the key, or the empty slot where the key would be inserted.
+     */
+    private long slotOf(long key) {
+        long slot = Hashing.mix(key) & mask;
+        while (true) {
+            long keyInSlot = keyAt(slot);
+            if (keyInSlot == key || keyInSlot == EMPTY_KEY) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @param key          The key.
+     * @param defaultValue The value if the key is not present.
+     * @return The value of the key.
+     */
+    public long get(long key, long defaultValue) {
+        if (key == EMPTY_KEY) {
+            return hasEmptyKey ? emptyKeyValue : defaultValue;
+        }
+        long slot = slotOf(key);
+        return keyAt(slot) == key ? valueAt(slot) : defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY_KEY) {
+            return hasEmptyKey;
+        }
+        return keyAt(slotOf(key)) == key;
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY_KEY) {
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return;
+        }
+        long slot = slotOf(key);
+        if (keyAt(slot) != key) {
+            if (size + 1 > (mask + 1) * MAX_LOAD_FACTOR) {
+                grow();
+                slot = slotOf(key);
+            }
+            size++;
+        }
+        setSlot(slot, key, value);
+    }
+
+    /**
+     * @param key   The key.
+     * @param delta The value to add, where a missing key counts as 0.
+     * @return The new value of the key.
+     */
+    public long addTo(long key, long delta) {
+        long value = get(key, 0) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * @param key   The key.
+     * @param value The value, which is combined with the existing value using the merge function if the key is present.
+     * @return The new value of the key.
+     */
+    public long merge(long key, long value) {
+        long newValue = containsKey(key) ? mergeFunction.applyAsLong(get(key, 0), value) : value;
+        put(key, newValue);
+        return newValue;
+    }
+
+    private void grow() {
+        ByteBuffer[] oldSegments = segments;
+        long oldCapacity = mask + 1;
+        allocateTable(2 * oldCapacity);
+        int oldSegmentSlots = (int) Math.min(oldCapacity, 1L << SEGMENT_SLOT_BITS);
+        for (ByteBuffer oldSegment : oldSegments) {
+            for (int i = 0; i < oldSegmentSlots; i++) {
+                long key = oldSegment.getLong(i * SLOT_SIZE);
+                if (key != EMPTY_KEY) {
+                    setSlot(slotOf(key), key, oldSegment.getLong(i * SLOT_SIZE + Long.BYTES));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of keys.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return The size of the table, which is allocated off-heap.
+     */
+    @Override
+    public long estimateSizeInBytes() {
+        return (mask + 1) * SLOT_SIZE;
+    }
+
+    /**
+     * Calls the consumer for each entry, in no particular order.
+     * @param entryConsumer The consumer.
+     */
+    public void forEach(EntryConsumer entryConsumer) {
+        if (hasEmptyKey) {
+            entryConsumer.accept(EMPTY_KEY, emptyKeyValue);
+        }
+        for (long slot = 0; slot <= mask; slot++) {
+            long key = keyAt(slot);
+            if (key != EMPTY_KEY) {
+                entryConsumer.accept(key, valueAt(slot));
+            }
+        }
+    }
+
+    /**
+     * Combines the values of keys that are in both maps using the merge function, and closes the other map.
+     * @throws UncheckedIOException If the other map could not be closed.
+     */
+    @Override
+    public void merge(OffHeapLongLongMap other) {
+        other.forEach(this::merge);
+        try {
+            other.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("The merged map could not be closed.", e);
+        }
+    }
+
+    @Override
+    public OffHeapLongLongMap createEmpty() {
+        OffHeapLongLongMap empty = shallowCopy();
+        empty.allocator = allocator.createSibling();
+        empty.allocateTable(tableCapacityFor(initialCapacity));
+        empty.size = 0;
+        empty.hasEmptyKey = false;
+        empty.emptyKeyValue = 0;
+        return empty;
+    }
+
+    private void writeObject(ObjectOutputStream outputStream) throws IOException {
+        outputStream.defaultWriteObject();
+        outputStream.writeLong(mask + 1);
+        for (long slot = 0; slot <= mask; slot++) {
+            long key = keyAt(slot);
+            if (key != EMPTY_KEY) {
+                outputStream.writeLong(key);
+                outputStream.writeLong(valueAt(slot));
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream inputStream) throws IOException, ClassNotFoundException {
+        inputStream.defaultReadObject();
+        allocateTable(inputStream.readLong());
+        for (long i = hasEmptyKey ? 1 : 0; i < size; i++) {
+            long key = inputStream.readLong();
+            setSlot(slotOf(key), key, inputStream.readLong());
+        }
+    }
+
+    /**
+     * Closes the allocator. The map must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        allocator.close();
+    }
+}
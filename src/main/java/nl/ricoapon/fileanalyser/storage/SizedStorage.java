@@ -0,0 +1,16 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.memory.MemoryBudget;
+
+/**
+ * Interface that can be implemented by storage classes that can estimate how much memory they use. A
+ * {@link MemoryBudget} uses this to track the memory of an analysis while it runs, so the estimate is computed often and
+ * must be cheap: it should be derived from the sizes of the arrays and collections of the storage, not by walking over
+ * its content.
+ */
+public interface SizedStorage {
+    /**
+     * @return The estimated number of bytes used by this storage, including memory outside the heap.
+     */
+    long estimateSizeInBytes();
+}
@@ -0,0 +1,49 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Converts storage instances to bytes and back, for example to persist them in a checkpoint.
+ */
+public interface StorageCodec {
+    /**
+     * Writes the storage instance to the stream. The stream is not closed.
+     * @param storage      The storage instance.
+     * @param outputStream The stream to write to.
+     * @throws IOException If the stream could not be written.
+     */
+    void encode(Object storage, OutputStream outputStream) throws IOException;
+
+    /**
+     * Reads a storage instance that was written by {@link #encode(Object, OutputStream)}. The stream is not closed.
+     * @param storageClass The class of the storage instance.
+     * @param inputStream  The stream to read from.
+     * @param <S>          The type of the storage instance.
+     * @return The storage instance.
+     * @throws IOException If the stream could not be read or does not contain a storage instance of the given class.
+     */
+    <S> S decode(Class<S> storageClass, InputStream inputStream) throws IOException;
+
+    /**
+     * Creates a deep copy of the storage instance by encoding and decoding it.
+     * @param storage The storage instance.
+     * @param <S>     The type of the storage instance.
+     * @return The copy.
+     * @throws UncheckedIOException If the storage instance could not be encoded or decoded.
+     */
+    @SuppressWarnings("unchecked")
+    default <S> S copy(S storage) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            encode(storage, outputStream);
+            return decode((Class<S>) storage.getClass(), new ByteArrayInputStream(outputStream.toByteArray()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("The storage instance of class " + storage.getClass().getName() + " could not be copied.", e);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Storage that estimates quantiles of a stream of values using a merging t-digest (Dunning and Ertl). Values are added
+ * to a buffer, which is merged into a sorted list of centroids when it is full. The size of the centroids is limited by
+ * the k1 scale function, so the centroids near the extreme quantiles are small and those quantiles are the most accurate.
+ * The number of centroids is at most about the compression, regardless of the number of values.
+ */
+public class TDigest extends AbstractMergeableStorage<TDigest> implements SizedStorage, Serializable {
+    public static final double DEFAULT_COMPRESSION = 100;
+    private static final long serialVersionUID = 1L;
+
+    private final double compression;
+    /** Means of the centroids, sorted. Only the first {@link #nrOfCentroids} are used. */
+    private double[] means;
+    private double[] weights;
+    private int nrOfCentroids;
+    private double[] bufferedValues;
+    private double[] bufferedWeights;
+    private int nrOfBufferedValues;
+    /** Total weight of the centroids and the buffered values. */
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param compression Determines the maximum number of centroids. Higher values are more accurate, but use more memory.
+     * @throws FileAnalyserConfigurationException If the compression is smaller than 10.
+     */
+    public TDigest(double compression) {
+        if (!(compression >= 10)) {
+            throw new FileAnalyserConfigurationException("The compression must be at least 10, but was " + compression + ".");
+        }
+        this.compression = compression;
+        // The k1 scale function spans compression / 2 and greedy merging uses at most two centroids per unit of k.
+        int capacity = (int) Math.ceil(compression) + 10;
+        this.means = new double[capacity];
+        this.weights = new double[capacity];
+        this.bufferedValues = new double[5 * capacity];
+        this.bufferedWeights = new double[5 * capacity];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * @param value  The value, which must not be NaN.
+     * @param weight The weight of the value, like the number of times it occurred.
+     * @throws IllegalArgumentException If the value is NaN or the weight is not positive.
+     */
+    public void add(double value, double weight) {
+        if (Double.isNaN(value) || !(weight > 0)) {
+            throw new IllegalArgumentException("The value must not be NaN and the weight must be positive, but these were " +
+                    value + " and " + weight + ".");
+        }
+        if (nrOfBufferedValues == bufferedValues.length) {
+            compress();
+        }
+        bufferedValues[nrOfBufferedValues] = value;
+        bufferedWeights[nrOfBufferedValues] = weight;
+        nrOfBufferedValues++;
+        totalWeight += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Merges the buffered values into the centroids. Both are sorted by value, so they can be merged in a single pass.
+     */
+    private void compress() {
+        if (nrOfBufferedValues == 0) {
+            return;
+        }
+        sort(bufferedValues, bufferedWeights, 0, nrOfBufferedValues - 1);
+
+        double[] newMeans = new double[means.length];
+        double[] newWeights = new double[weights.length];
+        int nrOfNewCentroids = 0;
+        double weightSoFar = 0;
+        double weightLimit = totalWeight * quantileOfK(kOfQuantile(0) + 1);
+
+        int centroid = 0;
+        int buffered = 0;
+        while (centroid < nrOfCentroids || buffered < nrOfBufferedValues) {
+            double mean;
+            double weight;
+            if (buffered == nrOfBufferedValues || (centroid < nrOfCentroids && means[centroid] <= bufferedValues[buffered])) {
+                mean = means[centroid];
+                weight = weights[centroid++];
+            } else {
+                mean = bufferedValues[buffered];
+                weight = bufferedWeights[buffered++];
+            }
+
+            if (nrOfNewCentroids > 0 && weightSoFar + newWeights[nrOfNewCentroids - 1] + weight <= weightLimit) {
+                int last = nrOfNewCentroids - 1;
+                newWeights[last] += weight;
+                newMeans[last] += (mean - newMeans[last]) * weight / newWeights[last];
+            } else {
+                if (nrOfNewCentroids > 0) {
+                    weightSoFar += newWeights[nrOfNewCentroids - 1];
+                    weightLimit = totalWeight * quantileOfK(kOfQuantile(weightSoFar / totalWeight) + 1);
+                }
+                if (nrOfNewCentroids == newMeans.length) {
+                    newMeans = Arrays.copyOf(newMeans, 2 * newMeans.length);
+                    newWeights = Arrays.copyOf(newWeights, 2 * newWeights.length);
+                }
+                newMeans[nrOfNewCentroids] = mean;
+                newWeights[nrOfNewCentroids] = weight;
+                nrOfNewCentroids++;
+            }
+        }
+
+        means = newMeans;
+        weights = newWeights;
+        nrOfCentroids = nrOfNewCentroids;
+        nrOfBufferedValues = 0;
+    }
+
+    /** The k1 scale function. */
+    private double kOfQuantile(double quantile) {
+        return compression / (2 * Math.PI) * Math.asin(2 * quantile - 1);
+    }
+
+    private double quantileOfK(double k) {
+        double angle = k * 2 * Math.PI / compression;
+        return angle >= Math.PI / 2 ? 1 : (Math.sin(angle) + 1) / 2;
+    }
+
+    /**
+     * Sorts the values in the range and moves the weights along, using quicksort without allocating.
+     */
+    private static void sort(double[] values, double[] valueWeights, int from, int to) {
+        while (from < to) {
+            double pivot = values[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(values, i, j);
+                    swap(valueWeights, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // Recursing into the smaller part limits the depth of the stack.
+            if (j - from < to - i) {
+                sort(values, valueWeights, from, j);
+                from = i;
+            } else {
+                sort(values, valueWeights, i, to);
+                to = j;
+            }
+        }
+    }
+
+    private static void swap(double[] array, int i, int j) {
+        double value = array[i];
+        array[i] = array[j];
+        array[j] = value;
+    }
+
+    /**
+     * @param quantile The quantile, between 0 and 1.
+     * @return The estimated value at the quantile, or NaN if nothing was added.
+     */
+    public double quantile(double quantile) {
+        compress();
+        if (nrOfCentroids == 0) {
+            return Double.NaN;
+        }
+        if (nrOfCentroids == 1) {
+            return means[0];
+        }
+
+        // Each centroid is assumed to be spread evenly around its mean, so the values between the means of two
+        // neighbouring centroids are interpolated. The minimum and maximum are exact.
+        double index = quantile * totalWeight;
+        if (index <= weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < nrOfCentroids - 1; i++) {
+            double distance = (weights[i] + weights[i + 1]) / 2;
+            if (index <= weightSoFar + distance) {
+                return means[i] + (means[i + 1] - means[i]) * (index - weightSoFar) / distance;
+            }
+            weightSoFar += distance;
+        }
+        double lastHalfWeight = weights[nrOfCentroids - 1] / 2;
+        return means[nrOfCentroids - 1] + (max - means[nrOfCentroids - 1]) * Math.min(1, (index - weightSoFar) / lastHalfWeight);
+    }
+
+    /**
+     * @return The total weight of the added values, which is the number of values if all weights are 1.
+     */
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    @Override
+    public long estimateSizeInBytes() {
+        return (long) (means.length + weights.length + bufferedValues.length + bufferedWeights.length) * Double.BYTES;
+    }
+
+    /**
+     * @return The smallest added value, or NaN if nothing was added.
+     */
+    public double getMin() {
+        return totalWeight == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * @return The largest added value, or NaN if nothing was added.
+     */
+    public double getMax() {
+        return totalWeight == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * @return The number of centroids after merging the buffered values, which is the memory that is actually used.
+     */
+    public int getNrOfCentroids() {
+        compress();
+        return nrOfCentroids;
+    }
+
+    /**
+     * Adds the centroids of the other storage as weighted values, so the result is approximately the same as if all
+     * values were added to this storage.
+     */
+    @Override
+    public void merge(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.nrOfCentroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        if (other.totalWeight > 0) {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+    }
+
+    @Override
+    public TDigest createEmpty() {
+        TDigest empty = shallowCopy();
+        empty.means = new double[means.length];
+        empty.weights = new double[weights.length];
+        empty.nrOfCentroids = 0;
+        empty.bufferedValues = new double[bufferedValues.length];
+        empty.bufferedWeights = new double[bufferedWeights.length];
+        empty.nrOfBufferedValues = 0;
+        empty.totalWeight = 0;
+        empty.min = Double.POSITIVE_INFINITY;
+        empty.max = Double.NEGATIVE_INFINITY;
+        return empty;
+    }
+}
@@ -0,0 +1,15 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+/**
+ * Reads records into existing block instances.
+ * @param <B> The type of the block.
+ */
+@FunctionalInterface
+public interface BlockReader<B> {
+    /**
+     * Overwrites the content of the given block with the next record.
+     * @param block The block to fill.
+     * @return Whether a record was read. If false, there are no more records and the block is not modified.
+     */
+    boolean readInto(B block);
+}
@@ -0,0 +1,57 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+/**
+ * Selects a sample of the blocks of a block supplier. The blocks that are not selected are still read, but they are never
+ * offered to the block analysers. To avoid reading a file completely, use {@link SplittableFileSource#sample(double, long, long)}.
+ * @param <B> The type of the block.
+ */
+@FunctionalInterface
+public interface BlockSampler<B> {
+    /**
+     * @param blockSupplier The supplier of all blocks.
+     * @return Supplier of the selected blocks. It recycles blocks if the given supplier does, which is handled by the
+     * {@link FileAnalyser} that the sampler is set on.
+     */
+    SampledBlockSupplier<B> sample(Iterator<B> blockSupplier);
+
+    /**
+     * Selects each block independently with probability {@code rate}. Instead of drawing a random number for each block,
+     * the number of blocks to skip before the next selected block is drawn from the geometric distribution.
+     * @param rate The probability that a block is selected.
+     * @param seed The seed of the random numbers, so that the same sample can be drawn again.
+     * @param <B>  The type of the block.
+     * @return The sampler.
+     * @throws FileAnalyserConfigurationException If the rate is not in {@code (0, 1]}.
+     */
+    static <B> BlockSampler<B> bernoulli(double rate, long seed) {
+        if (!(rate > 0 && rate <= 1)) {
+            throw new FileAnalyserConfigurationException("The rate must be in (0, 1], but was " + rate + ".");
+        }
+        return blockSupplier -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            double logOfRejection = Math.log1p(-rate);
+            return new SkippingSampledBlockSupplier<>(blockSupplier, rate,
+                    () -> rate == 1 ? 0 : (long) Math.floor(Math.log1p(-random.nextDouble()) / logOfRejection));
+        };
+    }
+
+    /**
+     * Selects every {@code n}th block, starting with block {@code n}.
+     * @param n The number of blocks for each selected block.
+     * @param <B> The type of the block.
+     * @return The sampler.
+     * @throws FileAnalyserConfigurationException If {@code n} is not positive.
+     */
+    static <B> BlockSampler<B> everyNth(int n) {
+        if (n <= 0) {
+            throw new FileAnalyserConfigurationException("The n of every nth block must be positive, but was " + n + ".");
+        }
+        return blockSupplier -> new SkippingSampledBlockSupplier<>(blockSupplier, 1.0 / n, () -> n - 1);
+    }
+}
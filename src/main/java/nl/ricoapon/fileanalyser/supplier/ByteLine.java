@@ -0,0 +1,150 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * View on a line of bytes in a buffer, without copying the bytes. The view is reused for the next line, so it must not
+ * be kept after the line has been processed. Use {@link #toString()} to create a copy that can be kept. A line that has
+ * been poisoned, see {@link MappedLineSupplier#enablePoisoning()}, throws {@link IllegalStateException} when used.
+ * <p>
+ * As a {@link CharSequence}, each byte is interpreted as a single character. This is exact for ASCII and ISO-8859-1.
+ * For multi-byte encodings such as UTF-8, {@link #toString()} decodes the bytes correctly.
+ */
+public class ByteLine implements CharSequence {
+    private final Charset charset;
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+    private boolean isPoisoned;
+    /** The line of which this is a sub-sequence, which is poisoned together with this view, or null. */
+    private ByteLine viewedLine;
+
+    /**
+     * @param charset The charset used by {@link #toString()} to decode the bytes.
+     */
+    public ByteLine(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Points this view to other bytes.
+     * @param buffer The buffer containing the bytes.
+     * @param offset The index of the first byte in the buffer.
+     * @param length The number of bytes.
+     */
+    void set(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Makes all further use of this line fail.
+     */
+    void poison() {
+        isPoisoned = true;
+        buffer = null;
+    }
+
+    /**
+     * @return Copy of this line that is backed by its own bytes, so it is never recycled.
+     */
+    public ByteLine copy() {
+        ByteLine copy = new ByteLine(charset);
+        copy.set(ByteBuffer.wrap(toByteArray()), 0, length);
+        return copy;
+    }
+
+    /**
+     * @param index The index of the byte in this line.
+     * @return The byte on the given index.
+     */
+    public byte byteAt(int index) {
+        checkIndex(index);
+        return buffer.get(offset + index);
+    }
+
+    @Override
+    public int length() {
+        checkNotPoisoned();
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (byteAt(index) & 0xFF);
+    }
+
+    /**
+     * @return View on the bytes in the given range. The view is only valid as long as this line is valid.
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        checkNotPoisoned();
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") is out of bounds for length " + length + ".");
+        }
+        ByteLine subSequence = new ByteLine(charset);
+        subSequence.set(buffer, offset + start, end - start);
+        subSequence.viewedLine = viewedLine == null ? this : viewedLine;
+        return subSequence;
+    }
+
+    /**
+     * @param prefix The prefix, consisting of ASCII characters.
+     * @return Whether the line starts with the given prefix. This does not create any objects.
+     */
+    public boolean startsWith(CharSequence prefix) {
+        checkNotPoisoned();
+        if (prefix.length() > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer.get(offset + i) != (byte) prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Copy of the bytes of this line.
+     */
+    public byte[] toByteArray() {
+        checkNotPoisoned();
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes, 0, length);
+        return bytes;
+    }
+
+    /**
+     * @param charset The charset.
+     * @return The bytes of this line decoded using the given charset.
+     */
+    public String toString(Charset charset) {
+        return new String(toByteArray(), charset);
+    }
+
+    /**
+     * @return The bytes of this line decoded using the charset of this line, which is {@link StandardCharsets#UTF_8} by default.
+     */
+    @Override
+    public String toString() {
+        return toString(charset);
+    }
+
+    private void checkNotPoisoned() {
+        if (isPoisoned || (viewedLine != null && viewedLine.isPoisoned)) {
+            throw new IllegalStateException("This line was used after it was recycled. Block analysers must not keep blocks.");
+        }
+    }
+
+    private void checkIndex(int index) {
+        checkNotPoisoned();
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for length " + length + ".");
+        }
+    }
+}
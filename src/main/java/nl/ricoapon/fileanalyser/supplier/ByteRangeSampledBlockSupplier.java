@@ -0,0 +1,77 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * {@link SampledBlockSupplier} that supplies the blocks of a list of ranges of a file, one range after the other. The
+ * bytes between the ranges are never read. The effective sampling rate is the total size of the ranges divided by the
+ * size of the file.
+ * @param <B> The type of the block.
+ */
+class ByteRangeSampledBlockSupplier<B> implements SampledBlockSupplier<B>, Closeable {
+    private final Iterator<FileRange> ranges;
+    private final Function<FileRange, Iterator<B>> rangeReader;
+    private final double samplingRate;
+    private Iterator<B> currentBlockSupplier;
+
+    /**
+     * @param ranges       The ranges, in the order of the file.
+     * @param rangeReader  Creates a supplier of the blocks in a range.
+     * @param samplingRate The fraction of the file that is covered by the ranges.
+     */
+    ByteRangeSampledBlockSupplier(List<FileRange> ranges, Function<FileRange, Iterator<B>> rangeReader, double samplingRate) {
+        this.ranges = ranges.iterator();
+        this.rangeReader = rangeReader;
+        this.samplingRate = samplingRate;
+        this.currentBlockSupplier = this.ranges.hasNext() ? rangeReader.apply(this.ranges.next()) : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (currentBlockSupplier != null && !currentBlockSupplier.hasNext()) {
+            closeCurrentBlockSupplier();
+            currentBlockSupplier = ranges.hasNext() ? rangeReader.apply(ranges.next()) : null;
+        }
+        return currentBlockSupplier != null;
+    }
+
+    @Override
+    public B next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentBlockSupplier.next();
+    }
+
+    @Override
+    public double getSamplingRate() {
+        return samplingRate;
+    }
+
+    private void closeCurrentBlockSupplier() {
+        if (currentBlockSupplier instanceof Closeable) {
+            try {
+                ((Closeable) currentBlockSupplier).close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("The supplier of a sampled range could not be closed.", e);
+            }
+        }
+    }
+
+    /**
+     * Closes the supplier of the current range. Suppliers of the other ranges are closed as soon as they are exhausted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (currentBlockSupplier instanceof Closeable) {
+            ((Closeable) currentBlockSupplier).close();
+        }
+        currentBlockSupplier = null;
+    }
+}
@@ -0,0 +1,68 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * Range of bytes {@code [start, end)} in a file.
+ */
+public final class FileRange {
+    private final Path path;
+    private final long start;
+    private final long end;
+
+    /**
+     * @param path  The path of the file.
+     * @param start The position of the first byte.
+     * @param end   The position after the last byte.
+     */
+    public FileRange(Path path, long start, long end) {
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("The range [" + start + ", " + end + ") is not valid.");
+        }
+        this.path = Objects.requireNonNull(path);
+        this.start = start;
+        this.end = end;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * @return The number of bytes in this range.
+     */
+    public long size() {
+        return end - start;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FileRange fileRange = (FileRange) o;
+        return start == fileRange.start && end == fileRange.end && path.equals(fileRange.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(path, start, end);
+    }
+
+    @Override
+    public String toString() {
+        return path + "[" + start + ", " + end + ")";
+    }
+}
@@ -0,0 +1,94 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link Spliterator} over the blocks in a {@link FileRange}. Splitting is done by bytes: the range is cut in the middle
+ * and the cut is moved to the start of the next record. Splitting is only possible before traversal has started.
+ * @param <B> The type of the block.
+ */
+class FileRangeSpliterator<B> implements Spliterator<B> {
+    private final long minimumSplitSize;
+    private final RecordBoundaryDetector recordBoundaryDetector;
+    private final Function<FileRange, Iterator<B>> rangeReader;
+    private FileRange fileRange;
+    /** Created when traversal starts. */
+    private Iterator<B> blockSupplier;
+
+    FileRangeSpliterator(FileRange fileRange, long minimumSplitSize, RecordBoundaryDetector recordBoundaryDetector,
+                         Function<FileRange, Iterator<B>> rangeReader) {
+        this.fileRange = fileRange;
+        this.minimumSplitSize = minimumSplitSize;
+        this.recordBoundaryDetector = recordBoundaryDetector;
+        this.rangeReader = rangeReader;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super B> action) {
+        if (blockSupplier == null) {
+            blockSupplier = rangeReader.apply(fileRange);
+        }
+        if (blockSupplier.hasNext()) {
+            action.accept(blockSupplier.next());
+            return true;
+        }
+        closeBlockSupplier();
+        return false;
+    }
+
+    /**
+     * @return Spliterator over the first part of the range, while this spliterator continues with the second part.
+     */
+    @Override
+    public Spliterator<B> trySplit() {
+        if (blockSupplier != null || fileRange.size() < 2 * minimumSplitSize) {
+            return null;
+        }
+
+        long middle = fileRange.getStart() + fileRange.size() / 2;
+        long boundary;
+        try (FileChannel channel = FileChannel.open(fileRange.getPath(), StandardOpenOption.READ)) {
+            boundary = recordBoundaryDetector.findRecordStart(channel, middle);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + fileRange.getPath() + " could not be read.", e);
+        }
+        if (boundary <= fileRange.getStart() || boundary >= fileRange.getEnd()) {
+            return null;
+        }
+
+        FileRange prefix = new FileRange(fileRange.getPath(), fileRange.getStart(), boundary);
+        fileRange = new FileRange(fileRange.getPath(), boundary, fileRange.getEnd());
+        return new FileRangeSpliterator<>(prefix, minimumSplitSize, recordBoundaryDetector, rangeReader);
+    }
+
+    /**
+     * @return The number of bytes in the range, since the number of blocks is not known up front.
+     */
+    @Override
+    public long estimateSize() {
+        return fileRange.size();
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private void closeBlockSupplier() {
+        if (blockSupplier instanceof Closeable) {
+            try {
+                ((Closeable) blockSupplier).close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserExecutionException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Supplies the lines of a file as {@link ByteLine} objects. The file is memory-mapped in windows, so files larger than
+ * 2 GB are supported, and line boundaries are found directly in the mapped bytes. No objects are created per line:
+ * {@link #next()} always returns the same {@link ByteLine} instance, pointing to the next line. See
+ * {@link RecyclingBlockSupplier} for the consequences.
+ * <p>
+ * Lines are separated by {@code \n}. A {@code \r} directly before the separator is not part of the line. The
+ * last line does not need to end with a separator.
+ */
+public class MappedLineSupplier implements RecyclingBlockSupplier<ByteLine>, PositionedBlockSupplier<ByteLine>, Closeable {
+    /** Default size of the mapped windows: 64 MB. */
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long NEW_LINES = ONES * '\n';
+
+    private final FileChannel fileChannel;
+    private final long end;
+    private final Charset charset;
+    private ByteLine line;
+    private int windowSize;
+    private boolean isPoisoningEnabled;
+
+    private MappedByteBuffer window;
+    /** Position in the file of the first byte of {@link #window}. */
+    private long windowStart;
+    /** Position within {@link #window} of the first byte that has not been returned as part of a line. */
+    private int position;
+    private boolean hasNextLine;
+    private boolean isNextLineFound;
+    /** Position in the file directly after the line found by {@link #hasNext()}. */
+    private long nextLineEndPosition;
+    /** Position in the file directly after the last line returned by {@link #next()}. */
+    private long suppliedPosition;
+
+    /**
+     * Supplies all the lines of the file, decoded as UTF-8 by {@link ByteLine#toString()}.
+     * @param path The path of the file.
+     * @throws UncheckedIOException If the file could not be opened.
+     */
+    public MappedLineSupplier(Path path) {
+        this(path, 0, Long.MAX_VALUE, StandardCharsets.UTF_8, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Supplies the lines that start in the byte range {@code [start, end)} of the file. {@code start} must be the start of
+     * a line and {@code end} must be the start of a line or the end of the file.
+     * @param path       The path of the file.
+     * @param start      The position of the first byte.
+     * @param end        The position after the last byte. Values larger than the size of the file are allowed.
+     * @param charset    The charset used by {@link ByteLine#toString()}.
+     * @param windowSize The number of bytes that are mapped at the same time. Grows automatically for longer lines.
+     * @throws FileAnalyserConfigurationException If the window size is not positive.
+     * @throws UncheckedIOException If the file could not be opened.
+     */
+    public MappedLineSupplier(Path path, long start, long end, Charset charset, int windowSize) {
+        if (windowSize <= 0) {
+            throw new FileAnalyserConfigurationException("The window size must be positive, but was " + windowSize + ".");
+        }
+        try {
+            this.fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + path + " could not be opened.", e);
+        }
+        try {
+            this.end = Math.min(end, fileChannel.size());
+        } catch (IOException e) {
+            try {
+                fileChannel.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw new UncheckedIOException("The size of the file " + path + " could not be determined.", e);
+        }
+        this.charset = charset;
+        this.line = new ByteLine(charset);
+        this.windowSize = windowSize;
+        this.windowStart = start;
+        this.position = 0;
+        this.suppliedPosition = start;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isNextLineFound) {
+            hasNextLine = findNextLine();
+            isNextLineFound = true;
+        }
+        return hasNextLine;
+    }
+
+    /**
+     * Enables the debug mode in which every line is a new instance that is poisoned when the next line is read. Using a
+     * poisoned line throws an exception, which reveals block analysers that keep lines. This creates objects for every
+     * line, so it should not be used in production.
+     * @return This object.
+     */
+    public MappedLineSupplier enablePoisoning() {
+        isPoisoningEnabled = true;
+        return this;
+    }
+
+    /**
+     * @return The next line. This is the same instance on every call, so it must not be kept.
+     */
+    @Override
+    public ByteLine next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        isNextLineFound = false;
+        suppliedPosition = nextLineEndPosition;
+        return line;
+    }
+
+    /**
+     * @return The position in the file of the first byte after the last line returned by {@link #next()}, including its
+     * separator. Calling {@link #hasNext()} does not change the position.
+     */
+    @Override
+    public long getPosition() {
+        return suppliedPosition;
+    }
+
+    /**
+     * @return The position in the file of the first byte that has not been read as part of a line.
+     */
+    private long readPosition() {
+        return windowStart + position;
+    }
+
+    /**
+     * Continues with the line that starts at the given position. The current window is released, so the next line is
+     * read from a newly mapped window.
+     * @param position The position in the file of the start of a line.
+     */
+    @Override
+    public void seek(long position) {
+        this.window = null;
+        this.windowStart = position;
+        this.position = 0;
+        this.isNextLineFound = false;
+        this.suppliedPosition = position;
+    }
+
+    /**
+     * Points {@link #line} to the next line, mapping a new window when the line does not fit in the current one.
+     * @return Whether there is a next line.
+     */
+    private boolean findNextLine() {
+        if (readPosition() >= end) {
+            return false;
+        }
+
+        while (true) {
+            if (window == null || position == window.limit()) {
+                mapWindow(readPosition());
+            }
+
+            int lineStart = position;
+            int separator = indexOfNewLine(lineStart);
+            if (separator >= 0) {
+                pointLineTo(lineStart, separator);
+                position = separator + 1;
+                nextLineEndPosition = readPosition();
+                return true;
+            }
+
+            if (windowStart + window.limit() >= end) {
+                // The last line of the range does not end with a separator.
+                pointLineTo(lineStart, window.limit());
+                position = window.limit();
+                nextLineEndPosition = readPosition();
+                return true;
+            }
+
+            // The line continues after the window. Map a new window starting at the line, growing it if the line was
+            // already at the start of the window.
+            if (lineStart == 0) {
+                growWindow();
+            }
+            mapWindow(windowStart + lineStart);
+        }
+    }
+
+    private void pointLineTo(int lineStart, int lineEnd) {
+        if (isPoisoningEnabled) {
+            line.poison();
+            line = new ByteLine(charset);
+        }
+        int length = lineEnd - lineStart;
+        if (length > 0 && window.get(lineEnd - 1) == '\r') {
+            length--;
+        }
+        line.set(window, lineStart, length);
+    }
+
+    /**
+     * Finds the first {@code \n} starting at the given index, testing eight bytes at the same time.
+     * @param from The index in the window to start searching.
+     * @return The index of the first {@code \n}, or -1 if the window does not contain one.
+     */
+    private int indexOfNewLine(int from) {
+        int limit = window.limit();
+        int i = from;
+        for (; i + Long.BYTES <= limit; i += Long.BYTES) {
+            long word = window.getLong(i) ^ NEW_LINES;
+            // The lowest bit that is set in this expression marks the first byte of the word that is zero.
+            long zeroBytes = (word - ONES) & ~word & HIGH_BITS;
+            if (zeroBytes != 0) {
+                return i + Long.numberOfTrailingZeros(zeroBytes) / Byte.SIZE;
+            }
+        }
+        for (; i < limit; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public ByteLine detach(ByteLine block) {
+        return block.copy();
+    }
+
+    private void growWindow() {
+        if (windowSize == Integer.MAX_VALUE) {
+            throw new FileAnalyserExecutionException("A line starting at position " + windowStart + " is longer than " +
+                    Integer.MAX_VALUE + " bytes.");
+        }
+        windowSize = (int) Math.min(Integer.MAX_VALUE, 2L * windowSize);
+    }
+
+    private void mapWindow(long start) {
+        try {
+            window = fileChannel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, end - start));
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file could not be mapped at position " + start + ".", e);
+        }
+        // Little endian makes the first byte in the file the lowest byte of a long, see indexOfNewLine(int).
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        windowStart = start;
+        position = 0;
+    }
+
+    /**
+     * Closes the file. Mapped windows are released by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
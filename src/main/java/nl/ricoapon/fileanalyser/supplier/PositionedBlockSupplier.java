@@ -0,0 +1,22 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import java.util.Iterator;
+
+/**
+ * Block supplier that can report its position and continue from a reported position, for example a byte offset in a
+ * file. This allows resuming an analysis without reading the blocks that were already analysed.
+ * @param <B> The type of the block.
+ */
+public interface PositionedBlockSupplier<B> extends Iterator<B> {
+    /**
+     * @return The position directly after the last block returned by {@link #next()}. Calling {@link #hasNext()} must
+     * not change the position.
+     */
+    long getPosition();
+
+    /**
+     * Continues supplying blocks from the given position.
+     * @param position A position returned by {@link #getPosition()} of a supplier of the same source.
+     */
+    void seek(long position);
+}
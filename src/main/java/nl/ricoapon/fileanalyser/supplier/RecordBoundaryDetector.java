@@ -0,0 +1,44 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Interface for finding the positions in a file where a record starts. This is used to split a file into ranges that
+ * can be processed independently, without cutting a record in two.
+ */
+@FunctionalInterface
+public interface RecordBoundaryDetector {
+    /**
+     * @param channel  The channel of the file. Only absolute reads should be used.
+     * @param position The position in the file.
+     * @return The position of the first record that starts at or after the given position, or the size of the file if
+     * no record starts after the given position.
+     * @throws IOException If the file could not be read.
+     */
+    long findRecordStart(FileChannel channel, long position) throws IOException;
+
+    /**
+     * @return Detector for records that are single lines, separated by {@code \n}.
+     */
+    static RecordBoundaryDetector newLine() {
+        return (channel, position) -> {
+            if (position == 0) {
+                return 0;
+            }
+            // A line starts at the given position if the previous byte is a separator, so start searching there.
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long bufferStart = position - 1;
+            while (channel.read(buffer.clear(), bufferStart) > 0) {
+                for (int i = 0; i < buffer.position(); i++) {
+                    if (buffer.get(i) == '\n') {
+                        return bufferStart + i + 1;
+                    }
+                }
+                bufferStart += buffer.position();
+            }
+            return channel.size();
+        };
+    }
+}
@@ -0,0 +1,98 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@link RecyclingBlockSupplier} that fills a small pool of mutable block instances in turn. A block stays valid until
+ * {@code poolSize} more blocks have been read, so with a pool size of one the same instance is returned every time.
+ * <p>
+ * To find block analysers that keep blocks, {@link #enablePoisoning(Consumer)} can be used while debugging. Every
+ * block is then a new instance, which is poisoned at the moment it would have been recycled. A block analyser that
+ * keeps a block will see the poisoned content instead of content that silently belongs to another record.
+ * @param <B> The type of the block.
+ */
+public class RecycledBlockSupplier<B> implements RecyclingBlockSupplier<B> {
+    private final BlockReader<B> blockReader;
+    private final Supplier<B> blockFactory;
+    private final UnaryOperator<B> blockCopier;
+    private final Object[] pool;
+    private int nextPoolIndex;
+    private Consumer<B> poisoner;
+
+    private boolean hasNextBlock;
+    private boolean isNextBlockRead;
+
+    /**
+     * @param blockReader  Reads the records into the blocks.
+     * @param blockFactory Creates empty blocks.
+     * @param blockCopier  Creates a copy of a block, used by {@link #detach(Object)}.
+     * @param poolSize     The number of block instances that are reused.
+     * @throws FileAnalyserConfigurationException If the pool size is not positive.
+     */
+    public RecycledBlockSupplier(BlockReader<B> blockReader, Supplier<B> blockFactory, UnaryOperator<B> blockCopier, int poolSize) {
+        if (poolSize <= 0) {
+            throw new FileAnalyserConfigurationException("The pool size must be positive, but was " + poolSize + ".");
+        }
+        this.blockReader = blockReader;
+        this.blockFactory = blockFactory;
+        this.blockCopier = blockCopier;
+        this.pool = new Object[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            pool[i] = blockFactory.get();
+        }
+    }
+
+    /**
+     * Enables the debug mode in which every block is a new instance that is poisoned when it would have been recycled.
+     * This creates objects for every block, so it should not be used in production.
+     * @param poisoner Modifies a block in such a way that using it afterwards fails or is easily recognised.
+     * @return This object.
+     */
+    public RecycledBlockSupplier<B> enablePoisoning(Consumer<B> poisoner) {
+        this.poisoner = poisoner;
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isNextBlockRead) {
+            hasNextBlock = readNextBlock();
+            isNextBlockRead = true;
+        }
+        return hasNextBlock;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public B next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        isNextBlockRead = false;
+        B block = (B) pool[nextPoolIndex];
+        nextPoolIndex = (nextPoolIndex + 1) % pool.length;
+        return block;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean readNextBlock() {
+        B block = (B) pool[nextPoolIndex];
+        if (poisoner != null) {
+            // The block in this slot would be recycled now, so it is poisoned and replaced by a new instance.
+            poisoner.accept(block);
+            block = blockFactory.get();
+            pool[nextPoolIndex] = block;
+        }
+        return blockReader.readInto(block);
+    }
+
+    @Override
+    public B detach(B block) {
+        return blockCopier.apply(block);
+    }
+}
@@ -0,0 +1,27 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+
+import java.util.Iterator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Supplier of blocks that reuses block instances instead of creating a new instance for every block. A block returned by
+ * {@link #next()} is only valid until it is recycled, which can be as soon as the next call to {@link #next()}. See
+ * {@link BlockAnalyser#processBlock(Object, Object)} for the consequences for block analysers.
+ * <p>
+ * Execution strategies that keep blocks after the next block has been read use {@link #detach(Object)} to make copies.
+ * This is only done if the supplier is given to {@link FileAnalyser#of(Iterator)} directly. A supplier that wraps a
+ * recycling supplier must be configured with {@link FileAnalyser#setRecycledBlocks(UnaryOperator)} instead. A
+ * {@link FileAnalyserPlan} that is executed directly is configured with {@link FileAnalyserPlan#withRecycledBlocks(UnaryOperator)}.
+ * @param <B> The type of the block.
+ */
+public interface RecyclingBlockSupplier<B> extends Iterator<B> {
+    /**
+     * @param block A block returned by this supplier that has not been recycled yet.
+     * @return Copy of the block that is never recycled.
+     */
+    B detach(B block);
+}
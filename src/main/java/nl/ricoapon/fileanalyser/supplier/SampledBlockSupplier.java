@@ -0,0 +1,17 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import java.util.Iterator;
+
+/**
+ * Supplier of a sample of the blocks of a source, used to answer questions quickly when an approximate answer is good
+ * enough. Counts in the storage instances can be scaled to the whole source by dividing them by
+ * {@link #getSamplingRate()}.
+ * @param <B> The type of the block.
+ */
+public interface SampledBlockSupplier<B> extends Iterator<B> {
+    /**
+     * @return The fraction of the source that was supplied so far, between 0 and 1. This is the effective rate, which
+     * can differ from the requested rate because of chance and because blocks are never cut in two.
+     */
+    double getSamplingRate();
+}
@@ -0,0 +1,77 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongSupplier;
+
+/**
+ * {@link SampledBlockSupplier} that skips a number of blocks before each selected block. The effective sampling rate is
+ * the number of selected blocks divided by the number of blocks that were read.
+ * @param <B> The type of the block.
+ */
+class SkippingSampledBlockSupplier<B> implements SampledBlockSupplier<B> {
+    private final Iterator<B> blockSupplier;
+    private final double requestedRate;
+    /** Supplies the number of blocks to skip before each selected block. */
+    private final LongSupplier gaps;
+    private long blocksToSkip;
+    private long readCount;
+    private long selectedCount;
+
+    private B nextBlock;
+    private boolean hasNextBlock;
+    private boolean isNextBlockRead;
+
+    SkippingSampledBlockSupplier(Iterator<B> blockSupplier, double requestedRate, LongSupplier gaps) {
+        this.blockSupplier = blockSupplier;
+        this.requestedRate = requestedRate;
+        this.gaps = gaps;
+        this.blocksToSkip = gaps.getAsLong();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!isNextBlockRead) {
+            hasNextBlock = readNextBlock();
+            isNextBlockRead = true;
+        }
+        return hasNextBlock;
+    }
+
+    @Override
+    public B next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        isNextBlockRead = false;
+        B block = nextBlock;
+        nextBlock = null;
+        return block;
+    }
+
+    private boolean readNextBlock() {
+        for (; blocksToSkip > 0; blocksToSkip--) {
+            if (!blockSupplier.hasNext()) {
+                return false;
+            }
+            blockSupplier.next();
+            readCount++;
+        }
+        if (!blockSupplier.hasNext()) {
+            return false;
+        }
+        nextBlock = blockSupplier.next();
+        readCount++;
+        selectedCount++;
+        blocksToSkip = gaps.getAsLong();
+        return true;
+    }
+
+    /**
+     * @return The fraction of the blocks read so far that was selected, or the requested rate if no block was read.
+     */
+    @Override
+    public double getSamplingRate() {
+        return readCount == 0 ? requestedRate : (double) selectedCount / readCount;
+    }
+}
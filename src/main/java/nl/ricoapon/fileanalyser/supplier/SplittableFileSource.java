@@ -0,0 +1,165 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Source of blocks from a file that can be split into byte ranges, so that the ranges can be analysed in parallel. The
+ * edges of the ranges are moved to the start of the next record using a {@link RecordBoundaryDetector}, so no record is
+ * ever cut in two.
+ * @param <B> The type of the block.
+ */
+public class SplittableFileSource<B> {
+    private final Path path;
+    private final RecordBoundaryDetector recordBoundaryDetector;
+    private final Function<FileRange, Iterator<B>> rangeReader;
+
+    /**
+     * @param path                   The path of the file.
+     * @param recordBoundaryDetector Detector of the start of records.
+     * @param rangeReader            Creates a supplier of the blocks in a range. The range always starts at a record.
+     */
+    public SplittableFileSource(Path path, RecordBoundaryDetector recordBoundaryDetector, Function<FileRange, Iterator<B>> rangeReader) {
+        this.path = path;
+        this.recordBoundaryDetector = recordBoundaryDetector;
+        this.rangeReader = rangeReader;
+    }
+
+    /**
+     * @param path The path of the file.
+     * @return Source where each line is a block, read using {@link MappedLineSupplier}.
+     */
+    public static SplittableFileSource<ByteLine> ofLines(Path path) {
+        return new SplittableFileSource<>(path, RecordBoundaryDetector.newLine(), range -> new MappedLineSupplier(range.getPath(),
+                range.getStart(), range.getEnd(), StandardCharsets.UTF_8, MappedLineSupplier.DEFAULT_WINDOW_SIZE));
+    }
+
+    /**
+     * Splits the file into at most {@code n} ranges of roughly the same size. Ranges are never empty, so fewer ranges
+     * are returned if the file contains fewer records.
+     * @param n The number of ranges.
+     * @return The ranges, in the order of the file.
+     * @throws FileAnalyserConfigurationException If {@code n} is not positive.
+     * @throws UncheckedIOException If the file could not be read.
+     */
+    public List<FileRange> split(int n) {
+        if (n <= 0) {
+            throw new FileAnalyserConfigurationException("The number of ranges must be positive, but was " + n + ".");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<FileRange> ranges = new ArrayList<>(n);
+            long start = 0;
+            for (int i = 1; i <= n && start < size; i++) {
+                long end = i == n ? size : Math.max(start, recordBoundaryDetector.findRecordStart(channel, size * i / n));
+                if (end > start) {
+                    ranges.add(new FileRange(path, start, end));
+                    start = end;
+                }
+            }
+            return ranges;
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + path + " could not be split.", e);
+        }
+    }
+
+    /**
+     * Selects ranges that together cover about {@code rate} of the file, for sampling the file without reading it
+     * completely. The file is divided into strata of {@code rangeSizeInBytes / rate} bytes and a range of
+     * {@code rangeSizeInBytes} bytes is placed at a random offset within each stratum, which spreads the sample over the
+     * whole file. The edges of the ranges are moved to the start of the next record, so a range contains the records that
+     * start within it.
+     * @param rate             The fraction of the file to select.
+     * @param rangeSizeInBytes The size of each range. Larger ranges need fewer seeks, smaller ranges give a better spread.
+     * @param seed             The seed of the random offsets, so that the same sample can be drawn again.
+     * @return The ranges, in the order of the file.
+     * @throws FileAnalyserConfigurationException If the rate is not in {@code (0, 1]} or the range size is not positive.
+     * @throws UncheckedIOException If the file could not be read.
+     */
+    public List<FileRange> sampleRanges(double rate, long rangeSizeInBytes, long seed) {
+        if (!(rate > 0 && rate <= 1) || rangeSizeInBytes <= 0) {
+            throw new FileAnalyserConfigurationException("The rate must be in (0, 1] and the range size must be positive, but were " +
+                    rate + " and " + rangeSizeInBytes + ".");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long stratumSize = (long) Math.ceil(rangeSizeInBytes / rate);
+            SplittableRandom random = new SplittableRandom(seed);
+            List<FileRange> ranges = new ArrayList<>();
+            for (long stratumStart = 0; stratumStart < size; stratumStart += stratumSize) {
+                long stratumEnd = Math.min(size, stratumStart + stratumSize);
+                long offset = stratumEnd - stratumStart > rangeSizeInBytes ? random.nextLong(stratumEnd - stratumStart - rangeSizeInBytes + 1) : 0;
+                long start = recordBoundaryDetector.findRecordStart(channel, stratumStart + offset);
+                long end = recordBoundaryDetector.findRecordStart(channel, Math.min(stratumEnd, stratumStart + offset + rangeSizeInBytes));
+                if (end > start) {
+                    ranges.add(new FileRange(path, start, end));
+                }
+            }
+            return ranges;
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + path + " could not be sampled.", e);
+        }
+    }
+
+    /**
+     * Samples the file using the ranges of {@link #sampleRanges(double, long, long)}. Only the selected ranges are read,
+     * so a small sample of a large file is read in a fraction of the time. The effective sampling rate is the size of the
+     * ranges divided by the size of the file.
+     * <p>
+     * The supplier does not implement {@link RecyclingBlockSupplier}. If the blocks of the ranges are recycled, this must
+     * be set with {@link FileAnalyser#setRecycledBlocks(UnaryOperator)}, for lines using {@link ByteLine#copy()}.
+     * @param rate             The fraction of the file to select.
+     * @param rangeSizeInBytes The size of each range.
+     * @param seed             The seed of the random offsets.
+     * @return Supplier of the blocks in the ranges, which can be used as input for the file analyser.
+     * @throws FileAnalyserConfigurationException If the rate is not in {@code (0, 1]} or the range size is not positive.
+     * @throws UncheckedIOException If the file could not be read.
+     */
+    public SampledBlockSupplier<B> sample(double rate, long rangeSizeInBytes, long seed) {
+        List<FileRange> ranges = sampleRanges(rate, rangeSizeInBytes, seed);
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The size of the file " + path + " could not be determined.", e);
+        }
+        double samplingRate = size == 0 ? 1 : (double) ranges.stream().mapToLong(FileRange::size).sum() / size;
+        return new ByteRangeSampledBlockSupplier<>(ranges, rangeReader, samplingRate);
+    }
+
+    /**
+     * @param fileRange The range, which must start at a record.
+     * @return Supplier of the blocks in the range, which can be used as input for the file analyser.
+     */
+    public Iterator<B> iterator(FileRange fileRange) {
+        return rangeReader.apply(fileRange);
+    }
+
+    /**
+     * @param minimumSplitSize The minimum number of bytes in each part created by {@link Spliterator#trySplit()}.
+     * @return {@link Spliterator} over all blocks of the file, which splits the file by bytes.
+     * @throws UncheckedIOException If the size of the file could not be determined.
+     */
+    public Spliterator<B> spliterator(long minimumSplitSize) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new FileRangeSpliterator<>(new FileRange(path, 0, channel.size()), minimumSplitSize, recordBoundaryDetector, rangeReader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + path + " could not be opened.", e);
+        }
+    }
+}
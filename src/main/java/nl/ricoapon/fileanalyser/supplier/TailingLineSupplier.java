@@ -0,0 +1,240 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Supplies the lines of a file that is still growing, like {@code tail -F}. {@link #hasNext()} blocks until a complete
+ * line is available, so the end of the file does not end the supplier. Only {@link #close()} or interrupting the thread
+ * does.
+ * <p>
+ * The file is polled for new data. If the file is rotated (replaced by a new file with the same path), the rest of the
+ * old file is read and the new file is read from the start. If the file is truncated, it is read again from the start.
+ * A file that does not exist yet is waited for.
+ */
+public class TailingLineSupplier implements Iterator<String>, Closeable {
+    private static final int READ_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final Charset charset;
+    private final long pollIntervalMillis;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_SIZE);
+    private volatile boolean isClosed;
+
+    private FileChannel fileChannel;
+    /** Identifier of the opened file, used to detect rotation. Null if the file system has no identifiers. */
+    private Object fileKey;
+    /** Position in the opened file of the first byte that has not been read. */
+    private long position;
+    /** Bytes that were read but not yet returned as a line, in {@code [pendingStart, pendingEnd)}. */
+    private byte[] pending = new byte[READ_SIZE];
+    private int pendingStart;
+    private int pendingEnd;
+    private String nextLine;
+
+    /**
+     * @param path         The path of the file.
+     * @param fromEnd      Whether to start at the end of the file instead of at the start.
+     * @param pollInterval The time to wait before checking the file again if there is no new data.
+     * @param charset      The charset of the file.
+     * @throws FileAnalyserConfigurationException If the poll interval is not positive.
+     */
+    public TailingLineSupplier(Path path, boolean fromEnd, Duration pollInterval, Charset charset) {
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new FileAnalyserConfigurationException("The poll interval must be positive, but was " + pollInterval + ".");
+        }
+        this.path = path;
+        this.charset = charset;
+        this.pollIntervalMillis = Math.max(1, pollInterval.toMillis());
+        if (open() && fromEnd) {
+            try {
+                position = fileChannel.size();
+            } catch (IOException e) {
+                throw new UncheckedIOException("The size of " + path + " could not be determined.", e);
+            }
+        }
+    }
+
+    /**
+     * Blocks until the next line is available.
+     * @return True if there is a next line, false if this supplier was closed or the thread was interrupted.
+     */
+    @Override
+    public boolean hasNext() {
+        while (nextLine == null) {
+            if (isClosed || Thread.currentThread().isInterrupted()) {
+                closeFileChannel();
+                return false;
+            }
+            if (!readLine() && !handleRotationOrTruncation()) {
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = nextLine;
+        nextLine = null;
+        return line;
+    }
+
+    /**
+     * Points {@link #nextLine} to the next complete line, reading new data from the file if needed.
+     * @return Whether a line was found.
+     */
+    private boolean readLine() {
+        // The number of pending bytes that are known not to contain a separator.
+        int scanned = 0;
+        while (true) {
+            for (int i = pendingStart + scanned; i < pendingEnd; i++) {
+                if (pending[i] == '\n') {
+                    int end = i > pendingStart && pending[i - 1] == '\r' ? i - 1 : i;
+                    nextLine = new String(pending, pendingStart, end - pendingStart, charset);
+                    pendingStart = i + 1;
+                    return true;
+                }
+            }
+            scanned = pendingEnd - pendingStart;
+            if (!readMore()) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return Whether new data was added to {@link #pending}.
+     */
+    private boolean readMore() {
+        if (fileChannel == null && !open()) {
+            return false;
+        }
+        try {
+            readBuffer.clear();
+            int read = fileChannel.read(readBuffer, position);
+            if (read <= 0) {
+                return false;
+            }
+            position += read;
+            ensurePendingCapacity(read);
+            System.arraycopy(readBuffer.array(), 0, pending, pendingEnd, read);
+            pendingEnd += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + path + " could not be read.", e);
+        }
+    }
+
+    private void ensurePendingCapacity(int extra) {
+        // Moves the incomplete line to the start, growing the array if the line is longer than the array.
+        int length = pendingEnd - pendingStart;
+        if (length + extra > pending.length) {
+            pending = Arrays.copyOfRange(pending, pendingStart, pendingStart + Math.max(2 * pending.length, length + extra));
+        } else {
+            System.arraycopy(pending, pendingStart, pending, 0, length);
+        }
+        pendingStart = 0;
+        pendingEnd = length;
+    }
+
+    /**
+     * Called when the opened file has no new data.
+     * @return Whether the opened file was replaced, in which case new data may be available directly.
+     */
+    private boolean handleRotationOrTruncation() {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // Rotated away, but the new file was not created yet.
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("The attributes of " + path + " could not be read.", e);
+        }
+
+        if (fileChannel != null && attributes.fileKey() != null && !Objects.equals(attributes.fileKey(), fileKey)) {
+            // The old file is completely read, so its last line is complete even without a separator.
+            if (pendingEnd > pendingStart) {
+                nextLine = new String(pending, pendingStart, pendingEnd - pendingStart, charset);
+            }
+            reopen();
+            return true;
+        }
+        if (fileChannel != null && attributes.size() < position) {
+            reopen();
+            return true;
+        }
+        return false;
+    }
+
+    private void reopen() {
+        closeFileChannel();
+        pendingStart = 0;
+        pendingEnd = 0;
+        open();
+    }
+
+    /**
+     * @return Whether the file could be opened.
+     */
+    private boolean open() {
+        try {
+            fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+            fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            position = 0;
+            return true;
+        } catch (NoSuchFileException e) {
+            closeFileChannel();
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + path + " could not be opened.", e);
+        }
+    }
+
+    private void closeFileChannel() {
+        if (fileChannel == null) {
+            return;
+        }
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("The file " + path + " could not be closed.", e);
+        } finally {
+            fileChannel = null;
+        }
+    }
+
+    /**
+     * Stops this supplier. Can be called from another thread, in which case a blocked {@link #hasNext()} returns false
+     * within the poll interval. The file itself is closed by the thread reading the lines.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+    }
+}
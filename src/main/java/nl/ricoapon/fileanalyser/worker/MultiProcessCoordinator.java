@@ -0,0 +1,245 @@
+package nl.ricoapon.fileanalyser.worker;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserExecutionException;
+import nl.ricoapon.fileanalyser.internal.ReflectionUtil;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.internal.Workers;
+import nl.ricoapon.fileanalyser.storage.JavaSerializationStorageCodec;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
+import nl.ricoapon.fileanalyser.storage.StorageCodec;
+import nl.ricoapon.fileanalyser.supplier.FileRange;
+import nl.ricoapon.fileanalyser.supplier.SplittableFileSource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyses ranges of files in separate local worker JVMs, so that each worker can use a small heap with short garbage
+ * collection pauses. The workers are started with {@link ProcessBuilder} and run {@link WorkerMain} with the same
+ * {@link WorkerConfiguration}. The input is either a list of files, see {@link #wholeFiles(Collection)}, or the ranges
+ * of a large file created by {@link SplittableFileSource#split(int)}.
+ * <p>
+ * Each worker is given the next range as soon as it finished the previous one, so faster workers analyse more ranges.
+ * The storage instances of a range are encoded with a {@link StorageCodec}, sent back over the stdout of the worker and
+ * merged in the order of the ranges using {@link MergeableStorage#merge(Object)}. Results that arrive early are kept
+ * until all earlier ranges are merged.
+ * <p>
+ * The workers only communicate through streams, so the same protocol can be used for workers on other hosts.
+ */
+public class MultiProcessCoordinator {
+    /** The maximum time that a worker may take to exit after the end of the tasks. */
+    private static final Duration WORKER_EXIT_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Class<?> configurationClass;
+    private final int nrOfWorkers;
+    private final Class<? extends StorageCodec> storageCodecClass;
+    private final List<String> jvmOptions = new ArrayList<>();
+    private String classPath = System.getProperty("java.class.path");
+
+    /**
+     * Uses {@link JavaSerializationStorageCodec} to send the storage instances.
+     * @param configurationClass The class of the configuration, which must have a public no-arg constructor.
+     * @param nrOfWorkers        The maximum number of worker JVMs.
+     * @throws FileAnalyserConfigurationException If the number of workers is not positive.
+     */
+    public MultiProcessCoordinator(Class<? extends WorkerConfiguration<?>> configurationClass, int nrOfWorkers) {
+        this(configurationClass, nrOfWorkers, JavaSerializationStorageCodec.class);
+    }
+
+    /**
+     * @param configurationClass The class of the configuration, which must have a public no-arg constructor.
+     * @param nrOfWorkers        The maximum number of worker JVMs.
+     * @param storageCodecClass  The class of the codec used to send the storage instances, which must have a public
+     *                           no-arg constructor.
+     * @throws FileAnalyserConfigurationException If the number of workers is not positive.
+     */
+    public MultiProcessCoordinator(Class<? extends WorkerConfiguration<?>> configurationClass, int nrOfWorkers,
+                                   Class<? extends StorageCodec> storageCodecClass) {
+        if (nrOfWorkers <= 0) {
+            throw new FileAnalyserConfigurationException("The number of workers must be positive, but was " + nrOfWorkers + ".");
+        }
+        this.configurationClass = configurationClass;
+        this.nrOfWorkers = nrOfWorkers;
+        this.storageCodecClass = storageCodecClass;
+    }
+
+    /**
+     * @param files The files.
+     * @return A range for each file that covers all its bytes.
+     * @throws UncheckedIOException If the size of a file could not be determined.
+     */
+    public static List<FileRange> wholeFiles(Collection<Path> files) {
+        List<FileRange> fileRanges = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                fileRanges.add(new FileRange(file, 0, Files.size(file)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("The size of the file " + file + " could not be determined.", e);
+            }
+        }
+        return fileRanges;
+    }
+
+    /**
+     * Adds options of the worker JVMs, for example {@code -Xmx2g}.
+     * @param jvmOptions The options.
+     * @return This object.
+     */
+    public MultiProcessCoordinator addJvmOptions(String... jvmOptions) {
+        this.jvmOptions.addAll(Arrays.asList(jvmOptions));
+        return this;
+    }
+
+    /**
+     * Sets the class path of the worker JVMs, which must contain the classes of the file analyser, the configuration
+     * and the storage instances. By default, the class path of this JVM is used.
+     * @param classPath The class path.
+     * @return This object.
+     */
+    public MultiProcessCoordinator setClassPath(String classPath) {
+        this.classPath = classPath;
+        return this;
+    }
+
+    /**
+     * Analyses the ranges and merges the results.
+     * @param fileRanges The ranges, in the order in which their results must be merged.
+     * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value,
+     * or an empty map if there are no ranges.
+     * @throws FileAnalyserExecutionException If a worker failed or could not be started.
+     */
+    public Map<Class<?>, Object> execute(List<FileRange> fileRanges) {
+        if (fileRanges.isEmpty()) {
+            return Map.of();
+        }
+
+        int nrOfProcesses = Math.min(nrOfWorkers, fileRanges.size());
+        List<Process> processes = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(nrOfProcesses, Workers.createThreadFactory("file-analyser-worker-"));
+        try {
+            OrderedMerger orderedMerger = new OrderedMerger();
+            AtomicInteger nextRangeIndex = new AtomicInteger();
+            StorageCodec storageCodec = ReflectionUtil.instantiate(storageCodecClass);
+            CompletionService<Void> workers = new ExecutorCompletionService<>(executorService);
+            for (int i = 0; i < nrOfProcesses; i++) {
+                Process process = startWorker();
+                processes.add(process);
+                workers.submit(() -> coordinate(process, fileRanges, nextRangeIndex, storageCodec, orderedMerger));
+            }
+            // The workers are awaited in the order in which they finish, so the first failure is thrown immediately.
+            for (int i = 0; i < nrOfProcesses; i++) {
+                Workers.waitFor(workers.take());
+            }
+            return orderedMerger.getResult().toMap();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileAnalyserExecutionException("Interrupted while waiting for the workers.", e);
+        } finally {
+            executorService.shutdownNow();
+            // Only workers that did not exit are still running, for example because another worker failed.
+            processes.stream().filter(Process::isAlive).forEach(Process::destroyForcibly);
+        }
+    }
+
+    private Process startWorker() {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(WorkerMain.class.getName());
+        command.add(configurationClass.getName());
+        command.add(storageCodecClass.getName());
+        try {
+            return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        } catch (IOException e) {
+            throw new FileAnalyserExecutionException("The worker JVM could not be started.", e);
+        }
+    }
+
+    /**
+     * Sends ranges to the worker until there are no ranges left, after which the worker must exit successfully. If the
+     * worker fails, no more ranges are handed out to the other workers either.
+     */
+    private Void coordinate(Process process, List<FileRange> fileRanges, AtomicInteger nextRangeIndex, StorageCodec storageCodec,
+                            OrderedMerger orderedMerger) throws IOException {
+        DataOutputStream tasks = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        DataInputStream results = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        ClassLoader classLoader = configurationClass.getClassLoader();
+        try {
+            for (int i = nextRangeIndex.getAndIncrement(); i < fileRanges.size(); i = nextRangeIndex.getAndIncrement()) {
+                WorkerProtocol.writeTask(tasks, fileRanges.get(i));
+                orderedMerger.add(i, WorkerProtocol.readResult(results, storageCodec, classLoader));
+            }
+        } catch (IOException | RuntimeException e) {
+            nextRangeIndex.set(fileRanges.size());
+            throw e;
+        }
+        WorkerProtocol.writeEndOfTasks(tasks);
+        waitForExit(process);
+        return null;
+    }
+
+    /**
+     * @throws FileAnalyserExecutionException If the worker did not exit in time or exited with a non-zero exit code.
+     */
+    private static void waitForExit(Process process) {
+        try {
+            if (!process.waitFor(WORKER_EXIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new FileAnalyserExecutionException("The worker JVM did not exit within " + WORKER_EXIT_TIMEOUT +
+                        " after all ranges were analysed.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileAnalyserExecutionException("Interrupted while waiting for a worker JVM to exit.", e);
+        }
+        if (process.exitValue() != 0) {
+            throw new FileAnalyserExecutionException("The worker JVM exited with exit code " + process.exitValue() + ".");
+        }
+    }
+
+    /**
+     * Merges the results of the ranges in the order of the ranges, as soon as all earlier results have arrived.
+     */
+    private static class OrderedMerger {
+        private final Map<Integer, StorageInstanceContainer> pendingResults = new HashMap<>();
+        private StorageInstanceContainer result;
+        private int nextIndex;
+
+        synchronized void add(int index, Map<Class<?>, Object> storages) {
+            pendingResults.put(index, new StorageInstanceContainer(new ArrayList<>(storages.values())));
+            for (StorageInstanceContainer next = pendingResults.remove(nextIndex); next != null; next = pendingResults.remove(nextIndex)) {
+                if (result == null) {
+                    result = next;
+                } else {
+                    result.merge(next);
+                }
+                nextIndex++;
+            }
+        }
+
+        synchronized StorageInstanceContainer getResult() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package nl.ricoapon.fileanalyser.worker;
+
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
+import nl.ricoapon.fileanalyser.supplier.FileRange;
+import nl.ricoapon.fileanalyser.supplier.SplittableFileSource;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Configuration of the analysis that each worker of a {@link MultiProcessCoordinator} runs. Workers are separate JVMs,
+ * so the configuration is instantiated in each worker using the public no-arg constructor and must create everything it
+ * needs itself.
+ * <p>
+ * All storage instances must implement {@link MergeableStorage}, because the results of the ranges are merged by the
+ * coordinator in the order of the ranges.
+ * @param <B> The type of the block.
+ */
+public interface WorkerConfiguration<B> {
+    /**
+     * @param fileRange The range of a file that must be analysed. For a whole file, the range covers all its bytes.
+     * @return Supplier of the blocks that start within the range, for example created by
+     * {@link SplittableFileSource#iterator(FileRange)}. It is closed after the run if it implements {@link Closeable}.
+     */
+    Iterator<B> createBlockSupplier(FileRange fileRange);
+
+    /**
+     * Adds the block analysers and new storage instances to the file analyser, and changes any other settings.
+     * @param fileAnalyser The file analyser of a single range.
+     */
+    void configure(FileAnalyser<B> fileAnalyser);
+}
@@ -0,0 +1,81 @@
+package nl.ricoapon.fileanalyser.worker;
+
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.internal.ReflectionUtil;
+import nl.ricoapon.fileanalyser.storage.StorageCodec;
+import nl.ricoapon.fileanalyser.supplier.FileRange;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Entry point of a worker JVM started by {@link MultiProcessCoordinator}. The worker reads tasks from stdin and writes
+ * the results to stdout using {@link WorkerProtocol}, until the coordinator sends the end of the tasks. Anything the
+ * analysis prints to {@link System#out} is redirected to stderr, so it cannot corrupt the results.
+ * <p>
+ * Arguments: the class name of the {@link WorkerConfiguration} and the class name of the {@link StorageCodec}. Both are
+ * instantiated using their public no-arg constructor.
+ */
+public final class WorkerMain {
+    private WorkerMain() {
+        // This class should not be instantiated.
+    }
+
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        OutputStream stdout = new FileOutputStream(FileDescriptor.out);
+        System.setOut(System.err);
+        run(Class.forName(args[0]), Class.forName(args[1]), new FileInputStream(FileDescriptor.in), stdout);
+    }
+
+    /**
+     * Processes tasks until the end of the tasks.
+     * @param configurationClass The class of the {@link WorkerConfiguration}.
+     * @param storageCodecClass  The class of the {@link StorageCodec}.
+     * @param inputStream        The stream of the tasks.
+     * @param outputStream       The stream of the results.
+     * @throws IOException If a stream could not be read or written.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static void run(Class<?> configurationClass, Class<?> storageCodecClass, InputStream inputStream, OutputStream outputStream) throws IOException {
+        WorkerConfiguration configuration = (WorkerConfiguration) ReflectionUtil.instantiate(configurationClass);
+        StorageCodec storageCodec = (StorageCodec) ReflectionUtil.instantiate(storageCodecClass);
+        DataInputStream tasks = new DataInputStream(new BufferedInputStream(inputStream));
+        DataOutputStream results = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+        for (FileRange fileRange = WorkerProtocol.readTask(tasks); fileRange != null; fileRange = WorkerProtocol.readTask(tasks)) {
+            Map<Class<?>, Object> storages;
+            try {
+                storages = analyse(configuration, fileRange);
+            } catch (IOException | RuntimeException | Error e) {
+                // The worker keeps running, because the coordinator decides what happens after a failure.
+                WorkerProtocol.writeFailure(results, e);
+                continue;
+            }
+            WorkerProtocol.writeResult(results, storages, storageCodec);
+        }
+    }
+
+    private static <B> Map<Class<?>, Object> analyse(WorkerConfiguration<B> configuration, FileRange fileRange) throws IOException {
+        Iterator<B> blockSupplier = configuration.createBlockSupplier(fileRange);
+        try {
+            FileAnalyser<B> fileAnalyser = FileAnalyser.of(blockSupplier);
+            configuration.configure(fileAnalyser);
+            return fileAnalyser.execute();
+        } finally {
+            if (blockSupplier instanceof Closeable) {
+                ((Closeable) blockSupplier).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package nl.ricoapon.fileanalyser.worker;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserExecutionException;
+import nl.ricoapon.fileanalyser.storage.StorageCodec;
+import nl.ricoapon.fileanalyser.supplier.FileRange;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Messages between a {@link MultiProcessCoordinator} and a worker. The coordinator sends a task for a range and waits for
+ * its result before sending the next task, so the streams never contain more than one message in each direction.
+ * <ul>
+ *     <li>Task: {@code true}, the path, the start and the end of the range. The end of the tasks is {@code false}.</li>
+ *     <li>Result: {@link #RESULT}, the number of storage instances and for each instance its class name, the length of
+ *     its encoding and the encoding.</li>
+ *     <li>Failure: {@link #FAILURE} and the stack trace of the exception.</li>
+ * </ul>
+ */
+final class WorkerProtocol {
+    static final int RESULT = 0;
+    static final int FAILURE = 1;
+    private static final int MAX_STACK_TRACE_LENGTH = 16384;
+
+    private WorkerProtocol() {
+        // This class should not be instantiated.
+    }
+
+    static void writeTask(DataOutputStream outputStream, FileRange fileRange) throws IOException {
+        outputStream.writeBoolean(true);
+        outputStream.writeUTF(fileRange.getPath().toString());
+        outputStream.writeLong(fileRange.getStart());
+        outputStream.writeLong(fileRange.getEnd());
+        outputStream.flush();
+    }
+
+    static void writeEndOfTasks(DataOutputStream outputStream) throws IOException {
+        outputStream.writeBoolean(false);
+        outputStream.flush();
+    }
+
+    /**
+     * @return The range of the task, or null if there are no more tasks.
+     */
+    static FileRange readTask(DataInputStream inputStream) throws IOException {
+        if (!inputStream.readBoolean()) {
+            return null;
+        }
+        return new FileRange(Path.of(inputStream.readUTF()), inputStream.readLong(), inputStream.readLong());
+    }
+
+    static void writeResult(DataOutputStream outputStream, Map<Class<?>, Object> storages, StorageCodec storageCodec) throws IOException {
+        outputStream.writeInt(RESULT);
+        outputStream.writeInt(storages.size());
+        for (Map.Entry<Class<?>, Object> entry : storages.entrySet()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            storageCodec.encode(entry.getValue(), bytes);
+            outputStream.writeUTF(entry.getKey().getName());
+            outputStream.writeInt(bytes.size());
+            bytes.writeTo(outputStream);
+        }
+        outputStream.flush();
+    }
+
+    static void writeFailure(DataOutputStream outputStream, Throwable throwable) throws IOException {
+        StringWriter stringWriter = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(stringWriter));
+        String stackTrace = stringWriter.toString();
+        outputStream.writeInt(FAILURE);
+        // An encoded UTF string is limited to 65535 bytes, so long stack traces are cut off.
+        outputStream.writeUTF(stackTrace.substring(0, Math.min(stackTrace.length(), MAX_STACK_TRACE_LENGTH)));
+        outputStream.flush();
+    }
+
+    /**
+     * @return Map with the classes of the storage instances as key and the instances corresponding to that class as value.
+     * @throws FileAnalyserExecutionException If the worker failed to analyse the range.
+     * @throws IOException If the stream could not be read or contains a storage class that cannot be loaded.
+     */
+    static Map<Class<?>, Object> readResult(DataInputStream inputStream, StorageCodec storageCodec, ClassLoader classLoader) throws IOException {
+        int type = inputStream.readInt();
+        if (type == FAILURE) {
+            throw new FileAnalyserExecutionException("The worker failed: " + inputStream.readUTF());
+        }
+        if (type != RESULT) {
+            throw new IOException("Unexpected message of type " + type + " from the worker.");
+        }
+
+        int nrOfStorages = inputStream.readInt();
+        Map<Class<?>, Object> storages = new HashMap<>();
+        for (int i = 0; i < nrOfStorages; i++) {
+            String storageClassName = inputStream.readUTF();
+            byte[] bytes = new byte[inputStream.readInt()];
+            inputStream.readFully(bytes);
+            try {
+                Class<?> storageClass = Class.forName(storageClassName, false, classLoader);
+                storages.put(storageClass, storageCodec.decode(storageClass, new ByteArrayInputStream(bytes)));
+            } catch (ClassNotFoundException e) {
+                throw new IOException("The storage class " + storageClassName + " of the worker could not be loaded.", e);
+            }
+        }
+        return storages;
+    }
+}
@@ -1,16 +1,38 @@
 package nl.ricoapon.fileanalyser;
 
 import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.KeyedBlockAnalyser;
+import nl.ricoapon.fileanalyser.cache.ResultCache;
+import nl.ricoapon.fileanalyser.checkpoint.Checkpoint;
+import nl.ricoapon.fileanalyser.checkpoint.CheckpointDirectory;
+import nl.ricoapon.fileanalyser.checkpoint.CheckpointPolicy;
+import nl.ricoapon.fileanalyser.execution.SequentialExecutionStrategy;
 import nl.ricoapon.fileanalyser.internal.FileAnalyserAlgorithm;
 import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
 import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.memory.MemoryBudget;
+import nl.ricoapon.fileanalyser.memory.MemoryBudgetAction;
+import nl.ricoapon.fileanalyser.memory.MemoryBudgetExceededException;
+import nl.ricoapon.fileanalyser.supplier.BlockSampler;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -156,4 +178,190 @@ public class FileAnalyserTest {
         assertThrows(FileAnalyserConfigurationException.class, () -> new FileAnalyser<>(blockSupplier, mockFileAnalyserAlgorithm)
                 .addStorageClass(EmptyStorage2.class));
     }
+
+    private static class KeyedBlockAnalyserWithoutClassifier implements KeyedBlockAnalyser<String, EmptyStorage, String> {
+        @Override
+        public Set<String> getAcceptedKeys() {
+            return Set.of("A");
+        }
+
+        @Override
+        public void processBlock(String block, EmptyStorage storage) {
+        }
+
+        @Override
+        public Class<EmptyStorage> getStorageClass() {
+            return EmptyStorage.class;
+        }
+    }
+
+    @Test
+    void exceptionIsThrownWhenKeyedBlockAnalyserIsUsedWithoutClassifier() {
+        // Given
+        // The plan checks the classifier, so the actual algorithm is used.
+        var fileAnalyser = FileAnalyser.of(dummyIterator())
+                .addBlockAnalyser(new KeyedBlockAnalyserWithoutClassifier())
+                .addStorageClass(EmptyStorage.class);
+
+        // When and then
+        assertThrows(FileAnalyserConfigurationException.class, fileAnalyser::execute);
+    }
+
+    @Test
+    void executeAsyncUsesTheExecutor() throws InterruptedException, ExecutionException, TimeoutException {
+        // Given
+        Map<Class<?>, Object> returnValue = Map.of(EmptyStorage.class, new EmptyStorage());
+        var fileAnalyser = new FileAnalyser<>(dummyIterator(), new MockFileAnalyserAlgorithm(returnValue));
+        List<Runnable> submitted = new ArrayList<>();
+
+        // When
+        var result = fileAnalyser.executeAsync(submitted::add);
+        submitted.forEach(Runnable::run);
+
+        // Then
+        assertThat(submitted, hasSize(1));
+        assertThat(result.get(10, TimeUnit.SECONDS), sameInstance(returnValue));
+    }
+
+    private static class CountingBlockAnalyser implements BlockAnalyser<String, List<String>> {
+        @Override
+        public void processBlock(String block, List<String> storage) {
+            storage.add(block);
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public Class<List<String>> getStorageClass() {
+            return (Class) ArrayList.class;
+        }
+    }
+
+    @Test
+    void blocksOfPublisherAreProcessed() throws InterruptedException, ExecutionException, TimeoutException {
+        // Given
+        var storage = new ArrayList<String>();
+        var fileAnalyser = FileAnalyser.<String>forPublisher()
+                .addBlockAnalyser(new CountingBlockAnalyser())
+                .addStorageInstance(storage);
+
+        // When
+        var publisher = new SubmissionPublisher<String>();
+        var result = fileAnalyser.subscribe(publisher, 2);
+        List.of("A", "B", "C").forEach(publisher::submit);
+        publisher.close();
+
+        // Then
+        assertThat(result.get(10, TimeUnit.SECONDS).get(ArrayList.class), sameInstance(storage));
+        assertThat(storage, contains("A", "B", "C"));
+    }
+
+    @Test
+    void cachedResultIsReturnedWithoutReadingBlocks(@TempDir Path tempDir) throws IOException {
+        // Given
+        Path inputFile = tempDir.resolve("input.txt");
+        Files.writeString(inputFile, "A\nB\n", StandardCharsets.UTF_8);
+        var resultCache = new ResultCache(tempDir.resolve("cache"), 1024 * 1024);
+        var firstStorage = new ArrayList<String>();
+        FileAnalyser.of(List.of("A", "B").iterator())
+                .addBlockAnalyser(new CountingBlockAnalyser())
+                .addStorageInstance(firstStorage)
+                .enableResultCache(resultCache, inputFile, "1")
+                .execute();
+
+        // When
+        Iterator<String> failingIterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                throw new IllegalStateException("Blocks must not be read.");
+            }
+
+            @Override
+            public String next() {
+                throw new IllegalStateException("Blocks must not be read.");
+            }
+        };
+        Map<Class<?>, Object> storages = FileAnalyser.of(failingIterator)
+                .addBlockAnalyser(new CountingBlockAnalyser())
+                .addStorageInstance(new ArrayList<String>())
+                .enableResultCache(resultCache, inputFile, "1")
+                .execute();
+
+        // Then
+        assertThat(firstStorage, contains("A", "B"));
+        assertThat(storages.get(ArrayList.class), equalTo(List.of("A", "B")));
+    }
+
+    @Test
+    void executionIsAbortedWhenMemoryBudgetIsExceeded() {
+        // Given
+        var storage = new ArrayList<String>();
+        var fileAnalyser = FileAnalyser.of(List.of("A", "B", "C", "D").iterator())
+                .addBlockAnalyser(new CountingBlockAnalyser())
+                .addStorageInstance(storage)
+                .setMemoryBudget(new MemoryBudget(250, 1, memoryReport -> MemoryBudgetAction.ABORT)
+                        .addSizeEstimator(ArrayList.class, list -> 100L * list.size()));
+
+        // When
+        var exception = assertThrows(MemoryBudgetExceededException.class, fileAnalyser::execute);
+
+        // Then
+        assertThat(storage, contains("A", "B", "C"));
+        assertThat(exception.getMemoryReport().getBlockCount(), equalTo(3L));
+        assertThat(exception.getMessage(), containsString(ArrayList.class.getName() + ": 300 bytes (+100 bytes)"));
+    }
+
+    @Test
+    void onlySampledBlocksAreAnalysedAndSamplingRateIsReported() {
+        // Given
+        var storage = new ArrayList<String>();
+        var fileAnalyser = FileAnalyser.of(List.of("A", "B", "C", "D").iterator())
+                .addBlockAnalyser(new CountingBlockAnalyser())
+                .addStorageInstance(storage)
+                .setBlockSampler(BlockSampler.everyNth(2));
+
+        // When
+        FileAnalyserResult result = fileAnalyser.executeWithMetrics();
+
+        // Then
+        assertThat(storage, contains("B", "D"));
+        assertThat(result.getSamplingRate(), equalTo(0.5));
+        assertThat(result.scaleToAllBlocks(storage.size()), equalTo(4L));
+    }
+
+    @Test
+    void samplingRateIsReportedWithoutMetrics() {
+        // Given
+        var storage = new ArrayList<String>();
+        var fileAnalyser = FileAnalyser.of(List.of("A", "B", "C", "D").iterator())
+                .addBlockAnalyser(new CountingBlockAnalyser())
+                .addStorageInstance(storage)
+                .setBlockSampler(BlockSampler.everyNth(4));
+
+        // When
+        fileAnalyser.execute(new SequentialExecutionStrategy<>());
+
+        // Then
+        assertThat(storage, contains("D"));
+        assertThat(fileAnalyser.getSamplingRate(), equalTo(0.25));
+    }
+
+    @Test
+    void blockSamplerCanNotBeCombinedWithCheckpoints(@TempDir Path tempDir) {
+        // Given
+        var checkpointDirectory = new CheckpointDirectory(tempDir);
+        Checkpoint checkpoint = checkpointDirectory.write(2, Checkpoint.NO_POSITION, Map.of(ArrayList.class, new ArrayList<String>()));
+        var fileAnalyser = FileAnalyser.of(List.of("A", "B", "C", "D").iterator())
+                .addBlockAnalyser(new CountingBlockAnalyser())
+                .addStorageInstance(new ArrayList<String>());
+        var resumedFileAnalyser = FileAnalyser.of(List.of("A", "B", "C", "D").iterator())
+                .addBlockAnalyser(new CountingBlockAnalyser())
+                .addStorageInstance(new ArrayList<String>())
+                .resumeFrom(checkpoint);
+
+        // When and then
+        fileAnalyser.setBlockSampler(BlockSampler.everyNth(2));
+        assertThrows(FileAnalyserConfigurationException.class,
+                () -> fileAnalyser.enableCheckpoints(checkpointDirectory, CheckpointPolicy.everyBlocks(1)));
+        assertThrows(FileAnalyserConfigurationException.class, () -> resumedFileAnalyser.setBlockSampler(BlockSampler.everyNth(2)));
+    }
 }
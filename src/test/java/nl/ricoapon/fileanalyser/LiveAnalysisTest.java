@@ -0,0 +1,98 @@
+package nl.ricoapon.fileanalyser;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.supplier.BlockSampler;
+import nl.ricoapon.fileanalyser.supplier.TailingLineSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class LiveAnalysisTest {
+    private static class Storage implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public final List<String> lines = new ArrayList<>();
+    }
+
+    private static class StoreLines implements BlockAnalyser<String, Storage> {
+        @Override
+        public void processBlock(String block, Storage storage) {
+            storage.lines.add(block);
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    private static void waitForBlockCount(LiveAnalysis<?> liveAnalysis, long blockCount) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (liveAnalysis.getBlockCount() < blockCount && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void snapshotsContainTheLinesAppendedSoFar(@TempDir Path tempDir) throws IOException, InterruptedException {
+        // Given
+        Path file = tempDir.resolve("file.log");
+        Files.writeString(file, "a\n", StandardCharsets.UTF_8);
+        var storage = new Storage();
+        var supplier = new TailingLineSupplier(file, false, Duration.ofMillis(5), StandardCharsets.UTF_8);
+
+        // When
+        try (var liveAnalysis = FileAnalyser.of(supplier)
+                .addBlockAnalyser(new StoreLines())
+                .addStorageInstance(storage)
+                .startLiveAnalysis()) {
+            waitForBlockCount(liveAnalysis, 1);
+            var firstSnapshot = (Storage) liveAnalysis.snapshot().get(Storage.class);
+            Files.writeString(file, "b\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            waitForBlockCount(liveAnalysis, 2);
+            var secondSnapshot = (Storage) liveAnalysis.snapshot().get(Storage.class);
+
+            // Then
+            assertThat(firstSnapshot.lines, contains("a"));
+            assertThat(secondSnapshot.lines, contains("a", "b"));
+            assertThat(secondSnapshot, not(sameInstance(storage)));
+            assertThat(liveAnalysis.isRunning(), equalTo(true));
+        }
+    }
+
+    @Test
+    void samplingRateOfTheProcessedBlocksIsReported(@TempDir Path tempDir) throws IOException, InterruptedException {
+        // Given
+        Path file = tempDir.resolve("file.log");
+        Files.writeString(file, "a\nb\nc\nd\n", StandardCharsets.UTF_8);
+        var storage = new Storage();
+        var supplier = new TailingLineSupplier(file, false, Duration.ofMillis(5), StandardCharsets.UTF_8);
+
+        // When
+        try (var liveAnalysis = FileAnalyser.of(supplier)
+                .addBlockAnalyser(new StoreLines())
+                .addStorageInstance(storage)
+                .setBlockSampler(BlockSampler.everyNth(2))
+                .startLiveAnalysis()) {
+            waitForBlockCount(liveAnalysis, 2);
+
+            // Then
+            assertThat(((Storage) liveAnalysis.snapshot().get(Storage.class)).lines, contains("b", "d"));
+            assertThat(liveAnalysis.getSamplingRate(), equalTo(0.5));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package nl.ricoapon.fileanalyser.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class ContentHashTest {
+    @TempDir
+    Path tempDir;
+
+    private long hash(byte[] content) throws IOException {
+        Path file = tempDir.resolve("input.bin");
+        Files.write(file, content);
+        return ContentHash.hash(file);
+    }
+
+    @Test
+    void hashIsEqualToReferenceImplementation() throws IOException {
+        byte[] hundredBytes = new byte[100];
+        for (int i = 0; i < hundredBytes.length; i++) {
+            hundredBytes[i] = (byte) i;
+        }
+        byte[] thousandBytes = new byte[1000];
+        for (int i = 0; i < thousandBytes.length; i++) {
+            thousandBytes[i] = (byte) (i % 251);
+        }
+
+        assertThat(hash(new byte[0]), equalTo(0xEF46DB3751D8E999L));
+        assertThat(hash("abc".getBytes(StandardCharsets.UTF_8)), equalTo(0x44BC2CF5AD770999L));
+        assertThat(hash(hundredBytes), equalTo(0x6AC1E58032166597L));
+        assertThat(hash(thousandBytes), equalTo(0xF306F04AA88B54D3L));
+    }
+}
@@ -0,0 +1,121 @@
+package nl.ricoapon.fileanalyser.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+class ResultCacheTest {
+    private static class Storage implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public final List<String> blocks = new ArrayList<>();
+    }
+
+    private static class OtherStorage implements Serializable {
+        private static final long serialVersionUID = 1L;
+    }
+
+    @TempDir
+    Path tempDir;
+
+    private static Map<Class<?>, Object> storages(String... blocks) {
+        var storage = new Storage();
+        storage.blocks.addAll(List.of(blocks));
+        return Map.of(Storage.class, storage);
+    }
+
+    private static List<String> blocksOf(Optional<Map<Class<?>, Object>> storages) {
+        return ((Storage) storages.orElseThrow().get(Storage.class)).blocks;
+    }
+
+    @Test
+    void storedEntryCanBeRead() {
+        // Given
+        var resultCache = new ResultCache(tempDir, 1024 * 1024);
+
+        // When
+        resultCache.put("key", storages("A", "B"));
+
+        // Then
+        assertThat(blocksOf(resultCache.get("key", List.of(Storage.class))), equalTo(List.of("A", "B")));
+        assertThat(resultCache.get("other", List.of(Storage.class)).isPresent(), equalTo(false));
+        assertThat(resultCache.get("key", List.of(Storage.class, OtherStorage.class)).isPresent(), equalTo(false));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsRemoved() throws IOException {
+        // Given
+        var resultCache = new ResultCache(tempDir, 1024 * 1024);
+        resultCache.put("a", storages("A"));
+        resultCache.put("b", storages("B"));
+        long entrySize = Files.size(tempDir.resolve("a.entry"));
+        Files.setLastModifiedTime(tempDir.resolve("a.entry"), FileTime.from(Instant.now().minusSeconds(120)));
+        Files.setLastModifiedTime(tempDir.resolve("b.entry"), FileTime.from(Instant.now().minusSeconds(60)));
+        resultCache.get("a", List.of(Storage.class));
+
+        // When
+        new ResultCache(tempDir, 2 * entrySize + entrySize / 2).put("c", storages("C"));
+
+        // Then
+        assertThat(Files.exists(tempDir.resolve("a.entry")), equalTo(true));
+        assertThat(Files.exists(tempDir.resolve("b.entry")), equalTo(false));
+        assertThat(Files.exists(tempDir.resolve("c.entry")), equalTo(true));
+    }
+
+    @Test
+    void entryThatDisappearsWhileRemovingEntriesIsSkipped() throws IOException {
+        // Given
+        var resultCache = new ResultCache(tempDir, 1024 * 1024);
+        // A link to a missing file is listed, but reading its attributes fails as if another process removed the entry.
+        Files.createSymbolicLink(tempDir.resolve("removed.entry"), tempDir.resolve("missing"));
+
+        // When
+        resultCache.put("key", storages("A"));
+
+        // Then
+        assertThat(blocksOf(resultCache.get("key", List.of(Storage.class))), equalTo(List.of("A")));
+    }
+
+    @Test
+    void corruptEntryIsRemoved() throws IOException {
+        // Given
+        var resultCache = new ResultCache(tempDir, 1024 * 1024);
+        Files.writeString(tempDir.resolve("key.entry"), "corrupt", StandardCharsets.UTF_8);
+
+        // When
+        var storages = resultCache.get("key", List.of(Storage.class));
+
+        // Then
+        assertThat(storages.isPresent(), equalTo(false));
+        assertThat(Files.exists(tempDir.resolve("key.entry")), equalTo(false));
+    }
+
+    @Test
+    void keyDependsOnContentClassesAndVersion() throws IOException {
+        // Given
+        Path file = tempDir.resolve("input.txt");
+        Files.writeString(file, "content", StandardCharsets.UTF_8);
+        String key = ResultCache.createKey(file, List.of(Storage.class), "1");
+
+        // When and then
+        assertThat(ResultCache.createKey(file, List.of(Storage.class), "1"), equalTo(key));
+        assertThat(ResultCache.createKey(file, List.of(Storage.class), "2"), not(equalTo(key)));
+        assertThat(ResultCache.createKey(file, List.of(OtherStorage.class), "1"), not(equalTo(key)));
+        Files.writeString(file, "contents", StandardCharsets.UTF_8);
+        assertThat(ResultCache.createKey(file, List.of(Storage.class), "1"), not(equalTo(key)));
+    }
+}
@@ -0,0 +1,95 @@
+package nl.ricoapon.fileanalyser.checkpoint;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CheckpointDirectoryTest {
+    @Test
+    void latestCheckpointIsReadAndOldCheckpointsAreRemoved(@TempDir Path tempDir) throws IOException {
+        // Given
+        var checkpointDirectory = new CheckpointDirectory(tempDir);
+        var storage = new ArrayList<String>();
+
+        // When
+        for (int i = 1; i <= 3; i++) {
+            storage.add(Integer.toString(i));
+            checkpointDirectory.write(i, 10L * i, Map.of(ArrayList.class, storage));
+        }
+        Checkpoint checkpoint = checkpointDirectory.latest().orElseThrow();
+
+        // Then
+        assertThat(checkpoint.getBlockCount(), equalTo(3L));
+        assertThat(checkpoint.getPosition(), equalTo(30L));
+        assertThat(checkpoint.readStorage(ArrayList.class), equalTo(List.of("1", "2", "3")));
+        try (Stream<Path> paths = Files.list(tempDir)) {
+            assertThat(paths.count(), equalTo(2L));
+        }
+    }
+
+    @Test
+    void temporaryDirectoryOfACrashIsRemovedBeforeTheNextCheckpoint(@TempDir Path tempDir) throws IOException {
+        // Given
+        var checkpointDirectory = new CheckpointDirectory(tempDir);
+        Files.createDirectories(tempDir.resolve(".tmp-checkpoint-0000000000000000001").resolve("storage-0.bin"));
+
+        // When
+        checkpointDirectory.write(1, Checkpoint.NO_POSITION, Map.of());
+
+        // Then
+        try (Stream<Path> paths = Files.list(tempDir)) {
+            assertThat(paths.map(path -> path.getFileName().toString()).collect(Collectors.toList()),
+                    contains("checkpoint-0000000000000000001"));
+        }
+    }
+
+    @Test
+    void otherFilesInTheDirectoryAreIgnored(@TempDir Path tempDir) throws IOException {
+        // Given
+        var checkpointDirectory = new CheckpointDirectory(tempDir);
+        Files.writeString(tempDir.resolve("checkpoint-notes.txt"), "notes");
+        Files.writeString(tempDir.resolve("checkpoint-9999999999999999999"), "notes");
+
+        // When
+        checkpointDirectory.write(1, Checkpoint.NO_POSITION, Map.of());
+        checkpointDirectory.write(2, Checkpoint.NO_POSITION, Map.of());
+        checkpointDirectory.write(3, Checkpoint.NO_POSITION, Map.of());
+
+        // Then
+        assertThat(checkpointDirectory.latest().orElseThrow().getBlockCount(), equalTo(3L));
+        try (Stream<Path> paths = Files.list(tempDir)) {
+            assertThat(paths.count(), equalTo(4L));
+        }
+    }
+
+    @Test
+    void directoryWithoutCheckpointsHasNoLatest(@TempDir Path tempDir) {
+        // When and then
+        assertThat(new CheckpointDirectory(tempDir.resolve("missing")).latest().isPresent(), equalTo(false));
+    }
+
+    @Test
+    void missingStorageAndNonSerializableStorageAreDetected(@TempDir Path tempDir) {
+        // Given
+        var checkpointDirectory = new CheckpointDirectory(tempDir);
+        Checkpoint checkpoint = checkpointDirectory.write(0, Checkpoint.NO_POSITION, Map.of());
+
+        // When and then
+        assertThrows(FileAnalyserConfigurationException.class, () -> checkpoint.readStorage(String.class));
+        assertThrows(FileAnalyserConfigurationException.class, () -> checkpointDirectory.write(0, 0, Map.of(Object.class, new Object())));
+    }
+}
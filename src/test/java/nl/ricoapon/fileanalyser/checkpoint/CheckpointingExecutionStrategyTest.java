@@ -0,0 +1,210 @@
+package nl.ricoapon.fileanalyser.checkpoint;
+
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.CompletableBlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.supplier.ByteLine;
+import nl.ricoapon.fileanalyser.supplier.MappedLineSupplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CheckpointingExecutionStrategyTest {
+    private static class Storage implements Serializable {
+        private static final long serialVersionUID = 1L;
+        public final List<String> lines = new ArrayList<>();
+    }
+
+    /** Implementation of {@link BlockAnalyser} that stores all lines and fails on the line "fail". */
+    private static class StoreLines implements BlockAnalyser<ByteLine, Storage> {
+        @Override
+        public void processBlock(ByteLine block, Storage storage) {
+            if (block.startsWith("fail")) {
+                throw new IllegalStateException("Failure");
+            }
+            storage.lines.add(block.toString());
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    /** Implementation of {@link CompletableBlockAnalyser} that only needs the first three blocks. */
+    private static class FirstThreeBlocks implements CompletableBlockAnalyser<String, Storage> {
+        @Override
+        public void processBlock(String block, Storage storage) {
+            storage.lines.add(block);
+        }
+
+        @Override
+        public boolean isComplete(Storage storage) {
+            return storage.lines.size() >= 3;
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    private static Path createFile(Path directory, List<String> lines) throws IOException {
+        return Files.write(directory.resolve("file.txt"), lines, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> numbers(int from, int to) {
+        return IntStream.range(from, to).mapToObj(Integer::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void failedAnalysisIsResumedFromLatestCheckpoint(@TempDir Path tempDir) throws IOException {
+        // Given
+        List<String> lines = new ArrayList<>(numbers(0, 10));
+        lines.add("fail");
+        Path file = createFile(tempDir, lines);
+        var checkpointDirectory = new CheckpointDirectory(tempDir.resolve("checkpoints"));
+        var fileAnalyser = FileAnalyser.of(new MappedLineSupplier(file))
+                .addBlockAnalyser(new StoreLines())
+                .addStorageInstance(new Storage())
+                .enableCheckpoints(checkpointDirectory, CheckpointPolicy.everyBlocks(4));
+        assertThrows(IllegalStateException.class, fileAnalyser::execute);
+
+        // When
+        Files.write(file, numbers(0, 12), StandardCharsets.UTF_8);
+        Checkpoint checkpoint = checkpointDirectory.latest().orElseThrow();
+        var result = FileAnalyser.of(new MappedLineSupplier(file))
+                .addBlockAnalyser(new StoreLines())
+                .addStorageInstance(new Storage())
+                .enableCheckpoints(checkpointDirectory, CheckpointPolicy.everyBlocks(4))
+                .resumeFrom(checkpoint)
+                .execute();
+
+        // Then
+        assertThat(checkpoint.getBlockCount(), equalTo(8L));
+        assertThat(((Storage) result.get(Storage.class)).lines, equalTo(numbers(0, 12)));
+        assertThat(checkpointDirectory.latest().orElseThrow().getBlockCount(), equalTo(12L));
+    }
+
+    @Test
+    void appendOnlyFileIsContinuedWhereThePreviousRunStopped(@TempDir Path tempDir) throws IOException {
+        // Given
+        Path file = createFile(tempDir, numbers(0, 3));
+        var checkpointDirectory = new CheckpointDirectory(tempDir.resolve("checkpoints"));
+        FileAnalyser.of(new MappedLineSupplier(file))
+                .addBlockAnalyser(new StoreLines())
+                .addStorageInstance(new Storage())
+                .enableCheckpoints(checkpointDirectory, CheckpointPolicy.everyBlocks(100))
+                .execute();
+        Files.write(file, numbers(3, 5), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        // When
+        var resumedStorage = new Storage();
+        var result = FileAnalyser.of(new MappedLineSupplier(file))
+                .addBlockAnalyser(new StoreLines())
+                .addStorageInstance(resumedStorage)
+                .resumeFrom(checkpointDirectory.latest().orElseThrow())
+                .execute();
+
+        // Then
+        assertThat(((Storage) result.get(Storage.class)).lines, equalTo(numbers(0, 5)));
+    }
+
+    @Test
+    void supplierWithoutPositionSkipsProcessedBlocks(@TempDir Path tempDir) {
+        // Given
+        var checkpointDirectory = new CheckpointDirectory(tempDir);
+        var storage = new Storage();
+        storage.lines.add("0");
+        Checkpoint checkpoint = checkpointDirectory.write(1, Checkpoint.NO_POSITION, Map.of(Storage.class, storage));
+
+        // When
+        var resumedStorage = new ArrayList<String>();
+        FileAnalyser.of(List.of("0", "1", "2").iterator())
+                .addBlockAnalyser(new BlockAnalyser<String, Storage>() {
+                    @Override
+                    public void processBlock(String block, Storage storage) {
+                        storage.lines.add(block);
+                        resumedStorage.add(block);
+                    }
+
+                    @Override
+                    public Class<Storage> getStorageClass() {
+                        return Storage.class;
+                    }
+                })
+                .addStorageInstance(new Storage())
+                .resumeFrom(checkpoint)
+                .execute();
+
+        // Then
+        assertThat(resumedStorage, contains("1", "2"));
+    }
+
+    @Test
+    void blocksAreOnlySkippedWhenTheRunStarts(@TempDir Path tempDir) {
+        // Given
+        var checkpointDirectory = new CheckpointDirectory(tempDir);
+        Checkpoint checkpoint = checkpointDirectory.write(2, Checkpoint.NO_POSITION, Map.of(Storage.class, new Storage()));
+        ListIterator<String> blocks = List.of("0", "1", "2").listIterator();
+        var resumedStorage = new ArrayList<String>();
+        var fileAnalyser = FileAnalyser.of(blocks)
+                .addBlockAnalyser(new BlockAnalyser<String, Storage>() {
+                    @Override
+                    public void processBlock(String block, Storage storage) {
+                        resumedStorage.add(block);
+                    }
+
+                    @Override
+                    public Class<Storage> getStorageClass() {
+                        return Storage.class;
+                    }
+                })
+                .addStorageInstance(new Storage())
+                .resumeFrom(checkpoint);
+
+        // When
+        int nextIndexBeforeRun = blocks.nextIndex();
+        fileAnalyser.execute();
+
+        // Then
+        assertThat(nextIndexBeforeRun, equalTo(0));
+        assertThat(resumedStorage, contains("2"));
+    }
+
+    @Test
+    void readingStopsRightAfterTheBlockThatCompletesThePlan(@TempDir Path tempDir) {
+        // Given
+        var storage = new Storage();
+        var plan = new FileAnalyserPlan<String>(List.of(new FirstThreeBlocks()), new StorageInstanceContainer(List.of(storage)));
+        Iterator<String> blockSupplier = numbers(0, 10).iterator();
+
+        // When
+        new CheckpointingExecutionStrategy<String>(new CheckpointDirectory(tempDir), CheckpointPolicy.everyBlocks(100), 0)
+                .execute(blockSupplier, plan);
+
+        // Then
+        assertThat(storage.lines, contains("0", "1", "2"));
+        assertThat(blockSupplier.next(), equalTo("3"));
+    }
+}
@@ -0,0 +1,197 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.analyser.AsyncBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyserOrder;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncExecutionStrategyTest {
+    private static class Storage {
+        public final List<String> entries = new ArrayList<>();
+    }
+
+    /** Lookup of which the latency decreases for later blocks, so that the lookups complete out of order. */
+    private static class SlowLookupAnalyser implements AsyncBlockAnalyser<Integer, Storage> {
+        private final AtomicInteger lookupsInFlight = new AtomicInteger();
+        private final AtomicInteger maxLookupsInFlight = new AtomicInteger();
+
+        @Override
+        public CompletionStage<Consumer<Storage>> processBlockAsync(Integer block, Executor executor) {
+            return CompletableFuture.supplyAsync(() -> {
+                maxLookupsInFlight.accumulateAndGet(lookupsInFlight.incrementAndGet(), Math::max);
+                sleep(20 - block % 10);
+                lookupsInFlight.decrementAndGet();
+                return storage -> storage.entries.add("lookup " + block);
+            }, executor);
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    @BlockAnalyserOrder(after = SlowLookupAnalyser.class)
+    private static class DependentAnalyser implements BlockAnalyser<Integer, Storage> {
+        @Override
+        public void processBlock(Integer block, Storage storage) {
+            storage.entries.add("after " + block);
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    private static class FailingLookupAnalyser implements AsyncBlockAnalyser<Integer, Storage> {
+        @Override
+        public CompletionStage<Consumer<Storage>> processBlockAsync(Integer block, Executor executor) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Lookup failed"));
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    /** Only accepts blocks while the storage has less than three entries. */
+    private static class LimitedLookupAnalyser implements AsyncBlockAnalyser<Integer, Storage> {
+        @Override
+        public boolean shouldProcessBlock(Integer block, Storage storage) {
+            return storage.entries.size() < 3;
+        }
+
+        @Override
+        public CompletionStage<Consumer<Storage>> processBlockAsync(Integer block, Executor executor) {
+            return CompletableFuture.supplyAsync(() -> storage -> storage.entries.add("lookup " + block), executor);
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    private static class ErrorLookupAnalyser implements AsyncBlockAnalyser<Integer, Storage> {
+        @Override
+        public CompletionStage<Consumer<Storage>> processBlockAsync(Integer block, Executor executor) {
+            return CompletableFuture.failedFuture(new AssertionError("Lookup failed"));
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static List<Integer> createBlocks() {
+        return IntStream.range(0, 40).boxed().collect(Collectors.toList());
+    }
+
+    private static List<String> expectedEntries() {
+        return IntStream.range(0, 40).boxed()
+                .flatMap(i -> List.of("lookup " + i, "after " + i).stream())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void lookupsOverlapWhileUpdatesAreAppliedInTheOrderOfTheBlocksAndThePlan() {
+        // Given
+        Storage storage = new Storage();
+        SlowLookupAnalyser slowLookupAnalyser = new SlowLookupAnalyser();
+        FileAnalyserPlan<Integer> plan = new FileAnalyserPlan<>(List.of(slowLookupAnalyser, new DependentAnalyser()),
+                new StorageInstanceContainer(List.of(storage)));
+
+        // When
+        new AsyncExecutionStrategy<Integer>(8).execute(createBlocks().iterator(), plan);
+
+        // Then
+        assertThat(storage.entries, equalTo(expectedEntries()));
+        assertThat(slowLookupAnalyser.maxLookupsInFlight.get(), greaterThan(1));
+    }
+
+    @Test
+    void lookupsAreAwaitedOneByOneWithoutTheStrategy() {
+        // Given
+        Storage storage = new Storage();
+        FileAnalyserPlan<Integer> plan = new FileAnalyserPlan<>(List.of(new SlowLookupAnalyser(), new DependentAnalyser()),
+                new StorageInstanceContainer(List.of(storage)));
+
+        // When
+        new SequentialExecutionStrategy<Integer>().execute(createBlocks().iterator(), plan);
+
+        // Then
+        assertThat(storage.entries, equalTo(expectedEntries()));
+    }
+
+    @Test
+    void failedLookupIsThrown() {
+        // Given
+        FileAnalyserPlan<Integer> plan = new FileAnalyserPlan<>(List.of(new FailingLookupAnalyser()),
+                new StorageInstanceContainer(List.of(new Storage())));
+        AsyncExecutionStrategy<Integer> strategy = new AsyncExecutionStrategy<>(4);
+
+        // When and then
+        var exception = assertThrows(IllegalStateException.class, () -> strategy.execute(createBlocks().iterator(), plan));
+        assertThat(exception.getMessage(), equalTo("Lookup failed"));
+    }
+
+    @Test
+    void shouldProcessBlockSeesTheUpdatesOfAllEarlierBlocks() {
+        // Given
+        Storage storage = new Storage();
+        FileAnalyserPlan<Integer> plan = new FileAnalyserPlan<>(List.of(new LimitedLookupAnalyser()),
+                new StorageInstanceContainer(List.of(storage)));
+
+        // When
+        new AsyncExecutionStrategy<Integer>(8).execute(createBlocks().iterator(), plan);
+
+        // Then
+        assertThat(storage.entries, equalTo(List.of("lookup 0", "lookup 1", "lookup 2")));
+    }
+
+    @Test
+    void errorOfLookupIsThrownWithoutTheStrategy() {
+        // Given
+        FileAnalyserPlan<Integer> plan = new FileAnalyserPlan<>(List.of(new ErrorLookupAnalyser()),
+                new StorageInstanceContainer(List.of(new Storage())));
+        SequentialExecutionStrategy<Integer> strategy = new SequentialExecutionStrategy<>();
+
+        // When and then
+        var exception = assertThrows(AssertionError.class, () -> strategy.execute(createBlocks().iterator(), plan));
+        assertThat(exception.getMessage(), equalTo("Lookup failed"));
+    }
+
+    @Test
+    void maxBlocksInFlightMustBePositive() {
+        assertThrows(FileAnalyserConfigurationException.class, () -> new AsyncExecutionStrategy<Integer>(0));
+    }
+}
@@ -0,0 +1,122 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.memory.MemoryBudget;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkedParallelExecutionStrategyTest {
+    /** Storage that needs to be public, because it is instantiated using reflection. */
+    public static class OrderedBlocks implements MergeableStorage<OrderedBlocks> {
+        public final List<String> blocks = new ArrayList<>();
+
+        @Override
+        public void merge(OrderedBlocks other) {
+            blocks.addAll(other.blocks);
+        }
+    }
+
+    private static class CollectBlocks implements BlockAnalyser<String, OrderedBlocks> {
+        @Override
+        public void processBlock(String block, OrderedBlocks storage) {
+            storage.blocks.add(block);
+        }
+
+        @Override
+        public Class<OrderedBlocks> getStorageClass() {
+            return OrderedBlocks.class;
+        }
+    }
+
+    private static class ThreadNames {
+        public final Set<String> threadNames = new HashSet<>();
+    }
+
+    private static class CollectThreadNames implements BlockAnalyser<String, ThreadNames> {
+        @Override
+        public void processBlock(String block, ThreadNames storage) {
+            storage.threadNames.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public Class<ThreadNames> getStorageClass() {
+            return ThreadNames.class;
+        }
+    }
+
+    private static List<String> createBlocks(int nrOfBlocks) {
+        return IntStream.range(0, nrOfBlocks).mapToObj(Integer::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void chunksAreMergedInOrder() {
+        // Given
+        var storage = new OrderedBlocks();
+        var plan = new FileAnalyserPlan<>(Collections.singletonList(new CollectBlocks()),
+                new StorageInstanceContainer(Collections.singletonList(storage)));
+        var blocks = createBlocks(10_000);
+        var executionStrategy = new ChunkedParallelExecutionStrategy<String>(new ForkJoinPool(4), 7);
+
+        // When
+        var result = executionStrategy.execute(blocks.iterator(), plan);
+
+        // Then
+        assertThat(result.get(OrderedBlocks.class) == storage, equalTo(true));
+        assertThat(storage.blocks, equalTo(blocks));
+    }
+
+    @Test
+    void nonMergeableStoragesAreProcessedSequentially() {
+        // Given
+        var storage = new ThreadNames();
+        var plan = new FileAnalyserPlan<>(Arrays.asList(new CollectThreadNames()),
+                new StorageInstanceContainer(Collections.singletonList(storage)));
+        var executionStrategy = new ChunkedParallelExecutionStrategy<String>(new ForkJoinPool(4), 1);
+
+        // When
+        executionStrategy.execute(createBlocks(100).iterator(), plan);
+
+        // Then
+        assertThat(storage.threadNames, contains(Thread.currentThread().getName()));
+    }
+
+    @Test
+    void memoryBudgetCanNotBeUsed() {
+        // Given
+        var storage = new OrderedBlocks();
+        var plan = new FileAnalyserPlan<>(Collections.singletonList(new CollectBlocks()),
+                new StorageInstanceContainer(Collections.singletonList(storage)));
+        var budgetPlan = plan.withMemoryBudgetTracker(MemoryBudget.abortWhenExceeded(1000).createTracker(plan.getStorageInstanceContainer()));
+        var blocks = createBlocks(10).iterator();
+        var executionStrategy = new ChunkedParallelExecutionStrategy<String>(new ForkJoinPool(4), 7);
+
+        // When and then
+        assertThrows(FileAnalyserConfigurationException.class, () -> executionStrategy.execute(blocks, budgetPlan));
+        assertThat(blocks.hasNext(), equalTo(true));
+        assertThat(storage.blocks, empty());
+    }
+
+    @Test
+    void chunkSizeMustBePositive() {
+        assertThrows(FileAnalyserConfigurationException.class, () -> new ChunkedParallelExecutionStrategy<String>(ForkJoinPool.commonPool(), 0));
+    }
+}
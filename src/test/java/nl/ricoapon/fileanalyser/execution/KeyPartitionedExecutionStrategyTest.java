@@ -0,0 +1,130 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockClassifier;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeyPartitionedExecutionStrategyTest {
+    /**
+     * Storage that pairs "start" and "end" blocks per session, which only works if the blocks of a session are processed
+     * in order. Needs to be public, because it is instantiated using reflection.
+     */
+    public static class SessionPairs implements MergeableStorage<SessionPairs> {
+        public final Map<String, String> openSessions = new HashMap<>();
+        public final Map<String, Integer> completedSessions = new HashMap<>();
+        public final Set<String> threadNames = new HashSet<>();
+
+        @Override
+        public void merge(SessionPairs other) {
+            openSessions.putAll(other.openSessions);
+            other.completedSessions.forEach((session, count) -> completedSessions.merge(session, count, Integer::sum));
+            threadNames.addAll(other.threadNames);
+        }
+    }
+
+    private static class PairSessions implements BlockAnalyser<String, SessionPairs> {
+        @Override
+        public void processBlock(String block, SessionPairs storage) {
+            String[] parts = block.split(":");
+            if (parts[1].equals("start")) {
+                storage.openSessions.put(parts[0], block);
+            } else if (storage.openSessions.remove(parts[0]) != null) {
+                storage.completedSessions.merge(parts[0], 1, Integer::sum);
+            }
+            storage.threadNames.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public Class<SessionPairs> getStorageClass() {
+            return SessionPairs.class;
+        }
+    }
+
+    private static class NotMergeable {
+        public final List<String> blocks = new ArrayList<>();
+    }
+
+    private static class CollectBlocks implements BlockAnalyser<String, NotMergeable> {
+        @Override
+        public void processBlock(String block, NotMergeable storage) {
+            storage.blocks.add(block);
+        }
+
+        @Override
+        public Class<NotMergeable> getStorageClass() {
+            return NotMergeable.class;
+        }
+    }
+
+    private static final BlockClassifier<String, String> SESSION_ID = block -> block.split(":")[0];
+
+    /** Each of 100 sessions is started and ended 10 times, with the blocks of the sessions interleaved. */
+    private static List<String> createBlocks() {
+        return IntStream.range(0, 2000)
+                .mapToObj(i -> "session" + (i % 100) + ":" + ((i / 100) % 2 == 0 ? "start" : "end"))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void blocksOfTheSameKeyAreProcessedInOrder() {
+        // Given
+        var storage = new SessionPairs();
+        var plan = new FileAnalyserPlan<>(List.of(new PairSessions()), new StorageInstanceContainer(List.of(storage)));
+
+        // When
+        new KeyPartitionedExecutionStrategy<>(SESSION_ID, 4, 2, 16).execute(createBlocks().iterator(), plan);
+
+        // Then
+        assertThat(storage.openSessions.isEmpty(), equalTo(true));
+        assertThat(storage.completedSessions.size(), equalTo(100));
+        assertThat(storage.completedSessions.values().stream().allMatch(count -> count == 10), equalTo(true));
+        assertThat(storage.threadNames.size(), greaterThan(1));
+    }
+
+    @Test
+    void storagesThatAreNotMergeableAreProcessedSequentially() {
+        // Given
+        var storage = new NotMergeable();
+        var plan = new FileAnalyserPlan<>(List.of(new CollectBlocks()), new StorageInstanceContainer(List.of(storage)));
+        var blocks = createBlocks();
+
+        // When
+        new KeyPartitionedExecutionStrategy<>(SESSION_ID, 4, 2, 16).execute(blocks.iterator(), plan);
+
+        // Then
+        assertThat(storage.blocks, equalTo(blocks));
+    }
+
+    @Test
+    void exceptionOfWorkerIsRethrown() {
+        // Given
+        var plan = new FileAnalyserPlan<>(List.of(new PairSessions()), new StorageInstanceContainer(List.of(new SessionPairs())));
+        var executionStrategy = new KeyPartitionedExecutionStrategy<String>(SESSION_ID, 4, 1, 1);
+
+        // When and then
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> executionStrategy.execute(List.of("a:start", "invalid").iterator(), plan));
+    }
+
+    @Test
+    void numberOfPartitionsMustBePositive() {
+        assertThrows(FileAnalyserConfigurationException.class, () -> new KeyPartitionedExecutionStrategy<>(SESSION_ID, 0, 1, 1));
+    }
+}
@@ -0,0 +1,155 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PlanSubscriberTest {
+    private static class Storage {
+        public final List<String> blocks = new ArrayList<>();
+    }
+
+    private static class StoreBlocks implements BlockAnalyser<String, Storage> {
+        @Override
+        public void processBlock(String block, Storage storage) {
+            if (block.equals("fail")) {
+                throw new IllegalStateException("Failure");
+            }
+            storage.blocks.add(block);
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    /** Publisher that only sends blocks when {@link #sendAll()} is called, so that the requested demand can be checked. */
+    private static class ManualPublisher implements Flow.Publisher<String>, Flow.Subscription {
+        public final List<Long> requests = new ArrayList<>();
+        public boolean cancelled;
+        private final List<String> blocks;
+        private Flow.Subscriber<? super String> subscriber;
+        private long demand;
+        private int sent;
+
+        ManualPublisher(List<String> blocks) {
+            this.blocks = blocks;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super String> subscriber) {
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            requests.add(n);
+            demand += n;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        void sendAll() {
+            while (!cancelled && demand > 0 && sent < blocks.size()) {
+                demand--;
+                subscriber.onNext(blocks.get(sent++));
+            }
+            if (!cancelled && sent == blocks.size()) {
+                subscriber.onComplete();
+            }
+        }
+    }
+
+    private static FileAnalyserPlan<String> createPlan(Storage storage) {
+        return new FileAnalyserPlan<>(List.of(new StoreBlocks()), new StorageInstanceContainer(List.of(storage)));
+    }
+
+    @Test
+    void blocksAreRequestedInBatches() {
+        // Given
+        var storage = new Storage();
+        var publisher = new ManualPublisher(List.of("1", "2", "3", "4", "5"));
+        var planSubscriber = new PlanSubscriber<>(createPlan(storage), 4);
+
+        // When
+        publisher.subscribe(planSubscriber);
+        publisher.sendAll();
+
+        // Then
+        assertThat(publisher.requests, contains(4L, 2L, 2L));
+        assertThat(planSubscriber.getResult().isDone(), equalTo(true));
+        assertThat(storage.blocks, contains("1", "2", "3", "4", "5"));
+    }
+
+    @Test
+    void failingBlockAnalyserCancelsTheSubscription() {
+        // Given
+        var publisher = new ManualPublisher(List.of("1", "fail", "3"));
+        var planSubscriber = new PlanSubscriber<>(createPlan(new Storage()), 10);
+
+        // When
+        publisher.subscribe(planSubscriber);
+        publisher.sendAll();
+
+        // Then
+        assertThat(publisher.cancelled, equalTo(true));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> planSubscriber.getResult().get());
+        assertThat(e.getCause(), instanceOf(IllegalStateException.class));
+    }
+
+    @Test
+    void cancellingTheResultCancelsTheSubscription() {
+        // Given
+        var publisher = new ManualPublisher(List.of("1"));
+        var planSubscriber = new PlanSubscriber<>(createPlan(new Storage()), 10);
+        publisher.subscribe(planSubscriber);
+
+        // When
+        planSubscriber.getResult().cancel(false);
+
+        // Then
+        assertThat(publisher.cancelled, equalTo(true));
+    }
+
+    @Test
+    void blocksOfSubmissionPublisherAreProcessed() throws InterruptedException, ExecutionException, TimeoutException {
+        // Given
+        var storage = new Storage();
+        var planSubscriber = new PlanSubscriber<>(createPlan(storage), 8);
+        List<String> blocks = IntStream.range(0, 1000).mapToObj(String::valueOf).collect(Collectors.toList());
+
+        // When
+        try (var publisher = new SubmissionPublisher<String>()) {
+            publisher.subscribe(planSubscriber);
+            blocks.forEach(publisher::submit);
+        }
+        Map<Class<?>, Object> result = planSubscriber.getResult().get(10, TimeUnit.SECONDS);
+
+        // Then
+        assertThat(result.get(Storage.class), equalTo(storage));
+        assertThat(storage.blocks, equalTo(blocks));
+    }
+}
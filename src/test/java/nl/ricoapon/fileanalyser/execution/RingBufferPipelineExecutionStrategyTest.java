@@ -0,0 +1,200 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.CompletableBlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class RingBufferPipelineExecutionStrategyTest {
+    private static class Storage {
+        public final List<String> blocks = new ArrayList<>();
+    }
+
+    private static class StoreBlocks implements BlockAnalyser<String, Storage> {
+        @Override
+        public void processBlock(String block, Storage storage) {
+            storage.blocks.add(block);
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    /** Implementation of {@link CompletableBlockAnalyser} that only needs the first ten blocks. */
+    private static class FirstTenBlocks extends StoreBlocks implements CompletableBlockAnalyser<String, Storage> {
+        @Override
+        public boolean isComplete(Storage storage) {
+            return storage.blocks.size() >= 10;
+        }
+    }
+
+    /** Supplier that records the threads on which the blocks are read. */
+    private static class RecordingSupplier implements Iterator<String> {
+        public final List<String> threadNames = new ArrayList<>();
+        private final Iterator<String> blocks;
+
+        RecordingSupplier(List<String> blocks) {
+            this.blocks = blocks.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return blocks.hasNext();
+        }
+
+        @Override
+        public String next() {
+            threadNames.add(Thread.currentThread().getName());
+            String block = blocks.next();
+            if (block.equals("fail")) {
+                throw new IllegalStateException("Failure");
+            }
+            return block;
+        }
+    }
+
+    /** Implementation of {@link BlockAnalyser} that fails on the block "fail". */
+    private static class FailingBlockAnalyser extends StoreBlocks {
+        @Override
+        public void processBlock(String block, Storage storage) {
+            if (block.equals("fail")) {
+                throw new IllegalStateException("Failure");
+            }
+            super.processBlock(block, storage);
+        }
+    }
+
+    /** Supplier that blocks in {@link #hasNext()} after the given blocks, until the thread is interrupted. */
+    private static class BlockingSupplier implements Iterator<String> {
+        private final Iterator<String> blocks;
+        private final CountDownLatch neverReleased = new CountDownLatch(1);
+
+        BlockingSupplier(List<String> blocks) {
+            this.blocks = blocks.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (blocks.hasNext()) {
+                return true;
+            }
+            try {
+                neverReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        @Override
+        public String next() {
+            return blocks.next();
+        }
+    }
+
+    private static List<String> createBlocks() {
+        return IntStream.range(0, 1000).mapToObj(Integer::toString).collect(Collectors.toList());
+    }
+
+    private static FileAnalyserPlan<String> createPlan(BlockAnalyser<String, Storage> blockAnalyser, Storage storage) {
+        return new FileAnalyserPlan<>(List.of(blockAnalyser), new StorageInstanceContainer(List.of(storage)));
+    }
+
+    @Test
+    void blocksAreReadOnProducerThreadAndProcessedInOrder() {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            // Given
+            var storage = new Storage();
+            var blocks = createBlocks();
+            var blockSupplier = new RecordingSupplier(blocks);
+
+            // When
+            new RingBufferPipelineExecutionStrategy<String>(8, waitStrategy).execute(blockSupplier, createPlan(new StoreBlocks(), storage));
+
+            // Then
+            assertThat(storage.blocks, equalTo(blocks));
+            assertThat(blockSupplier.threadNames.stream().distinct().collect(Collectors.toList()), equalTo(List.of("file-analyser-producer")));
+            assertThat(blockSupplier.threadNames.get(0), not(equalTo(Thread.currentThread().getName())));
+        }
+    }
+
+    @Test
+    void exceptionOfProducerIsRethrownAfterEarlierBlocks() {
+        // Given
+        var storage = new Storage();
+        var blockSupplier = new RecordingSupplier(List.of("1", "2", "fail", "4"));
+        var executionStrategy = new RingBufferPipelineExecutionStrategy<String>(8, WaitStrategy.PARK);
+
+        // When and then
+        assertThrows(IllegalStateException.class, () -> executionStrategy.execute(blockSupplier, createPlan(new StoreBlocks(), storage)));
+        assertThat(storage.blocks, equalTo(List.of("1", "2")));
+    }
+
+    @Test
+    void producerStopsWhenThePlanIsComplete() {
+        // Given
+        var storage = new Storage();
+        var blockSupplier = new RecordingSupplier(createBlocks());
+
+        // When
+        new RingBufferPipelineExecutionStrategy<String>(8, WaitStrategy.YIELD).execute(blockSupplier, createPlan(new FirstTenBlocks(), storage));
+
+        // Then
+        assertThat(storage.blocks.size(), equalTo(10));
+        assertThat(blockSupplier.threadNames.size(), lessThan(100));
+    }
+
+    @Test
+    void failureOfConsumerIsThrownWhileTheProducerIsBlocked() {
+        // Given
+        var storage = new Storage();
+        var blockSupplier = new BlockingSupplier(List.of("1", "2", "fail"));
+        var executionStrategy = new RingBufferPipelineExecutionStrategy<String>(8, WaitStrategy.PARK);
+
+        // When and then
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            var exception = assertThrows(IllegalStateException.class,
+                    () -> executionStrategy.execute(blockSupplier, createPlan(new FailingBlockAnalyser(), storage)));
+            assertThat(exception.getMessage(), equalTo("Failure"));
+        });
+        assertThat(storage.blocks, equalTo(List.of("1", "2")));
+    }
+
+    @Test
+    void completedPlanReturnsWhileTheProducerIsBlocked() {
+        // Given
+        var storage = new Storage();
+        var blockSupplier = new BlockingSupplier(createBlocks().subList(0, 10));
+        var executionStrategy = new RingBufferPipelineExecutionStrategy<String>(8, WaitStrategy.PARK);
+
+        // When
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> executionStrategy.execute(blockSupplier, createPlan(new FirstTenBlocks(), storage)));
+
+        // Then
+        assertThat(storage.blocks.size(), equalTo(10));
+    }
+
+    @Test
+    void capacityMustBePositive() {
+        assertThrows(FileAnalyserConfigurationException.class, () -> new RingBufferPipelineExecutionStrategy<String>(0, WaitStrategy.PARK));
+    }
+}
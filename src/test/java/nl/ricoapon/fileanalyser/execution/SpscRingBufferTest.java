@@ -0,0 +1,87 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+class SpscRingBufferTest {
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new SpscRingBuffer<String>(1).capacity(), equalTo(1));
+        assertThat(new SpscRingBuffer<String>(3).capacity(), equalTo(4));
+        assertThat(new SpscRingBuffer<String>(8).capacity(), equalTo(8));
+    }
+
+    @Test
+    void elementsArePolledInOrderAcrossTheEndOfTheArray() {
+        // Given
+        var ringBuffer = new SpscRingBuffer<Integer>(4);
+        List<Integer> polled = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThat(ringBuffer.offer(i), equalTo(true));
+            if (i % 2 == 1) {
+                polled.add(ringBuffer.poll());
+                polled.add(ringBuffer.poll());
+            }
+        }
+
+        // Then
+        assertThat(polled, equalTo(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)));
+        assertThat(ringBuffer.poll(), nullValue());
+    }
+
+    @Test
+    void fullBufferRejectsElements() {
+        // Given
+        var ringBuffer = new SpscRingBuffer<Integer>(2);
+        ringBuffer.offer(1);
+        ringBuffer.offer(2);
+
+        // When and then
+        assertThat(ringBuffer.offer(3), equalTo(false));
+        assertThat(ringBuffer.poll(), equalTo(1));
+        assertThat(ringBuffer.offer(3), equalTo(true));
+    }
+
+    @Test
+    void elementsArePassedBetweenThreads() throws InterruptedException {
+        // Given
+        var ringBuffer = new SpscRingBuffer<Integer>(16);
+        int count = 100_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!ringBuffer.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+
+        // When
+        producer.start();
+        long sum = 0;
+        int expected = 0;
+        boolean inOrder = true;
+        while (expected < count) {
+            Integer element = ringBuffer.poll();
+            if (element != null) {
+                inOrder &= element == expected;
+                sum += element;
+                expected++;
+            } else {
+                Thread.yield();
+            }
+        }
+        producer.join();
+
+        // Then
+        assertThat(inOrder, equalTo(true));
+        assertThat(sum, equalTo((long) count * (count - 1) / 2));
+    }
+}
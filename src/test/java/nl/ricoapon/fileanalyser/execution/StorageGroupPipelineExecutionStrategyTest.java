@@ -0,0 +1,181 @@
+package nl.ricoapon.fileanalyser.execution;
+
+import nl.ricoapon.fileanalyser.analyser.BatchBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyserOrder;
+import nl.ricoapon.fileanalyser.analyser.CompletableBlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StorageGroupPipelineExecutionStrategyTest {
+    private static class Storage1 {
+        public final List<String> blocks = new ArrayList<>();
+        public final List<String> threadNames = new ArrayList<>();
+    }
+
+    private static class Storage2 {
+        public final List<String> blocks = new ArrayList<>();
+        public final List<String> threadNames = new ArrayList<>();
+    }
+
+    private static class Storage1Analyser implements BlockAnalyser<String, Storage1> {
+        @Override
+        public void processBlock(String block, Storage1 storage) {
+            storage.blocks.add(block);
+            storage.threadNames.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public Class<Storage1> getStorageClass() {
+            return Storage1.class;
+        }
+    }
+
+    private static class Storage2Analyser implements BlockAnalyser<String, Storage2> {
+        @Override
+        public void processBlock(String block, Storage2 storage) {
+            storage.blocks.add(block);
+            storage.threadNames.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public Class<Storage2> getStorageClass() {
+            return Storage2.class;
+        }
+    }
+
+    @BlockAnalyserOrder(after = Storage1Analyser.class)
+    private static class OrderedStorage2Analyser extends Storage2Analyser {
+    }
+
+    private static class FailingAnalyser extends Storage2Analyser {
+        @Override
+        public void processBlock(String block, Storage2 storage) {
+            throw new IllegalStateException("Failure");
+        }
+    }
+
+    /** Implementation of {@link CompletableBlockAnalyser} that only needs the first ten blocks. */
+    private static class FirstTenBlocks1 extends Storage1Analyser implements CompletableBlockAnalyser<String, Storage1> {
+        @Override
+        public boolean isComplete(Storage1 storage) {
+            return storage.blocks.size() >= 10;
+        }
+    }
+
+    /** Implementation of {@link CompletableBlockAnalyser} that only needs the first ten blocks. */
+    private static class FirstTenBlocks2 extends Storage2Analyser implements CompletableBlockAnalyser<String, Storage2> {
+        @Override
+        public boolean isComplete(Storage2 storage) {
+            return storage.blocks.size() >= 10;
+        }
+    }
+
+    /** Implementation of {@link BatchBlockAnalyser} that stores the size of each batch. */
+    private static class BatchSizes1 extends Storage1Analyser implements BatchBlockAnalyser<String, Storage1> {
+        @Override
+        public void processBatch(List<String> blocks, Storage1 storage) {
+            storage.blocks.add(String.valueOf(blocks.size()));
+        }
+    }
+
+    private static List<String> createBlocks() {
+        return IntStream.range(0, 1000).mapToObj(Integer::toString).collect(Collectors.toList());
+    }
+
+    @Test
+    void independentGroupsAreProcessedOnDifferentThreads() {
+        // Given
+        var storage1 = new Storage1();
+        var storage2 = new Storage2();
+        var plan = new FileAnalyserPlan<>(Arrays.asList(new Storage1Analyser(), new Storage2Analyser()),
+                new StorageInstanceContainer(Arrays.asList(storage1, storage2)));
+        var blocks = createBlocks();
+
+        // When
+        new StorageGroupPipelineExecutionStrategy<String>(2, 10).execute(blocks.iterator(), plan);
+
+        // Then
+        assertThat(storage1.blocks, equalTo(blocks));
+        assertThat(storage2.blocks, equalTo(blocks));
+        assertThat(storage1.threadNames.stream().distinct().count(), equalTo(1L));
+        assertThat(storage2.threadNames.stream().distinct().count(), equalTo(1L));
+        assertThat(storage1.threadNames.get(0), not(equalTo(storage2.threadNames.get(0))));
+    }
+
+    @Test
+    void orderedBlockAnalysersAreProcessedOnTheSameThread() {
+        // Given
+        var storage1 = new Storage1();
+        var storage2 = new Storage2();
+        var plan = new FileAnalyserPlan<>(Arrays.asList(new Storage1Analyser(), new OrderedStorage2Analyser()),
+                new StorageInstanceContainer(Arrays.asList(storage1, storage2)));
+
+        // When
+        new StorageGroupPipelineExecutionStrategy<String>(2, 10).execute(createBlocks().iterator(), plan);
+
+        // Then
+        assertThat(storage1.threadNames.get(0), equalTo(Thread.currentThread().getName()));
+        assertThat(storage2.threadNames.get(0), equalTo(Thread.currentThread().getName()));
+    }
+
+    @Test
+    void batchSizeOfThePlanIsUsedInTheGroups() {
+        // Given
+        var storage1 = new Storage1();
+        var plan = new FileAnalyserPlan<>(Arrays.asList(new BatchSizes1(), new Storage2Analyser()),
+                new StorageInstanceContainer(Arrays.asList(storage1, new Storage2())))
+                .withBatchSize(4);
+
+        // When
+        new StorageGroupPipelineExecutionStrategy<String>(2, 10).execute(createBlocks().subList(0, 20).iterator(), plan);
+
+        // Then
+        assertThat(storage1.blocks, equalTo(List.of("4", "4", "2", "4", "4", "2")));
+    }
+
+    @Test
+    void exceptionOfWorkerIsRethrown() {
+        // Given
+        var plan = new FileAnalyserPlan<>(Arrays.asList(new Storage1Analyser(), new FailingAnalyser()),
+                new StorageInstanceContainer(Arrays.asList(new Storage1(), new Storage2())));
+        var executionStrategy = new StorageGroupPipelineExecutionStrategy<String>(1, 1);
+
+        // When and then
+        assertThrows(IllegalStateException.class, () -> executionStrategy.execute(createBlocks().iterator(), plan));
+    }
+
+    @Test
+    void readingStopsWhenAllGroupsAreComplete() {
+        // Given
+        var storage1 = new Storage1();
+        var storage2 = new Storage2();
+        var plan = new FileAnalyserPlan<>(Arrays.asList(new FirstTenBlocks1(), new FirstTenBlocks2()),
+                new StorageInstanceContainer(Arrays.asList(storage1, storage2)));
+        var blockSupplier = createBlocks().iterator();
+
+        // When
+        new StorageGroupPipelineExecutionStrategy<String>(1, 10).execute(blockSupplier, plan);
+
+        // Then
+        assertThat(storage1.blocks.size(), equalTo(10));
+        assertThat(storage2.blocks.size(), equalTo(10));
+        // At most the batches that were read before the workers stopped are consumed.
+        var remainingBlocks = new ArrayList<String>();
+        blockSupplier.forEachRemaining(remainingBlocks::add);
+        assertThat(1000 - remainingBlocks.size(), lessThan(100));
+    }
+}
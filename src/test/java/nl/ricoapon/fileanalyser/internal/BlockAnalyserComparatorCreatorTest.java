@@ -129,6 +129,35 @@ class BlockAnalyserComparatorCreatorTest {
         }
     }
 
+    @Nested
+    class IndirectRelation {
+        private class A extends BasicBlockAnalyser {
+        }
+
+        private class B extends BasicBlockAnalyser {
+        }
+
+        @BlockAnalyserOrder(after = A.class)
+        private class C extends BasicBlockAnalyser {
+        }
+
+        @Test
+        public void relatedBlockAnalysersAreSortedWhenSeparatedByUnrelatedBlockAnalyser() {
+            // Given
+            var a = new A();
+            var b = new B();
+            var c = new C();
+            List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(c, b, a);
+
+            // When
+            blockAnalysers.sort(blockAnalyserComparatorCreator.create(blockAnalysers));
+
+            // Then
+            // The comparator must be transitive, otherwise c could stay in front of a because both are "equal" to b.
+            assertThat(blockAnalysers, contains(b, a, c));
+        }
+    }
+
     @Nested
     class NoRelation {
         private class A extends BasicBlockAnalyser {
@@ -0,0 +1,103 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyserOrder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BlockAnalyserOrderGraphTest {
+    private static class BasicBlockAnalyser implements BlockAnalyser<String, String> {
+        @Override
+        public void processBlock(String block, String storage) {
+        }
+
+        @Override
+        public Class<String> getStorageClass() {
+            return String.class;
+        }
+    }
+
+    private static class First extends BasicBlockAnalyser {
+    }
+
+    @BlockAnalyserOrder(after = First.class)
+    private static class Second extends BasicBlockAnalyser {
+    }
+
+    @BlockAnalyserOrder(after = Second.class)
+    private static class Third extends BasicBlockAnalyser {
+    }
+
+    @BlockAnalyserOrder(after = SelfReferencing.class)
+    private static class SelfReferencing extends BasicBlockAnalyser {
+    }
+
+    @Test
+    void edgesAreCreatedForAllInstancesOfTheClass() {
+        // Given
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new Second(), new First(), new First());
+
+        // When
+        var graph = new BlockAnalyserOrderGraph(blockAnalysers);
+
+        // Then
+        assertThat(graph.size(), equalTo(3));
+        assertThat(graph.getPredecessors(0), equalTo(new int[]{1, 2}));
+        assertThat(graph.getSuccessors(1), equalTo(new int[]{0}));
+        assertThat(graph.getSuccessors(2), equalTo(new int[]{0}));
+        assertThat(graph.getPredecessors(1), equalTo(new int[0]));
+    }
+
+    @Test
+    void topologicalOrderKeepsUnrelatedBlockAnalysersInGivenOrder() {
+        // Given
+        List<BlockAnalyser<String, ?>> blockAnalysers = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            blockAnalysers.add(new BasicBlockAnalyser());
+        }
+        blockAnalysers.add(new Third());
+        blockAnalysers.add(new Second());
+        blockAnalysers.add(new First());
+
+        // When
+        int[] order = new BlockAnalyserOrderGraph(blockAnalysers).topologicalOrder();
+
+        // Then
+        for (int i = 0; i < 1000; i++) {
+            assertThat(order[i], equalTo(i));
+        }
+        assertThat(Arrays.copyOfRange(order, 1000, 1003), equalTo(new int[]{1002, 1001, 1000}));
+    }
+
+    @Test
+    void unrelatedBlockAnalyserIsNotMovedAheadOfAnEarlierDependentBlockAnalyser() {
+        // Given
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new First(), new Second(), new BasicBlockAnalyser());
+
+        // When
+        int[] order = new BlockAnalyserOrderGraph(blockAnalysers).topologicalOrder();
+
+        // Then
+        assertThat(order, equalTo(new int[]{0, 1, 2}));
+    }
+
+    @Test
+    void cyclicRelationIsReported() {
+        // Given
+        var graph = new BlockAnalyserOrderGraph(Arrays.asList(new First(), new SelfReferencing()));
+
+        // When
+        var exception = assertThrows(FileAnalyserConfigurationException.class, graph::topologicalOrder);
+
+        // Then
+        assertThat(exception.getMessage(), containsString(SelfReferencing.class.getName()));
+    }
+}
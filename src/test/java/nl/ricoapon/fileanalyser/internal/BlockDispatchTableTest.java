@@ -0,0 +1,78 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.KeyedBlockAnalyser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class BlockDispatchTableTest {
+    private enum BlockType {
+        START, LOG, END
+    }
+
+    /** Implementation of {@link KeyedBlockAnalyser} that accepts the given keys. */
+    private static class Keyed implements KeyedBlockAnalyser<Object, Object, Object> {
+        private final Set<Object> acceptedKeys;
+
+        Keyed(Object... acceptedKeys) {
+            this.acceptedKeys = Set.of(acceptedKeys);
+        }
+
+        @Override
+        public Set<Object> getAcceptedKeys() {
+            return acceptedKeys;
+        }
+
+        @Override
+        public void processBlock(Object block, Object storage) {
+        }
+
+        @Override
+        public Class<Object> getStorageClass() {
+            return Object.class;
+        }
+    }
+
+    /** Implementation of {@link BlockAnalyser} that accepts all blocks. */
+    private static class Unkeyed implements BlockAnalyser<Object, Object> {
+        @Override
+        public void processBlock(Object block, Object storage) {
+        }
+
+        @Override
+        public Class<Object> getStorageClass() {
+            return Object.class;
+        }
+    }
+
+    @Test
+    void enumKeysAreDispatchedInPlanOrder() {
+        // Given
+        BlockAnalyser<?, ?>[] blockAnalysers = {new Keyed(BlockType.END), new Unkeyed(), new Keyed(BlockType.START, BlockType.END)};
+        var table = new BlockDispatchTable(blockAnalysers, new int[]{0, 1, 2});
+
+        // When and then
+        assertThat(table.indicesFor(BlockType.START), equalTo(new int[]{1, 2}));
+        assertThat(table.indicesFor(BlockType.LOG), equalTo(new int[]{1}));
+        assertThat(table.indicesFor(BlockType.END), equalTo(new int[]{0, 1, 2}));
+        assertThat(table.indicesFor(null), equalTo(new int[]{1}));
+        assertThat(table.indicesFor("START"), equalTo(new int[]{1}));
+    }
+
+    @Test
+    void otherKeysAreDispatchedByHash() {
+        // Given
+        BlockAnalyser<?, ?>[] blockAnalysers = {new Keyed("a", "b"), new Unkeyed(), new Keyed("b")};
+        var table = new BlockDispatchTable(blockAnalysers, new int[]{0, 2});
+
+        // When and then
+        assertThat(table.indicesFor("a"), equalTo(new int[]{0}));
+        assertThat(table.indicesFor("b"), equalTo(new int[]{0, 2}));
+        assertThat(table.indicesFor("c"), equalTo(new int[0]));
+        assertThat(table.indicesFor(null), equalTo(new int[0]));
+    }
+}
@@ -0,0 +1,310 @@
+package nl.ricoapon.fileanalyser.internal;
+
+import nl.ricoapon.fileanalyser.analyser.BatchBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.CompletableBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.KeyedBlockAnalyser;
+import nl.ricoapon.fileanalyser.metrics.MetricsRecorder;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileAnalyserPlanTest {
+    private static class Storage {
+        public final StringBuilder calls = new StringBuilder();
+    }
+
+    /** Implementation of {@link BlockAnalyser} that appends its name and the block to the storage. */
+    private static class AppendingBlockAnalyser implements BlockAnalyser<String, Storage> {
+        private final String name;
+
+        AppendingBlockAnalyser(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void processBlock(String block, Storage storage) {
+            storage.calls.append(name).append(block);
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    @Test
+    void blockAnalysersAreCalledInGivenOrder() {
+        // Given
+        var first = new AppendingBlockAnalyser("1");
+        var second = new AppendingBlockAnalyser("2");
+        var storage = new Storage();
+        var plan = new FileAnalyserPlan<>(Arrays.asList(first, second), new StorageInstanceContainer(Collections.singletonList(storage)));
+
+        // When
+        plan.execute(Arrays.asList("A", "B").iterator());
+
+        // Then
+        assertThat(storage.calls.toString(), equalTo("1A2A1B2B"));
+        assertThat(plan.getBlockAnalysers(), contains(first, second));
+    }
+
+    @Test
+    void missingStorageIsDetectedWhenPlanIsCreated() {
+        // Given
+        List<BlockAnalyser<String, ?>> blockAnalysers = Collections.singletonList(new AppendingBlockAnalyser("1"));
+        var storageInstanceContainer = new StorageInstanceContainer(Collections.emptyList());
+
+        // When and then
+        assertThrows(FileAnalyserConfigurationException.class, () -> new FileAnalyserPlan<>(blockAnalysers, storageInstanceContainer));
+    }
+
+    @Test
+    void planCanBeExecutedMultipleTimesAndRebound() {
+        // Given
+        var storage1 = new Storage();
+        var storage2 = new Storage();
+        List<BlockAnalyser<String, ?>> blockAnalysers = Collections.singletonList(new AppendingBlockAnalyser("1"));
+        var plan = new FileAnalyserPlan<>(blockAnalysers, new StorageInstanceContainer(Collections.singletonList(storage1)));
+
+        // When
+        plan.execute(Collections.singletonList("A").iterator());
+        plan.execute(Collections.singletonList("B").iterator());
+        var result = plan.withStorageInstanceContainer(new StorageInstanceContainer(Collections.singletonList(storage2)))
+                .execute(Collections.singletonList("C").iterator());
+
+        // Then
+        assertThat(storage1.calls.toString(), equalTo("1A1B"));
+        assertThat(storage2.calls.toString(), equalTo("1C"));
+        assertThat(result.get(Storage.class) == storage2, equalTo(true));
+    }
+
+    private static class BatchStorage {
+        public final List<Integer> batchSizes = new ArrayList<>();
+    }
+
+    /** Implementation of {@link BatchBlockAnalyser} that registers the size of each batch. */
+    private static class RegisterBatchSizes implements BatchBlockAnalyser<String, BatchStorage> {
+        @Override
+        public void processBatch(List<String> blocks, BatchStorage storage) {
+            storage.batchSizes.add(blocks.size());
+        }
+
+        @Override
+        public Class<BatchStorage> getStorageClass() {
+            return BatchStorage.class;
+        }
+    }
+
+    /** Implementation of {@link BatchBlockAnalyser} that appends blocks to a storage that is shared with others. */
+    private static class AppendingBatchBlockAnalyser extends AppendingBlockAnalyser implements BatchBlockAnalyser<String, Storage> {
+        AppendingBatchBlockAnalyser(String name) {
+            super(name);
+        }
+
+        @Override
+        public void processBatch(List<String> blocks, Storage storage) {
+            blocks.forEach(block -> super.processBlock(block, storage));
+        }
+
+        @Override
+        public void processBlock(String block, Storage storage) {
+            processBatch(Collections.singletonList(block), storage);
+        }
+    }
+
+    @Test
+    void isolatedBatchBlockAnalyserIsOfferedBatches() {
+        // Given
+        var batchStorage = new BatchStorage();
+        var storage = new Storage();
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new RegisterBatchSizes(), new AppendingBlockAnalyser("1"));
+        var plan = new FileAnalyserPlan<>(blockAnalysers, new StorageInstanceContainer(Arrays.asList(batchStorage, storage)))
+                .withBatchSize(2);
+
+        // When
+        plan.execute(Arrays.asList("A", "B", "C", "D", "E").iterator());
+
+        // Then
+        assertThat(batchStorage.batchSizes, contains(2, 2, 1));
+        assertThat(storage.calls.toString(), equalTo("1A1B1C1D1E"));
+    }
+
+    @Test
+    void batchBlockAnalyserSharingStorageIsOfferedSingleBlocksInOrder() {
+        // Given
+        var storage = new Storage();
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new AppendingBatchBlockAnalyser("1"), new AppendingBlockAnalyser("2"));
+        var plan = new FileAnalyserPlan<>(blockAnalysers, new StorageInstanceContainer(Collections.singletonList(storage)));
+
+        // When
+        plan.execute(Arrays.asList("A", "B").iterator());
+
+        // Then
+        assertThat(storage.calls.toString(), equalTo("1A2A1B2B"));
+    }
+
+    @Test
+    void batchSizeMustBePositive() {
+        // Given
+        var plan = new FileAnalyserPlan<String>(Collections.emptyList(), new StorageInstanceContainer(Collections.emptyList()));
+
+        // When and then
+        assertThrows(FileAnalyserConfigurationException.class, () -> plan.withBatchSize(0));
+    }
+
+    @Test
+    void metricsAreRecordedForBatchesAndSingleBlocks() {
+        // Given
+        var batchStorage = new BatchStorage();
+        var storage = new Storage();
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new RegisterBatchSizes(), new AppendingBlockAnalyser("1"));
+        var plan = new FileAnalyserPlan<>(blockAnalysers, new StorageInstanceContainer(Arrays.asList(batchStorage, storage)))
+                .withBatchSize(2);
+        var recorder = new MetricsRecorder(plan.getBlockAnalysers(), 1);
+
+        // When
+        plan.withMetricsRecorder(recorder).execute(Arrays.asList("A", "B", "C").iterator());
+        var metrics = recorder.toMetrics(0);
+
+        // Then
+        assertThat(storage.calls.toString(), equalTo("1A1B1C"));
+        assertThat(metrics.getBlockCount(), equalTo(3L));
+        assertThat(metrics.getBlockAnalyserMetrics().get(0).getInvocations(), equalTo(3L));
+        assertThat(metrics.getBlockAnalyserMetrics().get(0).getSampledCalls(), equalTo(2L));
+        assertThat(metrics.getBlockAnalyserMetrics().get(1).getAcceptedBlocks(), equalTo(3L));
+        assertThat(metrics.getBlockAnalyserMetrics().get(1).getSampledCalls(), equalTo(3L));
+    }
+
+    /** Implementation of {@link KeyedBlockAnalyser} that only accepts blocks starting with the given letter. */
+    private static class AppendingKeyedBlockAnalyser extends AppendingBlockAnalyser implements KeyedBlockAnalyser<String, Storage, Character> {
+        private final char letter;
+
+        AppendingKeyedBlockAnalyser(String name, char letter) {
+            super(name);
+            this.letter = letter;
+        }
+
+        @Override
+        public Set<Character> getAcceptedKeys() {
+            return Set.of(letter);
+        }
+    }
+
+    @Test
+    void blocksAreOnlyOfferedToKeyedBlockAnalysersAcceptingTheirKey() {
+        // Given
+        var storage = new Storage();
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new AppendingKeyedBlockAnalyser("1", 'A'),
+                new AppendingBlockAnalyser("2"), new AppendingKeyedBlockAnalyser("3", 'B'));
+        var plan = new FileAnalyserPlan<>(blockAnalysers, new StorageInstanceContainer(Collections.singletonList(storage)))
+                .withBlockClassifier(block -> block.charAt(0));
+
+        // When
+        plan.execute(Arrays.asList("A", "B", "C").iterator());
+
+        // Then
+        assertThat(storage.calls.toString(), equalTo("1A2A2B3B2C"));
+    }
+
+    @Test
+    void keyedBlockAnalyserCanNotBeRunWithoutClassifier() {
+        // Given
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new AppendingKeyedBlockAnalyser("1", 'A'));
+        var plan = new FileAnalyserPlan<>(blockAnalysers, new StorageInstanceContainer(Collections.singletonList(new Storage())));
+        var planWithoutClassifier = plan.withBlockClassifier(block -> block.charAt(0)).withBlockClassifier(null);
+
+        // When and then
+        assertThrows(FileAnalyserConfigurationException.class, () -> plan.execute(List.of("A").iterator()));
+        assertThrows(FileAnalyserConfigurationException.class, planWithoutClassifier::startRun);
+    }
+
+    /** Implementation of {@link CompletableBlockAnalyser} that only needs the given number of characters. */
+    private static class AppendingCompletableBlockAnalyser extends AppendingBlockAnalyser implements CompletableBlockAnalyser<String, Storage> {
+        private final int nrOfCharacters;
+
+        AppendingCompletableBlockAnalyser(String name, int nrOfCharacters) {
+            super(name);
+            this.nrOfCharacters = nrOfCharacters;
+        }
+
+        @Override
+        public boolean isComplete(Storage storage) {
+            return storage.calls.length() >= nrOfCharacters;
+        }
+    }
+
+    @Test
+    void completedBlockAnalysersAreSkippedAndReadingStopsWhenAllAreComplete() {
+        // Given
+        var storage = new Storage();
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new AppendingCompletableBlockAnalyser("1", 2),
+                new AppendingCompletableBlockAnalyser("2", 10));
+        var plan = new FileAnalyserPlan<>(blockAnalysers, new StorageInstanceContainer(Collections.singletonList(storage)));
+        Iterator<String> blockSupplier = Arrays.asList("A", "B", "C", "D", "E").iterator();
+        var run = plan.startRun();
+
+        // When
+        run.execute(blockSupplier);
+
+        // Then
+        assertThat(storage.calls.toString(), equalTo("1A2A2B2C2D"));
+        assertThat(run.isComplete(), equalTo(true));
+        assertThat(blockSupplier.next(), equalTo("E"));
+    }
+
+    /** Implementation of {@link BatchBlockAnalyser} that only needs a single batch. */
+    private static class RegisterFirstBatchSize extends RegisterBatchSizes implements CompletableBlockAnalyser<String, BatchStorage> {
+        @Override
+        public boolean isComplete(BatchStorage storage) {
+            return !storage.batchSizes.isEmpty();
+        }
+    }
+
+    @Test
+    void blocksAreReadOneByOneOnceAllBatchBlockAnalysersAreComplete() {
+        // Given
+        var batchStorage = new BatchStorage();
+        var storage = new Storage();
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new RegisterFirstBatchSize(),
+                new AppendingCompletableBlockAnalyser("1", 6));
+        var plan = new FileAnalyserPlan<>(blockAnalysers, new StorageInstanceContainer(Arrays.asList(batchStorage, storage)))
+                .withBatchSize(2);
+        Iterator<String> blockSupplier = Arrays.asList("A", "B", "C", "D", "E").iterator();
+
+        // When
+        plan.execute(blockSupplier);
+
+        // Then
+        assertThat(batchStorage.batchSizes, contains(2));
+        assertThat(storage.calls.toString(), equalTo("1A1B1C"));
+        assertThat(blockSupplier.next(), equalTo("D"));
+    }
+
+    @Test
+    void planIsNeverCompleteWithBlockAnalysersThatCanNotComplete() {
+        // Given
+        var storage = new Storage();
+        List<BlockAnalyser<String, ?>> blockAnalysers = Arrays.asList(new AppendingCompletableBlockAnalyser("1", 2),
+                new AppendingBlockAnalyser("2"));
+        var plan = new FileAnalyserPlan<>(blockAnalysers, new StorageInstanceContainer(Collections.singletonList(storage)));
+        var run = plan.startRun();
+
+        // When
+        run.execute(Arrays.asList("A", "B").iterator());
+
+        // Then
+        assertThat(storage.calls.toString(), equalTo("1A2A2B"));
+        assertThat(run.isComplete(), equalTo(false));
+    }
+}
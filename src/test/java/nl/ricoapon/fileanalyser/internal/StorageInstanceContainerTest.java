@@ -1,6 +1,7 @@
 package nl.ricoapon.fileanalyser.internal;
 
 import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
@@ -101,4 +102,41 @@ class StorageInstanceContainerTest {
     void constructorThrowsNpeWithNullInput() {
         assertThrows(NullPointerException.class, () -> new StorageInstanceContainer(null));
     }
+
+    /** Storage that needs to be public, because it is instantiated using reflection. */
+    public static class Counter implements MergeableStorage<Counter> {
+        public int count;
+
+        @Override
+        public void merge(Counter other) {
+            count += other.count;
+        }
+    }
+
+    @Test
+    void mergeableStoragesAreCopiedAndMerged() {
+        // Given
+        var counter = new Counter();
+        counter.count = 2;
+        var storageInstanceContainer = new StorageInstanceContainer(Collections.singletonList(counter));
+
+        // When
+        var copy = storageInstanceContainer.createEmptyCopy();
+        ((Counter) copy.toMap().get(Counter.class)).count = 3;
+        storageInstanceContainer.merge(copy);
+
+        // Then
+        assertThat(storageInstanceContainer.areAllStoragesMergeable(), equalTo(true));
+        assertThat(counter.count, equalTo(5));
+    }
+
+    @Test
+    void nonMergeableStoragesCannotBeCopied() {
+        // Given
+        var storageInstanceContainer = new StorageInstanceContainer(Arrays.asList(new Counter(), new Storage1()));
+
+        // When and then
+        assertThat(storageInstanceContainer.areAllStoragesMergeable(), equalTo(false));
+        assertThrows(FileAnalyserConfigurationException.class, storageInstanceContainer::createEmptyCopy);
+    }
 }
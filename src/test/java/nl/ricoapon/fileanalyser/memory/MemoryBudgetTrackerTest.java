@@ -0,0 +1,127 @@
+package nl.ricoapon.fileanalyser.memory;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.storage.SizedStorage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MemoryBudgetTrackerTest {
+    private static class GrowingStorage implements SizedStorage {
+        long sizeInBytes;
+
+        @Override
+        public long estimateSizeInBytes() {
+            return sizeInBytes;
+        }
+    }
+
+    private static class OtherGrowingStorage extends GrowingStorage {
+    }
+
+    private static class UnsizedStorage {
+    }
+
+    private static StorageInstanceContainer createContainer(Object... storages) {
+        return new StorageInstanceContainer(List.of(storages));
+    }
+
+    @Test
+    void budgetIsOnlyCheckedAfterEachInterval() {
+        // Given
+        List<MemoryReport> memoryReports = new ArrayList<>();
+        var storage = new GrowingStorage();
+        var tracker = new MemoryBudget(100, 3, memoryReport -> {
+            memoryReports.add(memoryReport);
+            return MemoryBudgetAction.CONTINUE;
+        }).createTracker(createContainer(storage));
+
+        // When
+        storage.sizeInBytes = 200;
+        tracker.recordBlock();
+        tracker.recordBlock();
+
+        // Then
+        assertThat(memoryReports, empty());
+        tracker.recordBlock();
+        assertThat(memoryReports.size(), equalTo(1));
+        assertThat(memoryReports.get(0).getBlockCount(), equalTo(3L));
+        assertThat(memoryReports.get(0).getTotalSizeInBytes(), equalTo(200L));
+    }
+
+    @Test
+    void reportShowsWhichStorageGrewSincePreviousCheck() {
+        // Given
+        List<MemoryReport> memoryReports = new ArrayList<>();
+        var storage = new GrowingStorage();
+        var otherStorage = new OtherGrowingStorage();
+        otherStorage.sizeInBytes = 50;
+        var tracker = new MemoryBudget(100, 1, memoryReport -> {
+            memoryReports.add(memoryReport);
+            return MemoryBudgetAction.CONTINUE;
+        }).createTracker(createContainer(storage, otherStorage, new UnsizedStorage()));
+
+        // When
+        storage.sizeInBytes = 10;
+        tracker.recordBlock();
+        MemoryReport firstMemoryReport = tracker.getLastMemoryReport();
+        storage.sizeInBytes = 20;
+        otherStorage.sizeInBytes = 150;
+        tracker.recordBlock();
+
+        // Then
+        assertThat(firstMemoryReport.getTotalSizeInBytes(), equalTo(60L));
+        assertThat(memoryReports.size(), equalTo(1));
+        MemoryReport memoryReport = memoryReports.get(0);
+        assertThat(memoryReport.getTotalSizeInBytes(), equalTo(170L));
+        assertThat(memoryReport.getFastestGrowingStorages().get(0).getStorageClass(), equalTo(OtherGrowingStorage.class));
+        assertThat(memoryReport.getFastestGrowingStorages().get(0).getGrowthInBytes(), equalTo(100L));
+        assertThat(memoryReport.getFastestGrowingStorages().get(1).getGrowthInBytes(), equalTo(10L));
+        assertThat(memoryReport.getUnsizedStorageClasses(), contains(UnsizedStorage.class));
+    }
+
+    @Test
+    void abortingListenerThrowsExceptionWithReport() {
+        // Given
+        var storage = new GrowingStorage();
+        var tracker = MemoryBudget.abortWhenExceeded(100).createTracker(createContainer(storage));
+
+        // When
+        storage.sizeInBytes = 101;
+        MemoryBudgetExceededException exception = assertThrows(MemoryBudgetExceededException.class, tracker::check);
+
+        // Then
+        assertThat(exception.getMemoryReport().getTotalSizeInBytes(), equalTo(101L));
+        assertThat(exception.getMessage(), containsString(GrowingStorage.class.getName() + ": 101 bytes (+101 bytes)"));
+    }
+
+    @Test
+    void sizeEstimatorIsUsedForStoragesThatAreNotSized() {
+        // Given
+        var storage = new ArrayList<String>(List.of("A", "B"));
+        var memoryBudget = MemoryBudget.abortWhenExceeded(100)
+                .addSizeEstimator(ArrayList.class, list -> 40L * list.size());
+
+        // When
+        MemoryReport memoryReport = memoryBudget.createTracker(createContainer(storage)).check();
+
+        // Then
+        assertThat(memoryReport.getTotalSizeInBytes(), equalTo(80L));
+        assertThat(memoryReport.getUnsizedStorageClasses(), empty());
+    }
+
+    @Test
+    void exceptionIsThrownWhenBudgetIsNotPositive() {
+        assertThrows(FileAnalyserConfigurationException.class, () -> MemoryBudget.abortWhenExceeded(0));
+        assertThrows(FileAnalyserConfigurationException.class, () -> new MemoryBudget(100, 0, memoryReport -> MemoryBudgetAction.ABORT));
+    }
+}
@@ -0,0 +1,110 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+
+class JfrMetricsRecorderTest {
+    private static class Storage {
+    }
+
+    /** Implementation of {@link BlockAnalyser} that is slow for the block "slow". */
+    private static class SlowForSomeBlocks implements BlockAnalyser<String, Storage> {
+        @Override
+        public void processBlock(String block, Storage storage) {
+            if ("slow".equals(block)) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    private static List<RecordedEvent> eventsOfType(List<RecordedEvent> events, Class<?> eventClass) {
+        String name = eventClass.getAnnotation(jdk.jfr.Name.class).value();
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    @Test
+    void eventsAreEmittedDuringRecording(@TempDir Path tempDir) throws Exception {
+        // Given
+        var fileAnalyser = FileAnalyser.of(Arrays.asList("fast", "slow", "fast").iterator())
+                .addBlockAnalyser(new SlowForSomeBlocks())
+                .addStorageInstance(new Storage())
+                .setSlowProcessBlockThreshold(Duration.ofMillis(10));
+        Path recordingFile = tempDir.resolve("recording.jfr");
+
+        // When
+        try (Recording recording = new Recording()) {
+            recording.enable(PlanCreatedEvent.class);
+            recording.enable(RunEvent.class);
+            recording.enable(SlowProcessBlockEvent.class);
+            recording.start();
+            fileAnalyser.execute();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+        // Then
+        assertThat(eventsOfType(events, PlanCreatedEvent.class), hasSize(1));
+        List<RecordedEvent> runEvents = eventsOfType(events, RunEvent.class);
+        assertThat(runEvents, hasSize(1));
+        assertThat(runEvents.get(0).getLong("blockCount"), equalTo(3L));
+        List<RecordedEvent> slowEvents = eventsOfType(events, SlowProcessBlockEvent.class);
+        assertThat(slowEvents, hasSize(1));
+        assertThat(slowEvents.get(0).<RecordedClass>getValue("blockAnalyserClass").getName(), equalTo(SlowForSomeBlocks.class.getName()));
+        assertThat(slowEvents.get(0).<RecordedClass>getValue("storageClass").getName(), equalTo(Storage.class.getName()));
+    }
+
+    @Test
+    void listenersAreNotNotifiedIfMetricsAreNotEnabled() {
+        // Given
+        List<FileAnalyserMetrics> notifiedMetrics = new ArrayList<>();
+        var fileAnalyser = FileAnalyser.of(Arrays.asList("fast", "fast").iterator())
+                .addBlockAnalyser(new SlowForSomeBlocks())
+                .addStorageInstance(new Storage())
+                .addMetricsListener(notifiedMetrics::add);
+
+        // When
+        try (Recording recording = new Recording()) {
+            recording.enable(RunEvent.class);
+            recording.start();
+            fileAnalyser.execute();
+            recording.stop();
+        }
+
+        // Then
+        assertThat(notifiedMetrics, empty());
+    }
+
+    @Test
+    void noEventIsEnabledWithoutRecording() {
+        // When and then
+        assertThat(JfrMetricsRecorder.isAnyEventEnabled(), equalTo(false));
+    }
+}
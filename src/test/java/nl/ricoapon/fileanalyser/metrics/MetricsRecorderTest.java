@@ -0,0 +1,119 @@
+package nl.ricoapon.fileanalyser.metrics;
+
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MetricsRecorderTest {
+    private static class Storage {
+        public int count;
+    }
+
+    /** Implementation of {@link BlockAnalyser} that only accepts even numbers. */
+    private static class EvenNumberCounter implements BlockAnalyser<Integer, Storage> {
+        @Override
+        public boolean shouldProcessBlock(Integer block, Storage storage) {
+            return block % 2 == 0;
+        }
+
+        @Override
+        public void processBlock(Integer block, Storage storage) {
+            storage.count++;
+        }
+
+        @Override
+        public Class<Storage> getStorageClass() {
+            return Storage.class;
+        }
+    }
+
+    private static List<Integer> numbers(int n) {
+        return IntStream.range(0, n).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    void invocationsAndAcceptedBlocksAreCounted() {
+        // Given
+        List<FileAnalyserMetrics> notifiedMetrics = new ArrayList<>();
+        var fileAnalyser = FileAnalyser.of(numbers(10).iterator())
+                .addBlockAnalyser(new EvenNumberCounter())
+                .addStorageInstance(new Storage())
+                .enableMetrics(4)
+                .addMetricsListener(notifiedMetrics::add);
+
+        // When
+        var result = fileAnalyser.executeWithMetrics();
+
+        // Then
+        assertThat(result.getStorage(Storage.class).count, equalTo(5));
+        assertThat(notifiedMetrics, contains(sameInstance(result.getMetrics())));
+        assertThat(result.getMetrics().getBlockCount(), equalTo(10L));
+        BlockAnalyserMetrics metrics = result.getMetrics().getBlockAnalyserMetrics().get(0);
+        assertThat(metrics.getBlockAnalyserClass(), equalTo(EvenNumberCounter.class));
+        assertThat(metrics.getInvocations(), equalTo(10L));
+        assertThat(metrics.getAcceptedBlocks(), equalTo(5L));
+        assertThat(metrics.getRejectedBlocks(), equalTo(5L));
+        assertThat(metrics.getAcceptRatio(), equalTo(0.5));
+        // Of the 5 accepted blocks, the first and the fifth are timed.
+        assertThat(metrics.getSampledCalls(), equalTo(2L));
+    }
+
+    @Test
+    void processingTimeIsExtrapolatedFromSampledCalls() {
+        // Given
+        var recorder = new MetricsRecorder(Collections.singletonList(new EvenNumberCounter()), 2);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            if (recorder.shouldTime(0)) {
+                recorder.recordProcessingTime(0, 100);
+            }
+        }
+        var metrics = recorder.toMetrics(1000).getBlockAnalyserMetrics().get(0);
+
+        // Then
+        assertThat(metrics.getSampledCalls(), equalTo(2L));
+        assertThat(metrics.getEstimatedProcessingNanos(), equalTo(400L));
+        assertThat(metrics.getMaxNanos(), equalTo(100L));
+    }
+
+    @Test
+    void percentilesAreAccurateWithinBucketSize() {
+        // Given
+        var histogram = new TimingHistogram();
+
+        // When
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        // Then
+        assertThat(histogram.percentile(50), allOf(greaterThanOrEqualTo(500_000L), lessThanOrEqualTo(500_000L * 9 / 8)));
+        assertThat(histogram.percentile(99), allOf(greaterThanOrEqualTo(990_000L), lessThanOrEqualTo(1_000_000L)));
+        assertThat(histogram.percentile(100), equalTo(1_000_000L));
+        assertThat(new TimingHistogram().percentile(50), equalTo(0L));
+    }
+
+    @Test
+    void timingSampleIntervalMustBePositive() {
+        // When and then
+        assertThrows(FileAnalyserConfigurationException.class, () -> new MetricsRecorder(Collections.emptyList(), 0));
+        assertThrows(FileAnalyserConfigurationException.class, () -> FileAnalyser.of(numbers(1).iterator()).enableMetrics(0));
+    }
+}
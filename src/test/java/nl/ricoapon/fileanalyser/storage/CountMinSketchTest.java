@@ -0,0 +1,80 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+class CountMinSketchTest {
+    private static List<String> keysOf(List<Map.Entry<String, Long>> heavyHitters) {
+        return heavyHitters.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    /** Adds "heavy0" 1000 times, "heavy1" 900 times and "heavy2" 800 times, among 10000 items that occur once. */
+    private static void addItems(CountMinSketch countMinSketch, int offset) {
+        for (int i = 0; i < 10_000; i++) {
+            countMinSketch.add("item" + (i + offset));
+            if (i % 10 == 0) {
+                countMinSketch.add("heavy0");
+            }
+            if (i % 10 == 1 && i % 100 < 90) {
+                countMinSketch.add("heavy1");
+            }
+            if (i % 25 < 2) {
+                countMinSketch.add("heavy2");
+            }
+        }
+    }
+
+    @Test
+    void countsAreNeverUnderestimated() {
+        // Given
+        var countMinSketch = new CountMinSketch(1024, 4, 3);
+
+        // When
+        addItems(countMinSketch, 0);
+
+        // Then
+        assertThat(countMinSketch.estimateCount("heavy0"), greaterThanOrEqualTo(1000L));
+        assertThat(countMinSketch.estimateCount("item5"), greaterThanOrEqualTo(1L));
+        // Error is at most e / width * total count with a high probability.
+        assertThat(countMinSketch.estimateCount("item5"), lessThanOrEqualTo(1L + (long) (Math.E / 1024 * countMinSketch.getTotalCount())));
+        assertThat(countMinSketch.getTotalCount(), equalTo(10_000L + 1000 + 900 + 800));
+    }
+
+    @Test
+    void heavyHittersAreTracked() {
+        // Given
+        var countMinSketch = new CountMinSketch(CountMinSketch.DEFAULT_WIDTH, CountMinSketch.DEFAULT_DEPTH, 3);
+
+        // When
+        addItems(countMinSketch, 0);
+
+        // Then
+        assertThat(keysOf(countMinSketch.getHeavyHitters()), equalTo(List.of("heavy0", "heavy1", "heavy2")));
+    }
+
+    @Test
+    void mergedStorageContainsHeavyHittersOfBoth() {
+        // Given
+        var first = new CountMinSketch(2048, 5, 3);
+        var second = first.createEmpty();
+        addItems(first, 0);
+        addItems(second, 10_000);
+        second.add("heavy2", 2000);
+
+        // When
+        first.merge(second);
+
+        // Then
+        assertThat(keysOf(first.getHeavyHitters()), equalTo(List.of("heavy2", "heavy0", "heavy1")));
+        assertThat(first.estimateCount("heavy0"), greaterThanOrEqualTo(2000L));
+        assertThat(first.getTotalCount(), equalTo(2 * (10_000L + 1000 + 900 + 800) + 2000));
+    }
+}
@@ -0,0 +1,73 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HyperLogLogTest {
+    private static class DistinctUsers extends HyperLogLog {
+        private static final long serialVersionUID = 1L;
+
+        DistinctUsers() {
+            super(12);
+        }
+    }
+
+    @Test
+    void distinctValuesAreEstimated() {
+        // Given
+        var hyperLogLog = new HyperLogLog();
+
+        // When
+        for (int i = 0; i < 1_000_000; i++) {
+            hyperLogLog.add("user" + (i % 100_000));
+        }
+
+        // Then
+        assertThat((double) hyperLogLog.estimate(), closeTo(100_000, 100_000 * 3 * hyperLogLog.getRelativeStandardError()));
+    }
+
+    @Test
+    void smallCardinalitiesAreAlmostExact() {
+        // Given
+        var hyperLogLog = new HyperLogLog();
+
+        // When
+        for (long i = 0; i < 100; i++) {
+            hyperLogLog.add(i);
+        }
+
+        // Then
+        assertThat((double) hyperLogLog.estimate(), closeTo(100, 2));
+    }
+
+    @Test
+    void mergedStorageEstimatesTheUnion() {
+        // Given
+        var first = new DistinctUsers();
+        var second = first.createEmpty();
+        for (long i = 0; i < 60_000; i++) {
+            first.add(i);
+            second.add(i + 40_000);
+        }
+
+        // When
+        first.merge(second);
+
+        // Then
+        assertThat(second, instanceOf(DistinctUsers.class));
+        assertThat(second.getPrecision(), equalTo(12));
+        assertThat((double) first.estimate(), closeTo(100_000, 100_000 * 3 * first.getRelativeStandardError()));
+    }
+
+    @Test
+    void storagesWithDifferentPrecisionCannotBeMerged() {
+        assertThrows(FileAnalyserConfigurationException.class, () -> new HyperLogLog(10).merge(new HyperLogLog(11)));
+        assertThrows(FileAnalyserConfigurationException.class, () -> new HyperLogLog(3));
+    }
+}
@@ -0,0 +1,68 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LogHistogramTest {
+    @Test
+    void percentilesAreAccurateWithinThePrecision() {
+        // Given
+        var logHistogram = new LogHistogram();
+
+        // When
+        for (long i = 1; i <= 1_000_000; i++) {
+            logHistogram.record(i);
+        }
+
+        // Then
+        assertThat((double) logHistogram.getValueAtPercentile(50), closeTo(500_000, 500_000 / 128.0));
+        assertThat((double) logHistogram.getValueAtPercentile(99), closeTo(990_000, 990_000 / 128.0));
+        assertThat(logHistogram.getValueAtPercentile(100), equalTo(1_000_000L));
+        assertThat(logHistogram.getValueAtPercentile(0), equalTo(1L));
+        assertThat(logHistogram.getMean(), equalTo(500_000.5));
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        // Given
+        var logHistogram = new LogHistogram(0);
+
+        // When
+        logHistogram.record(0);
+        logHistogram.record(1, 2);
+        logHistogram.record(Long.MAX_VALUE);
+
+        // Then
+        assertThat(logHistogram.getValueAtPercentile(25), equalTo(0L));
+        assertThat(logHistogram.getValueAtPercentile(50), equalTo(1L));
+        assertThat(logHistogram.getValueAtPercentile(100), equalTo(Long.MAX_VALUE));
+        assertThat(logHistogram.getTotalCount(), equalTo(4L));
+    }
+
+    @Test
+    void mergedStorageContainsValuesOfBoth() {
+        // Given
+        var first = new LogHistogram(3);
+        var second = first.createEmpty();
+        first.record(10);
+        second.record(1000);
+
+        // When
+        first.merge(second);
+
+        // Then
+        assertThat(first.getMin(), equalTo(10L));
+        assertThat(first.getMax(), equalTo(1000L));
+        assertThat(first.getTotalCount(), equalTo(2L));
+        assertThat(first.getValueAtPercentile(100), equalTo(1000L));
+    }
+
+    @Test
+    void negativeValuesCannotBeRecorded() {
+        assertThrows(IllegalArgumentException.class, () -> new LogHistogram().record(-1));
+    }
+}
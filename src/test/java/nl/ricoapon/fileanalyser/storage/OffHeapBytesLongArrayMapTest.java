@@ -0,0 +1,112 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OffHeapBytesLongArrayMapTest {
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void valuesAreStoredPerKeyWhileTheTableGrows() throws IOException {
+        // Given
+        try (var map = new OffHeapBytesLongArrayMap(2, OffHeapAllocator.direct(), 4, Long::sum)) {
+
+            // When
+            for (int i = 0; i < 100_000; i++) {
+                byte[] url = bytes("/page/" + (i % 20_000));
+                map.addTo(url, 0, 1);
+                map.addTo(url, 1, i);
+            }
+
+            // Then
+            assertThat(map.size(), equalTo(20_000L));
+            assertThat(map.get(bytes("/page/7"), 0), equalTo(5L));
+            assertThat(map.get(bytes("/page/7"), 1), equalTo(7L + 20_007 + 40_007 + 60_007 + 80_007));
+            assertThat(map.get(bytes("/unknown"), 0), equalTo(0L));
+            assertThat(map.containsKey(bytes("/unknown")), equalTo(false));
+        }
+    }
+
+    @Test
+    void partOfAnArrayCanBeUsedAsKey() throws IOException {
+        // Given
+        try (var map = new OffHeapBytesLongArrayMap(1)) {
+            byte[] line = bytes("GET /index.html 200");
+
+            // When
+            map.addTo(line, 4, 11, 0, 1);
+            map.set(bytes("/index.html"), 0, 10);
+
+            // Then
+            assertThat(map.get(line, 4, 11, 0), equalTo(10L));
+            assertThat(map.size(), equalTo(1L));
+            assertThrows(IndexOutOfBoundsException.class, () -> map.get(line, 4, 11, 1));
+        }
+    }
+
+    @Test
+    void mergedMapCombinesTheValuesOfBothMaps(@TempDir Path tempDir) throws IOException {
+        // Given
+        try (var first = new OffHeapBytesLongArrayMap(2, OffHeapAllocator.mappedFile(tempDir.resolve("map.bin")), 16, Math::max)) {
+            var second = first.createEmpty();
+            first.set(bytes("a"), 0, 5);
+            first.set(bytes("b"), 1, 1);
+            second.set(bytes("b"), 1, 7);
+            second.set(bytes("c"), 0, 3);
+
+            // When
+            first.merge(second);
+
+            // Then
+            List<String> entries = new ArrayList<>();
+            first.forEach((key, values) -> entries.add(new String(key, StandardCharsets.UTF_8) + "=" + values[0] + "," + values[1]));
+            assertThat(entries, equalTo(List.of("a=5,0", "b=0,7", "c=3,0")));
+        }
+    }
+
+    @Test
+    void mapCanBeEncoded() throws IOException {
+        // Given
+        var codec = new JavaSerializationStorageCodec();
+        var outputStream = new ByteArrayOutputStream();
+        try (var map = new OffHeapBytesLongArrayMap(2)) {
+            for (int i = 0; i < 1000; i++) {
+                map.addTo(bytes("/page/" + i), 0, i);
+                map.addTo(bytes("/page/" + i), 1, -i);
+            }
+
+            // When
+            codec.encode(map, outputStream);
+        }
+        try (var decoded = codec.decode(OffHeapBytesLongArrayMap.class, new ByteArrayInputStream(outputStream.toByteArray()))) {
+
+            // Then
+            assertThat(decoded.size(), equalTo(1000L));
+            assertThat(decoded.get(bytes("/page/999"), 0), equalTo(999L));
+            assertThat(decoded.get(bytes("/page/999"), 1), equalTo(-999L));
+            assertThat(decoded.addTo(bytes("/page/0"), 0, 1), equalTo(1L));
+        }
+    }
+
+    @Test
+    void mapsWithDifferentNumberOfValuesCannotBeMerged() throws IOException {
+        try (var first = new OffHeapBytesLongArrayMap(1); var second = new OffHeapBytesLongArrayMap(2)) {
+            assertThrows(FileAnalyserConfigurationException.class, () -> first.merge(second));
+        }
+    }
+}
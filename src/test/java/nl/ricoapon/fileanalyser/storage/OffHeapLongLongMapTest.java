@@ -0,0 +1,116 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+class OffHeapLongLongMapTest {
+    private static class CountsPerUser extends OffHeapLongLongMap {
+        CountsPerUser(OffHeapAllocator allocator) {
+            super(allocator, 4, Long::sum);
+        }
+    }
+
+    @Test
+    void entriesAreStoredWhileTheTableGrows() throws IOException {
+        // Given
+        try (var map = new OffHeapLongLongMap(OffHeapAllocator.direct(), 4, Long::sum)) {
+
+            // When
+            for (long i = -5000; i < 5000; i++) {
+                map.addTo(i, 1);
+                map.addTo(i, i);
+            }
+
+            // Then
+            assertThat(map.size(), equalTo(10_000L));
+            assertThat(map.get(0, -1), equalTo(1L));
+            assertThat(map.get(-5000, -1), equalTo(-4999L));
+            assertThat(map.get(4999, -1), equalTo(5000L));
+            assertThat(map.get(5000, -1), equalTo(-1L));
+            assertThat(map.containsKey(0), equalTo(true));
+            assertThat(map.containsKey(5000), equalTo(false));
+        }
+    }
+
+    @Test
+    void mapCanBeBackedByAFile(@TempDir Path tempDir) throws IOException {
+        // Given
+        Path file = tempDir.resolve("map.bin");
+        try (var map = new CountsPerUser(OffHeapAllocator.mappedFile(file))) {
+
+            // When
+            for (long i = 1; i <= 1000; i++) {
+                map.put(i, i * i);
+            }
+
+            // Then
+            assertThat(map.get(1000, 0), equalTo(1_000_000L));
+            assertThat(Files.size(file) > 1000 * 16, equalTo(true));
+        }
+    }
+
+    @Test
+    void mergedMapCombinesTheValuesOfBothMaps(@TempDir Path tempDir) throws IOException {
+        // Given
+        try (var first = new CountsPerUser(OffHeapAllocator.mappedFile(tempDir.resolve("map.bin")))) {
+            var second = first.createEmpty();
+            first.put(0, 1);
+            first.put(1, 1);
+            second.put(1, 2);
+            second.put(2, 3);
+
+            // When
+            first.merge(second);
+
+            // Then
+            Map<Long, Long> entries = new HashMap<>();
+            first.forEach(entries::put);
+            assertThat(entries, equalTo(Map.of(0L, 1L, 1L, 3L, 2L, 3L)));
+            assertThat(second, instanceOf(CountsPerUser.class));
+            // The temporary file of the merged map is deleted.
+            try (var files = Files.list(tempDir)) {
+                assertThat(files.count(), equalTo(1L));
+            }
+        }
+    }
+
+    @Test
+    void fileBackedMapCanBeEncoded(@TempDir Path tempDir) throws IOException {
+        // Given
+        var codec = new JavaSerializationStorageCodec();
+        var outputStream = new ByteArrayOutputStream();
+        try (var map = new OffHeapLongLongMap(OffHeapAllocator.mappedFile(tempDir.resolve("map.bin")), 4, OffHeapLongLongMap.SUM)) {
+            for (long i = 0; i < 1000; i++) {
+                map.put(i, -i);
+            }
+
+            // When
+            codec.encode(map, outputStream);
+        }
+        try (var decoded = codec.decode(OffHeapLongLongMap.class, new ByteArrayInputStream(outputStream.toByteArray()))) {
+
+            // Then
+            assertThat(decoded.size(), equalTo(1000L));
+            assertThat(decoded.get(0, -1), equalTo(0L));
+            assertThat(decoded.get(999, 0), equalTo(-999L));
+            decoded.merge(0, 5);
+            assertThat(decoded.get(0, -1), equalTo(5L));
+            // The decoded map uses a temporary file next to the original file.
+            try (var files = Files.list(tempDir)) {
+                assertThat(files.count(), equalTo(2L));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package nl.ricoapon.fileanalyser.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+class TDigestTest {
+    @Test
+    void quantilesOfUniformValuesAreEstimated() {
+        // Given
+        var tDigest = new TDigest();
+        var random = new Random(42);
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            tDigest.add(random.nextDouble());
+        }
+
+        // Then
+        assertThat(tDigest.quantile(0.5), closeTo(0.5, 0.01));
+        assertThat(tDigest.quantile(0.99), closeTo(0.99, 0.002));
+        assertThat(tDigest.quantile(0.001), closeTo(0.001, 0.001));
+        assertThat(tDigest.quantile(0), equalTo(tDigest.getMin()));
+        assertThat(tDigest.quantile(1), equalTo(tDigest.getMax()));
+        assertThat(tDigest.getNrOfCentroids(), lessThanOrEqualTo(110));
+    }
+
+    @Test
+    void mergedStorageEstimatesQuantilesOfBoth() {
+        // Given
+        var first = new TDigest(200);
+        var second = first.createEmpty();
+        for (int i = 0; i < 50_000; i++) {
+            first.add(i);
+            second.add(i + 50_000);
+        }
+
+        // When
+        first.merge(second);
+
+        // Then
+        assertThat(first.getTotalWeight(), equalTo(100_000.0));
+        assertThat(first.quantile(0.25), closeTo(25_000, 500));
+        assertThat(first.quantile(0.75), closeTo(75_000, 500));
+        assertThat(first.getMax(), equalTo(99_999.0));
+    }
+
+    @Test
+    void emptyAndSingleValueDigests() {
+        var tDigest = new TDigest();
+        assertThat(Double.isNaN(tDigest.quantile(0.5)), equalTo(true));
+
+        tDigest.add(3);
+        assertThat(tDigest.quantile(0.5), equalTo(3.0));
+    }
+}
@@ -0,0 +1,85 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BlockSamplerTest {
+    private static List<Integer> createBlocks(int nrOfBlocks) {
+        return IntStream.range(0, nrOfBlocks).boxed().collect(Collectors.toList());
+    }
+
+    private static <B> List<B> readAll(SampledBlockSupplier<B> blockSupplier) {
+        List<B> blocks = new ArrayList<>();
+        blockSupplier.forEachRemaining(blocks::add);
+        return blocks;
+    }
+
+    @Test
+    void everyNthBlockIsSelected() {
+        // Given
+        SampledBlockSupplier<Integer> blockSupplier = BlockSampler.<Integer>everyNth(3).sample(createBlocks(10).iterator());
+
+        // When
+        List<Integer> blocks = readAll(blockSupplier);
+
+        // Then
+        assertThat(blocks, contains(2, 5, 8));
+        assertThat(blockSupplier.getSamplingRate(), equalTo(0.3));
+    }
+
+    @Test
+    void bernoulliSampleHasRequestedRateAndIsRepeatable() {
+        // Given
+        BlockSampler<Integer> blockSampler = BlockSampler.bernoulli(0.1, 42);
+
+        // When
+        SampledBlockSupplier<Integer> blockSupplier = blockSampler.sample(createBlocks(100_000).iterator());
+        List<Integer> blocks = readAll(blockSupplier);
+
+        // Then
+        assertThat(blockSupplier.getSamplingRate(), closeTo(0.1, 0.005));
+        assertThat(blocks.size() / 100_000.0, equalTo(blockSupplier.getSamplingRate()));
+        assertThat(readAll(blockSampler.sample(createBlocks(100_000).iterator())), equalTo(blocks));
+    }
+
+    @Test
+    void bernoulliSampleWithRateOneSelectsAllBlocks() {
+        assertThat(readAll(BlockSampler.<Integer>bernoulli(1, 42).sample(createBlocks(5).iterator())), contains(0, 1, 2, 3, 4));
+    }
+
+    @Test
+    void recycledBlocksCanBeDetachedByTheSampledSupplier() {
+        // Given
+        int[] value = new int[1];
+        var recycledBlockSupplier = new RecycledBlockSupplier<int[]>(block -> {
+            block[0] = value[0]++;
+            return value[0] <= 6;
+        }, () -> new int[1], int[]::clone, 1);
+
+        // When
+        SampledBlockSupplier<int[]> blockSupplier = BlockSampler.<int[]>everyNth(2).sample(recycledBlockSupplier);
+        List<int[]> blocks = new ArrayList<>();
+        blockSupplier.forEachRemaining(block -> blocks.add(recycledBlockSupplier.detach(block)));
+
+        // Then
+        assertThat(blocks.stream().map(block -> block[0]).collect(Collectors.toList()), contains(1, 3, 5));
+    }
+
+    @Test
+    void exceptionIsThrownForInvalidConfiguration() {
+        assertThrows(FileAnalyserConfigurationException.class, () -> BlockSampler.bernoulli(0, 42));
+        assertThrows(FileAnalyserConfigurationException.class, () -> BlockSampler.bernoulli(1.5, 42));
+        assertThrows(FileAnalyserConfigurationException.class, () -> BlockSampler.everyNth(0));
+    }
+}
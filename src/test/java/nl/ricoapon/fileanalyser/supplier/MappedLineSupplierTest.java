@@ -0,0 +1,139 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedLineSupplierTest {
+    @TempDir
+    Path tempDir;
+
+    private Path createFile(String content) throws IOException {
+        Path file = tempDir.resolve("input.txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> readAll(MappedLineSupplier mappedLineSupplier) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (mappedLineSupplier) {
+            mappedLineSupplier.forEachRemaining(line -> lines.add(line.toString()));
+        }
+        return lines;
+    }
+
+    @Test
+    void linesAreSplitOnNewLines() throws IOException {
+        // Given
+        Path file = createFile("first\r\n\nthird line\nlast");
+
+        // When
+        List<String> lines = readAll(new MappedLineSupplier(file));
+
+        // Then
+        assertThat(lines, contains("first", "", "third line", "last"));
+    }
+
+    @Test
+    void emptyFileHasNoLines() throws IOException {
+        assertThat(readAll(new MappedLineSupplier(createFile(""))), empty());
+        assertThat(readAll(new MappedLineSupplier(createFile("\n"))), contains(""));
+    }
+
+    @Test
+    void linesLongerThanTheWindowAreSupported() throws IOException {
+        // Given
+        String longLine = "x".repeat(100);
+        Path file = createFile("a\n" + longLine + "\nbcdefghijklmnop\n" + longLine);
+
+        // When
+        List<String> lines = readAll(new MappedLineSupplier(file, 0, Long.MAX_VALUE, StandardCharsets.UTF_8, 3));
+
+        // Then
+        assertThat(lines, contains("a", longLine, "bcdefghijklmnop", longLine));
+    }
+
+    @Test
+    void onlyLinesInRangeAreSupplied() throws IOException {
+        // Given
+        Path file = createFile("aa\nbb\ncc\n");
+
+        // When
+        var mappedLineSupplier = new MappedLineSupplier(file, 3, 6, StandardCharsets.UTF_8, 16);
+        List<String> lines = readAll(mappedLineSupplier);
+
+        // Then
+        assertThat(lines, contains("bb"));
+        assertThat(mappedLineSupplier.getPosition(), equalTo(6L));
+    }
+
+    @Test
+    void lineCanBeUsedAsCharSequenceWithoutCopying() throws IOException {
+        // Given
+        Path file = createFile("START caf\u00e9\n");
+
+        // When
+        try (var mappedLineSupplier = new MappedLineSupplier(file)) {
+            ByteLine line = mappedLineSupplier.next();
+
+            // Then
+            assertThat(line.startsWith("START"), equalTo(true));
+            assertThat(line.startsWith("END"), equalTo(false));
+            assertThat(line.charAt(1), equalTo('T'));
+            assertThat(line.subSequence(0, 5).toString(), equalTo("START"));
+            assertThat(line.toString(), equalTo("START caf\u00e9"));
+            assertThat(line.length(), equalTo("START caf\u00e9".getBytes(StandardCharsets.UTF_8).length));
+        }
+    }
+
+    @Test
+    void poisonedLineCannotBeUsedAfterNextLineIsRead() throws IOException {
+        // Given
+        Path file = createFile("first\nsecond\n");
+
+        // When
+        try (var mappedLineSupplier = new MappedLineSupplier(file).enablePoisoning()) {
+            ByteLine first = mappedLineSupplier.next();
+            ByteLine detached = mappedLineSupplier.detach(first);
+            CharSequence subSequence = first.subSequence(1, 3).subSequence(0, 1);
+            mappedLineSupplier.next();
+
+            // Then
+            assertThrows(IllegalStateException.class, first::toString);
+            assertThrows(IllegalStateException.class, subSequence::toString);
+            assertThat(detached.toString(), equalTo("first"));
+        }
+    }
+
+    @Test
+    void positionIsNotChangedByHasNextAndCanBeSought() throws IOException {
+        // Given
+        Path file = createFile("aa\nbb\ncc");
+
+        // When
+        try (var mappedLineSupplier = new MappedLineSupplier(file)) {
+            mappedLineSupplier.next();
+            mappedLineSupplier.hasNext();
+            long position = mappedLineSupplier.getPosition();
+            mappedLineSupplier.next();
+            mappedLineSupplier.seek(position);
+
+            // Then
+            assertThat(position, equalTo(3L));
+            assertThat(readAll(mappedLineSupplier), contains("bb", "cc"));
+            assertThat(mappedLineSupplier.getPosition(), equalTo(8L));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BatchBlockAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.execution.ChunkedParallelExecutionStrategy;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserConfigurationException;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserPlan;
+import nl.ricoapon.fileanalyser.internal.StorageInstanceContainer;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecycledBlockSupplierTest {
+    private static class MutableBlock {
+        public int value;
+    }
+
+    /** Storage that needs to be public, because it is instantiated using reflection. */
+    public static class Values implements MergeableStorage<Values> {
+        public final List<Integer> values = new ArrayList<>();
+
+        @Override
+        public void merge(Values other) {
+            values.addAll(other.values);
+        }
+    }
+
+    private static class CollectValuesOfBatch implements BatchBlockAnalyser<MutableBlock, Values> {
+        @Override
+        public void processBatch(List<MutableBlock> blocks, Values storage) {
+            blocks.forEach(block -> storage.values.add(block.value));
+        }
+
+        @Override
+        public Class<Values> getStorageClass() {
+            return Values.class;
+        }
+    }
+
+    private static class CollectValues implements BlockAnalyser<MutableBlock, Values> {
+        @Override
+        public void processBlock(MutableBlock block, Values storage) {
+            storage.values.add(block.value);
+        }
+
+        @Override
+        public Class<Values> getStorageClass() {
+            return Values.class;
+        }
+    }
+
+    /**
+     * @param nrOfBlocks The number of blocks.
+     * @param poolSize   The pool size.
+     * @return Supplier of blocks with values 0 to {@code nrOfBlocks} (exclusive).
+     */
+    private static RecycledBlockSupplier<MutableBlock> createBlockSupplier(int nrOfBlocks, int poolSize) {
+        int[] nextValue = new int[1];
+        BlockReader<MutableBlock> blockReader = block -> {
+            if (nextValue[0] == nrOfBlocks) {
+                return false;
+            }
+            block.value = nextValue[0]++;
+            return true;
+        };
+        return new RecycledBlockSupplier<>(blockReader, MutableBlock::new, block -> {
+            var copy = new MutableBlock();
+            copy.value = block.value;
+            return copy;
+        }, poolSize);
+    }
+
+    @Test
+    void blocksAreReusedInTurn() {
+        // Given
+        var blockSupplier = createBlockSupplier(4, 2);
+
+        // When
+        var first = blockSupplier.next();
+        var second = blockSupplier.next();
+        var third = blockSupplier.next();
+
+        // Then
+        assertThat(second, not(sameInstance(first)));
+        assertThat(third, sameInstance(first));
+        assertThat(third.value, equalTo(2));
+        assertThat(blockSupplier.detach(third), not(sameInstance(third)));
+    }
+
+    @Test
+    void poisoningRevealsKeptBlocks() {
+        // Given
+        var blockSupplier = createBlockSupplier(3, 1).enablePoisoning(block -> block.value = -1);
+
+        // When
+        var first = blockSupplier.next();
+        var second = blockSupplier.next();
+
+        // Then
+        assertThat(first.value, equalTo(-1));
+        assertThat(second.value, equalTo(1));
+    }
+
+    @Test
+    void recycledBlocksAreDetachedByChunkedExecution() {
+        // Given
+        var storage = new Values();
+        var blockSupplier = createBlockSupplier(100, 1);
+        var plan = new FileAnalyserPlan<>(Collections.singletonList(new CollectValues()),
+                new StorageInstanceContainer(Collections.singletonList(storage)))
+                .withRecycledBlocks(blockSupplier::detach);
+
+        // When
+        new ChunkedParallelExecutionStrategy<MutableBlock>(new ForkJoinPool(2), 10).execute(blockSupplier, plan);
+
+        // Then
+        assertThat(storage.values, equalTo(IntStream.range(0, 100).boxed().collect(Collectors.toList())));
+    }
+
+    @Test
+    void wrappedRecycledBlocksAreNotOfferedInBatchesWhenSet() {
+        // Given
+        var blockSupplier = createBlockSupplier(100, 1);
+        Iterator<MutableBlock> wrappedBlockSupplier = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return blockSupplier.hasNext();
+            }
+
+            @Override
+            public MutableBlock next() {
+                return blockSupplier.next();
+            }
+        };
+
+        // When
+        var result = FileAnalyser.of(wrappedBlockSupplier)
+                .addBlockAnalyser(new CollectValuesOfBatch())
+                .addStorageClass(Values.class)
+                .setRecycledBlocks(blockSupplier::detach)
+                .execute();
+
+        // Then
+        assertThat(((Values) result.get(Values.class)).values, equalTo(IntStream.range(0, 100).boxed().collect(Collectors.toList())));
+    }
+
+    @Test
+    void poolSizeMustBePositive() {
+        assertThrows(FileAnalyserConfigurationException.class, () -> createBlockSupplier(1, 0));
+    }
+}
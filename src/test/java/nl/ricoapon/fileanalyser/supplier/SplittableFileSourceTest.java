@@ -0,0 +1,134 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.in;
+import static org.hamcrest.Matchers.notNullValue;
+
+class SplittableFileSourceTest {
+    @TempDir
+    Path tempDir;
+
+    private Path createFile(String content) throws IOException {
+        Path file = tempDir.resolve("input.txt");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static List<String> createLines() {
+        return IntStream.range(0, 1000).mapToObj(i -> "line " + i).collect(Collectors.toList());
+    }
+
+    @Test
+    void rangesCoverTheFileAndStartAtLines() throws IOException {
+        // Given
+        List<String> lines = createLines();
+        Path file = createFile(String.join("\n", lines) + "\n");
+        var source = SplittableFileSource.ofLines(file);
+
+        // When
+        List<FileRange> ranges = source.split(7);
+
+        // Then
+        assertThat(ranges.size(), equalTo(7));
+        assertThat(ranges.get(0).getStart(), equalTo(0L));
+        assertThat(ranges.get(6).getEnd(), equalTo(Files.size(file)));
+        List<String> result = new ArrayList<>();
+        for (FileRange range : ranges) {
+            source.iterator(range).forEachRemaining(line -> result.add(line.toString()));
+        }
+        assertThat(result, equalTo(lines));
+    }
+
+    @Test
+    void emptyRangesAreNotReturned() throws IOException {
+        // Given
+        Path file = createFile("a\nb\n");
+
+        // When
+        List<FileRange> ranges = SplittableFileSource.ofLines(file).split(10);
+
+        // Then
+        assertThat(ranges, contains(new FileRange(file, 0, 2), new FileRange(file, 2, 4)));
+    }
+
+    @Test
+    void spliteratorSplitsByBytesAtLines() throws IOException {
+        // Given
+        List<String> lines = createLines();
+        Path file = createFile(String.join("\n", lines));
+        Spliterator<ByteLine> spliterator = SplittableFileSource.ofLines(file).spliterator(100);
+
+        // When
+        Spliterator<ByteLine> prefix = spliterator.trySplit();
+        List<String> result = StreamSupport.stream(spliterator, true).map(ByteLine::toString).collect(Collectors.toList());
+
+        // Then
+        assertThat(prefix, notNullValue());
+        List<String> prefixLines = new ArrayList<>();
+        prefix.forEachRemaining(line -> prefixLines.add(line.toString()));
+        prefixLines.addAll(result);
+        assertThat(prefixLines, equalTo(lines));
+    }
+
+    @Test
+    void customDetectorKeepsMultiLineRecordsTogether() throws IOException {
+        // Given
+        Path file = createFile("#1\na\nb\n#2\nc\n#3\nd\ne\n");
+        RecordBoundaryDetector recordStartsWithHash = (channel, position) -> {
+            long lineStart = RecordBoundaryDetector.newLine().findRecordStart(channel, position);
+            ByteBuffer firstByte = ByteBuffer.allocate(1);
+            while (lineStart < channel.size() && channel.read(firstByte.clear(), lineStart) == 1 && firstByte.get(0) != '#') {
+                lineStart = RecordBoundaryDetector.newLine().findRecordStart(channel, lineStart + 1);
+            }
+            return lineStart;
+        };
+        var source = new SplittableFileSource<>(file, recordStartsWithHash, range -> List.of(range).iterator());
+
+        // When
+        List<FileRange> ranges = source.split(3);
+
+        // Then
+        assertThat(ranges, contains(new FileRange(file, 0, 7), new FileRange(file, 7, 12), new FileRange(file, 12, 19)));
+    }
+
+    @Test
+    void sampleReadsWholeLinesFromRangesSpreadOverTheFile() throws IOException {
+        // Given
+        List<String> lines = createLines();
+        Path file = createFile(String.join("\n", lines) + "\n");
+        var source = SplittableFileSource.ofLines(file);
+
+        // When
+        List<FileRange> ranges = source.sampleRanges(0.1, 100, 42);
+        SampledBlockSupplier<ByteLine> blockSupplier = source.sample(0.1, 100, 42);
+        List<String> sample = new ArrayList<>();
+        blockSupplier.forEachRemaining(line -> sample.add(line.toString()));
+
+        // Then
+        long sampledBytes = ranges.stream().mapToLong(FileRange::size).sum();
+        assertThat(blockSupplier.getSamplingRate(), equalTo((double) sampledBytes / Files.size(file)));
+        assertThat(blockSupplier.getSamplingRate(), closeTo(0.1, 0.02));
+        assertThat(ranges.get(ranges.size() - 1).getEnd() > Files.size(file) * 0.9, equalTo(true));
+        assertThat(sample, everyItem(in(lines)));
+        assertThat(sample.stream().mapToLong(line -> line.length() + 1).sum(), equalTo(sampledBytes));
+    }
+}
@@ -0,0 +1,90 @@
+package nl.ricoapon.fileanalyser.supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+class TailingLineSupplierTest {
+    private static void append(Path file, String content) throws IOException {
+        Files.writeString(file, content, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static TailingLineSupplier createSupplier(Path file, boolean fromEnd) {
+        return new TailingLineSupplier(file, fromEnd, Duration.ofMillis(5), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void linesAreSuppliedAsTheFileGrows(@TempDir Path tempDir) throws IOException {
+        // Given
+        Path file = tempDir.resolve("file.log");
+        append(file, "old\n");
+
+        // When
+        try (var supplier = createSupplier(file, true)) {
+            append(file, "a\r\npar");
+            append(file, "tial\n");
+
+            // Then
+            assertThat(supplier.next(), equalTo("a"));
+            assertThat(supplier.next(), equalTo("partial"));
+        }
+    }
+
+    @Test
+    void truncatedFileIsReadFromTheStart(@TempDir Path tempDir) throws IOException {
+        // Given
+        Path file = tempDir.resolve("file.log");
+        append(file, "aaa\nbbb\n");
+        try (var supplier = createSupplier(file, false)) {
+            supplier.next();
+            supplier.next();
+
+            // When
+            Files.writeString(file, "c\n", StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+
+            // Then
+            assertThat(supplier.next(), equalTo("c"));
+        }
+    }
+
+    @Test
+    void rotatedFileIsReadAfterTheRestOfTheOldFile(@TempDir Path tempDir) throws IOException {
+        // Given
+        Path file = tempDir.resolve("file.log");
+        append(file, "a\n");
+        try (var supplier = createSupplier(file, false)) {
+            supplier.next();
+
+            // When
+            append(file, "b\nlast");
+            Files.move(file, tempDir.resolve("file.log.1"));
+            append(file, "c\n");
+
+            // Then
+            assertThat(supplier.next(), equalTo("b"));
+            assertThat(supplier.next(), equalTo("last"));
+            assertThat(supplier.next(), equalTo("c"));
+        }
+    }
+
+    @Test
+    void closedSupplierHasNoNext(@TempDir Path tempDir) {
+        // Given
+        var supplier = createSupplier(tempDir.resolve("missing.log"), false);
+
+        // When
+        supplier.close();
+
+        // Then
+        assertThat(supplier.hasNext(), equalTo(false));
+    }
+}
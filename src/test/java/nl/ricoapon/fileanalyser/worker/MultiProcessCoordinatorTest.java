@@ -0,0 +1,149 @@
+package nl.ricoapon.fileanalyser.worker;
+
+import nl.ricoapon.fileanalyser.FileAnalyser;
+import nl.ricoapon.fileanalyser.analyser.BlockAnalyser;
+import nl.ricoapon.fileanalyser.internal.FileAnalyserExecutionException;
+import nl.ricoapon.fileanalyser.storage.MergeableStorage;
+import nl.ricoapon.fileanalyser.supplier.ByteLine;
+import nl.ricoapon.fileanalyser.supplier.FileRange;
+import nl.ricoapon.fileanalyser.supplier.SplittableFileSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultiProcessCoordinatorTest {
+    @TempDir
+    Path tempDir;
+
+    /** Storage that needs to be public, because it is instantiated by the worker. */
+    public static class Lines implements MergeableStorage<Lines>, Serializable {
+        private static final long serialVersionUID = 1L;
+        public final List<String> lines = new ArrayList<>();
+
+        @Override
+        public void merge(Lines other) {
+            lines.addAll(other.lines);
+        }
+    }
+
+    private static class CollectLines implements BlockAnalyser<ByteLine, Lines> {
+        @Override
+        public void processBlock(ByteLine block, Lines storage) {
+            storage.lines.add(block.toString());
+        }
+
+        @Override
+        public Class<Lines> getStorageClass() {
+            return Lines.class;
+        }
+    }
+
+    /** Configuration that needs to be public, because it is instantiated by the worker. */
+    public static class CollectLinesConfiguration implements WorkerConfiguration<ByteLine> {
+        @Override
+        public Iterator<ByteLine> createBlockSupplier(FileRange fileRange) {
+            return SplittableFileSource.ofLines(fileRange.getPath()).iterator(fileRange);
+        }
+
+        @Override
+        public void configure(FileAnalyser<ByteLine> fileAnalyser) {
+            fileAnalyser.addBlockAnalyser(new CollectLines()).addStorageInstance(new Lines());
+        }
+    }
+
+    /** Configuration that needs to be public, because it is instantiated by the worker. */
+    public static class FailingConfiguration extends CollectLinesConfiguration {
+        @Override
+        public Iterator<ByteLine> createBlockSupplier(FileRange fileRange) {
+            throw new IllegalStateException("Range " + fileRange.getStart() + " cannot be read.");
+        }
+    }
+
+    /** Configuration that needs to be public, because it is instantiated by the worker. */
+    public static class NonZeroExitConfiguration extends CollectLinesConfiguration {
+        public NonZeroExitConfiguration() {
+            // The worker exits with code 3 after it sent all results.
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> Runtime.getRuntime().halt(3)));
+        }
+    }
+
+    /**
+     * @return Class path with the main and test classes, because the test runner may not put them on the class path of
+     * this JVM.
+     */
+    private static String createClassPath() throws URISyntaxException {
+        return Path.of(WorkerMain.class.getProtectionDomain().getCodeSource().getLocation().toURI()) + File.pathSeparator +
+                Path.of(MultiProcessCoordinatorTest.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    @Test
+    void resultsOfTheWorkersAreMergedInTheOrderOfTheRanges() throws IOException, URISyntaxException {
+        // Given
+        List<String> lines = IntStream.range(0, 200).mapToObj(i -> "line " + i).collect(Collectors.toList());
+        Path file = tempDir.resolve("input.txt");
+        Files.writeString(file, String.join("\n", lines) + "\n", StandardCharsets.UTF_8);
+        var coordinator = new MultiProcessCoordinator(CollectLinesConfiguration.class, 2)
+                .addJvmOptions("-Xmx64m")
+                .setClassPath(createClassPath());
+
+        // When
+        Map<Class<?>, Object> storages = coordinator.execute(SplittableFileSource.ofLines(file).split(5));
+
+        // Then
+        assertThat(((Lines) storages.get(Lines.class)).lines, equalTo(lines));
+    }
+
+    @Test
+    void failureOfAWorkerIsThrown() throws IOException, URISyntaxException {
+        // Given
+        Path file = tempDir.resolve("input.txt");
+        Files.writeString(file, "a\nb\n", StandardCharsets.UTF_8);
+        var coordinator = new MultiProcessCoordinator(FailingConfiguration.class, 1).setClassPath(createClassPath());
+
+        // When
+        var exception = assertThrows(FileAnalyserExecutionException.class,
+                () -> coordinator.execute(MultiProcessCoordinator.wholeFiles(List.of(file))));
+
+        // Then
+        assertThat(exception.getMessage(), containsString("Range 0 cannot be read."));
+    }
+
+    @Test
+    void nonZeroExitCodeOfAWorkerIsThrown() throws IOException, URISyntaxException {
+        // Given
+        Path file = tempDir.resolve("input.txt");
+        Files.writeString(file, "a\nb\n", StandardCharsets.UTF_8);
+        var coordinator = new MultiProcessCoordinator(NonZeroExitConfiguration.class, 1).setClassPath(createClassPath());
+
+        // When
+        var exception = assertThrows(FileAnalyserExecutionException.class,
+                () -> coordinator.execute(MultiProcessCoordinator.wholeFiles(List.of(file))));
+
+        // Then
+        assertThat(exception.getMessage(), containsString("exit code 3"));
+    }
+
+    @Test
+    void noWorkersAreStartedWithoutRanges() {
+        assertThat(new MultiProcessCoordinator(CollectLinesConfiguration.class, 2).execute(List.of()), anEmptyMap());
+    }
+}